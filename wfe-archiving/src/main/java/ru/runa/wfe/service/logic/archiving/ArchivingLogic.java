@@ -35,6 +35,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import ru.runa.wfe.audit.ProcessLog;
 import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.logic.WFCommonLogic;
 import ru.runa.wfe.definition.DefinitionDoesNotExistException;
 import ru.runa.wfe.definition.DefinitionPermission;
@@ -53,6 +54,8 @@ import ru.runa.wfe.service.exceptions.PermissionDeniedException;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.Variable;
+import ru.runa.wfe.var.converter.FileVariableToByteArrayConverter;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
@@ -536,6 +539,7 @@ public class ArchivingLogic extends WFCommonLogic implements ArchivingService {
         }
         src.bulkUpdate("delete from ProcessLog where processId=?", process.getId());
         src.bulkUpdate("delete from Job where process=?", process);
+        replaceFileReferences(process, src);
         src.bulkUpdate("delete from Variable where process=?", process);
         if (toArchive) {
             processDAO.delete(process);
@@ -544,6 +548,22 @@ public class ArchivingLogic extends WFCommonLogic implements ArchivingService {
         }
     }
 
+    /**
+     * Process keeps its id in target database, so file content references are rebuilt from moved variables.
+     */
+    private void replaceFileReferences(Process process, HibernateTemplate src) {
+        if (!SystemProperties.isLocalFileStorageEnabled()) {
+            return;
+        }
+        List<Object> values = Lists.newArrayList();
+        for (Variable<?> variable : getVariables(process, src)) {
+            if (variable.getConverter() instanceof FileVariableToByteArrayConverter) {
+                values.add(variable.getValue());
+            }
+        }
+        LocalFileSystemStorage.replaceReferences(process.getId(), values);
+    }
+
     private List<Process> getSubprocesses(HibernateTemplate template, Process process) {
         List<NodeProcess> nodeProcesses = getNodeProcesses(template, process, null, null, null);
         List<Process> result = Lists.newArrayListWithExpectedSize(nodeProcesses.size());
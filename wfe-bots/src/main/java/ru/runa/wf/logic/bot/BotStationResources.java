@@ -75,6 +75,22 @@ public class BotStationResources {
         }
     }
 
+    public static int getWebServiceMaxConnectionsPerHost() {
+        return RESOURCES.getIntegerProperty("webservice.connection.pool.max.connections.per.host", 20);
+    }
+
+    public static int getWebServiceConnectTimeout() {
+        return RESOURCES.getIntegerProperty("webservice.connection.connect.timeout.milliseconds", 30000);
+    }
+
+    public static int getWebServiceReadTimeout() {
+        return RESOURCES.getIntegerProperty("webservice.connection.read.timeout.milliseconds", 0);
+    }
+
+    public static boolean isDatabaseTaskHandlerSingleTransaction() {
+        return RESOURCES.getBooleanProperty("database.task.handler.single.transaction", false);
+    }
+
     public static String getSystemUsername() {
         return RESOURCES.getStringPropertyNotNull("botstation.system.username");
     }
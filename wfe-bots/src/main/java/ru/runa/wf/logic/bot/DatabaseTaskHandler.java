@@ -28,13 +28,15 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 
-import javax.naming.Context;
 import javax.naming.InitialContext;
+import javax.naming.NamingException;
 import javax.sql.DataSource;
 
 import org.apache.commons.beanutils.PropertyUtils;
 
+import ru.runa.wf.logic.bot.database.StatementCache;
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SQLCommons;
 import ru.runa.wfe.commons.TypeConversionUtil;
@@ -57,14 +59,33 @@ import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.MapVariableProvider;
 
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * @created on 01.04.2005
  * @modifier 22.03.2006 gaidomartin@gmail.com
  */
 public class DatabaseTaskHandler extends TaskHandlerBase {
+    private static final int PARSED_CONFIGURATIONS_CACHE_SIZE = 1000;
+    private static final int BATCH_SIZE = 1000;
+    /**
+     * Parsed configurations with unresolved substitutions from process variables.
+     */
+    private static final LoadingCache<String, DatabaseTask[]> parsedConfigurations = CacheBuilder.newBuilder()
+            .maximumSize(PARSED_CONFIGURATIONS_CACHE_SIZE).build(new CacheLoader<String, DatabaseTask[]>() {
+
+                @Override
+                public DatabaseTask[] load(String configuration) {
+                    return DatabaseTaskXmlParser.parse(configuration, null);
+                }
+            });
 
     @Override
     public Map<String, Object> handle(User user, IVariableProvider variableProvider, WfTask task) throws Exception {
@@ -75,87 +96,203 @@ public class DatabaseTaskHandler extends TaskHandlerBase {
         if (variableProvider.getVariable(DatabaseTask.CURRENT_DATE_VARIABLE_NAME) != null) {
             outputVariables.put(DatabaseTask.CURRENT_DATE_VARIABLE_NAME, new Date());
         }
-        DatabaseTask[] databaseTasks = DatabaseTaskXmlParser.parse(configuration, variableProvider);
+        DatabaseTask[] databaseTasks = getDatabaseTasks(variableProvider);
         executeDatabaseTasks(user, loadVariables(databaseTasks, variableProvider), task, outputVariables, databaseTasks);
         return outputVariables;
     }
 
+    /**
+     * Parsed configuration is taken from cache unless it contains substitutions from process variables.
+     */
+    private DatabaseTask[] getDatabaseTasks(IVariableProvider variableProvider) {
+        DatabaseTask[] databaseTasks;
+        try {
+            databaseTasks = parsedConfigurations.get(configuration);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        for (DatabaseTask databaseTask : databaseTasks) {
+            if (databaseTask.isVariableDependent()) {
+                return DatabaseTaskXmlParser.parse(configuration, variableProvider);
+            }
+        }
+        return databaseTasks;
+    }
+
+    protected DataSource getDataSource(String name) throws NamingException {
+        return (DataSource) new InitialContext().lookup(name);
+    }
+
+    /**
+     * Database tasks with the same data source share connection and its prepared statements. If
+     * {@link BotStationResources#isDatabaseTaskHandlerSingleTransaction()} is set then all tasks are committed or rolled back together in
+     * each data source (unless connection is already enlisted into transaction).
+     */
     private void executeDatabaseTasks(User user, IVariableProvider variableProvider, WfTask task, Map<String, Object> outputVariables,
             DatabaseTask[] databaseTasks) throws Exception {
-        Context context = new InitialContext();
-        for (DatabaseTask databaseTask : databaseTasks) {
-            Connection conn = null;
-            try {
-                DataSource ds = (DataSource) context.lookup(databaseTask.getDatasourceName());
-                conn = ds.getConnection();
-                for (int j = 0; j < databaseTask.getQueriesCount(); j++) {
-                    AbstractQuery query = databaseTask.getQuery(j);
-                    PreparedStatement ps = null;
+        boolean singleTransaction = BotStationResources.isDatabaseTaskHandlerSingleTransaction();
+        Map<String, StatementCache> connections = Maps.newHashMap();
+        List<StatementCache> transactionalConnections = Lists.newArrayList();
+        boolean completed = false;
+        try {
+            for (DatabaseTask databaseTask : databaseTasks) {
+                StatementCache statements = connections.get(databaseTask.getDatasourceName());
+                if (statements == null) {
+                    statements = new StatementCache(getDataSource(databaseTask.getDatasourceName()).getConnection());
+                    connections.put(databaseTask.getDatasourceName(), statements);
+                    if (singleTransaction && statements.getConnection().getAutoCommit()) {
+                        statements.getConnection().setAutoCommit(false);
+                        transactionalConnections.add(statements);
+                    }
+                }
+                if (!executeQueries(user, variableProvider, task, outputVariables, databaseTask, statements)) {
+                    break;
+                }
+            }
+            for (StatementCache statements : transactionalConnections) {
+                statements.getConnection().commit();
+            }
+            completed = true;
+        } finally {
+            for (StatementCache statements : transactionalConnections) {
+                if (!completed) {
                     try {
-                        if (query instanceof Query) {
-                            ps = conn.prepareStatement(query.getSql());
-                        } else if (query instanceof StoredProcedureQuery) {
-                            final CallableStatement cps = conn.prepareCall(query.getSql());
-                            ps = cps;
-                            fillQueryParameters(user, ps, variableProvider, query, task);
-                            cps.executeUpdate();
-                            Map<String, Object> result = extractResultsToProcessVariables(user, variableProvider, new Function<Integer, Object>() {
-                                @Override
-                                public Object apply(Integer input) {
-                                    try {
-                                        return cps.getObject(input);
-                                    } catch (SQLException e) {
-                                        throw new InternalApplicationException(e);
-                                    }
-                                }
-                            }, query);
-                            outputVariables.putAll(result);
-                            return;
-                        } else {
-                            String unknownQueryClassName = query == null ? "null" : query.getClass().getName();
-                            throw new Exception("Unknown query type:" + unknownQueryClassName);
-                        }
-                        fillQueryParameters(user, ps, variableProvider, query, task);
-                        if (ps.execute()) {
-                            final ResultSet resultSet = ps.getResultSet();
-                            boolean first = true;
-                            while (resultSet.next()) {
-                                Map<String, Object> result = extractResultsToProcessVariables(user, variableProvider,
-                                        new Function<Integer, Object>() {
-                                            @Override
-                                            public Object apply(Integer input) {
-                                                try {
-                                                    return resultSet.getObject(input);
-                                                } catch (SQLException e) {
-                                                    throw new InternalApplicationException(e);
-                                                }
+                        statements.getConnection().rollback();
+                    } catch (SQLException e) {
+                        log.warn("Failed to rollback database tasks", e);
+                    }
+                }
+                try {
+                    statements.getConnection().setAutoCommit(true);
+                } catch (SQLException e) {
+                    log.warn("Failed to restore auto commit", e);
+                }
+            }
+            for (StatementCache statements : connections.values()) {
+                statements.close();
+            }
+        }
+    }
+
+    /**
+     * @return false if execution of subsequent database tasks should be stopped
+     */
+    private boolean executeQueries(User user, IVariableProvider variableProvider, WfTask task, Map<String, Object> outputVariables,
+            DatabaseTask databaseTask, StatementCache statements) throws Exception {
+        for (int j = 0; j < databaseTask.getQueriesCount(); j++) {
+            AbstractQuery query = databaseTask.getQuery(j);
+            if (query instanceof Query) {
+                PreparedStatement ps = statements.prepareStatement(query.getSql());
+                int batchSize = getBatchSize(variableProvider, query);
+                if (batchSize != -1) {
+                    executeBatch(user, ps, variableProvider, query, task, batchSize);
+                    continue;
+                }
+                fillQueryParameters(user, ps, variableProvider, query, task);
+                if (ps.execute()) {
+                    final ResultSet resultSet = ps.getResultSet();
+                    try {
+                        boolean first = true;
+                        while (resultSet.next()) {
+                            Map<String, Object> result = extractResultsToProcessVariables(user, variableProvider,
+                                    new Function<Integer, Object>() {
+                                        @Override
+                                        public Object apply(Integer input) {
+                                            try {
+                                                return resultSet.getObject(input);
+                                            } catch (SQLException e) {
+                                                throw new InternalApplicationException(e);
                                             }
-                                        }, query);
-                                if (first) {
-                                    outputVariables.putAll(result);
-                                } else {
-                                    for (Map.Entry<String, Object> entry : result.entrySet()) {
-                                        Object object = outputVariables.get(entry.getKey());
-                                        if (!(object instanceof List)) {
-                                            ArrayList<Object> list = new ArrayList<Object>();
-                                            list.add(object);
-                                            outputVariables.put(entry.getKey(), list);
-                                            object = list;
                                         }
-                                        ((List<Object>) object).add(entry.getValue());
+                                    }, query);
+                            if (first) {
+                                outputVariables.putAll(result);
+                            } else {
+                                for (Map.Entry<String, Object> entry : result.entrySet()) {
+                                    Object object = outputVariables.get(entry.getKey());
+                                    if (!(object instanceof List)) {
+                                        ArrayList<Object> list = new ArrayList<Object>();
+                                        list.add(object);
+                                        outputVariables.put(entry.getKey(), list);
+                                        object = list;
                                     }
+                                    ((List<Object>) object).add(entry.getValue());
                                 }
-                                first = false;
                             }
+                            first = false;
                         }
                     } finally {
-                        SQLCommons.releaseResources(ps);
+                        SQLCommons.releaseResources(resultSet);
+                    }
+                }
+            } else if (query instanceof StoredProcedureQuery) {
+                final CallableStatement cps = statements.prepareCall(query.getSql());
+                fillQueryParameters(user, cps, variableProvider, query, task);
+                cps.executeUpdate();
+                Map<String, Object> result = extractResultsToProcessVariables(user, variableProvider, new Function<Integer, Object>() {
+                    @Override
+                    public Object apply(Integer input) {
+                        try {
+                            return cps.getObject(input);
+                        } catch (SQLException e) {
+                            throw new InternalApplicationException(e);
+                        }
                     }
+                }, query);
+                outputVariables.putAll(result);
+                return false;
+            } else {
+                String unknownQueryClassName = query == null ? "null" : query.getClass().getName();
+                throw new Exception("Unknown query type:" + unknownQueryClassName);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Query without results is executed in batch for each element if some parameters are lists, other parameters are repeated.
+     * 
+     * @return batch size or -1 if query should be executed once
+     */
+    private int getBatchSize(IVariableProvider variableProvider, AbstractQuery query) {
+        if (query.getResultVariableCount() > 0) {
+            return -1;
+        }
+        int batchSize = -1;
+        for (int i = 0; i < query.getParameterCount(); i++) {
+            Object value = variableProvider.getValue(query.getParameter(i).getVariableName());
+            if (value instanceof List) {
+                int size = ((List<?>) value).size();
+                if (batchSize != -1 && batchSize != size) {
+                    throw new InternalApplicationException("List parameters of query '" + query.getSql() + "' have different sizes");
                 }
-            } finally {
-                SQLCommons.releaseResources(conn);
+                batchSize = size;
             }
         }
+        return batchSize;
+    }
+
+    private void executeBatch(User user, PreparedStatement ps, IVariableProvider variableProvider, AbstractQuery query, WfTask task,
+            int batchSize) throws Exception {
+        for (int row = 0; row < batchSize; row++) {
+            for (int i = 0; i < query.getParameterCount(); i++) {
+                Parameter parameter = query.getParameter(i);
+                Object value = getRawVariableValue(variableProvider, task, parameter.getVariableName());
+                if (value instanceof List) {
+                    value = ((List<?>) value).get(row);
+                }
+                ps.setObject(i + 1, convertParameterValue(user, parameter, value));
+            }
+            ps.addBatch();
+            if ((row + 1) % BATCH_SIZE == 0) {
+                ps.executeBatch();
+            }
+        }
+        if (batchSize % BATCH_SIZE != 0) {
+            ps.executeBatch();
+        }
     }
 
     private MapVariableProvider loadVariables(DatabaseTask[] databaseTasks, IVariableProvider variableProvider) {
@@ -233,6 +370,10 @@ public class DatabaseTaskHandler extends TaskHandlerBase {
 
     private Object getVariableValue(User user, IVariableProvider variableProvider, WfTask task, Parameter parameter, String variableName)
             throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        return convertParameterValue(user, parameter, getRawVariableValue(variableProvider, task, variableName));
+    }
+
+    private Object getRawVariableValue(IVariableProvider variableProvider, WfTask task, String variableName) {
         Object value = variableProvider.getValue(variableName);
         if (value == null) {
             if (DatabaseTask.INSTANCE_ID_VARIABLE_NAME.equals(variableName)) {
@@ -242,6 +383,11 @@ public class DatabaseTaskHandler extends TaskHandlerBase {
                 value = new Date();
             }
         }
+        return value;
+    }
+
+    private Object convertParameterValue(User user, Parameter parameter, Object value) throws IllegalAccessException,
+            InvocationTargetException, NoSuchMethodException {
         if (parameter instanceof SwimlaneParameter) {
             Actor actor = TypeConversionUtil.convertToExecutor(value, new DelegateExecutorLoader(user));
             value = PropertyUtils.getProperty(actor, ((SwimlaneParameter) parameter).getFieldName());
@@ -32,7 +32,9 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
@@ -41,6 +43,7 @@ import javax.xml.transform.stream.StreamSource;
 import org.apache.commons.codec.binary.Base64;
 
 import ru.runa.wf.logic.bot.webservice.ErrorResponseProcessingResult;
+import ru.runa.wf.logic.bot.webservice.HttpConnectionPool;
 import ru.runa.wf.logic.bot.webservice.Interaction;
 import ru.runa.wf.logic.bot.webservice.WebServiceTaskHandlerSettings;
 import ru.runa.wf.logic.bot.webservice.WebServiceTaskHandlerXMLParser;
@@ -55,8 +58,14 @@ import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dto.WfVariable;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Web service task handler. Making web requests to web services and receiving
@@ -71,15 +80,38 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
      * {@link ThreadLocal}.
      */
     private static ThreadLocal<WebServiceTaskHandlerXSLTHelper> xsltHelper = new ThreadLocal<WebServiceTaskHandlerXSLTHelper>();
+    private static final int COMPILED_STYLESHEETS_CACHE_SIZE = 1000;
+    /**
+     * Compiled XSLT by stylesheet text, transformers are created for each transformation.
+     */
+    private static final LoadingCache<String, Templates> compiledStylesheets = CacheBuilder.newBuilder()
+            .maximumSize(COMPILED_STYLESHEETS_CACHE_SIZE).build(new CacheLoader<String, Templates>() {
+
+                @Override
+                public Templates load(String stylesheet) throws Exception {
+                    return TransformerFactory.newInstance().newTemplates(
+                            new StreamSource(new ByteArrayInputStream(stylesheet.getBytes(Charsets.UTF_8))));
+                }
+            });
+    private static String requestStylesheet;
 
     /**
      * Web service bot settings.
      */
     private WebServiceTaskHandlerSettings settings;
+    /**
+     * Compiled response XSLT of interactions.
+     */
+    private final Map<Interaction, Templates> responseTemplates = Maps.newHashMap();
 
     @Override
     public void setConfiguration(String configuration) throws Exception {
         settings = WebServiceTaskHandlerXMLParser.read(configuration);
+        for (Interaction interaction : settings.interactions) {
+            if (interaction.responseXSLT != null) {
+                responseTemplates.put(interaction, getCompiledStylesheet(interaction.responseXSLT));
+            }
+        }
     }
 
     @Override
@@ -90,15 +122,24 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
         for (int index = getStartInteraction(user, task); index < settings.interactions.size(); ++index) {
             Interaction interaction = settings.interactions.get(index);
             byte[] soapData = prepareRequest(task, interaction);
-            HttpURLConnection connection = sendRequest(url, soapData);
-            if (connection.getResponseCode() < 200 || connection.getResponseCode() >= 300) {
-                // Something goes wrong
-                if (!onErrorResponse(user, task, connection, interaction)) {
-                    variables.put(SKIP_TASK_COMPLETION_VARIABLE_NAME, Boolean.TRUE);
-                    return variables;
+            HttpURLConnection connection = HttpConnectionPool.getInstance().open(url);
+            boolean responseProcessed = false;
+            boolean proceed = true;
+            try {
+                sendRequest(connection, soapData);
+                if (connection.getResponseCode() < 200 || connection.getResponseCode() >= 300) {
+                    // Something goes wrong
+                    proceed = onErrorResponse(user, task, connection, interaction);
+                } else {
+                    onResponse(task, connection, interaction);
                 }
-            } else {
-                onResponse(task, connection, interaction);
+                responseProcessed = true;
+            } finally {
+                HttpConnectionPool.getInstance().release(connection, responseProcessed);
+            }
+            if (!proceed) {
+                variables.put(SKIP_TASK_COMPLETION_VARIABLE_NAME, Boolean.TRUE);
+                return variables;
             }
         }
         xsltHelper.get().mergeVariablesIn(variables);
@@ -184,9 +225,12 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
      */
     private byte[] prepareRequest(WfTask task, Interaction interaction) throws Exception {
         ByteArrayOutputStream res2 = new ByteArrayOutputStream();
-        Transformer transformer = TransformerFactory.newInstance().newTransformer(
-                new StreamSource(ClassLoaderUtil.getAsStreamNotNull("webServiceTaskHandlerRequest.xslt", getClass())));
-        transformer.transform(new StreamSource(new ByteArrayInputStream(interaction.requestXML.getBytes(settings.encoding))), new StreamResult(res2));
+        if (requestStylesheet == null) {
+            requestStylesheet = new String(ByteStreams.toByteArray(ClassLoaderUtil.getAsStreamNotNull("webServiceTaskHandlerRequest.xslt",
+                    getClass())), Charsets.UTF_8);
+        }
+        StreamSource requestSource = new StreamSource(new ByteArrayInputStream(interaction.requestXML.getBytes(settings.encoding)));
+        getCompiledStylesheet(requestStylesheet).newTransformer().transform(requestSource, new StreamResult(res2));
         byte[] soapData = res2.toByteArray();
         if (settings.isLoggingEnable && log.isDebugEnabled()) {
             log.debug("Web service bot request for task " + task.getId() + " is:\n" + new String(soapData, settings.encoding));
@@ -195,17 +239,31 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
     }
 
     /**
-     * Opens HTTP connection to web service and setup required connection
-     * parameters. Send request to web service.
+     * Returns compiled stylesheet from cache.
      * 
-     * @param url
-     *            URL to open connection.
-     * @param length
-     *            SOAP data length.
-     * @return HTTP connection to communicate with web service.
+     * @param stylesheet
+     *            XSLT text.
+     * @return Thread safe compiled XSLT.
+     */
+    private static Templates getCompiledStylesheet(String stylesheet) {
+        try {
+            return compiledStylesheets.get(stylesheet);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    /**
+     * Setup required connection parameters. Send request to web service.
+     * 
+     * @param connection
+     *            HTTP connection to web service.
+     * @param soapData
+     *            SOAP data.
      */
-    private HttpURLConnection sendRequest(URL url, byte[] soapData) throws Exception {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    private void sendRequest(HttpURLConnection connection, byte[] soapData) throws Exception {
         connection.setRequestProperty("Content-Type", "text/xml; charset=" + settings.encoding);
         if (settings.authBase != null) {
             String auth = Base64.encodeBase64String(settings.authBase.getBytes());
@@ -220,8 +278,7 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
         connection.setDoOutput(true);
         OutputStream os = connection.getOutputStream();
         os.write(soapData);
-        os.flush();
-        return connection;
+        os.close();
     }
 
     /**
@@ -282,10 +339,10 @@ public class WebServiceTaskHandler extends TaskHandlerBase {
             return;
         }
         String response = logResponseAndSetVariable(task, connection, interaction);
-        InputStream inputStream = response == null ? connection.getInputStream() : new ByteArrayInputStream(response.getBytes(settings.encoding));
+        InputStream inputStream = response == null ? connection.getInputStream()
+                : new ByteArrayInputStream(response.getBytes(settings.encoding));
         if (interaction.responseXSLT != null) {
-            Transformer transformer = TransformerFactory.newInstance().newTransformer(
-                    new StreamSource(new ByteArrayInputStream(interaction.responseXSLT.getBytes(settings.encoding))));
+            Transformer transformer = responseTemplates.get(interaction).newTransformer();
             transformer.transform(new StreamSource(inputStream), new StreamResult(ByteStreams.nullOutputStream()));
         }
     }
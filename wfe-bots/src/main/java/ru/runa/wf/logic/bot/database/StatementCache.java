@@ -0,0 +1,77 @@
+package ru.runa.wf.logic.bot.database;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Map;
+
+import ru.runa.wfe.commons.SQLCommons;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Connection with prepared statements cached by SQL. Statements are closed with connection.
+ *
+ * @since 4.3.0
+ */
+public class StatementCache {
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements = Maps.newHashMap();
+    private final Map<String, CallableStatement> calls = Maps.newHashMap();
+
+    public StatementCache(Connection connection) {
+        this.connection = connection;
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * @return new or cached statement with cleared parameters
+     */
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    /**
+     * @return new or cached callable statement with cleared parameters
+     */
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        CallableStatement statement = calls.get(sql);
+        if (statement == null) {
+            statement = connection.prepareCall(sql);
+            calls.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    public int size() {
+        return statements.size() + calls.size();
+    }
+
+    /**
+     * Closes cached statements and connection suppressing any thrown exceptions.
+     */
+    public void close() {
+        for (PreparedStatement statement : statements.values()) {
+            SQLCommons.releaseResources(statement);
+        }
+        for (CallableStatement statement : calls.values()) {
+            SQLCommons.releaseResources(statement);
+        }
+        statements.clear();
+        calls.clear();
+        SQLCommons.releaseResources(connection);
+    }
+}
@@ -0,0 +1,152 @@
+package ru.runa.wf.logic.bot.webservice;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wf.logic.bot.BotStationResources;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Bounded pool of keep-alive HTTP connections to web services. Limits count of simultaneous connections per host and applies timeouts.
+ * Physical connections are reused by {@link HttpURLConnection} keep-alive cache when response is read completely, so each released
+ * connection is drained and closed; connection in unknown state is disconnected. Amount of idle connections kept by JVM is controlled
+ * by <code>http.maxConnections</code> system property.
+ *
+ * @since 4.3.0
+ */
+public class HttpConnectionPool {
+    private static final Log log = LogFactory.getLog(HttpConnectionPool.class);
+    private static final HttpConnectionPool INSTANCE = new HttpConnectionPool(BotStationResources.getWebServiceMaxConnectionsPerHost(),
+            BotStationResources.getWebServiceConnectTimeout(), BotStationResources.getWebServiceReadTimeout());
+    /**
+     * Rest of response larger than this is not drained, connection is closed instead.
+     */
+    private static final int MAX_DRAIN_LENGTH = 64 * 1024;
+    private final ConcurrentMap<String, Semaphore> hostPermits = Maps.newConcurrentMap();
+    /**
+     * Permits acquired for opened connections. Connection URL can change on redirect, so permit is released to host connection was
+     * opened for. {@link HttpURLConnection} does not override equals, so connections are compared by identity.
+     */
+    private final ConcurrentMap<HttpURLConnection, Semaphore> acquiredPermits = Maps.newConcurrentMap();
+    private final int maxConnectionsPerHost;
+    private final int connectTimeout;
+    private final int readTimeout;
+
+    public HttpConnectionPool(int maxConnectionsPerHost, int connectTimeout, int readTimeout) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    public static HttpConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Opens connection to URL waiting for free slot no more than connect timeout. Connection must be released by
+     * {@link #release(HttpURLConnection, boolean)}.
+     */
+    public HttpURLConnection open(URL url) throws IOException {
+        Semaphore permits = getPermits(url);
+        try {
+            if (!permits.tryAcquire(connectTimeout > 0 ? connectTimeout : Long.MAX_VALUE, TimeUnit.MILLISECONDS)) {
+                throw new IOException("All " + maxConnectionsPerHost + " connections to " + getHostKey(url) + " are busy for "
+                        + connectTimeout + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for connection to " + getHostKey(url));
+        }
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setUseCaches(false);
+            acquiredPermits.put(connection, permits);
+            return connection;
+        } catch (IOException e) {
+            permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns connection to pool.
+     *
+     * @param reusable
+     *            whether response was received and underlying connection can be kept alive
+     */
+    public void release(HttpURLConnection connection, boolean reusable) {
+        try {
+            if (!reusable || !drain(connection)) {
+                connection.disconnect();
+            }
+        } finally {
+            Semaphore permits = acquiredPermits.remove(connection);
+            if (permits != null) {
+                permits.release();
+            } else {
+                log.warn("Connection to " + connection.getURL() + " was not opened by pool or is already released");
+            }
+        }
+    }
+
+    private boolean drain(HttpURLConnection connection) {
+        InputStream inputStream;
+        try {
+            inputStream = connection.getInputStream();
+        } catch (IOException e) {
+            inputStream = connection.getErrorStream();
+        }
+        if (inputStream == null) {
+            return true;
+        }
+        try {
+            byte[] buffer = new byte[4096];
+            int drained = 0;
+            int count;
+            while ((count = inputStream.read(buffer)) != -1) {
+                drained += count;
+                if (drained > MAX_DRAIN_LENGTH) {
+                    return false;
+                }
+            }
+            inputStream.close();
+            return true;
+        } catch (IOException e) {
+            // stream was closed by response processing
+            log.debug("Unable to drain response from " + connection.getURL() + ": " + e);
+            return true;
+        }
+    }
+
+    private Semaphore getPermits(URL url) {
+        String key = getHostKey(url);
+        Semaphore permits = hostPermits.get(key);
+        if (permits == null) {
+            Semaphore newPermits = new Semaphore(maxConnectionsPerHost);
+            permits = hostPermits.putIfAbsent(key, newPermits);
+            if (permits == null) {
+                permits = newPermits;
+            }
+        }
+        return permits;
+    }
+
+    private static String getHostKey(URL url) {
+        return url.getProtocol() + "://" + url.getHost() + ":" + (url.getPort() != -1 ? url.getPort() : url.getDefaultPort());
+    }
+}
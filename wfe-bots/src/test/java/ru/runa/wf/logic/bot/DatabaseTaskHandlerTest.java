@@ -0,0 +1,100 @@
+package ru.runa.wf.logic.bot;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wf.logic.bot.database.StatementCache;
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.var.MapVariableProvider;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+public class DatabaseTaskHandlerTest extends Assert {
+    private static final String CONFIGURATION = "<database-tasks xmlns=\"http://runa.ru/xml\"><task datasource=\"test\"><queries>"
+            + "<query sql=\"INSERT INTO ITEMS (ID, NAME, ORDER_ID) VALUES (?, ?, ?)\">"
+            + "<param var=\"ids\"/><param var=\"names\"/><param var=\"orderId\"/></query>"
+            + "<query sql=\"SELECT COUNT(*) FROM ITEMS WHERE ORDER_ID = ?\"><param var=\"orderId\"/><result var=\"count\"/></query>"
+            + "</queries></task></database-tasks>";
+    private JdbcDataSource dataSource;
+    private Connection connection;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + getClass().getSimpleName());
+        // keeps in-memory database until test end
+        connection = dataSource.getConnection();
+        connection.createStatement().execute("CREATE TABLE ITEMS (ID BIGINT PRIMARY KEY, NAME VARCHAR(255), ORDER_ID BIGINT)");
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testBatchInsertFromListVariables() throws Exception {
+        List<Long> ids = Lists.newArrayList();
+        List<String> names = Lists.newArrayList();
+        for (long id = 1; id <= 2500; id++) {
+            ids.add(id);
+            names.add("item " + id);
+        }
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put("ids", ids);
+        variables.put("names", names);
+        variables.put("orderId", 7L);
+        Map<String, Object> result = createHandler().handle(null, new MapVariableProvider(variables), new WfTask());
+        assertEquals(((Number) result.get("count")).intValue(), 2500);
+        variables.put("ids", Lists.newArrayList(2501L));
+        variables.put("names", Lists.newArrayList("item 2501"));
+        result = createHandler().handle(null, new MapVariableProvider(variables), new WfTask());
+        assertEquals(((Number) result.get("count")).intValue(), 2501);
+    }
+
+    @Test(expectedExceptions = InternalApplicationException.class)
+    public void testListsOfDifferentSizes() throws Exception {
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put("ids", Lists.newArrayList(1L, 2L));
+        variables.put("names", Lists.newArrayList("item 1"));
+        variables.put("orderId", 7L);
+        createHandler().handle(null, new MapVariableProvider(variables), new WfTask());
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        StatementCache statements = new StatementCache(dataSource.getConnection());
+        String sql = "SELECT COUNT(*) FROM ITEMS WHERE ORDER_ID = ?";
+        PreparedStatement statement = statements.prepareStatement(sql);
+        assertSame(statements.prepareStatement(sql), statement);
+        assertNotSame(statements.prepareStatement("SELECT COUNT(*) FROM ITEMS"), statement);
+        assertEquals(statements.size(), 2);
+        statements.close();
+        assertTrue(statements.getConnection().isClosed());
+        assertEquals(statements.size(), 0);
+    }
+
+    private DatabaseTaskHandler createHandler() throws Exception {
+        DatabaseTaskHandler handler = new DatabaseTaskHandler() {
+
+            @Override
+            protected DataSource getDataSource(String name) {
+                return dataSource;
+            }
+        };
+        handler.setConfiguration(CONFIGURATION);
+        return handler;
+    }
+}
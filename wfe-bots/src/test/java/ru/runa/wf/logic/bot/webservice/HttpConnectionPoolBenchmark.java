@@ -0,0 +1,159 @@
+package ru.runa.wf.logic.bot.webservice;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares web service bot interaction with XSLT compiled for each request and new connection versus compiled XSLT cache and
+ * {@link HttpConnectionPool} against in-process HTTP stub. Not a unit test, run manually:
+ * <code>HttpConnectionPoolBenchmark [requests] [threads]</code>.
+ */
+public class HttpConnectionPoolBenchmark {
+    private static final String REQUEST = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<getQuote><symbol>RUNA</symbol></getQuote></soap:Body></soap:Envelope>";
+    private static final String RESPONSE = "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+            + "<getQuoteResponse><price>42</price></getQuoteResponse></soap:Body></soap:Envelope>";
+    private static final String RESPONSE_XSLT = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">"
+            + "<xsl:template match=\"/\"><xsl:value-of select=\"//price\"/></xsl:template></xsl:stylesheet>";
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        final Set<Integer> clientPorts = Sets.newConcurrentHashSet();
+        // otherwise delayed ACK stalls each keep-alive response
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 100);
+        server.createContext("/service", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                ByteStreams.toByteArray(exchange.getRequestBody());
+                byte[] response = RESPONSE.getBytes(Charsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/xml; charset=UTF-8");
+                exchange.sendResponseHeaders(200, response.length);
+                exchange.getResponseBody().write(response);
+                exchange.close();
+            }
+        });
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        server.start();
+        URL url = new URL("http://localhost:" + server.getAddress().getPort() + "/service");
+        final byte[] requestStylesheet = ByteStreams.toByteArray(ClassLoaderUtil.getAsStreamNotNull("webServiceTaskHandlerRequest.xslt",
+                HttpConnectionPoolBenchmark.class));
+        try {
+            run("Compiled per request, new connection", url, requests, threads, clientPorts, new WebServiceCall() {
+
+                @Override
+                public void execute(URL url) throws Exception {
+                    byte[] request = transform(TransformerFactory.newInstance().newTemplates(
+                            new StreamSource(new ByteArrayInputStream(requestStylesheet))), REQUEST.getBytes(Charsets.UTF_8));
+                    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                    post(connection, request);
+                    transform(TransformerFactory.newInstance().newTemplates(
+                            new StreamSource(new ByteArrayInputStream(RESPONSE_XSLT.getBytes(Charsets.UTF_8)))), connection.getInputStream());
+                }
+            });
+            final Templates requestTemplates = TransformerFactory.newInstance().newTemplates(
+                    new StreamSource(new ByteArrayInputStream(requestStylesheet)));
+            final Templates responseTemplates = TransformerFactory.newInstance().newTemplates(
+                    new StreamSource(new ByteArrayInputStream(RESPONSE_XSLT.getBytes(Charsets.UTF_8))));
+            final HttpConnectionPool pool = new HttpConnectionPool(threads, 30000, 60000);
+            run("Compiled once, pooled connection", url, requests, threads, clientPorts, new WebServiceCall() {
+
+                @Override
+                public void execute(URL url) throws Exception {
+                    byte[] request = transform(requestTemplates, REQUEST.getBytes(Charsets.UTF_8));
+                    HttpURLConnection connection = pool.open(url);
+                    boolean responseProcessed = false;
+                    try {
+                        post(connection, request);
+                        transform(responseTemplates, connection.getInputStream());
+                        responseProcessed = true;
+                    } finally {
+                        pool.release(connection, responseProcessed);
+                    }
+                }
+            });
+        } finally {
+            server.stop(0);
+            ((ExecutorService) server.getExecutor()).shutdown();
+        }
+    }
+
+    private static void run(String name, final URL url, int requests, int threads, Set<Integer> clientPorts, final WebServiceCall call)
+            throws Exception {
+        clientPorts.clear();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < requests; i++) {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        call.execute(url);
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.HOURS);
+        long time = System.currentTimeMillis() - start;
+        System.out.println(name + ": " + requests * 1000L / Math.max(time, 1) + " requests/s, " + clientPorts.size() + " connections");
+    }
+
+    private static void post(HttpURLConnection connection, byte[] request) throws IOException {
+        connection.setRequestProperty("Content-Type", "text/xml; charset=UTF-8");
+        connection.setRequestProperty("SOAPAction", "\"\"");
+        connection.setFixedLengthStreamingMode(request.length);
+        connection.setDoOutput(true);
+        OutputStream os = connection.getOutputStream();
+        os.write(request);
+        os.close();
+        if (connection.getResponseCode() != 200) {
+            throw new IOException("Unexpected response code " + connection.getResponseCode());
+        }
+    }
+
+    private static byte[] transform(Templates templates, byte[] data) throws Exception {
+        return transform(templates, new ByteArrayInputStream(data));
+    }
+
+    private static byte[] transform(Templates templates, InputStream inputStream) throws Exception {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        templates.newTransformer().transform(new StreamSource(inputStream), new StreamResult(result));
+        return result.toByteArray();
+    }
+
+    private interface WebServiceCall {
+
+        void execute(URL url) throws Exception;
+    }
+}
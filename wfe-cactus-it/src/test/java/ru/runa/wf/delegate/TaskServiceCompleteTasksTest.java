@@ -0,0 +1,118 @@
+package ru.runa.wf.delegate;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.cactus.ServletTestCase;
+
+import ru.runa.wf.service.WfServiceTestHelper;
+import ru.runa.wfe.definition.DefinitionPermission;
+import ru.runa.wfe.security.AuthenticationException;
+import ru.runa.wfe.security.Permission;
+import ru.runa.wfe.service.decl.TaskServiceRemoteWS;
+import ru.runa.wfe.service.delegate.EJB3Delegate;
+import ru.runa.wfe.service.jaxb.TaskCompletion;
+import ru.runa.wfe.service.jaxb.TaskCompletionResult;
+import ru.runa.wfe.task.dto.WfTask;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Batch task completion: chunks, one by one completion of failed chunk and results order.
+ */
+public class TaskServiceCompleteTasksTest extends ServletTestCase {
+    private static final int PROCESSES_COUNT = 3;
+    private WfServiceTestHelper th;
+    private TaskServiceRemoteWS taskService;
+
+    @Override
+    protected void setUp() throws Exception {
+        th = new WfServiceTestHelper(getClass().getName());
+        taskService = new TaskServiceWSDelegate().getTaskService();
+        th.deployValidProcessDefinition(WfServiceTestHelper.SWIMLANE_PROCESS_FILE_NAME);
+        Collection<Permission> permissions = Lists.newArrayList(DefinitionPermission.START_PROCESS, DefinitionPermission.READ_STARTED_PROCESS);
+        th.setPermissionsToAuthorizedPerformerOnDefinitionByName(permissions, WfServiceTestHelper.SWIMLANE_PROCESS_NAME);
+        for (int i = 0; i < PROCESSES_COUNT; i++) {
+            th.getExecutionService().startProcess(th.getAuthorizedPerformerUser(), WfServiceTestHelper.SWIMLANE_PROCESS_NAME, null);
+        }
+        th.addExecutorToGroup(th.getAuthorizedPerformerActor(), th.getBossGroup());
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        th.undeployValidProcessDefinition(WfServiceTestHelper.SWIMLANE_PROCESS_NAME);
+        th.releaseResources();
+        taskService = null;
+        super.tearDown();
+    }
+
+    public void testCompleteTasksWithFailedChunk() throws Exception {
+        List<WfTask> tasks = getMyTasks("evaluating");
+        List<TaskCompletion> completions = Lists.newArrayList(createCompletion(tasks.get(0).getId()), createCompletion(-1L),
+                createCompletion(tasks.get(1).getId()), createCompletion(tasks.get(2).getId()));
+        List<TaskCompletionResult> results = taskService.completeTasksWS(th.getAuthorizedPerformerUser(), completions, 2);
+
+        assertEquals(completions.size(), results.size());
+        for (int i = 0; i < completions.size(); i++) {
+            assertEquals("results order differs from request", completions.get(i).taskId, results.get(i).taskId);
+        }
+        assertTrue(results.get(0).completed);
+        assertNull(results.get(0).error);
+        assertFalse(results.get(1).completed);
+        assertTrue(results.get(1).error, results.get(1).error.contains("TaskDoesNotExistException"));
+        assertTrue(results.get(2).completed);
+        assertTrue(results.get(3).completed);
+        // first task is completed again after rollback of its chunk
+        assertEquals(PROCESSES_COUNT, getMyTasks("treating collegues on cake and pie").size());
+    }
+
+    public void testCompleteTasksWithDefaultChunkSize() throws Exception {
+        List<TaskCompletion> completions = Lists.newArrayList();
+        for (WfTask task : getMyTasks("evaluating")) {
+            completions.add(createCompletion(task.getId()));
+        }
+        List<TaskCompletionResult> results = taskService.completeTasksWS(th.getAuthorizedPerformerUser(), completions, null);
+
+        assertEquals(PROCESSES_COUNT, results.size());
+        for (TaskCompletionResult result : results) {
+            assertTrue(result.error, result.completed);
+        }
+        assertEquals(PROCESSES_COUNT, getMyTasks("treating collegues on cake and pie").size());
+    }
+
+    public void testCompleteTasksByFakeSubject() throws Exception {
+        List<TaskCompletion> completions = Lists.newArrayList(createCompletion(getMyTasks("evaluating").get(0).getId()));
+        try {
+            taskService.completeTasksWS(th.getFakeUser(), completions, null);
+            fail("testCompleteTasksByFakeSubject(), no AuthenticationException");
+        } catch (AuthenticationException e) {
+        }
+    }
+
+    private List<WfTask> getMyTasks(String name) {
+        List<WfTask> tasks = th.getTaskService().getMyTasks(th.getAuthorizedPerformerUser(), th.getTaskBatchPresentation());
+        assertEquals(PROCESSES_COUNT, tasks.size());
+        for (WfTask task : tasks) {
+            assertEquals("state name differs from expected", name, task.getName());
+        }
+        return tasks;
+    }
+
+    private TaskCompletion createCompletion(Long taskId) {
+        TaskCompletion completion = new TaskCompletion();
+        completion.taskId = taskId;
+        return completion;
+    }
+
+    private static class TaskServiceWSDelegate extends EJB3Delegate {
+
+        public TaskServiceWSDelegate() {
+            super("TaskServiceBean", TaskServiceRemoteWS.class);
+        }
+
+        public TaskServiceRemoteWS getTaskService() {
+            return getService();
+        }
+    }
+}
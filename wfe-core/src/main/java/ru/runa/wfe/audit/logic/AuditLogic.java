@@ -17,6 +17,7 @@
  */
 package ru.runa.wfe.audit.logic;
 
+import java.util.Date;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,14 +31,18 @@ import ru.runa.wfe.audit.SystemLog;
 import ru.runa.wfe.audit.dao.ProcessLogDAO;
 import ru.runa.wfe.commons.logic.CommonLogic;
 import ru.runa.wfe.commons.logic.PresentationCompilerHelper;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
+import ru.runa.wfe.commons.metrics.ServiceMetrics;
 import ru.runa.wfe.execution.dao.NodeProcessDAO;
 import ru.runa.wfe.execution.dao.ProcessDAO;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.presentation.hibernate.PresentationConfiguredCompiler;
 import ru.runa.wfe.security.ASystem;
+import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.Permission;
 import ru.runa.wfe.security.SystemPermission;
 import ru.runa.wfe.user.User;
+import ru.runa.wfe.user.logic.ExecutorLogic;
 
 /**
  * Audit logic.
@@ -52,6 +57,8 @@ public class AuditLogic extends CommonLogic {
     private ProcessLogDAO processLogDAO;
     @Autowired
     private NodeProcessDAO nodeProcessDAO;
+    @Autowired
+    private ExecutorLogic executorLogic;
 
     public void login(User user, ASystem system) {
         checkLoginAllowed(user, system);
@@ -115,4 +122,30 @@ public class AuditLogic extends CommonLogic {
         PresentationConfiguredCompiler<SystemLog> compiler = PresentationCompilerHelper.createAllSystemLogsCompiler(user, batchPresentation);
         return compiler.getCount();
     }
+
+    public List<MethodMetrics> getServiceMetrics(User user) {
+        checkAdministrator(user);
+        return ServiceMetrics.getMethodMetrics();
+    }
+
+    public Date getServiceMetricsStartDate(User user) {
+        checkAdministrator(user);
+        return ServiceMetrics.getStartDate();
+    }
+
+    public String dumpServiceMetrics(User user) {
+        checkAdministrator(user);
+        return ServiceMetrics.dump();
+    }
+
+    public void resetServiceMetrics(User user) {
+        checkAdministrator(user);
+        ServiceMetrics.reset();
+    }
+
+    private void checkAdministrator(User user) {
+        if (!executorLogic.isAdministrator(user)) {
+            throw new AuthorizationException(user + " is not Administrator");
+        }
+    }
 }
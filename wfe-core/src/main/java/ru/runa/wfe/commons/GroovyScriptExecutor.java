@@ -2,12 +2,15 @@ package ru.runa.wfe.commons;
 
 import groovy.lang.Binding;
 import groovy.lang.GroovyShell;
+import groovy.lang.Script;
 
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.codehaus.groovy.GroovyExceptionInterface;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.execution.dto.WfProcess;
@@ -20,10 +23,43 @@ import ru.runa.wfe.var.VariableDefinition;
 
 import com.google.common.base.Objects;
 import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public class GroovyScriptExecutor implements IScriptExecutor {
     protected static final Log log = LogFactory.getLog(GroovyScriptExecutor.class);
+    private static final int COMPILED_EXPRESSIONS_CACHE_SIZE = 1000;
+    /**
+     * Compiled classes of evaluated expressions, script instances are created for each evaluation.
+     */
+    private static final LoadingCache<String, Class<? extends Script>> compiledExpressions = CacheBuilder.newBuilder()
+            .maximumSize(COMPILED_EXPRESSIONS_CACHE_SIZE).build(new CacheLoader<String, Class<? extends Script>>() {
+
+                @Override
+                public Class<? extends Script> load(String script) {
+                    return new GroovyShell(ClassLoaderUtil.getExtensionClassLoader()).parse(script).getClass();
+                }
+            });
+
+    /**
+     * Compiles expression for subsequent {@link #evaluateScript(IVariableProvider, String)} calls.
+     */
+    public static void compileExpression(String script) {
+        getCompiledExpression(script);
+    }
+
+    private static Class<? extends Script> getCompiledExpression(String script) {
+        try {
+            return compiledExpressions.get(script);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
 
     @Override
     public Map<String, Object> executeScript(IVariableProvider variableProvider, String script) {
@@ -47,8 +83,7 @@ public class GroovyScriptExecutor implements IScriptExecutor {
         try {
             GroovyScriptBinding binding = createBinding(variableProvider);
             binding.setVariable(GroovyScriptBinding.VARIABLE_PROVIDER_VARIABLE_NAME, variableProvider);
-            GroovyShell shell = new GroovyShell(ClassLoaderUtil.getExtensionClassLoader(), binding);
-            return shell.evaluate(script);
+            return InvokerHelper.createScript(getCompiledExpression(script), binding).run();
         } catch (ValidatorException e) {
             throw e;
         } catch (Exception e) {
@@ -0,0 +1,175 @@
+package ru.runa.wfe.commons;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Sends JMS messages reusing connection, session and per-queue producers for all messages sent in the same transaction; they are closed on
+ * transaction completion. Outside of transaction resources are opened for each send call.
+ *
+ * @since 4.3.0
+ */
+public class JmsProducerPool {
+    private static final Log log = LogFactory.getLog(JmsProducerPool.class);
+    private final ConnectionFactory connectionFactory;
+    private final ConcurrentMap<Transaction, Producers> transactionProducers = Maps.newConcurrentMap();
+
+    public JmsProducerPool(ConnectionFactory connectionFactory) {
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Sends message with given time to live (0 means unlimited).
+     */
+    public <T extends Message> T send(Queue queue, MessageBuilder<T> builder, long ttl) throws JMSException {
+        List<MessageBuilder<T>> builders = Lists.newArrayList();
+        builders.add(builder);
+        return send(queue, builders, ttl).get(0);
+    }
+
+    /**
+     * Sends messages using single session.
+     */
+    public <T extends Message> List<T> send(Queue queue, List<? extends MessageBuilder<T>> builders, long ttl) throws JMSException {
+        Transaction transaction = getActiveTransaction();
+        Producers producers = transaction != null ? getTransactionProducers(transaction) : null;
+        boolean transactionBound = producers != null;
+        if (!transactionBound) {
+            producers = new Producers(connectionFactory);
+        }
+        try {
+            MessageProducer producer = producers.getProducer(queue);
+            List<T> messages = Lists.newArrayListWithCapacity(builders.size());
+            for (MessageBuilder<T> builder : builders) {
+                T message = builder.build(producers.session);
+                producer.send(message, Message.DEFAULT_DELIVERY_MODE, Message.DEFAULT_PRIORITY, ttl);
+                messages.add(message);
+            }
+            return messages;
+        } finally {
+            if (!transactionBound) {
+                producers.close();
+            }
+        }
+    }
+
+    /**
+     * @return number of transactions with open resources
+     */
+    public int getTransactionsCount() {
+        return transactionProducers.size();
+    }
+
+    protected Transaction getActiveTransaction() {
+        try {
+            Transaction transaction = Utils.getTransaction();
+            if (transaction != null && transaction.getStatus() == Status.STATUS_ACTIVE) {
+                return transaction;
+            }
+        } catch (Exception e) {
+            log.debug("Unable to get transaction: " + e);
+        }
+        return null;
+    }
+
+    private Producers getTransactionProducers(final Transaction transaction) throws JMSException {
+        Producers producers = transactionProducers.get(transaction);
+        if (producers != null) {
+            return producers;
+        }
+        producers = new Producers(connectionFactory);
+        final Producers registered = producers;
+        try {
+            transaction.registerSynchronization(new Synchronization() {
+
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    transactionProducers.remove(transaction);
+                    registered.close();
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Unable to bind JMS session to " + transaction + ": " + e);
+            producers.close();
+            return null;
+        }
+        transactionProducers.put(transaction, producers);
+        return producers;
+    }
+
+    /**
+     * Creates message in given session.
+     */
+    public interface MessageBuilder<T extends Message> {
+
+        T build(Session session) throws JMSException;
+    }
+
+    private static class Producers {
+        private final Connection connection;
+        private final Session session;
+        private final Map<Queue, MessageProducer> producers = Maps.newHashMap();
+
+        public Producers(ConnectionFactory connectionFactory) throws JMSException {
+            connection = connectionFactory.createConnection();
+            try {
+                session = connection.createSession(true, Session.SESSION_TRANSACTED);
+            } catch (JMSException e) {
+                close(connection);
+                throw e;
+            }
+        }
+
+        public MessageProducer getProducer(Queue queue) throws JMSException {
+            MessageProducer producer = producers.get(queue);
+            if (producer == null) {
+                producer = session.createProducer(queue);
+                producers.put(queue, producer);
+            }
+            return producer;
+        }
+
+        public void close() {
+            for (MessageProducer producer : producers.values()) {
+                try {
+                    producer.close();
+                } catch (Exception ignore) {
+                }
+            }
+            try {
+                session.close();
+            } catch (Exception ignore) {
+            }
+            close(connection);
+        }
+
+        private static void close(Connection connection) {
+            try {
+                connection.close();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.runa.wfe.commons;
 import java.util.Calendar;
 import java.util.List;
 
+import ru.runa.wfe.definition.par.ProcessArchiveFiles;
 import ru.runa.wfe.execution.logic.IProcessExecutionListener;
 
 import com.google.common.base.Throwables;
@@ -110,6 +111,55 @@ public class SystemProperties {
         return RESOURCES.getIntegerProperty("file.variable.local.storage.enableforfilesgreaterthan", 100000);
     }
 
+    public static int getLocalFileStorageUnreferencedContentTimeoutMinutes() {
+        return RESOURCES.getIntegerProperty("file.variable.local.storage.unreferenced.content.timeout.minutes", 60);
+    }
+
+    public static ProcessArchiveFiles.StorageMode getProcessDefinitionFilesStorage() {
+        String mode = RESOURCES.getStringProperty("process.definition.files.storage", ProcessArchiveFiles.StorageMode.DEPLOYMENT.name());
+        return ProcessArchiveFiles.StorageMode.valueOf(mode.toUpperCase());
+    }
+
+    public static String getProcessDefinitionFilesStoragePath() {
+        return RESOURCES.getStringProperty("process.definition.files.storage.path", IOCommons.getAppServerDirPath() + "/wfe.definitions");
+    }
+
+    /**
+     * Process definition files greater than this size are not held in memory.
+     */
+    public static int getProcessDefinitionFileRetainMaxSize() {
+        return RESOURCES.getIntegerProperty("process.definition.files.retain.max.size", 16384);
+    }
+
+    /**
+     * Maximum approximate size of parsed process definitions cache in bytes, 0 means unbounded.
+     */
+    public static long getProcessDefinitionCacheMaxSize() {
+        return RESOURCES.getLongProperty("process.definition.cache.max.size", 256L * 1024 * 1024);
+    }
+
+    /**
+     * Whether process definition XML is read by streaming (StAX) parser instead of building dom4j document.
+     */
+    public static boolean isProcessDefinitionStreamingParserEnabled() {
+        return RESOURCES.getBooleanProperty("process.definition.streaming.parser.enabled", true);
+    }
+
+    public static boolean isStartupWarmUpEnabled() {
+        return RESOURCES.getBooleanProperty("startup.warmup.enabled", false);
+    }
+
+    public static int getStartupWarmUpThreadsCount() {
+        return RESOURCES.getIntegerProperty("startup.warmup.threads", Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Threads count to evaluate substitution rules on substitution cache build.
+     */
+    public static int getSubstitutionCacheBuildThreadsCount() {
+        return RESOURCES.getIntegerProperty("substitution.cache.build.threads", Runtime.getRuntime().availableProcessors());
+    }
+
     public static String getStrongPasswordsRegexp() {
         return RESOURCES.getStringProperty("strong.passwords.regexp");
     }
@@ -178,6 +228,13 @@ public class SystemProperties {
         return RESOURCES.getStringProperty("escalation.default.hierarchy.loader");
     }
 
+    /**
+     * Whether service methods latency histograms are collected, see {@link ru.runa.wfe.commons.metrics.ServiceMetrics}.
+     */
+    public static boolean isServiceMetricsEnabled() {
+        return RESOURCES.getBooleanProperty("service.metrics.enabled", true);
+    }
+
     public static boolean isTrustedAuthenticationEnabled() {
         return RESOURCES.getBooleanProperty("trusted.authentication.enabled", false);
     }
@@ -222,6 +279,26 @@ public class SystemProperties {
         return RESOURCES.getLongProperty("email.default.timeout.milliseconds", 10000);
     }
 
+    public static int getEmailTransportPoolMaxIdle() {
+        return RESOURCES.getIntegerProperty("email.transport.pool.max.idle", 4);
+    }
+
+    public static int getEmailTransportPoolIdleTimeoutSeconds() {
+        return RESOURCES.getIntegerProperty("email.transport.pool.idle.timeout.seconds", 30);
+    }
+
+    public static int getEmailTransportPoolMaxMessagesPerConnection() {
+        return RESOURCES.getIntegerProperty("email.transport.pool.max.messages.per.connection", 100);
+    }
+
+    public static int getEmailTransportRetryCount() {
+        return RESOURCES.getIntegerProperty("email.transport.retry.count", 3);
+    }
+
+    public static long getEmailTransportRetryBackoffMilliseconds() {
+        return RESOURCES.getLongProperty("email.transport.retry.backoff.milliseconds", 1000);
+    }
+
     public static List<String> getProcessEndHandlers() {
         return RESOURCES.getMultipleStringProperty("process.end.handlers");
     }
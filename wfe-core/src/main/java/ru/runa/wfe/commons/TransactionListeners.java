@@ -40,4 +40,18 @@ public class TransactionListeners {
         listeners.remove();
     }
 
+    /**
+     * Notifies registered listeners about committed transaction and removes them.
+     */
+    public static void onTransactionComplete() {
+        for (ITransactionListener listener : listeners.get()) {
+            try {
+                listener.onTransactionComplete();
+            } catch (Throwable th) {
+                log.error(th);
+            }
+        }
+        reset();
+    }
+
 }
@@ -1,22 +1,22 @@
 package ru.runa.wfe.commons;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import javax.jms.Connection;
 import javax.jms.ConnectionFactory;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.MessageProducer;
 import javax.jms.ObjectMessage;
 import javax.jms.Queue;
 import javax.jms.Session;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import javax.transaction.Status;
+import javax.transaction.Synchronization;
 import javax.transaction.SystemException;
 import javax.transaction.Transaction;
 import javax.transaction.TransactionManager;
@@ -26,6 +26,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.JmsProducerPool.MessageBuilder;
 import ru.runa.wfe.commons.email.EmailConfig;
 import ru.runa.wfe.commons.ftl.ExpressionEvaluator;
 import ru.runa.wfe.var.IVariableProvider;
@@ -40,7 +41,7 @@ public class Utils {
     private static Log log = LogFactory.getLog(Utils.class);
     private static InitialContext initialContext;
     private static TransactionManager transactionManager;
-    private static ConnectionFactory connectionFactory;
+    private static JmsProducerPool producerPool;
     private static Queue bpmMessageQueue;
     private static Queue emailQueue;
 
@@ -82,8 +83,9 @@ public class Utils {
     }
 
     private static synchronized void init() throws JMSException, NamingException {
-        if (connectionFactory == null) {
+        if (producerPool == null) {
             String connectionFactoryJndiName = SystemProperties.getResources().getStringProperty("jndi.jms.connection.factory", "java:/JmsXA");
+            ConnectionFactory connectionFactory;
             try {
                 connectionFactory = (ConnectionFactory) getInitialContext().lookup(connectionFactoryJndiName);
             } catch (Exception e) {
@@ -91,82 +93,63 @@ public class Utils {
             }
             bpmMessageQueue = (Queue) getInitialContext().lookup("queue/bpmMessages");
             emailQueue = (Queue) getInitialContext().lookup("queue/email");
+            producerPool = new JmsProducerPool(connectionFactory);
         }
     }
 
-    private static void releaseJmsSession(Connection connection, Session session, MessageProducer sender) {
-        if (sender != null) {
-            try {
-                sender.close();
-            } catch (Exception ignore) {
-            }
-        }
-        if (session != null) {
-            try {
-                session.close();
-            } catch (Exception ignore) {
-            }
-        }
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (Exception ignore) {
-            }
-        }
-    }
-
-    public static ObjectMessage sendMessage(List<VariableMapping> data, IVariableProvider variableProvider, long ttl) {
-        Connection connection = null;
-        Session session = null;
-        MessageProducer sender = null;
+    public static ObjectMessage sendMessage(final List<VariableMapping> data, final IVariableProvider variableProvider, long ttl) {
         try {
             init();
-            connection = connectionFactory.createConnection();
-            session = connection.createSession(true, Session.SESSION_TRANSACTED);
-            sender = session.createProducer(bpmMessageQueue);
-            HashMap<String, Object> map = new HashMap<String, Object>();
-            for (VariableMapping variableMapping : data) {
-                if (!variableMapping.isPropertySelector()) {
-                    map.put(variableMapping.getMappedName(), variableProvider.getValue(variableMapping.getName()));
-                }
-            }
-            ObjectMessage message = session.createObjectMessage(map);
-            for (VariableMapping variableMapping : data) {
-                if (variableMapping.isPropertySelector()) {
-                    Object value = ExpressionEvaluator.evaluateVariableNotNull(variableProvider, variableMapping.getMappedName());
-                    String stringValue = TypeConversionUtil.convertTo(String.class, value);
-                    message.setStringProperty(variableMapping.getName(), stringValue);
+            ObjectMessage message = producerPool.send(bpmMessageQueue, new MessageBuilder<ObjectMessage>() {
+
+                @Override
+                public ObjectMessage build(Session session) throws JMSException {
+                    HashMap<String, Object> map = new HashMap<String, Object>();
+                    for (VariableMapping variableMapping : data) {
+                        if (!variableMapping.isPropertySelector()) {
+                            map.put(variableMapping.getMappedName(), variableProvider.getValue(variableMapping.getName()));
+                        }
+                    }
+                    ObjectMessage message = session.createObjectMessage(map);
+                    for (VariableMapping variableMapping : data) {
+                        if (variableMapping.isPropertySelector()) {
+                            Object value = ExpressionEvaluator.evaluateVariableNotNull(variableProvider, variableMapping.getMappedName());
+                            String stringValue = TypeConversionUtil.convertTo(String.class, value);
+                            message.setStringProperty(variableMapping.getName(), stringValue);
+                        }
+                    }
+                    return message;
                 }
-            }
-            sender.send(message, Message.DEFAULT_DELIVERY_MODE, Message.DEFAULT_PRIORITY, ttl);
-            sender.close();
+            }, ttl);
             log.info("message sent: " + toString(message, false));
             return message;
         } catch (Exception e) {
             throw Throwables.propagate(e);
-        } finally {
-            releaseJmsSession(connection, session, sender);
         }
     }
 
     public static ObjectMessage sendEmailRequest(EmailConfig config) {
-        Connection connection = null;
-        Session session = null;
-        MessageProducer sender = null;
+        return sendEmailRequests(Lists.newArrayList(config));
+    }
+
+    /**
+     * Sends email requests in single JMS message, they are delivered together through pooled connection.
+     */
+    public static ObjectMessage sendEmailRequests(List<EmailConfig> configs) {
         try {
             init();
-            connection = connectionFactory.createConnection();
-            session = connection.createSession(true, Session.SESSION_TRANSACTED);
-            sender = session.createProducer(emailQueue);
-            ObjectMessage message = session.createObjectMessage(config);
-            sender.send(message);
-            sender.close();
-            log.info("email request sent: " + message);
+            final ArrayList<EmailConfig> batch = Lists.newArrayList(configs);
+            ObjectMessage message = producerPool.send(emailQueue, new MessageBuilder<ObjectMessage>() {
+
+                @Override
+                public ObjectMessage build(Session session) throws JMSException {
+                    return session.createObjectMessage(batch);
+                }
+            }, Message.DEFAULT_TIME_TO_LIVE);
+            log.info("email request sent: " + message + " with " + batch.size() + " email(s)");
             return message;
         } catch (Exception e) {
             throw Throwables.propagate(e);
-        } finally {
-            releaseJmsSession(connection, session, sender);
         }
     }
 
@@ -200,6 +183,39 @@ public class Utils {
         }
     }
 
+    /**
+     * Executes action after commit of current transaction or immediately if there is no transaction. Action is not executed on rollback.
+     */
+    public static void executeAfterCommit(final Runnable action) {
+        Transaction transaction = null;
+        try {
+            transaction = getTransaction();
+        } catch (Exception e) {
+            log.debug("No transaction: " + e);
+        }
+        if (transaction == null) {
+            action.run();
+            return;
+        }
+        try {
+            transaction.registerSynchronization(new Synchronization() {
+
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == Status.STATUS_COMMITTED) {
+                        action.run();
+                    }
+                }
+            });
+        } catch (Exception e) {
+            throw new InternalApplicationException("Unable to register transaction synchronization", e);
+        }
+    }
+
     public static void rollbackTransaction(UserTransaction transaction) {
         int status = -1;
         try {
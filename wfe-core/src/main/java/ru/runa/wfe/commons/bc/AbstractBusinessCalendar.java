@@ -17,9 +17,40 @@ import ru.runa.wfe.commons.SafeIndefiniteLoop;
 
 public abstract class AbstractBusinessCalendar implements BusinessCalendar {
     protected final Log log = LogFactory.getLog(getClass());
+    private volatile WorkingTimeIndex workingTimeIndex;
 
     protected abstract BusinessDay getBusinessDay(Calendar calendar);
 
+    /**
+     * @return days before and after calculated date which are covered by working time index, 0 disables index
+     */
+    protected int getWorkingTimeIndexHorizonDays() {
+        return BusinessCalendarProperties.getWorkingTimeIndexHorizonDays();
+    }
+
+    /**
+     * Drops working time index, must be called by subclasses on business days change.
+     */
+    protected void resetWorkingTimeIndex() {
+        workingTimeIndex = null;
+    }
+
+    /**
+     * @return index covering given date or <code>null</code> if it is disabled or there is no working time in calendar
+     */
+    private WorkingTimeIndex getWorkingTimeIndex(Calendar calendar) {
+        int horizonDays = getWorkingTimeIndexHorizonDays();
+        if (horizonDays <= 0) {
+            return null;
+        }
+        WorkingTimeIndex index = workingTimeIndex;
+        if (index == null || !index.contains(calendar)) {
+            index = new WorkingTimeIndex(this, calendar, horizonDays);
+            workingTimeIndex = index;
+        }
+        return index.hasWorkingTime() ? index : null;
+    }
+
     @Override
     public boolean isHoliday(Calendar calendar) {
         BusinessDay businessDay = getBusinessDay(calendar);
@@ -60,6 +91,13 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime) {
+                        // calendar is at the start of day, skipping days which are fully consumed
+                        WorkingTimeIndex index = getWorkingTimeIndex(calendar);
+                        if (index != null) {
+                            amount -= index.skipMinutesForward(calendar, amount);
+                        }
+                    }
                     BusinessDay businessDay = getBusinessDay(calendar);
                     for (CalendarInterval interval : businessDay.getWorkingIntervals()) {
                         if (CalendarUtil.compareTime(calendar, interval.getFrom()) <= 0) {
@@ -100,6 +138,13 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime) {
+                        // calendar is at the end of day, skipping days which are fully consumed
+                        WorkingTimeIndex index = getWorkingTimeIndex(calendar);
+                        if (index != null) {
+                            amount += index.skipMinutesBackward(calendar, -amount);
+                        }
+                    }
                     BusinessDay businessDay = getBusinessDay(calendar);
                     List<CalendarInterval> workingIntervals = businessDay.getWorkingIntervals();
                     Collections.reverse(workingIntervals);
@@ -153,6 +198,12 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime) {
+                        WorkingTimeIndex index = getWorkingTimeIndex(calendar);
+                        if (index != null) {
+                            amount -= index.skipWorkingDaysForward(calendar, amount);
+                        }
+                    }
                     calendar.add(Calendar.DAY_OF_YEAR, 1);
                     BusinessDay businessDay = getBusinessDay(calendar);
                     if (!businessDay.isHoliday()) {
@@ -191,6 +242,12 @@ public abstract class AbstractBusinessCalendar implements BusinessCalendar {
 
                 @Override
                 protected void doOp() {
+                    if (!resetTime) {
+                        WorkingTimeIndex index = getWorkingTimeIndex(calendar);
+                        if (index != null) {
+                            amount += index.skipWorkingDaysBackward(calendar, -amount);
+                        }
+                    }
                     calendar.add(Calendar.DAY_OF_YEAR, -1);
                     BusinessDay businessDay = getBusinessDay(calendar);
                     if (!businessDay.isHoliday()) {
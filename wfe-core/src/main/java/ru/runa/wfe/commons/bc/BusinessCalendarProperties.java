@@ -33,6 +33,13 @@ public class BusinessCalendarProperties {
         return RESOURCES.getIntegerProperty("business.year.expressed.in.business.days", 220);
     }
 
+    /**
+     * Days before and after calculated date for which working time is precomputed, 0 disables precomputation.
+     */
+    public static int getWorkingTimeIndexHorizonDays() {
+        return RESOURCES.getIntegerProperty("working.time.index.horizon.days", 731);
+    }
+
     public static String getWeekWorkingTime(int weekDay) {
         String dayName;
         switch (weekDay) {
@@ -0,0 +1,155 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+
+import ru.runa.wfe.commons.CalendarInterval;
+import ru.runa.wfe.commons.CalendarUtil;
+
+/**
+ * Cumulative working minutes and working days of business calendar over days range. Allows to skip whole days in business duration
+ * arithmetic with binary search instead of walking day by day.
+ *
+ * @since 4.3.0
+ */
+class WorkingTimeIndex {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long MILLIS_IN_DAY = 24L * 60 * 60 * 1000;
+    private final long firstDay;
+    /**
+     * Working minutes of days before day with given index, has days count + 1 elements.
+     */
+    private final int[] cumulativeMinutes;
+    /**
+     * Working days before day with given index, has days count + 1 elements.
+     */
+    private final int[] cumulativeWorkingDays;
+
+    /**
+     * Builds index for days in [day - horizonDays, day + horizonDays].
+     */
+    public WorkingTimeIndex(AbstractBusinessCalendar businessCalendar, Calendar calendar, int horizonDays) {
+        Calendar day = CalendarUtil.getZeroTimeCalendar(calendar);
+        day.add(Calendar.DAY_OF_YEAR, -horizonDays);
+        firstDay = getDay(day);
+        int daysCount = 2 * horizonDays + 1;
+        cumulativeMinutes = new int[daysCount + 1];
+        cumulativeWorkingDays = new int[daysCount + 1];
+        for (int i = 0; i < daysCount; i++) {
+            BusinessDay businessDay = businessCalendar.getBusinessDay(day);
+            int minutes = 0;
+            for (CalendarInterval interval : businessDay.getWorkingIntervals()) {
+                minutes += interval.getLengthInMinutes();
+            }
+            cumulativeMinutes[i + 1] = cumulativeMinutes[i] + minutes;
+            cumulativeWorkingDays[i + 1] = cumulativeWorkingDays[i] + (businessDay.isHoliday() ? 0 : 1);
+            day.add(Calendar.DAY_OF_YEAR, 1);
+        }
+    }
+
+    /**
+     * @return sequential number of calendar day independent of time zone offset changes
+     */
+    static long getDay(Calendar calendar) {
+        Calendar utc = new GregorianCalendar(UTC);
+        utc.clear();
+        utc.set(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH));
+        return utc.getTimeInMillis() / MILLIS_IN_DAY;
+    }
+
+    public boolean contains(Calendar calendar) {
+        long index = getDay(calendar) - firstDay;
+        return index >= 0 && index < cumulativeMinutes.length - 1;
+    }
+
+    public boolean hasWorkingTime() {
+        return cumulativeMinutes[cumulativeMinutes.length - 1] > 0;
+    }
+
+    /**
+     * Moves calendar forward by days starting from current one which working minutes in total are less than given amount.
+     *
+     * @return skipped working minutes
+     */
+    public int skipMinutesForward(Calendar calendar, int minutes) {
+        int index = getIndex(calendar);
+        int days = skipForward(cumulativeMinutes, index, minutes);
+        calendar.add(Calendar.DAY_OF_YEAR, days);
+        return cumulativeMinutes[index + days] - cumulativeMinutes[index];
+    }
+
+    /**
+     * Moves calendar backward by days starting from current one which working minutes in total are less than given amount.
+     *
+     * @return skipped working minutes
+     */
+    public int skipMinutesBackward(Calendar calendar, int minutes) {
+        int index = getIndex(calendar) + 1;
+        int days = skipBackward(cumulativeMinutes, index, minutes);
+        calendar.add(Calendar.DAY_OF_YEAR, -days);
+        return cumulativeMinutes[index] - cumulativeMinutes[index - days];
+    }
+
+    /**
+     * Moves calendar forward by days following current one which contain less working days than given amount.
+     *
+     * @return skipped working days
+     */
+    public int skipWorkingDaysForward(Calendar calendar, int workingDays) {
+        int index = getIndex(calendar) + 1;
+        int days = skipForward(cumulativeWorkingDays, index, workingDays);
+        calendar.add(Calendar.DAY_OF_YEAR, days);
+        return cumulativeWorkingDays[index + days] - cumulativeWorkingDays[index];
+    }
+
+    /**
+     * Moves calendar backward by days preceding current one which contain less working days than given amount.
+     *
+     * @return skipped working days
+     */
+    public int skipWorkingDaysBackward(Calendar calendar, int workingDays) {
+        int index = getIndex(calendar);
+        int days = skipBackward(cumulativeWorkingDays, index, workingDays);
+        calendar.add(Calendar.DAY_OF_YEAR, -days);
+        return cumulativeWorkingDays[index] - cumulativeWorkingDays[index - days];
+    }
+
+    private int getIndex(Calendar calendar) {
+        return (int) (getDay(calendar) - firstDay);
+    }
+
+    /**
+     * @return maximal days count k such that cumulative[from + k] - cumulative[from] < amount
+     */
+    private static int skipForward(int[] cumulative, int from, int amount) {
+        int low = 0;
+        int high = cumulative.length - 1 - from;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (cumulative[from + middle] - cumulative[from] < amount) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return maximal days count k such that cumulative[to] - cumulative[to - k] < amount
+     */
+    private static int skipBackward(int[] cumulative, int to, int amount) {
+        int low = 0;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (cumulative[to] - cumulative[to - middle] < amount) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+}
@@ -126,4 +126,23 @@ public abstract class BaseCacheImpl implements CacheImplementation {
         caches.add(result);
         return result;
     }
+
+    /**
+     * Create cache to store cached values.
+     * 
+     * @param <K>
+     *            Key type.
+     * @param <V>
+     *            Value type.
+     * @param cacheName
+     *            Cache name.
+     * @param evictionListener
+     *            Listener of elements evicted or expired by ehcache.
+     * @return Cache to store cached values.
+     */
+    protected <K extends Serializable, V extends Serializable> Cache<K, V> createCache(String cacheName, CacheEvictionListener<K> evictionListener) {
+        Cache<K, V> result = new CacheStatisticProxy<K, V>(new EhCacheSupport<K, V>(cacheName, evictionListener), cacheName);
+        caches.add(result);
+        return result;
+    }
 }
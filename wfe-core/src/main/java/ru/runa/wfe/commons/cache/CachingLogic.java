@@ -18,6 +18,7 @@
 package ru.runa.wfe.commons.cache;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -42,6 +43,7 @@ import ru.runa.wfe.user.ExecutorGroupMembership;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -51,6 +53,11 @@ public class CachingLogic {
 
     private static boolean enabled = true;
 
+    /**
+     * Classes of objects, changed in current thread while changes recording is active.
+     */
+    private static final ThreadLocal<Set<Class<?>>> recordedChanges = new ThreadLocal<Set<Class<?>>>();
+
     /**
      * Map from {@link Transaction} to change listeners, which must be notified on transaction complete. Then transaction change some objects,
      * affected listeners stored there.
@@ -128,22 +135,46 @@ public class CachingLogic {
             if (!enabled) {
                 return;
             }
-            // TODO move qualification of change listeners to
-            // ChangeListener.getInterestedEntityClasses ?
-            if (entity instanceof Task || entity instanceof Swimlane || entity instanceof Substitution || entity instanceof SubstitutionCriteria
-                    || entity instanceof ExecutorGroupMembership || entity instanceof Actor) {
-                onWriteTransaction(taskListeners, entity, change, currentState, previousState, propertyNames, types);
+            for (Set<ChangeListener> listeners : getChangeListeners(entity.getClass())) {
+                onWriteTransaction(listeners, entity, change, currentState, previousState, propertyNames, types);
             }
-            if (entity instanceof Substitution || entity instanceof SubstitutionCriteria || entity instanceof Actor) {
-                onWriteTransaction(substitutionListeners, entity, change, currentState, previousState, propertyNames, types);
-            }
-            if (entity instanceof Executor || entity instanceof ExecutorGroupMembership) {
-                onWriteTransaction(executorListeners, entity, change, currentState, previousState, propertyNames, types);
-            }
-            if (entity instanceof Deployment) {
-                onWriteTransaction(processDefListeners, entity, change, currentState, previousState, propertyNames, types);
+        }
+    }
+
+    /**
+     * Get change listener groups, which must be notified about changes of objects with specified class.
+     * 
+     * @param entityClass
+     *            Changed object class.
+     * @return Listener groups, each group must be notified separately.
+     */
+    private static List<Set<ChangeListener>> getChangeListeners(Class<?> entityClass) {
+        // TODO move qualification of change listeners to
+        // ChangeListener.getInterestedEntityClasses ?
+        List<Set<ChangeListener>> result = Lists.newArrayList();
+        if (isAssignable(entityClass, Task.class, Swimlane.class, Substitution.class, SubstitutionCriteria.class, ExecutorGroupMembership.class,
+                Actor.class)) {
+            result.add(taskListeners);
+        }
+        if (isAssignable(entityClass, Substitution.class, SubstitutionCriteria.class, ExecutorGroupMembership.class, Executor.class)) {
+            result.add(substitutionListeners);
+        }
+        if (isAssignable(entityClass, Executor.class, ExecutorGroupMembership.class)) {
+            result.add(executorListeners);
+        }
+        if (isAssignable(entityClass, Deployment.class)) {
+            result.add(processDefListeners);
+        }
+        return result;
+    }
+
+    private static boolean isAssignable(Class<?> entityClass, Class<?>... classes) {
+        for (Class<?> clazz : classes) {
+            if (clazz.isAssignableFrom(entityClass)) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -341,6 +372,64 @@ public class CachingLogic {
         }
     }
 
+    /**
+     * Reset only caches, which depends on objects of specified classes.
+     * 
+     * @param changedClasses
+     *            Classes of changed objects.
+     */
+    public static void resetCaches(Set<Class<?>> changedClasses) {
+        if (SystemProperties.useCacheStateMachine()) {
+            ru.runa.wfe.commons.cache.sm.CachingLogic.resetCaches(changedClasses);
+            return;
+        }
+        Set<ChangeListener> affectedListeners = Sets.newHashSet();
+        for (Class<?> changedClass : changedClasses) {
+            for (Set<ChangeListener> listeners : getChangeListeners(changedClass)) {
+                affectedListeners.addAll(listeners);
+            }
+        }
+        for (ChangeListener listener : affectedListeners) {
+            listener.uninitialize(CachingLogic.class, Change.REFRESH);
+        }
+    }
+
+    /**
+     * Starts recording of changes, made in current thread. Listeners are not notified about recorded changes; caches, affected by them, must be
+     * reset with {@link #resetCaches(Set)} after transaction complete. Used for bulk operations (admin scripts, synchronization), which may change
+     * many objects: other threads still notify listeners as usual.
+     */
+    public static void startChangesRecording() {
+        recordedChanges.set(new HashSet<Class<?>>());
+    }
+
+    /**
+     * Stops recording of changes, made in current thread.
+     * 
+     * @return Classes of changed objects.
+     */
+    public static Set<Class<?>> stopChangesRecording() {
+        Set<Class<?>> changedClasses = recordedChanges.get();
+        recordedChanges.remove();
+        return changedClasses != null ? changedClasses : new HashSet<Class<?>>();
+    }
+
+    /**
+     * Records object change if recording is started in current thread.
+     * 
+     * @param entity
+     *            Changed object.
+     * @return true, if change is recorded and listeners must not be notified.
+     */
+    public static boolean recordChange(Object entity) {
+        Set<Class<?>> changedClasses = recordedChanges.get();
+        if (changedClasses == null) {
+            return false;
+        }
+        changedClasses.add(entity.getClass());
+        return true;
+    }
+
     /**
      * Callback object to receive dirty transaction commit/rollback events.
      */
@@ -23,8 +23,11 @@ import java.util.concurrent.ConcurrentHashMap;
 
 import net.sf.ehcache.Cache;
 import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Ehcache;
 import net.sf.ehcache.Element;
 import net.sf.ehcache.config.CacheConfiguration;
+import net.sf.ehcache.event.CacheEventListener;
+import net.sf.ehcache.event.RegisteredEventListeners;
 
 /**
  * Cache component, which support ehcache or local cache storage.
@@ -48,6 +51,11 @@ class EhCacheSupport<K extends Serializable, V extends Serializable> implements
      */
     private final boolean infiniteLifeTime;
 
+    /**
+     * Listener of elements eviction by ehcache, may be null.
+     */
+    private final CacheEvictionListener<K> evictionListener;
+
     /**
      * {@linkplain Cache}, used to store cached values.
      */
@@ -65,6 +73,22 @@ class EhCacheSupport<K extends Serializable, V extends Serializable> implements
         super();
         this.ehcacheName = ehcacheName;
         this.infiniteLifeTime = infiniteLifeTime;
+        this.evictionListener = null;
+    }
+
+    /**
+     * Creates caching component.
+     * 
+     * @param ehcacheName
+     *            Ehcache {@linkplain Cache} name, used to store cached values.
+     * @param evictionListener
+     *            Listener of elements eviction by ehcache.
+     */
+    public EhCacheSupport(String ehcacheName, CacheEvictionListener<K> evictionListener) {
+        super();
+        this.ehcacheName = ehcacheName;
+        this.infiniteLifeTime = false;
+        this.evictionListener = evictionListener;
     }
 
     /**
@@ -77,6 +101,7 @@ class EhCacheSupport<K extends Serializable, V extends Serializable> implements
         super();
         this.ehcacheName = ehcacheName;
         this.infiniteLifeTime = false;
+        this.evictionListener = null;
     }
 
     /**
@@ -99,12 +124,29 @@ class EhCacheSupport<K extends Serializable, V extends Serializable> implements
             cacheConfiguration.setTimeToLiveSeconds(0);
             cacheConfiguration.setMaxElementsInMemory(100000);
         }
+        if (evictionListener != null) {
+            registerEvictionListener(ehcache);
+        }
         ehcache.removeAll();
         for (Map.Entry<K, V> cachedValue : localStorage.entrySet()) {
             ehcache.put(createElement(cachedValue.getKey(), cachedValue.getValue()));
         }
     }
 
+    /**
+     * Registers eviction listener in ehcache instead of listener registered by previous component for the same ehcache (only last committed
+     * component is in use).
+     */
+    private void registerEvictionListener(Cache cache) {
+        RegisteredEventListeners notificationService = cache.getCacheEventNotificationService();
+        for (CacheEventListener listener : notificationService.getCacheEventListeners()) {
+            if (listener instanceof EvictionNotifier) {
+                notificationService.unregisterListener(listener);
+            }
+        }
+        notificationService.registerListener(new EvictionNotifier<K>(evictionListener));
+    }
+
     /**
      * Try to get element from cache.
      * 
@@ -243,4 +285,52 @@ class EhCacheSupport<K extends Serializable, V extends Serializable> implements
     private Element createElement(K key, V value) {
         return infiniteLifeTime ? new Element(key, value, true, 0, 0) : new Element(key, value);
     }
+
+    /**
+     * Forwards ehcache evictions and expirations to {@link CacheEvictionListener}.
+     */
+    private static class EvictionNotifier<K extends Serializable> implements CacheEventListener {
+        private final CacheEvictionListener<K> evictionListener;
+
+        public EvictionNotifier(CacheEvictionListener<K> evictionListener) {
+            this.evictionListener = evictionListener;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void notifyElementEvicted(Ehcache cache, Element element) {
+            evictionListener.onEvicted((K) element.getObjectKey());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void notifyElementExpired(Ehcache cache, Element element) {
+            evictionListener.onEvicted((K) element.getObjectKey());
+        }
+
+        @Override
+        public void notifyElementRemoved(Ehcache cache, Element element) {
+        }
+
+        @Override
+        public void notifyElementPut(Ehcache cache, Element element) {
+        }
+
+        @Override
+        public void notifyElementUpdated(Ehcache cache, Element element) {
+        }
+
+        @Override
+        public void notifyRemoveAll(Ehcache cache) {
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        public Object clone() throws CloneNotSupportedException {
+            throw new CloneNotSupportedException();
+        }
+    }
 }
@@ -86,6 +86,23 @@ public class CachingLogic {
         objectTypeToListenersAll.clear();
     }
 
+    /**
+     * Unregister listener, previously registered by {@link #registerChangeListener(ChangeListener)}.
+     * 
+     * @param listener
+     *            Listener, which must not receive events any more.
+     */
+    public static synchronized void unregisterChangeListener(ChangeListener listener) {
+        for (Set<ChangeListener> listeners : objectTypeToListenersRegistered.values()) {
+            for (ChangeListener registered : listeners) {
+                if (((ChangeListenerGuard) registered).isGuarding(listener)) {
+                    listeners.remove(registered);
+                }
+            }
+        }
+        objectTypeToListenersAll.clear();
+    }
+
     /**
      * Get change listeners for specified class.
      * 
@@ -261,6 +278,22 @@ public class CachingLogic {
         }
     }
 
+    /**
+     * Reset only caches, which depends on objects of specified classes.
+     * 
+     * @param changedClasses
+     *            Classes of changed objects.
+     */
+    public static void resetCaches(Set<Class<?>> changedClasses) {
+        Set<ChangeListener> affectedListeners = Sets.newHashSet();
+        for (Class<?> changedClass : changedClasses) {
+            affectedListeners.addAll(getChangeListeners(changedClass));
+        }
+        for (ChangeListener listener : affectedListeners) {
+            listener.uninitialize(CachingLogic.class, Change.REFRESH);
+        }
+    }
+
     /**
      * Callback object to receive dirty transaction commit/rollback events.
      */
@@ -55,6 +55,13 @@ public class ChangeListenerGuard implements ChangeListener {
         this.delegated = delegated;
     }
 
+    /**
+     * Check if this guard delegates calls to specified {@linkplain ChangeListener}.
+     */
+    boolean isGuarding(ChangeListener listener) {
+        return delegated == listener;
+    }
+
     @Override
     public void beforeTransactionComplete(Transaction transaction) {
         try {
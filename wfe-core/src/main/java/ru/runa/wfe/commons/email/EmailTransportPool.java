@@ -0,0 +1,301 @@
+package ru.runa.wfe.commons.email;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.mail.Authenticator;
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps connected mail transports per connection properties so that subsequent messages are delivered without new connection handshake and
+ * authentication. Failed deliveries are retried on new connection with exponential backoff.
+ *
+ * @since 4.3.0
+ */
+public class EmailTransportPool {
+    private static final Log log = LogFactory.getLog(EmailTransportPool.class);
+    private static final long METRICS_WINDOW_MILLIS = 60000;
+    private static final EmailTransportPool INSTANCE = new EmailTransportPool(SystemProperties.getEmailTransportPoolMaxIdle(),
+            SystemProperties.getEmailTransportPoolIdleTimeoutSeconds() * 1000L, SystemProperties.getEmailTransportPoolMaxMessagesPerConnection(),
+            SystemProperties.getEmailTransportRetryCount(), SystemProperties.getEmailTransportRetryBackoffMilliseconds());
+    private final ConcurrentMap<String, Endpoint> endpoints = Maps.newConcurrentMap();
+    private final int maxIdle;
+    private final long idleTimeoutMillis;
+    private final int maxMessagesPerConnection;
+    private final int retryCount;
+    private final long retryBackoffMillis;
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong retriesCount = new AtomicLong();
+    private final AtomicLong connectionsCount = new AtomicLong();
+    private final AtomicLong sendTimeMillis = new AtomicLong();
+    private long windowStartMillis = System.currentTimeMillis();
+    private long windowSentCount;
+    private double messagesPerSecond;
+
+    public EmailTransportPool(int maxIdle, long idleTimeoutMillis, int maxMessagesPerConnection, int retryCount, long retryBackoffMillis) {
+        this.maxIdle = maxIdle;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.retryCount = retryCount;
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public static EmailTransportPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return endpoint for given connection properties, shared between all messages with the same properties
+     */
+    public Endpoint getEndpoint(Properties properties, Authenticator authenticator) {
+        String key = new TreeMap<Object, Object>(properties).toString();
+        Endpoint endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = new Endpoint(Session.getInstance(properties, authenticator));
+            Endpoint existing = endpoints.putIfAbsent(key, endpoint);
+            if (existing != null) {
+                endpoint = existing;
+            }
+        }
+        return endpoint;
+    }
+
+    /**
+     * Closes all idle connections.
+     */
+    public void closeIdle() {
+        for (Endpoint endpoint : endpoints.values()) {
+            PooledTransport transport;
+            while ((transport = endpoint.idle.pollFirst()) != null) {
+                transport.close();
+            }
+        }
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public long getRetriesCount() {
+        return retriesCount.get();
+    }
+
+    /**
+     * @return count of opened connections
+     */
+    public long getConnectionsCount() {
+        return connectionsCount.get();
+    }
+
+    public long getAverageSendTimeMillis() {
+        long count = sentCount.get();
+        return count != 0 ? sendTimeMillis.get() / count : 0;
+    }
+
+    /**
+     * @return messages per second sent in last completed metrics window
+     */
+    public synchronized double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    private synchronized void onSent(long duration) {
+        sentCount.incrementAndGet();
+        sendTimeMillis.addAndGet(duration);
+        windowSentCount++;
+        long now = System.currentTimeMillis();
+        if (now - windowStartMillis >= METRICS_WINDOW_MILLIS) {
+            messagesPerSecond = windowSentCount * 1000.0 / (now - windowStartMillis);
+            windowStartMillis = now;
+            windowSentCount = 0;
+            log.info(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "EmailTransportPool: sent " + sentCount + ", failed " + failedCount + ", retries " + retriesCount + ", connections "
+                + connectionsCount + ", average " + getAverageSendTimeMillis() + " ms, " + String.format("%.1f", messagesPerSecond)
+                + " messages/s";
+    }
+
+    public class Endpoint {
+        private final Session session;
+        private final BlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<PooledTransport>();
+
+        private Endpoint(Session session) {
+            this.session = session;
+        }
+
+        /**
+         * @return session for message creation
+         */
+        public Session getSession() {
+            return session;
+        }
+
+        /**
+         * Sends messages reusing single connection. Failure of one message does not stop delivery of next ones, but if server stays unavailable
+         * after retries remaining messages are not tried.
+         * 
+         * @return not sent messages with failure causes, empty if all messages are sent
+         */
+        public Map<MimeMessage, MessagingException> send(MimeMessage... messages) {
+            Map<MimeMessage, MessagingException> failures = Maps.newLinkedHashMap();
+            MessagingException unavailable = null;
+            PooledTransport transport = null;
+            try {
+                for (MimeMessage message : messages) {
+                    if (unavailable != null) {
+                        failedCount.incrementAndGet();
+                        failures.put(message, unavailable);
+                        continue;
+                    }
+                    try {
+                        message.saveChanges();
+                    } catch (MessagingException e) {
+                        failedCount.incrementAndGet();
+                        failures.put(message, e);
+                        continue;
+                    }
+                    for (int attempt = 0;; attempt++) {
+                        if (transport == null) {
+                            try {
+                                transport = borrow();
+                            } catch (MessagingException e) {
+                                // failure is counted by borrow()
+                                unavailable = e;
+                                failures.put(message, e);
+                                break;
+                            }
+                        }
+                        long start = System.currentTimeMillis();
+                        try {
+                            transport.transport.sendMessage(message, message.getAllRecipients());
+                            transport.messagesCount++;
+                            onSent(System.currentTimeMillis() - start);
+                            break;
+                        } catch (SendFailedException e) {
+                            // recipients are rejected, connection is still usable
+                            failedCount.incrementAndGet();
+                            failures.put(message, e);
+                            break;
+                        } catch (MessagingException e) {
+                            transport.close();
+                            boolean stale = transport.messagesCount > 0 || transport.reused;
+                            transport = null;
+                            if (attempt >= retryCount) {
+                                failedCount.incrementAndGet();
+                                unavailable = e;
+                                failures.put(message, e);
+                                break;
+                            }
+                            retriesCount.incrementAndGet();
+                            log.warn("Retrying email delivery after " + e);
+                            if (!stale || attempt > 0) {
+                                try {
+                                    sleep(retryBackoffMillis << Math.min(attempt, 10));
+                                } catch (MessagingException interrupted) {
+                                    failedCount.incrementAndGet();
+                                    unavailable = interrupted;
+                                    failures.put(message, interrupted);
+                                    break;
+                                }
+                            }
+                        }
+                    }
+                }
+            } finally {
+                if (transport != null) {
+                    release(transport);
+                }
+            }
+            return failures;
+        }
+
+        private PooledTransport borrow() throws MessagingException {
+            PooledTransport transport;
+            while ((transport = idle.pollFirst()) != null) {
+                // connection check is omitted: stale connection failure is retried immediately
+                if (System.currentTimeMillis() - transport.releaseTime < idleTimeoutMillis) {
+                    transport.reused = true;
+                    return transport;
+                }
+                transport.close();
+            }
+            for (int attempt = 0;; attempt++) {
+                try {
+                    Transport connected = session.getTransport();
+                    connected.connect();
+                    connectionsCount.incrementAndGet();
+                    return new PooledTransport(connected);
+                } catch (MessagingException e) {
+                    if (attempt >= retryCount) {
+                        failedCount.incrementAndGet();
+                        throw e;
+                    }
+                    retriesCount.incrementAndGet();
+                    log.warn("Retrying email connection after " + e);
+                    sleep(retryBackoffMillis << Math.min(attempt, 10));
+                }
+            }
+        }
+
+        private void release(PooledTransport transport) {
+            if (transport.messagesCount >= maxMessagesPerConnection || idle.size() >= maxIdle) {
+                transport.close();
+                return;
+            }
+            transport.releaseTime = System.currentTimeMillis();
+            idle.offerFirst(transport);
+        }
+    }
+
+    private static void sleep(long millis) throws MessagingException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted", e);
+        }
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private int messagesCount;
+        private boolean reused;
+        private long releaseTime;
+
+        public PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+
+        public void close() {
+            try {
+                transport.close();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+}
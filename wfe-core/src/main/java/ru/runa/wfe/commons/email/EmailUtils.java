@@ -11,12 +11,12 @@ import javax.activation.DataHandler;
 import javax.activation.MimetypesFileTypeMap;
 import javax.mail.Address;
 import javax.mail.Authenticator;
+import javax.mail.MessagingException;
 import javax.mail.Message.RecipientType;
 import javax.mail.Multipart;
 import javax.mail.Part;
 import javax.mail.PasswordAuthentication;
 import javax.mail.Session;
-import javax.mail.Transport;
 import javax.mail.internet.MimeBodyPart;
 import javax.mail.internet.MimeMessage;
 import javax.mail.internet.MimeMultipart;
@@ -31,6 +31,7 @@ import ru.runa.wfe.commons.ApplicationContextFactory;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.email.EmailConfig.Attachment;
+import ru.runa.wfe.commons.email.EmailTransportPool.Endpoint;
 import ru.runa.wfe.commons.ftl.ExpressionEvaluator;
 import ru.runa.wfe.form.Interaction;
 import ru.runa.wfe.user.Actor;
@@ -46,6 +47,7 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class EmailUtils {
     private static final Log log = LogFactory.getLog(EmailConfig.class);
@@ -67,49 +69,128 @@ public class EmailUtils {
     }
 
     /**
-     * Sends email immediately
+     * Sends emails in non-blocking and transactional mode using single JMS session
      */
-    public static void sendMessage(EmailConfig config) throws Exception {
-        if (config.getMessageId() != null) {
-            log.info("Sending " + config.getMessageId());
-        }
-        config.checkValid();
-        if (Strings.isNullOrEmpty(config.getHeaderProperties().get(EmailConfig.HEADER_TO))) {
-            log.warn("Ignored message with empty 'To' recipients: " + config);
-            return;
-        }
-        Properties props = new Properties();
-        props.putAll(config.getConnectionProperties());
-        String protocol = props.getProperty(EmailConfig.CONNECTION_MAIL_TRANSPORT);
-        String connectionTimepoutPropName = "mail." + protocol + ".connectiontimeout";
-        if (!props.contains(connectionTimepoutPropName)) {
-            props.put(connectionTimepoutPropName, SystemProperties.getEmailDefaultTimeoutInMilliseconds());
+    public static void sendMessageRequests(List<EmailConfig> configs) throws Exception {
+        List<EmailConfig> validConfigs = Lists.newArrayListWithCapacity(configs.size());
+        for (EmailConfig config : configs) {
+            config.checkValid();
+            if (Strings.isNullOrEmpty(config.getHeaderProperties().get(EmailConfig.HEADER_TO))) {
+                log.warn("Ignored message with empty 'To' recipients: " + config);
+                continue;
+            }
+            validConfigs.add(config);
         }
-        String timepoutPropName = "mail." + protocol + ".timeout";
-        if (!props.contains(timepoutPropName)) {
-            props.put(timepoutPropName, SystemProperties.getEmailDefaultTimeoutInMilliseconds());
+        if (!validConfigs.isEmpty()) {
+            Utils.sendEmailRequests(validConfigs);
         }
+    }
 
-        if (config.getHeaderProperties().containsKey("Subject")) {
-            String subject = config.getHeaderProperties().get("Subject");
-            subject = MimeUtility.encodeText(subject, Charsets.UTF_8.name(), null);
-            config.getHeaderProperties().put("Subject", subject);
+    /**
+     * Sends email immediately
+     */
+    public static void sendMessage(EmailConfig config) throws Exception {
+        Map<EmailConfig, Exception> failures = sendMessages(Lists.newArrayList(config));
+        if (!failures.isEmpty()) {
+            throw failures.get(config);
         }
+    }
 
-        PasswordAuthenticator authenticator = null;
-        boolean auth = "true".equals(props.getProperty("mail." + protocol + ".auth"));
-        if (auth) {
-            String username = props.getProperty(EmailConfig.CONNECTION_MAIL_USER);
-            String password = props.getProperty(EmailConfig.CONNECTION_MAIL_PASSWORD);
-            Preconditions.checkNotNull(username, "Authenticaton enabled but property " + EmailConfig.CONNECTION_MAIL_USER + " is not set");
-            Preconditions.checkNotNull(password, "Authenticaton enabled but property " + EmailConfig.CONNECTION_MAIL_PASSWORD + " is not set");
-            authenticator = new PasswordAuthenticator(username, password);
-            if (!config.getHeaderProperties().containsKey("From")) {
-                config.getHeaderProperties().put("From", username);
+    /**
+     * Sends emails immediately, messages to the same server are delivered through single pooled connection. Failure of one message does not
+     * prevent delivery of others.
+     * 
+     * @return not sent messages with failure causes, empty if all messages are sent
+     */
+    public static Map<EmailConfig, Exception> sendMessages(List<EmailConfig> configs) {
+        Map<EmailConfig, Exception> failures = Maps.newLinkedHashMap();
+        Map<Endpoint, Map<MimeMessage, EmailConfig>> endpointMessages = Maps.newLinkedHashMap();
+        Map<Endpoint, String> endpointNames = Maps.newHashMap();
+        for (EmailConfig config : configs) {
+            try {
+                if (config.getMessageId() != null) {
+                    log.info("Sending " + config.getMessageId());
+                }
+                config.checkValid();
+                if (Strings.isNullOrEmpty(config.getHeaderProperties().get(EmailConfig.HEADER_TO))) {
+                    log.warn("Ignored message with empty 'To' recipients: " + config);
+                    continue;
+                }
+                Properties props = new Properties();
+                props.putAll(config.getConnectionProperties());
+                String protocol = props.getProperty(EmailConfig.CONNECTION_MAIL_TRANSPORT);
+                String connectionTimepoutPropName = "mail." + protocol + ".connectiontimeout";
+                if (!props.contains(connectionTimepoutPropName)) {
+                    props.put(connectionTimepoutPropName, SystemProperties.getEmailDefaultTimeoutInMilliseconds());
+                }
+                String timepoutPropName = "mail." + protocol + ".timeout";
+                if (!props.contains(timepoutPropName)) {
+                    props.put(timepoutPropName, SystemProperties.getEmailDefaultTimeoutInMilliseconds());
+                }
+
+                if (config.getHeaderProperties().containsKey("Subject")) {
+                    String subject = config.getHeaderProperties().get("Subject");
+                    subject = MimeUtility.encodeText(subject, Charsets.UTF_8.name(), null);
+                    config.getHeaderProperties().put("Subject", subject);
+                }
+
+                PasswordAuthenticator authenticator = null;
+                boolean auth = "true".equals(props.getProperty("mail." + protocol + ".auth"));
+                if (auth) {
+                    String username = props.getProperty(EmailConfig.CONNECTION_MAIL_USER);
+                    String password = props.getProperty(EmailConfig.CONNECTION_MAIL_PASSWORD);
+                    Preconditions.checkNotNull(username, "Authenticaton enabled but property " + EmailConfig.CONNECTION_MAIL_USER + " is not set");
+                    Preconditions.checkNotNull(password, "Authenticaton enabled but property " + EmailConfig.CONNECTION_MAIL_PASSWORD + " is not set");
+                    authenticator = new PasswordAuthenticator(username, password);
+                    if (!config.getHeaderProperties().containsKey("From")) {
+                        config.getHeaderProperties().put("From", username);
+                    }
+                }
+
+                Endpoint endpoint = EmailTransportPool.getInstance().getEndpoint(props, authenticator);
+                Map<MimeMessage, EmailConfig> messages = endpointMessages.get(endpoint);
+                if (messages == null) {
+                    messages = Maps.newLinkedHashMap();
+                    endpointMessages.put(endpoint, messages);
+                    endpointNames.put(endpoint, "[" + protocol + "]: " + props.getProperty(EmailConfig.CONNECTION_MAIL_HOST) + ":"
+                            + props.getProperty("mail." + protocol + ".port"));
+                }
+                messages.put(createMessage(endpoint.getSession(), config), config);
+            } catch (Exception e) {
+                failures.put(config, e);
             }
         }
+        for (Map.Entry<Endpoint, Map<MimeMessage, EmailConfig>> entry : endpointMessages.entrySet()) {
+            Map<MimeMessage, EmailConfig> messages = entry.getValue();
+            log.info("Sending " + messages.size() + " message(s) to " + endpointNames.get(entry.getKey()));
+            Map<MimeMessage, MessagingException> messageFailures = entry.getKey().send(messages.keySet().toArray(new MimeMessage[messages.size()]));
+            for (Map.Entry<MimeMessage, EmailConfig> messageEntry : messages.entrySet()) {
+                MimeMessage msg = messageEntry.getKey();
+                MessagingException failure = messageFailures.get(msg);
+                if (failure != null) {
+                    failures.put(messageEntry.getValue(), failure);
+                    continue;
+                }
+                String debugMessage = "Message sent";
+                try {
+                    Address[] toAddresses = msg.getRecipients(RecipientType.TO);
+                    if (toAddresses != null) {
+                        debugMessage += " To:" + Arrays.asList(toAddresses);
+                    }
+                    Address[] ccAddresses = msg.getRecipients(RecipientType.CC);
+                    if (ccAddresses != null) {
+                        debugMessage += " Cc:" + Arrays.asList(ccAddresses);
+                    }
+                } catch (MessagingException e) {
+                    log.debug("Unable to get recipients: " + e);
+                }
+                log.info(debugMessage);
+            }
+        }
+        return failures;
+    }
 
-        Session session = Session.getInstance(props, authenticator);
+    private static MimeMessage createMessage(Session session, EmailConfig config) throws MessagingException {
         MimeMessage msg = new MimeMessage(session);
         for (String headerName : config.getHeaderProperties().keySet()) {
             String headerValue = config.getHeaderProperties().get(headerName);
@@ -131,26 +212,7 @@ public class EmailUtils {
             multipart.addBodyPart(attach);
         }
         msg.setContent(multipart);
-        log.info("Connecting to [" + protocol + "]: " + props.getProperty(EmailConfig.CONNECTION_MAIL_HOST) + ":"
-                + props.getProperty("mail." + protocol + ".port"));
-        Transport transport = session.getTransport();
-        try {
-            transport.connect();
-            msg.saveChanges();
-            transport.sendMessage(msg, msg.getAllRecipients());
-            String debugMessage = "Message sent";
-            Address[] toAddresses = msg.getRecipients(RecipientType.TO);
-            if (toAddresses != null) {
-                debugMessage += " To:" + Arrays.asList(toAddresses);
-            }
-            Address[] ccAddresses = msg.getRecipients(RecipientType.CC);
-            if (ccAddresses != null) {
-                debugMessage += " Cc:" + Arrays.asList(ccAddresses);
-            }
-            log.info(debugMessage);
-        } finally {
-            transport.close();
-        }
+        return msg;
     }
 
     public static void prepareMessage(User user, EmailConfig config, Interaction interaction, IVariableProvider variableProvider) {
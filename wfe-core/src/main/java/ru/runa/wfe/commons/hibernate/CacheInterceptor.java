@@ -48,6 +48,10 @@ public class CacheInterceptor extends EmptyInterceptor {
                 }
             }
         }
+        if (CachingLogic.recordChange(entity)) {
+            // affected caches will be reset after recording stops
+            return modified;
+        }
         if (SystemProperties.useCacheStateMachine()) {
             ru.runa.wfe.commons.cache.sm.CachingLogic.onChange(entity, change, state, previousState, propertyNames, types);
         } else {
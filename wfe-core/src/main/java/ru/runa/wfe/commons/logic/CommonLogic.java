@@ -25,7 +25,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.timer.ScheduledTimerTask;
 
 import ru.runa.wfe.commons.ApplicationContextFactory;
 import ru.runa.wfe.commons.PropertyResources;
@@ -34,6 +33,7 @@ import ru.runa.wfe.commons.dao.Localization;
 import ru.runa.wfe.commons.dao.LocalizationDAO;
 import ru.runa.wfe.commons.dao.SettingDAO;
 import ru.runa.wfe.execution.dao.ProcessDAO;
+import ru.runa.wfe.job.impl.PeriodicTask;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.Identifiable;
@@ -198,7 +198,7 @@ public class CommonLogic {
             if (bean != null) {
                 try {
                     Long period = SystemProperties.getResources().getLongProperty(name, 60000);
-                    ScheduledTimerTask t = ApplicationContextFactory.getContext().getBean(bean, ScheduledTimerTask.class);
+                    PeriodicTask t = ApplicationContextFactory.getContext().getBean(bean, PeriodicTask.class);
                     t.setPeriod(period);
                 } catch (BeansException e) {
                     log.error("Can't renew TIMERTASK settings", e);
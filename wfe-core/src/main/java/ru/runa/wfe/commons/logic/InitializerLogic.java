@@ -28,7 +28,6 @@ import org.apache.commons.logging.LogFactory;
 import org.hibernate.tool.hbm2ddl.SchemaExport;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.timer.ScheduledTimerTask;
 
 import ru.runa.wfe.commons.ApplicationContextFactory;
 import ru.runa.wfe.commons.ClassLoaderUtil;
@@ -69,6 +68,7 @@ import ru.runa.wfe.commons.dbpatch.impl.TaskEndDateRemovalPatch;
 import ru.runa.wfe.commons.dbpatch.impl.TaskOpenedByExecutorsPatch;
 import ru.runa.wfe.commons.dbpatch.impl.TransitionLogPatch;
 import ru.runa.wfe.job.impl.JobTask;
+import ru.runa.wfe.job.impl.PeriodicTask;
 import ru.runa.wfe.security.SecuredObjectType;
 import ru.runa.wfe.security.dao.PermissionDAO;
 import ru.runa.wfe.user.Actor;
@@ -160,11 +160,14 @@ public class InitializerLogic {
     protected PermissionDAO permissionDAO;
     @Autowired
     protected LocalizationDAO localizationDAO;
+    @Autowired
+    protected StartupWarmUpLogic startupWarmUpLogic;
 
     /**
      * Initialize database if needed.
      */
     public void onStartup(UserTransaction transaction) {
+        boolean started = false;
         try {
             Integer databaseVersion = constantDAO.getDatabaseVersion();
             if (databaseVersion != null) {
@@ -191,18 +194,23 @@ public class InitializerLogic {
             }
             setScheduledTaskTimerSettings();
             JobTask.setSystemStartupCompleted(true);
+            startupWarmUpLogic.start();
+            started = true;
         } catch (Exception e) {
             log.error("initialization failed", e);
+        } finally {
+            if (!started) {
+                StartupWarmUpLogic.setStartupFailed();
+            }
         }
     }
 
-    @SuppressWarnings("deprecation")
     private void setScheduledTaskTimerSettings() {
         ApplicationContext context = ApplicationContextFactory.getContext();
         PropertyResources resources = SystemProperties.getResources();
-        ScheduledTimerTask jobExecutorTask = context.getBean("jobExecutorTask", ScheduledTimerTask.class);
-        ScheduledTimerTask tasksAssignTask = context.getBean("tasksAssignTask", ScheduledTimerTask.class);
-        ScheduledTimerTask ldapSynchronizerTask = context.getBean("ldapSynchronizerTask", ScheduledTimerTask.class);
+        PeriodicTask jobExecutorTask = context.getBean("jobExecutorTask", PeriodicTask.class);
+        PeriodicTask tasksAssignTask = context.getBean("tasksAssignTask", PeriodicTask.class);
+        PeriodicTask ldapSynchronizerTask = context.getBean("ldapSynchronizerTask", PeriodicTask.class);
 
         jobExecutorTask.setDelay(resources.getLongProperty(SystemProperties.TIMERTASK_START_MILLIS_JOB_EXECUTION_NAME, 60000));
         jobExecutorTask.setPeriod(resources.getLongProperty(SystemProperties.TIMERTASK_PERIOD_MILLIS_JOB_EXECUTION_NAME, 60000));
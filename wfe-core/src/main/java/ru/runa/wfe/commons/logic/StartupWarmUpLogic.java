@@ -0,0 +1,207 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.commons.logic;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
+import ru.runa.wfe.execution.dao.ProcessDAO;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+/**
+ * Warms up caches after system startup: parses definitions of active processes and builds executor cache in parallel. Enabled by
+ * 'startup.warmup.enabled' property; until warm-up is finished {@link #isReady()} returns false. Failed system startup is reported as
+ * {@link State#FAILED}, failed warm-up is not as caches are filled on demand then.
+ *
+ * @since 4.3.0
+ */
+public class StartupWarmUpLogic {
+    private static final Log log = LogFactory.getLog(StartupWarmUpLogic.class);
+    private static volatile State state = State.STARTING;
+    private static final AtomicInteger definitionsTotal = new AtomicInteger();
+    private static final AtomicInteger definitionsLoaded = new AtomicInteger();
+    private static final AtomicInteger definitionsFailed = new AtomicInteger();
+
+    @Autowired
+    private ProcessDAO processDAO;
+    @Autowired
+    private IProcessDefinitionLoader processDefinitionLoader;
+    @Autowired
+    private ExecutorDAO executorDAO;
+
+    public enum State {
+        STARTING,
+        WARMING_UP,
+        READY,
+        FAILED
+    }
+
+    public static State getState() {
+        return state;
+    }
+
+    /**
+     * @return true if system startup and caches warm-up are completed.
+     */
+    public static boolean isReady() {
+        return state == State.READY;
+    }
+
+    /**
+     * @return human readable startup state and warm-up progress.
+     */
+    public static String getStatus() {
+        switch (state) {
+        case STARTING:
+            return "starting";
+        case WARMING_UP:
+            return "warming up: " + definitionsLoaded.get() + "/" + definitionsTotal.get() + " definitions, " + definitionsFailed.get() + " failed";
+        case READY:
+            return "ready";
+        default:
+            return "startup failed, see server log";
+        }
+    }
+
+    /**
+     * Marks system startup as failed, node never becomes ready then.
+     */
+    public static void setStartupFailed() {
+        state = State.FAILED;
+    }
+
+    /**
+     * Starts warm-up in background threads, returns immediately.
+     */
+    public void start() {
+        if (!SystemProperties.isStartupWarmUpEnabled()) {
+            state = State.READY;
+            return;
+        }
+        state = State.WARMING_UP;
+        Thread thread = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                runWarmUp();
+            }
+        }, "wfe-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void runWarmUp() {
+        try {
+            warmUp();
+        } catch (Throwable th) {
+            log.error("Warm-up failed", th);
+        } finally {
+            state = State.READY;
+        }
+    }
+
+    private void warmUp() throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        final List<Long> definitionIds = new DefinitionIdsLoader().load();
+        definitionsTotal.set(definitionIds.size());
+        int threadsCount = SystemProperties.getStartupWarmUpThreadsCount();
+        log.info("Warming up " + definitionIds.size() + " definitions and executor cache using " + threadsCount + " threads");
+        ExecutorService executorService = Executors.newFixedThreadPool(threadsCount, new WarmUpThreadFactory());
+        executorService.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                long executorsStartTime = System.currentTimeMillis();
+                new TransactionalExecutor() {
+
+                    @Override
+                    protected void doExecuteInTransaction() throws Exception {
+                        executorDAO.isExecutorExist(SystemProperties.getAdministratorName());
+                    }
+                }.executeInTransaction(false);
+                log.info("Executor cache warmed up in " + (System.currentTimeMillis() - executorsStartTime) + " ms");
+            }
+        });
+        final int logStep = Math.max(1, definitionIds.size() / 10);
+        for (final Long definitionId : definitionIds) {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        new TransactionalExecutor() {
+
+                            @Override
+                            protected void doExecuteInTransaction() throws Exception {
+                                processDefinitionLoader.getDefinition(definitionId);
+                            }
+                        }.executeInTransaction(true);
+                    } catch (Throwable th) {
+                        definitionsFailed.incrementAndGet();
+                        log.warn("Unable to parse definition " + definitionId + ": " + th);
+                    }
+                    int loaded = definitionsLoaded.incrementAndGet();
+                    if (loaded % logStep == 0) {
+                        log.info("Warm-up progress: " + getStatus());
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        log.info("Warm-up completed in " + (System.currentTimeMillis() - startTime) + " ms: " + definitionsLoaded.get() + " definitions, "
+                + definitionsFailed.get() + " failed");
+    }
+
+    private class DefinitionIdsLoader extends TransactionalExecutor {
+        private List<Long> definitionIds;
+
+        @Override
+        protected void doExecuteInTransaction() throws Exception {
+            definitionIds = processDAO.getActiveProcessDefinitionIds();
+        }
+
+        public List<Long> load() {
+            executeInTransaction(true);
+            return definitionIds;
+        }
+    }
+
+    private static class WarmUpThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "wfe-warmup-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -56,6 +56,7 @@ import ru.runa.wfe.validation.ValidatorContext;
 import ru.runa.wfe.validation.ValidatorManager;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dao.VariableDAO;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Sets;
@@ -188,6 +189,7 @@ public class WFCommonLogic extends CommonLogic {
         processLogDAO.deleteAll(process.getId());
         jobDAO.deleteAll(process);
         variableDAO.deleteAll(process);
+        LocalFileSystemStorage.releaseReferences(process.getId());
         processDAO.delete(process);
         systemLogDAO.create(new ProcessDeleteLog(user.getActor().getId(), process.getDeployment().getName(), process.getId()));
     }
@@ -0,0 +1,84 @@
+package ru.runa.wfe.commons.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with logarithmic buckets (in microseconds). Values below {@link #LINEAR_BUCKETS_COUNT} are counted exactly, each
+ * next power of two range is split into {@link #SUB_BUCKETS_COUNT} buckets, so relative error does not exceed 1/32 in whole range.
+ *
+ * @since 4.3.0
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKETS_COUNT = 32;
+    static final int LINEAR_BUCKETS_COUNT = 2 * SUB_BUCKETS_COUNT;
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS_COUNT);
+    private static final int LINEAR_BITS = SUB_BUCKET_BITS + 1;
+    /**
+     * Values up to 2^36 microseconds (about 19 hours) are distinguished, larger values are counted in last bucket.
+     */
+    private static final int MAX_EXPONENT = 35;
+    static final int BUCKETS_COUNT = LINEAR_BUCKETS_COUNT + (MAX_EXPONENT - LINEAR_BITS + 1) * SUB_BUCKETS_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        if (micros < 0) {
+            micros = 0;
+        }
+        counts.incrementAndGet(getBucketIndex(micros));
+        total.addAndGet(micros);
+        long currentMax = max.get();
+        while (micros > currentMax && !max.compareAndSet(currentMax, micros)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * @return sum of recorded values
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return copy of buckets counts, use {@link #getBucketUpperBound(int)} to get bucket values range
+     */
+    public long[] getCounts() {
+        long[] result = new long[BUCKETS_COUNT];
+        for (int i = 0; i < BUCKETS_COUNT; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < LINEAR_BUCKETS_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS_COUNT - 1;
+        }
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS_COUNT;
+        return LINEAR_BUCKETS_COUNT + (exponent - LINEAR_BITS) * SUB_BUCKETS_COUNT + subBucket;
+    }
+
+    /**
+     * @return max value counted in bucket
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS_COUNT) {
+            return index;
+        }
+        int exponent = LINEAR_BITS + (index - LINEAR_BUCKETS_COUNT) / SUB_BUCKETS_COUNT;
+        long subBucket = SUB_BUCKETS_COUNT + (index - LINEAR_BUCKETS_COUNT) % SUB_BUCKETS_COUNT;
+        return ((subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,113 @@
+package ru.runa.wfe.commons.metrics;
+
+import java.io.Serializable;
+
+import com.google.common.base.Objects;
+
+/**
+ * Snapshot of service method calls statistics. Times are in milliseconds.
+ *
+ * @since 4.3.0
+ */
+public class MethodMetrics implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private long periodMillis;
+    private long callsCount;
+    private long errorsCount;
+    private long totalMicros;
+    private long maxMicros;
+    private long[] bucketCounts;
+
+    public MethodMetrics() {
+    }
+
+    public MethodMetrics(String name, long periodMillis, LatencyHistogram histogram, long errorsCount) {
+        this.name = name;
+        this.periodMillis = periodMillis;
+        this.bucketCounts = histogram.getCounts();
+        long callsCount = 0;
+        for (long count : bucketCounts) {
+            callsCount += count;
+        }
+        this.callsCount = callsCount;
+        this.errorsCount = errorsCount;
+        this.totalMicros = histogram.getTotal();
+        this.maxMicros = histogram.getMax();
+    }
+
+    /**
+     * @return service method signature, i.e. <code>TaskServiceBean.completeTask(User, Long, Map, Long)</code>
+     */
+    public String getName() {
+        return name;
+    }
+
+    public long getCallsCount() {
+        return callsCount;
+    }
+
+    /**
+     * @return calls count finished by exception
+     */
+    public long getErrorsCount() {
+        return errorsCount;
+    }
+
+    /**
+     * @return average calls count per second since metrics collection start
+     */
+    public double getThroughput() {
+        return periodMillis > 0 ? callsCount * 1000.0 / periodMillis : 0;
+    }
+
+    public double getTotalTime() {
+        return totalMicros / 1000.0;
+    }
+
+    public double getMeanTime() {
+        return callsCount > 0 ? totalMicros / 1000.0 / callsCount : 0;
+    }
+
+    public double getMaxTime() {
+        return maxMicros / 1000.0;
+    }
+
+    /**
+     * @param percentile
+     *            0..100
+     * @return time which is not exceeded by given percent of calls
+     */
+    public double getPercentileTime(double percentile) {
+        if (callsCount == 0) {
+            return 0;
+        }
+        long threshold = Math.max(1, (long) Math.ceil(callsCount * percentile / 100));
+        long count = 0;
+        for (int i = 0; i < bucketCounts.length; i++) {
+            count += bucketCounts[i];
+            if (count >= threshold) {
+                return Math.min(LatencyHistogram.getBucketUpperBound(i), maxMicros) / 1000.0;
+            }
+        }
+        return getMaxTime();
+    }
+
+    /**
+     * @return histogram buckets counts, use {@link #getBucketUpperBoundTime(int)} for bucket range
+     */
+    public long[] getBucketCounts() {
+        return bucketCounts;
+    }
+
+    public static double getBucketUpperBoundTime(int index) {
+        return LatencyHistogram.getBucketUpperBound(index) / 1000.0;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("name", name).add("calls", callsCount).add("errors", errorsCount).add("mean", getMeanTime())
+                .add("p99", getPercentileTime(99)).add("max", getMaxTime()).toString();
+    }
+}
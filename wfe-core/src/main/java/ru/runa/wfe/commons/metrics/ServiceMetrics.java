@@ -0,0 +1,266 @@
+package ru.runa.wfe.commons.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.SystemProperties;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Service methods calls statistics: latency histogram, calls and errors count per method since server start or last reset. Available through JMX
+ * as {@link #OBJECT_NAME}.
+ *
+ * @since 4.3.0
+ */
+public class ServiceMetrics {
+    private static final Log log = LogFactory.getLog(ServiceMetrics.class);
+    public static final String OBJECT_NAME = "ru.runa.wfe:type=ServiceMetrics";
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+    private static volatile Period period = new Period();
+
+    static {
+        registerMBean();
+    }
+
+    /**
+     * Records method call.
+     *
+     * @param method
+     *            service method signature, overloaded methods are recorded separately
+     * @param nanos
+     *            call time
+     * @param failed
+     *            whether call is finished by exception
+     */
+    public static void record(String method, long nanos, boolean failed) {
+        if (!SystemProperties.isServiceMetricsEnabled()) {
+            return;
+        }
+        Period currentPeriod = period;
+        Counters counters = currentPeriod.counters.get(method);
+        if (counters == null) {
+            Counters newCounters = new Counters();
+            counters = currentPeriod.counters.putIfAbsent(method, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        counters.histogram.record(nanos / 1000);
+        if (failed) {
+            counters.errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return methods statistics ordered by total time descending
+     */
+    public static List<MethodMetrics> getMethodMetrics() {
+        Period currentPeriod = period;
+        long periodMillis = System.currentTimeMillis() - currentPeriod.startTime;
+        List<MethodMetrics> result = Lists.newArrayListWithExpectedSize(currentPeriod.counters.size());
+        for (Map.Entry<String, Counters> entry : currentPeriod.counters.entrySet()) {
+            Counters counters = entry.getValue();
+            result.add(new MethodMetrics(entry.getKey(), periodMillis, counters.histogram, counters.errors.get()));
+        }
+        Collections.sort(result, new Comparator<MethodMetrics>() {
+
+            @Override
+            public int compare(MethodMetrics o1, MethodMetrics o2) {
+                return Double.compare(o2.getTotalTime(), o1.getTotalTime());
+            }
+        });
+        return result;
+    }
+
+    public static MethodMetrics getMethodMetrics(String method) {
+        Period currentPeriod = period;
+        Counters counters = currentPeriod.counters.get(method);
+        if (counters == null) {
+            return null;
+        }
+        return new MethodMetrics(method, System.currentTimeMillis() - currentPeriod.startTime, counters.histogram, counters.errors.get());
+    }
+
+    /**
+     * @return time of collection start
+     */
+    public static Date getStartDate() {
+        return new Date(period.startTime);
+    }
+
+    /**
+     * Clears collected statistics and starts new period.
+     */
+    public static void reset() {
+        period = new Period();
+        log.info("Service metrics are reset");
+    }
+
+    /**
+     * @return summary table in text form
+     */
+    public static String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append(String.format(Locale.ENGLISH, "%-60s %10s %8s %10s %10s %10s %10s %10s %10s %10s%n", "method", "calls", "errors", "calls/s",
+                "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (MethodMetrics metrics : getMethodMetrics()) {
+            summary.append(String.format(Locale.ENGLISH, "%-60s %10d %8d %10.2f %10.1f %10.1f %10.1f %10.1f %10.1f %10.1f%n", metrics.getName(),
+                    metrics.getCallsCount(), metrics.getErrorsCount(), metrics.getThroughput(), metrics.getMeanTime(),
+                    metrics.getPercentileTime(PERCENTILES[0]), metrics.getPercentileTime(PERCENTILES[1]),
+                    metrics.getPercentileTime(PERCENTILES[2]), metrics.getPercentileTime(PERCENTILES[3]), metrics.getMaxTime()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * @return all statistics including not empty histogram buckets in CSV form (times in milliseconds) for offline analysis
+     */
+    public static String dump() {
+        List<MethodMetrics> list = getMethodMetrics();
+        StringBuilder dump = new StringBuilder();
+        dump.append("# service metrics since ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(getStartDate()));
+        dump.append(", dumped at ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date())).append("\n");
+        dump.append("method;calls;errors;throughput;total;mean;max");
+        for (double percentile : PERCENTILES) {
+            dump.append(";p").append(formatPercentile(percentile));
+        }
+        dump.append("\n");
+        for (MethodMetrics metrics : list) {
+            dump.append(metrics.getName()).append(";").append(metrics.getCallsCount()).append(";").append(metrics.getErrorsCount());
+            dump.append(";").append(format(metrics.getThroughput())).append(";").append(format(metrics.getTotalTime()));
+            dump.append(";").append(format(metrics.getMeanTime())).append(";").append(format(metrics.getMaxTime()));
+            for (double percentile : PERCENTILES) {
+                dump.append(";").append(format(metrics.getPercentileTime(percentile)));
+            }
+            dump.append("\n");
+        }
+        dump.append("\n");
+        dump.append("method;bucket upper bound;calls\n");
+        for (MethodMetrics metrics : list) {
+            long[] bucketCounts = metrics.getBucketCounts();
+            for (int i = 0; i < bucketCounts.length; i++) {
+                if (bucketCounts[i] > 0) {
+                    dump.append(metrics.getName()).append(";").append(format(MethodMetrics.getBucketUpperBoundTime(i)));
+                    dump.append(";").append(bucketCounts[i]).append("\n");
+                }
+            }
+        }
+        return dump.toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ENGLISH, "%.3f", value);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(objectName)) {
+                // redeployment
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(new ServiceMetricsMBeanImpl(), ServiceMetricsMBean.class), objectName);
+        } catch (Exception e) {
+            log.warn("Unable to register " + OBJECT_NAME, e);
+        }
+    }
+
+    private static class Period {
+        private final long startTime = System.currentTimeMillis();
+        private final ConcurrentMap<String, Counters> counters = Maps.newConcurrentMap();
+    }
+
+    private static class Counters {
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+    }
+
+    private static class ServiceMetricsMBeanImpl implements ServiceMetricsMBean {
+
+        @Override
+        public boolean isEnabled() {
+            return SystemProperties.isServiceMetricsEnabled();
+        }
+
+        @Override
+        public Date getStartDate() {
+            return ServiceMetrics.getStartDate();
+        }
+
+        @Override
+        public String[] getMethodNames() {
+            List<String> names = Lists.newArrayList();
+            for (MethodMetrics metrics : ServiceMetrics.getMethodMetrics()) {
+                names.add(metrics.getName());
+            }
+            return names.toArray(new String[names.size()]);
+        }
+
+        @Override
+        public long getCallsCount() {
+            long count = 0;
+            for (MethodMetrics metrics : ServiceMetrics.getMethodMetrics()) {
+                count += metrics.getCallsCount();
+            }
+            return count;
+        }
+
+        @Override
+        public long getErrorsCount() {
+            long count = 0;
+            for (MethodMetrics metrics : ServiceMetrics.getMethodMetrics()) {
+                count += metrics.getErrorsCount();
+            }
+            return count;
+        }
+
+        @Override
+        public String getSummary() {
+            return ServiceMetrics.getSummary();
+        }
+
+        @Override
+        public String getMethodSummary(String method) {
+            MethodMetrics metrics = ServiceMetrics.getMethodMetrics(method);
+            return metrics != null ? metrics.toString() : null;
+        }
+
+        @Override
+        public double getPercentileTime(String method, double percentile) {
+            MethodMetrics metrics = ServiceMetrics.getMethodMetrics(method);
+            return metrics != null ? metrics.getPercentileTime(percentile) : 0;
+        }
+
+        @Override
+        public String dump() {
+            return ServiceMetrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            ServiceMetrics.reset();
+        }
+    }
+}
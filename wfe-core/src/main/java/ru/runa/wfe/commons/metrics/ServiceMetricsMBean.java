@@ -0,0 +1,37 @@
+package ru.runa.wfe.commons.metrics;
+
+import java.util.Date;
+
+/**
+ * JMX interface of {@link ServiceMetrics}. Times are in milliseconds.
+ *
+ * @since 4.3.0
+ */
+public interface ServiceMetricsMBean {
+
+    boolean isEnabled();
+
+    Date getStartDate();
+
+    /**
+     * @return observed methods ordered by total time descending
+     */
+    String[] getMethodNames();
+
+    long getCallsCount();
+
+    long getErrorsCount();
+
+    String getSummary();
+
+    String getMethodSummary(String method);
+
+    double getPercentileTime(String method, double percentile);
+
+    /**
+     * @return all statistics in CSV form
+     */
+    String dump();
+
+    void reset();
+}
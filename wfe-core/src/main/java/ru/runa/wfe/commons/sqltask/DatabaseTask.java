@@ -45,4 +45,19 @@ public class DatabaseTask {
     public AbstractQuery getQuery(int i) {
         return queries[i];
     }
+
+    /**
+     * @return whether data source name or some query is substituted from process variable
+     */
+    public boolean isVariableDependent() {
+        if (datasourceName.startsWith("$")) {
+            return true;
+        }
+        for (AbstractQuery query : queries) {
+            if (query.getSql().startsWith("$")) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
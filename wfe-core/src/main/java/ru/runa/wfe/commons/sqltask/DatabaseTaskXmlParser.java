@@ -51,7 +51,8 @@ public class DatabaseTaskXmlParser {
      * @param configuration
      *            xml configuration
      * @param variableProvider
-     *            process variables to substitute values in query string
+     *            process variables to substitute values in query string, if
+     *            <code>null</code> substitutions are left unresolved
      */
     public static DatabaseTask[] parse(String configuration, IVariableProvider variableProvider) {
         Document document = XmlUtils.parseWithXSDValidation(configuration, "database-tasks.xsd");
@@ -117,7 +118,7 @@ public class DatabaseTaskXmlParser {
     private static final Pattern pattern = Pattern.compile("\\$\\{(.*)\\}");
 
     public static String parseSQLQueryElement(String sqlElement, IVariableProvider variableProvider) {
-        if (!sqlElement.startsWith("$")) {
+        if (!sqlElement.startsWith("$") || variableProvider == null) {
             return sqlElement;
         }
         String sql = "";
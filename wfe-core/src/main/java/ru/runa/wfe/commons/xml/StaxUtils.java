@@ -0,0 +1,141 @@
+package ru.runa.wfe.commons.xml;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.StringTokenizer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+/**
+ * Streaming (StAX) XML operations: reader is moved element by element, document tree is not built. Text reading methods follow dom4j
+ * semantics to get the same results as {@link XmlUtils} based code.
+ *
+ * @since 4.3.0
+ */
+public class StaxUtils {
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /**
+     * Creates reader positioned at root element start. Encoding is detected by parser from byte order mark and XML declaration, UTF-8 is used
+     * by default.
+     */
+    public static XMLStreamReader createReader(byte[] data) {
+        try {
+            XMLStreamReader reader = FACTORY.createXMLStreamReader(new ByteArrayInputStream(data));
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // skip prolog
+            }
+            return reader;
+        } catch (XMLStreamException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    public static void close(XMLStreamReader reader) {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * Moves reader from start of element (or end of its previous child) to start of next child element.
+     *
+     * @return <code>false</code> if end of element is reached
+     */
+    public static boolean nextChildElement(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves reader from start of element to its end.
+     */
+    public static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    /**
+     * Reads element text as {@link org.dom4j.Element#getText()}: only own text and CDATA are concatenated, child elements are skipped. Reader
+     * is moved to end of element.
+     */
+    public static String readText(XMLStreamReader reader) throws XMLStreamException {
+        StringBuilder text = new StringBuilder();
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                text.append(reader.getText());
+            } else if (event == XMLStreamConstants.START_ELEMENT) {
+                skipElement(reader);
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                return text.toString();
+            }
+        }
+    }
+
+    /**
+     * Reads element text as {@link org.dom4j.Element#getTextTrim()}: whitespace is trimmed and normalized to single spaces.
+     */
+    public static String readTextTrim(XMLStreamReader reader) throws XMLStreamException {
+        StringTokenizer tokenizer = new StringTokenizer(readText(reader));
+        StringBuilder text = new StringBuilder();
+        while (tokenizer.hasMoreTokens()) {
+            text.append(tokenizer.nextToken());
+            if (tokenizer.hasMoreTokens()) {
+                text.append(" ");
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * @return attribute values of current element by local names
+     */
+    public static Map<String, String> getAttributes(XMLStreamReader reader) {
+        Map<String, String> attributes = Maps.newHashMapWithExpectedSize(reader.getAttributeCount());
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String name = reader.getAttributeLocalName(i);
+            if (!attributes.containsKey(name)) {
+                attributes.put(name, reader.getAttributeValue(i));
+            }
+        }
+        return attributes;
+    }
+
+    public static String getAttribute(Map<String, String> attributes, String name, String defaultValue) {
+        String value = attributes.get(name);
+        return value != null ? value : defaultValue;
+    }
+}
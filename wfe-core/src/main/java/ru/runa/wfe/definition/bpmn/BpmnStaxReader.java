@@ -0,0 +1,644 @@
+package ru.runa.wfe.definition.bpmn;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.dao.LocalizationDAO;
+import ru.runa.wfe.commons.xml.StaxUtils;
+import ru.runa.wfe.definition.InvalidDefinitionException;
+import ru.runa.wfe.definition.ProcessDefinitionAccessType;
+import ru.runa.wfe.definition.logic.SwimlaneUtils;
+import ru.runa.wfe.job.CancelTimerAction;
+import ru.runa.wfe.job.CreateTimerAction;
+import ru.runa.wfe.job.Timer;
+import ru.runa.wfe.lang.Action;
+import ru.runa.wfe.lang.AsyncCompletionMode;
+import ru.runa.wfe.lang.BaseTaskNode;
+import ru.runa.wfe.lang.Delegation;
+import ru.runa.wfe.lang.EmbeddedSubprocessEndNode;
+import ru.runa.wfe.lang.EmbeddedSubprocessStartNode;
+import ru.runa.wfe.lang.EndNode;
+import ru.runa.wfe.lang.Event;
+import ru.runa.wfe.lang.GraphElement;
+import ru.runa.wfe.lang.InteractionNode;
+import ru.runa.wfe.lang.MultiSubprocessNode;
+import ru.runa.wfe.lang.MultiTaskCreationMode;
+import ru.runa.wfe.lang.MultiTaskNode;
+import ru.runa.wfe.lang.MultiTaskSynchronizationMode;
+import ru.runa.wfe.lang.Node;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.ReceiveMessageNode;
+import ru.runa.wfe.lang.ScriptNode;
+import ru.runa.wfe.lang.SendMessageNode;
+import ru.runa.wfe.lang.StartNode;
+import ru.runa.wfe.lang.SubprocessDefinition;
+import ru.runa.wfe.lang.SubprocessNode;
+import ru.runa.wfe.lang.SwimlaneDefinition;
+import ru.runa.wfe.lang.TaskDefinition;
+import ru.runa.wfe.lang.TaskNode;
+import ru.runa.wfe.lang.Transition;
+import ru.runa.wfe.lang.VariableContainerNode;
+import ru.runa.wfe.lang.WaitNode;
+import ru.runa.wfe.lang.bpmn2.EndToken;
+import ru.runa.wfe.lang.bpmn2.ExclusiveGateway;
+import ru.runa.wfe.lang.bpmn2.TextAnnotation;
+import ru.runa.wfe.var.VariableMapping;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
+/**
+ * Streaming (StAX) BPMN reader building the same model as {@link BpmnXmlReader} without document tree. Process element children are
+ * collected into compact descriptors (only attributes, documentation and runa extensions), lanes are read while streaming, diagram
+ * interchange part after process element is not read at all. Boundary events and transition ends are resolved through indexes instead
+ * of scanning all elements for each node.
+ *
+ * @since 4.3.0
+ */
+public class BpmnStaxReader {
+    private static final String RUNA_NAMESPACE = "http://runa.ru/wfe/xml";
+    private static final String PROCESS = "process";
+    private static final String EXTENSION_ELEMENTS = "extensionElements";
+    private static final String IS_EXECUTABLE = "isExecutable";
+    private static final String PROPERTY = "property";
+    private static final String END_EVENT = "endEvent";
+    private static final String TOKEN = "token";
+    private static final String VARIABLES = "variables";
+    private static final String VARIABLE = "variable";
+    private static final String SOURCE_REF = "sourceRef";
+    private static final String TARGET_REF = "targetRef";
+    private static final String SUBPROCESS = "subProcess";
+    private static final String MULTI_INSTANCE = "multiInstance";
+    private static final String DEFAULT_TASK_DEADLINE = "defaultTaskDeadline";
+    private static final String TASK_DEADLINE = "taskDeadline";
+    private static final String START_EVENT = "startEvent";
+    private static final String LANE_SET = "laneSet";
+    private static final String LANE = "lane";
+    private static final String FLOW_NODE_REF = "flowNodeRef";
+    private static final String REASSIGN = "reassign";
+    private static final String REASSIGN_SWIMLANE_TO_TASK_PERFORMER = "reassignSwimlaneToTaskPerformer";
+    private static final String CLASS = "class";
+    private static final String SEQUENCE_FLOW = "sequenceFlow";
+    private static final String DOCUMENTATION = "documentation";
+    private static final String CONFIG = "config";
+    private static final String NAME = "name";
+    private static final String VALUE = "value";
+    private static final String MAPPED_NAME = "mappedName";
+    private static final String USAGE = "usage";
+    private static final String ID = "id";
+    private static final String BOUNDARY_EVENT = "boundaryEvent";
+    private static final String ATTACHED_TO_REF = "attachedToRef";
+    private static final String TIMER_EVENT_DEFINITION = "timerEventDefinition";
+    private static final String TIME_DURATION = "timeDuration";
+    private static final String REPEAT = "repeat";
+    private static final String ASYNC = "async";
+    private static final String ASYNC_COMPLETION_MODE = "asyncCompletionMode";
+    private static final String ACCESS_TYPE = "accessType";
+    private static final String EMBEDDED = "embedded";
+    private static final String IGNORE_SUBSTITUTION_RULES = "ignoreSubstitutionRules";
+    private static final String TEXT = "text";
+    private static final String MULTI_TASK_SYNCHRONIZATION_MODE = "multiTaskSynchronizationMode";
+    private static final String MULTI_TASK_CREATION_MODE = "multiTaskCreationMode";
+    private static final String DISCRIMINATOR_USAGE = "discriminatorUsage";
+    private static final String DISCRIMINATOR_VALUE = "discriminatorValue";
+    private static final String DISCRIMINATOR_CONDITION = "discriminatorCondition";
+
+    @Autowired
+    private LocalizationDAO localizationDAO;
+
+    private final XMLStreamReader reader;
+    private final ListMultimap<String, FlowElement> boundaryEvents = ArrayListMultimap.create();
+    private final Map<String, GraphElement> graphElementsById = Maps.newHashMap();
+    private String defaultTaskDeadline;
+
+    /**
+     * @param reader
+     *            positioned at <code>definitions</code> element start
+     */
+    public BpmnStaxReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    public ProcessDefinition readProcessDefinition(ProcessDefinition processDefinition) {
+        try {
+            while (StaxUtils.nextChildElement(reader) && !PROCESS.equals(reader.getLocalName())) {
+                StaxUtils.skipElement(reader);
+            }
+            if (!reader.isStartElement()) {
+                throw new InternalApplicationException("no " + PROCESS + " element found");
+            }
+            processDefinition.setName(reader.getAttributeValue(null, NAME));
+            if ("false".equals(reader.getAttributeValue(null, IS_EXECUTABLE))) {
+                throw new InvalidDefinitionException(processDefinition.getName(), "process is not executable");
+            }
+
+            // 1: read swimlanes, collect nodes and transitions
+            Map<String, String> processProperties = null;
+            boolean swimlanesRead = false;
+            List<FlowElement> nodeElements = Lists.newArrayList();
+            List<FlowElement> transitionElements = Lists.newArrayList();
+            while (StaxUtils.nextChildElement(reader)) {
+                String elementName = reader.getLocalName();
+                if (EXTENSION_ELEMENTS.equals(elementName) && processProperties == null) {
+                    processProperties = Maps.newHashMap();
+                    readExtensionElements(processProperties, null);
+                } else if (LANE_SET.equals(elementName) && !swimlanesRead) {
+                    readSwimlanes(processDefinition);
+                    swimlanesRead = true;
+                } else if (SEQUENCE_FLOW.equals(elementName)) {
+                    transitionElements.add(readFlowElement());
+                } else if (BOUNDARY_EVENT.equals(elementName)) {
+                    FlowElement element = readFlowElement();
+                    boundaryEvents.put(element.attributes.get(ATTACHED_TO_REF), element);
+                } else if (BpmnXmlReader.nodeTypes.containsKey(elementName) || START_EVENT.equals(elementName) || END_EVENT.equals(elementName)
+                        || SUBPROCESS.equals(elementName)) {
+                    nodeElements.add(readFlowElement());
+                } else {
+                    StaxUtils.skipElement(reader);
+                }
+            }
+            if (processProperties == null) {
+                processProperties = Maps.newHashMap();
+            }
+            processDefinition.setDescription(processProperties.get(DOCUMENTATION));
+            defaultTaskDeadline = processProperties.get(DEFAULT_TASK_DEADLINE);
+            String accessTypeString = processProperties.get(ACCESS_TYPE);
+            if (!Strings.isNullOrEmpty(accessTypeString)) {
+                processDefinition.setAccessType(ProcessDefinitionAccessType.valueOf(accessTypeString));
+            }
+            readNodes(processDefinition, nodeElements);
+
+            // 2: processing transitions
+            indexGraphElements(processDefinition);
+            readTransitions(processDefinition, transitionElements);
+
+            // 3: verify
+            verifyElements(processDefinition);
+        } catch (Exception e) {
+            throw new InvalidDefinitionException(processDefinition.getName(), e);
+        }
+        return processDefinition;
+    }
+
+    private void readSwimlanes(ProcessDefinition processDefinition) throws XMLStreamException {
+        while (StaxUtils.nextChildElement(reader)) {
+            if (!LANE.equals(reader.getLocalName())) {
+                StaxUtils.skipElement(reader);
+                continue;
+            }
+            String swimlaneName = reader.getAttributeValue(null, NAME);
+            if (swimlaneName == null) {
+                throw new InternalApplicationException("there's a swimlane without a name");
+            }
+            SwimlaneDefinition swimlaneDefinition = new SwimlaneDefinition();
+            swimlaneDefinition.setNodeId(reader.getAttributeValue(null, ID));
+            swimlaneDefinition.setName(swimlaneName);
+            Map<String, String> properties = null;
+            List<String> flowNodeIds = Lists.newArrayList();
+            while (StaxUtils.nextChildElement(reader)) {
+                String elementName = reader.getLocalName();
+                if (EXTENSION_ELEMENTS.equals(elementName) && properties == null) {
+                    properties = Maps.newHashMap();
+                    readExtensionElements(properties, null);
+                } else if (FLOW_NODE_REF.equals(elementName)) {
+                    flowNodeIds.add(StaxUtils.readTextTrim(reader));
+                } else {
+                    StaxUtils.skipElement(reader);
+                }
+            }
+            swimlaneDefinition.setDelegation(readDelegation(properties, "<" + LANE + " name=\"" + swimlaneName + "\">", true));
+            SwimlaneUtils.setOrgFunctionLabel(swimlaneDefinition, localizationDAO);
+            swimlaneDefinition.setFlowNodeIds(flowNodeIds);
+            processDefinition.addSwimlane(swimlaneDefinition);
+        }
+    }
+
+    private FlowElement readFlowElement() throws XMLStreamException {
+        FlowElement element = new FlowElement(reader.getLocalName(), StaxUtils.getAttributes(reader));
+        element.subProcessName = reader.getAttributeValue(RUNA_NAMESPACE, PROCESS);
+        element.timeDuration = reader.getAttributeValue(RUNA_NAMESPACE, TIME_DURATION);
+        while (StaxUtils.nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (DOCUMENTATION.equals(elementName) && element.documentation == null) {
+                element.documentation = StaxUtils.readTextTrim(reader);
+            } else if (TEXT.equals(elementName) && element.text == null) {
+                element.text = StaxUtils.readTextTrim(reader);
+            } else if (EXTENSION_ELEMENTS.equals(elementName) && element.properties == null) {
+                element.properties = Maps.newHashMap();
+                element.variables = Lists.newArrayList();
+                readExtensionElements(element.properties, element.variables);
+            } else if (TIMER_EVENT_DEFINITION.equals(elementName) && element.timer == null) {
+                element.timer = readTimerElement();
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    private TimerElement readTimerElement() throws XMLStreamException {
+        TimerElement element = new TimerElement();
+        while (StaxUtils.nextChildElement(reader)) {
+            String elementName = reader.getLocalName();
+            if (TIME_DURATION.equals(elementName) && element.timeDuration == null) {
+                element.timeDuration = StaxUtils.readTextTrim(reader);
+            } else if (EXTENSION_ELEMENTS.equals(elementName) && element.properties == null) {
+                element.properties = Maps.newHashMap();
+                readExtensionElements(element.properties, null);
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    /**
+     * Reads runa properties and first runa variables list (if variables is not <code>null</code>) of extension elements.
+     */
+    private void readExtensionElements(Map<String, String> properties, List<Map<String, String>> variables) throws XMLStreamException {
+        boolean variablesRead = false;
+        while (StaxUtils.nextChildElement(reader)) {
+            if (!RUNA_NAMESPACE.equals(reader.getNamespaceURI())) {
+                StaxUtils.skipElement(reader);
+                continue;
+            }
+            String elementName = reader.getLocalName();
+            if (PROPERTY.equals(elementName)) {
+                String name = reader.getAttributeValue(null, NAME);
+                String value = reader.getAttributeValue(null, VALUE);
+                if (value == null) {
+                    // #798
+                    value = StaxUtils.readText(reader).trim();
+                } else {
+                    StaxUtils.skipElement(reader);
+                }
+                properties.put(name, value);
+            } else if (VARIABLES.equals(elementName) && variables != null && !variablesRead) {
+                while (StaxUtils.nextChildElement(reader)) {
+                    if (VARIABLE.equals(reader.getLocalName()) && RUNA_NAMESPACE.equals(reader.getNamespaceURI())) {
+                        variables.add(StaxUtils.getAttributes(reader));
+                    }
+                    StaxUtils.skipElement(reader);
+                }
+                variablesRead = true;
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+    }
+
+    private void readNodes(ProcessDefinition processDefinition, List<FlowElement> elements) {
+        for (FlowElement element : elements) {
+            String nodeName = element.name;
+            Node node = null;
+            if (BpmnXmlReader.nodeTypes.containsKey(nodeName)) {
+                node = ApplicationContextFactory.createAutowiredBean(BpmnXmlReader.nodeTypes.get(nodeName));
+            } else if (START_EVENT.equals(nodeName)) {
+                if (processDefinition instanceof SubprocessDefinition) {
+                    node = ApplicationContextFactory.createAutowiredBean(EmbeddedSubprocessStartNode.class);
+                } else {
+                    node = ApplicationContextFactory.createAutowiredBean(StartNode.class);
+                }
+            } else if (END_EVENT.equals(nodeName)) {
+                if (element.getProperties().containsKey(TOKEN)) {
+                    if (processDefinition instanceof SubprocessDefinition) {
+                        node = ApplicationContextFactory.createAutowiredBean(EmbeddedSubprocessEndNode.class);
+                    } else {
+                        node = ApplicationContextFactory.createAutowiredBean(EndToken.class);
+                    }
+                } else {
+                    node = ApplicationContextFactory.createAutowiredBean(EndNode.class);
+                }
+            } else if (SUBPROCESS.equals(nodeName)) {
+                if (element.getProperties().containsKey(MULTI_INSTANCE)) {
+                    node = ApplicationContextFactory.createAutowiredBean(MultiSubprocessNode.class);
+                } else {
+                    node = ApplicationContextFactory.createAutowiredBean(SubprocessNode.class);
+                }
+            }
+            if (node != null) {
+                node.setProcessDefinition(processDefinition);
+                readNode(processDefinition, element, node);
+            }
+        }
+    }
+
+    private void readNode(ProcessDefinition processDefinition, FlowElement element, Node node) {
+        node.setNodeId(element.attributes.get(ID));
+        node.setName(element.attributes.get(NAME));
+        node.setDescription(element.documentation);
+        processDefinition.addNode(node);
+
+        if (node instanceof StartNode) {
+            StartNode startNode = (StartNode) node;
+            readTask(processDefinition, element, startNode);
+        }
+        if (node instanceof TaskNode) {
+            TaskNode taskNode = (TaskNode) node;
+            readTask(processDefinition, element, taskNode);
+            readBoundaryEvent(processDefinition, taskNode);
+        }
+        if (node instanceof MultiTaskNode) {
+            MultiTaskNode taskNode = (MultiTaskNode) node;
+            readTask(processDefinition, element, taskNode);
+            readBoundaryEvent(processDefinition, taskNode);
+        }
+        if (node instanceof BaseTaskNode) {
+            Map<String, String> properties = element.getProperties();
+            BaseTaskNode taskNode = (BaseTaskNode) node;
+            if (properties.containsKey(ASYNC)) {
+                taskNode.setAsync(Boolean.valueOf(properties.get(ASYNC)));
+            }
+            if (properties.containsKey(ASYNC_COMPLETION_MODE)) {
+                taskNode.setCompletionMode(AsyncCompletionMode.valueOf(properties.get(ASYNC_COMPLETION_MODE)));
+            }
+        }
+        if (node instanceof VariableContainerNode) {
+            VariableContainerNode variableContainerNode = (VariableContainerNode) node;
+            variableContainerNode.setVariableMappings(readVariableMappings(element));
+        }
+        if (node instanceof SubprocessNode) {
+            SubprocessNode subprocessNode = (SubprocessNode) node;
+            subprocessNode.setSubProcessName(element.subProcessName);
+            Map<String, String> properties = element.getProperties();
+            if (properties.containsKey(EMBEDDED)) {
+                subprocessNode.setEmbedded(Boolean.parseBoolean(properties.get(EMBEDDED)));
+            }
+            if (properties.containsKey(ASYNC)) {
+                subprocessNode.setAsync(Boolean.valueOf(properties.get(ASYNC)));
+            }
+            if (properties.containsKey(ASYNC_COMPLETION_MODE)) {
+                subprocessNode.setCompletionMode(AsyncCompletionMode.valueOf(properties.get(ASYNC_COMPLETION_MODE)));
+            }
+        }
+        if (node instanceof ExclusiveGateway) {
+            ExclusiveGateway gateway = (ExclusiveGateway) node;
+            gateway.setDelegation(readDelegation(element.getProperties(), element.toString(), false));
+        }
+        if (node instanceof WaitNode) {
+            WaitNode waitNode = (WaitNode) node;
+            readTimer(processDefinition, element, waitNode);
+        }
+        if (node instanceof ScriptNode) {
+            ScriptNode serviceTask = (ScriptNode) node;
+            serviceTask.setDelegation(readDelegation(element.getProperties(), element.toString(), true));
+        }
+        if (node instanceof SendMessageNode) {
+            SendMessageNode sendMessageNode = (SendMessageNode) node;
+            sendMessageNode.setTtlDuration(element.timeDuration != null ? element.timeDuration : "1 days");
+        }
+        if (node instanceof ReceiveMessageNode) {
+            ReceiveMessageNode receiveMessageNode = (ReceiveMessageNode) node;
+            readBoundaryEvent(processDefinition, receiveMessageNode);
+        }
+        if (node instanceof TextAnnotation) {
+            node.setName("TextAnnotation_" + node.getNodeId());
+            node.setDescription(element.text);
+        }
+    }
+
+    private void readBoundaryEvent(ProcessDefinition processDefinition, GraphElement parent) {
+        for (FlowElement boundaryEventElement : boundaryEvents.get(parent.getNodeId())) {
+            readTimer(processDefinition, boundaryEventElement, parent);
+        }
+    }
+
+    private void readTimer(ProcessDefinition processDefinition, FlowElement eventElement, GraphElement node) {
+        TimerElement timerElement = eventElement.timer;
+        CreateTimerAction createTimerAction = ApplicationContextFactory.createAutowiredBean(CreateTimerAction.class);
+        createTimerAction.setNodeId(eventElement.attributes.get(ID));
+        String name = StaxUtils.getAttribute(eventElement.attributes, NAME, node.getNodeId());
+        createTimerAction.setName(name);
+        String durationString = timerElement.timeDuration;
+        if (Strings.isNullOrEmpty(durationString) && node instanceof TaskNode && Timer.ESCALATION_NAME.equals(name)) {
+            durationString = ((TaskNode) node).getFirstTaskNotNull().getDeadlineDuration();
+            if (Strings.isNullOrEmpty(durationString)) {
+                throw new InternalApplicationException("No '" + TIME_DURATION + "' specified for timer in " + node);
+            }
+        }
+        createTimerAction.setDueDate(durationString);
+        Map<String, String> extensionProperties = timerElement.getProperties();
+        createTimerAction.setRepeatDurationString(extensionProperties.get(REPEAT));
+        String createEventType = node instanceof TaskNode ? Event.TASK_CREATE : Event.NODE_ENTER;
+        addAction(node, createEventType, createTimerAction);
+
+        Delegation timerDelegation = readDelegation(extensionProperties, "<" + TIMER_EVENT_DEFINITION + ">", false);
+        if (timerDelegation != null) {
+            Action timerAction = new Action();
+            timerAction.setName(name);
+            timerAction.setDelegation(timerDelegation);
+            addAction(node, Event.TIMER, timerAction);
+        }
+
+        CancelTimerAction cancelTimerAction = ApplicationContextFactory.createAutowiredBean(CancelTimerAction.class);
+        cancelTimerAction.setNodeId(createTimerAction.getNodeId());
+        cancelTimerAction.setName(createTimerAction.getName());
+        String cancelEventType = node instanceof TaskDefinition ? Event.TASK_END : Event.NODE_LEAVE;
+        addAction(node, cancelEventType, cancelTimerAction);
+    }
+
+    private void addAction(GraphElement graphElement, String eventType, Action action) {
+        Event event = graphElement.getEventNotNull(eventType);
+        action.setParent(graphElement);
+        event.addAction(action);
+    }
+
+    private List<VariableMapping> readVariableMappings(FlowElement element) {
+        List<VariableMapping> list = Lists.newArrayList();
+        if (element.variables != null) {
+            for (Map<String, String> attributes : element.variables) {
+                list.add(new VariableMapping(attributes.get(NAME), attributes.get(MAPPED_NAME), attributes.get(USAGE)));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Same lookup as {@link ProcessDefinition#getGraphElement(String)} for nodes and their actions built once: first matching node in
+     * nodes order wins.
+     */
+    private void indexGraphElements(ProcessDefinition processDefinition) {
+        for (Node node : processDefinition.getNodes(false)) {
+            if (node.getNodeId() != null && !graphElementsById.containsKey(node.getNodeId())) {
+                graphElementsById.put(node.getNodeId(), node);
+            }
+            for (Event event : node.getEvents().values()) {
+                for (Action action : event.getActions()) {
+                    String id = action.getNodeId();
+                    if (id != null && !graphElementsById.containsKey(id)) {
+                        graphElementsById.put(id, node.getAction(id));
+                    }
+                }
+            }
+        }
+    }
+
+    private GraphElement getGraphElementNotNull(ProcessDefinition processDefinition, String id) {
+        GraphElement graphElement = graphElementsById.get(id);
+        if (graphElement == null) {
+            graphElement = processDefinition.getGraphElementNotNull(id);
+        }
+        return graphElement;
+    }
+
+    private void readTransitions(ProcessDefinition processDefinition, List<FlowElement> elements) {
+        for (FlowElement element : elements) {
+            String id = element.attributes.get(ID);
+            if (id == null) {
+                throw new InternalApplicationException("transition without an '" + ID + "'-attribute");
+            }
+            String name = element.attributes.get(NAME);
+            String from = element.attributes.get(SOURCE_REF);
+            if (from == null) {
+                throw new InternalApplicationException("transition '" + id + "' without a '" + SOURCE_REF + "'-attribute");
+            }
+            String to = element.attributes.get(TARGET_REF);
+            if (to == null) {
+                throw new InternalApplicationException("transition '" + id + "' without a '" + TARGET_REF + "'-attribute");
+            }
+            Transition transition = new Transition();
+            transition.setNodeId(id);
+            GraphElement sourceElement = getGraphElementNotNull(processDefinition, from);
+            Node source;
+            if (sourceElement instanceof Node) {
+                source = (Node) sourceElement;
+                if (source instanceof WaitNode) {
+                    source.getTimerActions(false).get(0).setTransitionName(name);
+                    transition.setTimerTransition(true);
+                }
+            } else if (sourceElement instanceof CreateTimerAction) {
+                CreateTimerAction createTimerAction = (CreateTimerAction) sourceElement;
+                createTimerAction.setTransitionName(name);
+                source = (Node) createTimerAction.getParent();
+                transition.setTimerTransition(true);
+            } else {
+                throw new InternalApplicationException("Unexpected source element " + sourceElement);
+            }
+            transition.setFrom(source);
+            GraphElement targetElement = graphElementsById.get(to);
+            Node target = targetElement instanceof Node && to.equals(targetElement.getNodeId()) ? (Node) targetElement : processDefinition
+                    .getNodeNotNull(to);
+            transition.setTo(target);
+            transition.setName(name);
+            transition.setDescription(element.documentation);
+            transition.setProcessDefinition(processDefinition);
+            // add the transition to the node
+            source.addLeavingTransition(transition);
+            // set destinationNode of the transition
+            target.addArrivingTransition(transition);
+        }
+    }
+
+    private void readTask(ProcessDefinition processDefinition, FlowElement element, InteractionNode node) {
+        if (node instanceof EmbeddedSubprocessStartNode) {
+            return;
+        }
+        TaskDefinition taskDefinition = new TaskDefinition();
+        taskDefinition.setNodeId(node.getNodeId());
+        taskDefinition.setProcessDefinition(processDefinition);
+        taskDefinition.setName(node.getName());
+        taskDefinition.setDescription(node.getDescription());
+        node.addTask(taskDefinition);
+        // assignment
+        Map<String, String> properties = element.getProperties();
+        String swimlaneName = properties.get(LANE);
+        if (!Strings.isNullOrEmpty(swimlaneName)) {
+            SwimlaneDefinition swimlaneDefinition = processDefinition.getSwimlaneNotNull(swimlaneName);
+            taskDefinition.setSwimlane(swimlaneDefinition);
+        }
+        if (properties.containsKey(REASSIGN)) {
+            taskDefinition.setReassignSwimlane(Boolean.parseBoolean(properties.get(REASSIGN)));
+        }
+        if (properties.containsKey(REASSIGN_SWIMLANE_TO_TASK_PERFORMER)) {
+            taskDefinition.setReassignSwimlaneToTaskPerformer(Boolean.parseBoolean(properties.get(REASSIGN_SWIMLANE_TO_TASK_PERFORMER)));
+        }
+        if (properties.containsKey(IGNORE_SUBSTITUTION_RULES)) {
+            taskDefinition.setReassignSwimlane(Boolean.parseBoolean(properties.get(IGNORE_SUBSTITUTION_RULES)));
+        }
+        if (properties.containsKey(TASK_DEADLINE)) {
+            taskDefinition.setDeadlineDuration(properties.get(TASK_DEADLINE));
+        } else {
+            taskDefinition.setDeadlineDuration(defaultTaskDeadline);
+        }
+        if (node instanceof MultiTaskNode) {
+            MultiTaskNode taskNode = (MultiTaskNode) node;
+            taskNode.setCreationMode(MultiTaskCreationMode.valueOf(properties.get(MULTI_TASK_CREATION_MODE)));
+            taskNode.setSynchronizationMode(MultiTaskSynchronizationMode.valueOf(properties.get(MULTI_TASK_SYNCHRONIZATION_MODE)));
+            taskNode.setDiscriminatorUsage(properties.get(DISCRIMINATOR_USAGE));
+            taskNode.setDiscriminatorVariableName(properties.get(DISCRIMINATOR_VALUE));
+            taskNode.setDiscriminatorCondition(properties.get(DISCRIMINATOR_CONDITION));
+            taskNode.setVariableMappings(readVariableMappings(element));
+        }
+    }
+
+    private Delegation readDelegation(Map<String, String> properties, String elementDescription, boolean required) {
+        String className = properties != null ? properties.get(CLASS) : null;
+        if (className == null) {
+            if (required) {
+                throw new InternalApplicationException("no className specified in " + elementDescription);
+            }
+            return null;
+        }
+        ClassLoaderUtil.instantiate(className);
+        String configuration = properties.get(CONFIG);
+        return new Delegation(className, configuration);
+    }
+
+    private void verifyElements(ProcessDefinition processDefinition) {
+        for (Node node : processDefinition.getNodes(false)) {
+            node.validate();
+        }
+    }
+
+    private static class FlowElement {
+        private final String name;
+        private final Map<String, String> attributes;
+        private String subProcessName;
+        private String timeDuration;
+        private String documentation;
+        private String text;
+        private Map<String, String> properties;
+        private List<Map<String, String>> variables;
+        private TimerElement timer;
+
+        private FlowElement(String name, Map<String, String> attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+
+        private Map<String, String> getProperties() {
+            if (properties == null) {
+                properties = Maps.newHashMap();
+            }
+            return properties;
+        }
+
+        @Override
+        public String toString() {
+            return "<" + name + " id=\"" + attributes.get(ID) + "\">";
+        }
+    }
+
+    private static class TimerElement {
+        private String timeDuration;
+        private Map<String, String> properties;
+
+        private Map<String, String> getProperties() {
+            if (properties == null) {
+                properties = Maps.newHashMap();
+            }
+            return properties;
+        }
+    }
+}
@@ -122,7 +122,7 @@ public class BpmnXmlReader {
 
     private final Document document;
 
-    private static Map<String, Class<? extends Node>> nodeTypes = Maps.newHashMap();
+    static final Map<String, Class<? extends Node>> nodeTypes = Maps.newHashMap();
     static {
         nodeTypes.put(USER_TASK, TaskNode.class);
         nodeTypes.put(MULTI_TASK, MultiTaskNode.class);
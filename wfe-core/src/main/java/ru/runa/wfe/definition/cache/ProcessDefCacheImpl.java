@@ -22,8 +22,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import org.hibernate.Hibernate;
 import org.hibernate.proxy.HibernateProxy;
 
+import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.cache.BaseCacheImpl;
 import ru.runa.wfe.commons.cache.Cache;
+import ru.runa.wfe.commons.cache.CacheEvictionListener;
 import ru.runa.wfe.commons.cache.CacheImplementation;
 import ru.runa.wfe.commons.cache.Change;
 import ru.runa.wfe.commons.cache.ChangedObjectParameter;
@@ -40,17 +42,26 @@ class ProcessDefCacheImpl extends BaseCacheImpl implements ManageableProcessDefi
 
     private final Cache<Long, ProcessDefinition> definitionIdToDefinition;
     private final Cache<String, Long> definitionNameToId;
+    private final ProcessDefCacheSizeLimiter sizeLimiter;
 
     private final AtomicBoolean isLocked = new AtomicBoolean(false);
 
     public ProcessDefCacheImpl() {
-        definitionIdToDefinition = createCache(definitionIdToDefinitionName);
+        sizeLimiter = new ProcessDefCacheSizeLimiter(SystemProperties.getProcessDefinitionCacheMaxSize());
+        definitionIdToDefinition = createCache(definitionIdToDefinitionName, new CacheEvictionListener<Long>() {
+
+            @Override
+            public void onEvicted(Long definitionId) {
+                sizeLimiter.onEvicted(definitionId);
+            }
+        });
         definitionNameToId = createCache(definitionNameToLatestDefinitionName);
     }
 
     private ProcessDefCacheImpl(ProcessDefCacheImpl source) {
         definitionIdToDefinition = source.definitionIdToDefinition;
         definitionNameToId = source.definitionNameToId;
+        sizeLimiter = source.sizeLimiter;
     }
 
     public synchronized void onDeploymentChange(Deployment deployment, Change change) {
@@ -58,6 +69,11 @@ class ProcessDefCacheImpl extends BaseCacheImpl implements ManageableProcessDefi
         // TODO different calc depending on change
         if (deployment.getId() != null) {
             definitionIdToDefinition.remove(deployment.getId());
+            sizeLimiter.remove(deployment.getId());
+        }
+        Long latestDefinitionId = definitionNameToId.get(deployment.getName());
+        if (latestDefinitionId != null) {
+            sizeLimiter.unpin(latestDefinitionId);
         }
         definitionNameToId.remove(deployment.getName());
     }
@@ -76,6 +92,7 @@ class ProcessDefCacheImpl extends BaseCacheImpl implements ManageableProcessDefi
         // synchronized (this) {
         processDefinition = definitionIdToDefinition.get(definitionId);
         if (processDefinition != null) {
+            sizeLimiter.touch(definitionId);
             return processDefinition;
         }
         // }
@@ -89,6 +106,10 @@ class ProcessDefCacheImpl extends BaseCacheImpl implements ManageableProcessDefi
         // synchronized (this) {
         definitionIdToDefinition.put(definitionId, processDefinition);
         // }
+        for (Long evictedDefinitionId : sizeLimiter.add(definitionId, processDefinition.getProcessFiles().getEstimatedSize())) {
+            log.debug("Evicting definition " + evictedDefinitionId + " due to cache size limit");
+            definitionIdToDefinition.remove(evictedDefinitionId);
+        }
         return processDefinition;
     }
 
@@ -105,6 +126,7 @@ class ProcessDefCacheImpl extends BaseCacheImpl implements ManageableProcessDefi
         synchronized (this) {
             if (!isLocked.get()) {
                 definitionNameToId.put(definitionName, definitionId);
+                sizeLimiter.pin(definitionId);
             }
         }
         return getDefinition(deploymentDAO, definitionId);
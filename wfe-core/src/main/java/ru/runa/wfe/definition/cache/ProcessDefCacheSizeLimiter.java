@@ -0,0 +1,115 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.definition.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+/**
+ * Tracks approximate size of cached process definitions and selects least recently used definitions for eviction when size limit is exceeded.
+ * Pinned definitions (latest versions) are never selected for eviction. Definitions evicted by ehcache itself are reported through
+ * {@link #onEvicted(Long)} to keep tracked size equal to cache content.
+ */
+class ProcessDefCacheSizeLimiter {
+    /**
+     * Size limit, 0 means unbounded.
+     */
+    private final long maxSize;
+    /**
+     * Definition id to size in access order.
+     */
+    private final LinkedHashMap<Long, Long> sizes = new LinkedHashMap<Long, Long>(16, 0.75f, true);
+    private final Set<Long> pinnedIds = Sets.newHashSet();
+    private long totalSize;
+
+    public ProcessDefCacheSizeLimiter(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Marks definition as recently used.
+     */
+    public synchronized void touch(Long definitionId) {
+        sizes.get(definitionId);
+    }
+
+    /**
+     * Registers cached definition.
+     *
+     * @return definition ids which must be evicted from cache, never contains added definition id
+     */
+    public synchronized List<Long> add(Long definitionId, long size) {
+        Long previousSize = sizes.put(definitionId, size);
+        if (previousSize != null) {
+            totalSize -= previousSize;
+        }
+        totalSize += size;
+        List<Long> evictedIds = Lists.newArrayList();
+        if (maxSize <= 0) {
+            return evictedIds;
+        }
+        Iterator<Map.Entry<Long, Long>> iterator = sizes.entrySet().iterator();
+        while (totalSize > maxSize && iterator.hasNext()) {
+            Map.Entry<Long, Long> entry = iterator.next();
+            if (pinnedIds.contains(entry.getKey()) || definitionId.equals(entry.getKey())) {
+                continue;
+            }
+            totalSize -= entry.getValue();
+            evictedIds.add(entry.getKey());
+            iterator.remove();
+        }
+        return evictedIds;
+    }
+
+    public synchronized void remove(Long definitionId) {
+        Long size = sizes.remove(definitionId);
+        if (size != null) {
+            totalSize -= size;
+        }
+        pinnedIds.remove(definitionId);
+    }
+
+    /**
+     * Forgets size of definition evicted from cache by its own policy, definition stays pinned as it is loaded again on next access.
+     */
+    public synchronized void onEvicted(Long definitionId) {
+        Long size = sizes.remove(definitionId);
+        if (size != null) {
+            totalSize -= size;
+        }
+    }
+
+    public synchronized void pin(Long definitionId) {
+        pinnedIds.add(definitionId);
+    }
+
+    public synchronized void unpin(Long definitionId) {
+        pinnedIds.remove(definitionId);
+    }
+
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+}
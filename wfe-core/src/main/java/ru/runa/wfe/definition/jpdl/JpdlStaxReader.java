@@ -0,0 +1,657 @@
+package ru.runa.wfe.definition.jpdl;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.dao.LocalizationDAO;
+import ru.runa.wfe.commons.xml.StaxUtils;
+import ru.runa.wfe.definition.InvalidDefinitionException;
+import ru.runa.wfe.definition.ProcessDefinitionAccessType;
+import ru.runa.wfe.definition.logic.SwimlaneUtils;
+import ru.runa.wfe.job.CancelTimerAction;
+import ru.runa.wfe.job.CreateTimerAction;
+import ru.runa.wfe.job.Timer;
+import ru.runa.wfe.lang.Action;
+import ru.runa.wfe.lang.AsyncCompletionMode;
+import ru.runa.wfe.lang.Delegation;
+import ru.runa.wfe.lang.EmbeddedSubprocessEndNode;
+import ru.runa.wfe.lang.EmbeddedSubprocessStartNode;
+import ru.runa.wfe.lang.Event;
+import ru.runa.wfe.lang.GraphElement;
+import ru.runa.wfe.lang.InteractionNode;
+import ru.runa.wfe.lang.MultiTaskCreationMode;
+import ru.runa.wfe.lang.MultiTaskNode;
+import ru.runa.wfe.lang.MultiTaskSynchronizationMode;
+import ru.runa.wfe.lang.Node;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.ScriptNode;
+import ru.runa.wfe.lang.SendMessageNode;
+import ru.runa.wfe.lang.StartNode;
+import ru.runa.wfe.lang.SubprocessDefinition;
+import ru.runa.wfe.lang.SubprocessNode;
+import ru.runa.wfe.lang.SwimlaneDefinition;
+import ru.runa.wfe.lang.TaskDefinition;
+import ru.runa.wfe.lang.TaskNode;
+import ru.runa.wfe.lang.Transition;
+import ru.runa.wfe.lang.VariableContainerNode;
+import ru.runa.wfe.lang.WaitNode;
+import ru.runa.wfe.lang.jpdl.Decision;
+import ru.runa.wfe.lang.jpdl.EndToken;
+import ru.runa.wfe.var.VariableMapping;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Streaming (StAX) JPDL reader building the same model as {@link JpdlXmlReader} without document tree. Swimlanes are read while
+ * streaming, node elements are collected into compact descriptors (no whitespace, layout or unknown elements) and applied after process
+ * element end because nodes refer to swimlanes declared anywhere in the document.
+ *
+ * @since 4.3.0
+ */
+public class JpdlStaxReader {
+    private String defaultDueDate;
+    private final List<Object[]> unresolvedTransitionDestinations = Lists.newArrayList();
+    private final Map<String, Node> nodesById = Maps.newHashMap();
+
+    @Autowired
+    private LocalizationDAO localizationDAO;
+
+    private final XMLStreamReader reader;
+    // TODO move to Spring (or GPD process setting)
+    private final boolean waitStateCompatibility = true;
+
+    private static final String INVALID_ATTR = "invalid";
+    private static final String ACCESS_ATTR = "access";
+    private static final String VARIABLE_NODE = "variable";
+    private static final String SUB_PROCESS_NODE = "sub-process";
+    private static final String MAPPED_NAME_ATTR = "mapped-name";
+    private static final String DUEDATE_ATTR = "duedate";
+    private static final String DEFAULT_DUEDATE_ATTR = "default-task-duedate";
+    private static final String REPEAT_ATTR = "repeat";
+    private static final String TIMER_NODE = "timer";
+    private static final String ASSIGNMENT_NODE = "assignment";
+    private static final String ID_ATTR = "id";
+    private static final String SWIMLANE_ATTR = "swimlane";
+    private static final String TRANSITION_ATTR = "transition";
+    private static final String TASK_NODE = "task";
+    private static final String SWIMLANE_NODE = "swimlane";
+    private static final String REASSIGN = "reassign";
+    private static final String REASSIGN_SWIMLANE_TO_TASK_PERFORMER = "reassignSwimlaneToTaskPerformer";
+    private static final String TO_ATTR = "to";
+    private static final String CLASS_ATTR = "class";
+    private static final String EVENT_NODE = "event";
+    private static final String TRANSITION_NODE = "transition";
+    private static final String HANDLER_NODE = "handler";
+    private static final String DESCRIPTION_NODE = "description";
+    private static final String NAME_ATTR = "name";
+    private static final String TYPE_ATTR = "type";
+    private static final String ASYNC_ATTR = "async";
+    private static final String ASYNC_COMPLETION_MODE_ATTR = "asyncCompletionMode";
+    private static final String TASK_EXECUTORS_ATTR = "taskExecutors";
+    private static final String TASK_EXECUTORS_USAGE = "taskExecutorsUsage";
+    private static final String TASK_EXECUTION_MODE_ATTR = "taskExecutionMode";
+    private static final String ACTION_NODE = "action";
+    private static final String ACCESS_TYPE = "accessType";
+    private static final String EMBEDDED = "embedded";
+    private static final String IGNORE_SUBSTITUTION_RULES = "ignoreSubstitutionRules";
+    private static final String CREATION_MODE = "creationMode";
+    private static final String START_STATE_NODE = "start-state";
+    private static final String END_TOKEN_STATE_NODE = "end-token-state";
+
+    /**
+     * @param reader
+     *            positioned at <code>process-definition</code> element start
+     */
+    public JpdlStaxReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    public ProcessDefinition readProcessDefinition(ProcessDefinition processDefinition) {
+        try {
+            // read the process name
+            processDefinition.setName(reader.getAttributeValue(null, NAME_ATTR));
+            defaultDueDate = reader.getAttributeValue(null, DEFAULT_DUEDATE_ATTR);
+            if ("true".equals(reader.getAttributeValue(null, INVALID_ATTR))) {
+                throw new InvalidDefinitionException(processDefinition.getName(), "invalid process definition");
+            }
+            String accessTypeString = reader.getAttributeValue(null, ACCESS_TYPE);
+            if (!Strings.isNullOrEmpty(accessTypeString)) {
+                processDefinition.setAccessType(ProcessDefinitionAccessType.valueOf(accessTypeString));
+            }
+
+            // 1: read swimlanes, collect nodes and events
+            String description = null;
+            List<NodeElement> nodeElements = Lists.newArrayList();
+            List<EventElement> eventElements = Lists.newArrayList();
+            while (StaxUtils.nextChildElement(reader)) {
+                String elementName = reader.getLocalName();
+                if (DESCRIPTION_NODE.equals(elementName) && description == null) {
+                    description = StaxUtils.readTextTrim(reader);
+                } else if (SWIMLANE_NODE.equals(elementName)) {
+                    readSwimlane(processDefinition);
+                } else if (EVENT_NODE.equals(elementName)) {
+                    eventElements.add(readEventElement());
+                } else if (JpdlXmlReader.nodeTypes.containsKey(elementName) || START_STATE_NODE.equals(elementName)
+                        || END_TOKEN_STATE_NODE.equals(elementName)) {
+                    nodeElements.add(readNodeElement(elementName));
+                } else {
+                    StaxUtils.skipElement(reader);
+                }
+            }
+            processDefinition.setDescription(description);
+            readNodes(processDefinition, nodeElements);
+            readEvents(processDefinition, eventElements, processDefinition);
+
+            // 2: processing transitions
+            resolveTransitionDestinations(processDefinition);
+
+            // 3: verify
+            verifyElements(processDefinition);
+        } catch (Throwable th) {
+            Throwables.propagateIfInstanceOf(th, InvalidDefinitionException.class);
+            throw new InvalidDefinitionException(processDefinition.getName(), th);
+        }
+        return processDefinition;
+    }
+
+    private void readSwimlane(ProcessDefinition processDefinition) throws XMLStreamException {
+        String swimlaneName = reader.getAttributeValue(null, NAME_ATTR);
+        if (swimlaneName == null) {
+            throw new InvalidDefinitionException(processDefinition.getName(), "there's a swimlane without a name");
+        }
+        SwimlaneDefinition swimlaneDefinition = new SwimlaneDefinition();
+        swimlaneDefinition.setName(swimlaneName);
+        DelegationElement assignmentElement = null;
+        while (StaxUtils.nextChildElement(reader)) {
+            if (ASSIGNMENT_NODE.equals(reader.getLocalName()) && assignmentElement == null) {
+                assignmentElement = readDelegationElement();
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        if (assignmentElement != null) {
+            swimlaneDefinition.setDelegation(readDelegation(processDefinition, assignmentElement));
+        }
+        SwimlaneUtils.setOrgFunctionLabel(swimlaneDefinition, localizationDAO);
+        processDefinition.addSwimlane(swimlaneDefinition);
+    }
+
+    private NodeElement readNodeElement(String elementName) throws XMLStreamException {
+        NodeElement element = new NodeElement(elementName, StaxUtils.getAttributes(reader));
+        while (StaxUtils.nextChildElement(reader)) {
+            String childName = reader.getLocalName();
+            if (DESCRIPTION_NODE.equals(childName) && element.description == null) {
+                element.description = StaxUtils.readTextTrim(reader);
+            } else if (EVENT_NODE.equals(childName)) {
+                element.events.add(readEventElement());
+            } else if (TRANSITION_NODE.equals(childName)) {
+                element.transitions.add(readTransitionElement());
+            } else if (TASK_NODE.equals(childName)) {
+                element.tasks.add(readTaskElement());
+            } else if (TIMER_NODE.equals(childName)) {
+                element.timers.add(readTimerElement());
+            } else if (VARIABLE_NODE.equals(childName)) {
+                element.variables.add(StaxUtils.getAttributes(reader));
+                StaxUtils.skipElement(reader);
+            } else if (SUB_PROCESS_NODE.equals(childName) && element.subProcess == null) {
+                element.subProcess = StaxUtils.getAttributes(reader);
+                StaxUtils.skipElement(reader);
+            } else if (HANDLER_NODE.equals(childName) && element.handler == null) {
+                element.handler = readDelegationElement();
+            } else if (ACTION_NODE.equals(childName) && element.action == null) {
+                element.action = readDelegationElement();
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    private TaskElement readTaskElement() throws XMLStreamException {
+        TaskElement element = new TaskElement(StaxUtils.getAttributes(reader));
+        while (StaxUtils.nextChildElement(reader)) {
+            String childName = reader.getLocalName();
+            if (DESCRIPTION_NODE.equals(childName) && element.description == null) {
+                element.description = StaxUtils.readTextTrim(reader);
+            } else if (EVENT_NODE.equals(childName)) {
+                element.events.add(readEventElement());
+            } else if (TIMER_NODE.equals(childName)) {
+                element.timers.add(readTimerElement());
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    private TimerElement readTimerElement() throws XMLStreamException {
+        TimerElement element = new TimerElement(StaxUtils.getAttributes(reader));
+        while (StaxUtils.nextChildElement(reader)) {
+            if (ACTION_NODE.equals(reader.getLocalName()) && element.action == null) {
+                element.action = readDelegationElement();
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    private EventElement readEventElement() throws XMLStreamException {
+        EventElement element = new EventElement(reader.getAttributeValue(null, TYPE_ATTR));
+        readActionElements(element.actions);
+        return element;
+    }
+
+    private TransitionElement readTransitionElement() throws XMLStreamException {
+        TransitionElement element = new TransitionElement(reader.getAttributeValue(null, NAME_ATTR), reader.getAttributeValue(null, TO_ATTR));
+        while (StaxUtils.nextChildElement(reader)) {
+            String childName = reader.getLocalName();
+            if (DESCRIPTION_NODE.equals(childName) && element.description == null) {
+                element.description = StaxUtils.readTextTrim(reader);
+            } else if (ACTION_NODE.equals(childName)) {
+                element.actions.add(readDelegationElement());
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+        return element;
+    }
+
+    private void readActionElements(List<DelegationElement> actions) throws XMLStreamException {
+        while (StaxUtils.nextChildElement(reader)) {
+            if (ACTION_NODE.equals(reader.getLocalName())) {
+                actions.add(readDelegationElement());
+            } else {
+                StaxUtils.skipElement(reader);
+            }
+        }
+    }
+
+    private DelegationElement readDelegationElement() throws XMLStreamException {
+        DelegationElement element = new DelegationElement(reader.getLocalName(), reader.getAttributeValue(null, NAME_ATTR),
+                reader.getAttributeValue(null, CLASS_ATTR));
+        element.configuration = StaxUtils.readText(reader).trim();
+        return element;
+    }
+
+    private void readNodes(ProcessDefinition processDefinition, List<NodeElement> elements) {
+        for (NodeElement element : elements) {
+            String nodeName = element.name;
+            Node node = null;
+            if (JpdlXmlReader.nodeTypes.containsKey(nodeName)) {
+                node = ApplicationContextFactory.createAutowiredBean(JpdlXmlReader.nodeTypes.get(nodeName));
+            } else if (START_STATE_NODE.equals(nodeName)) {
+                if (processDefinition instanceof SubprocessDefinition) {
+                    node = ApplicationContextFactory.createAutowiredBean(EmbeddedSubprocessStartNode.class);
+                } else {
+                    node = ApplicationContextFactory.createAutowiredBean(StartNode.class);
+                }
+            } else if (END_TOKEN_STATE_NODE.equals(nodeName)) {
+                if (processDefinition instanceof SubprocessDefinition) {
+                    node = ApplicationContextFactory.createAutowiredBean(EmbeddedSubprocessEndNode.class);
+                } else {
+                    node = ApplicationContextFactory.createAutowiredBean(EndToken.class);
+                }
+            }
+            if (node != null) {
+                node.setProcessDefinition(processDefinition);
+                readNode(processDefinition, element, node);
+            }
+        }
+    }
+
+    private void readTasks(ProcessDefinition processDefinition, NodeElement parentElement, InteractionNode taskNode) {
+        for (TaskElement element : parentElement.tasks) {
+            readTask(processDefinition, element, taskNode, parentElement);
+        }
+    }
+
+    private void readTask(ProcessDefinition processDefinition, TaskElement element, InteractionNode node, NodeElement parentElement) {
+        if (node instanceof EmbeddedSubprocessStartNode) {
+            return;
+        }
+        TaskDefinition taskDefinition = new TaskDefinition();
+        taskDefinition.setNodeId(node.getNodeId());
+        taskDefinition.setProcessDefinition(processDefinition);
+        // get the task name
+        String name = element.attributes.get(NAME_ATTR);
+        if (name != null) {
+            taskDefinition.setName(name);
+        } else {
+            taskDefinition.setName(node.getName());
+        }
+        // get the task description
+        if (element.description != null) {
+            taskDefinition.setDescription(element.description);
+        } else {
+            taskDefinition.setDescription(node.getDescription());
+        }
+        // parse common subelements
+        readNodeTimers(processDefinition, element.timers, taskDefinition);
+        readEvents(processDefinition, element.events, taskDefinition);
+        taskDefinition.setDeadlineDuration(StaxUtils.getAttribute(element.attributes, DUEDATE_ATTR, defaultDueDate));
+        node.addTask(taskDefinition);
+        String swimlaneName = element.attributes.get(SWIMLANE_ATTR);
+        if (swimlaneName != null) {
+            SwimlaneDefinition swimlaneDefinition = processDefinition.getSwimlaneNotNull(swimlaneName);
+            taskDefinition.setSwimlane(swimlaneDefinition);
+            taskDefinition.setReassignSwimlane(Boolean.valueOf(StaxUtils.getAttribute(element.attributes, REASSIGN, "false")));
+            taskDefinition.setReassignSwimlaneToTaskPerformer(Boolean.valueOf(StaxUtils.getAttribute(element.attributes,
+                    REASSIGN_SWIMLANE_TO_TASK_PERFORMER, "true")));
+            taskDefinition.setIgnoreSubsitutionRules(Boolean.valueOf(StaxUtils.getAttribute(element.attributes, IGNORE_SUBSTITUTION_RULES,
+                    "false")));
+        } else {
+            if (node instanceof MultiTaskNode && ((MultiTaskNode) node).getCreationMode() != MultiTaskCreationMode.BY_EXECUTORS) {
+            } else if (waitStateCompatibility) {
+                processDefinition.removeNode(node);
+                nodesById.remove(node.getNodeId());
+                WaitNode waitNode = new WaitNode();
+                waitNode.setProcessDefinition(processDefinition);
+                readNode(processDefinition, parentElement, waitNode);
+                return;
+            } else {
+                throw new InvalidDefinitionException(processDefinition.getName(),
+                        "process xml information: no swimlane or assignment specified for task '" + taskDefinition + "'");
+            }
+        }
+    }
+
+    private List<VariableMapping> readVariableMappings(ProcessDefinition processDefinition, NodeElement parentElement) {
+        List<VariableMapping> variableAccesses = Lists.newArrayList();
+        for (Map<String, String> attributes : parentElement.variables) {
+            String variableName = attributes.get(NAME_ATTR);
+            if (variableName == null) {
+                throw new InvalidDefinitionException(processDefinition.getName(), "the name attribute of a variable element is required: "
+                        + attributes);
+            }
+            String mappedName = attributes.get(MAPPED_NAME_ATTR);
+            if (mappedName == null) {
+                throw new InvalidDefinitionException(processDefinition.getName(), "the mapped-name attribute of a variable element is required: "
+                        + attributes);
+            }
+            String access = StaxUtils.getAttribute(attributes, ACCESS_ATTR, "read,write");
+            variableAccesses.add(new VariableMapping(variableName, mappedName, access));
+        }
+        return variableAccesses;
+    }
+
+    private void readNode(ProcessDefinition processDefinition, NodeElement element, Node node) {
+        node.setNodeId(element.attributes.get(ID_ATTR));
+        node.setName(element.attributes.get(NAME_ATTR));
+        node.setDescription(element.description);
+        processDefinition.addNode(node);
+        if (node.getNodeId() != null && !nodesById.containsKey(node.getNodeId())) {
+            nodesById.put(node.getNodeId(), node);
+        }
+        readEvents(processDefinition, element.events, node);
+        // save the transitions and parse them at the end
+        unresolvedTransitionDestinations.add(new Object[] { element, node });
+
+        if (node instanceof StartNode) {
+            StartNode startNode = (StartNode) node;
+            if (!element.tasks.isEmpty()) {
+                readTask(processDefinition, element.tasks.get(0), startNode, element);
+            }
+        }
+        if (node instanceof VariableContainerNode) {
+            VariableContainerNode variableContainerNode = (VariableContainerNode) node;
+            variableContainerNode.setVariableMappings(readVariableMappings(processDefinition, element));
+        }
+        if (node instanceof TaskNode) {
+            TaskNode taskNode = (TaskNode) node;
+            taskNode.setAsync(Boolean.valueOf(StaxUtils.getAttribute(element.attributes, ASYNC_ATTR, "false")));
+            taskNode.setCompletionMode(AsyncCompletionMode.valueOf(StaxUtils.getAttribute(element.attributes, ASYNC_COMPLETION_MODE_ATTR,
+                    AsyncCompletionMode.NEVER.name())));
+            readTasks(processDefinition, element, taskNode);
+        }
+        if (node instanceof MultiTaskNode) {
+            MultiTaskNode multiTaskNode = (MultiTaskNode) node;
+            multiTaskNode.setAsync(Boolean.valueOf(StaxUtils.getAttribute(element.attributes, ASYNC_ATTR, "false")));
+            multiTaskNode.setCompletionMode(AsyncCompletionMode.valueOf(StaxUtils.getAttribute(element.attributes, ASYNC_COMPLETION_MODE_ATTR,
+                    AsyncCompletionMode.NEVER.name())));
+            multiTaskNode.setSynchronizationMode(MultiTaskSynchronizationMode.valueOf(StaxUtils.getAttribute(element.attributes,
+                    TASK_EXECUTION_MODE_ATTR, MultiTaskSynchronizationMode.LAST.name())));
+            multiTaskNode.setDiscriminatorVariableName(element.attributes.get(TASK_EXECUTORS_ATTR));
+            multiTaskNode.setDiscriminatorUsage(element.attributes.get(TASK_EXECUTORS_USAGE));
+            multiTaskNode.setCreationMode(MultiTaskCreationMode.valueOf(StaxUtils.getAttribute(element.attributes, CREATION_MODE,
+                    MultiTaskCreationMode.BY_EXECUTORS.name())));
+            multiTaskNode.setVariableMappings(readVariableMappings(processDefinition, element));
+            readTasks(processDefinition, element, multiTaskNode);
+        }
+        if (node instanceof SubprocessNode) {
+            SubprocessNode subprocessNode = (SubprocessNode) node;
+            if (element.subProcess != null) {
+                subprocessNode.setSubProcessName(element.subProcess.get(NAME_ATTR));
+                subprocessNode.setEmbedded(Boolean.parseBoolean(StaxUtils.getAttribute(element.subProcess, EMBEDDED, "false")));
+            }
+        }
+        if (node instanceof Decision) {
+            Decision decision = (Decision) node;
+            if (element.handler == null) {
+                throw new InvalidDefinitionException(processDefinition.getName(), "No handler in decision found: " + node);
+            }
+            decision.setDelegation(readDelegation(processDefinition, element.handler));
+        }
+        if (node instanceof SendMessageNode) {
+            SendMessageNode sendMessageNode = (SendMessageNode) node;
+            sendMessageNode.setTtlDuration(StaxUtils.getAttribute(element.attributes, DUEDATE_ATTR, "1 days"));
+        }
+        if (node instanceof ScriptNode) {
+            ScriptNode serviceTask = (ScriptNode) node;
+            Preconditions.checkNotNull(element.action, "No action defined in " + serviceTask);
+            serviceTask.setDelegation(readDelegation(processDefinition, element.action));
+        }
+        readNodeTimers(processDefinition, element.timers, node);
+    }
+
+    private void readNodeTimers(ProcessDefinition processDefinition, List<TimerElement> elements, GraphElement node) {
+        int timerNumber = 1;
+        for (TimerElement element : elements) {
+            // 1 timer for compatibility timer names with 3.x
+            String name;
+            if (SystemProperties.isV3CompatibilityMode()) {
+                name = StaxUtils.getAttribute(element.attributes, NAME_ATTR, node.getName());
+            } else {
+                name = node.getNodeId() + "/timer-" + timerNumber++;
+            }
+            CreateTimerAction createTimerAction = ApplicationContextFactory.createAutowiredBean(CreateTimerAction.class);
+            createTimerAction.setNodeId(node.getNodeId());
+            createTimerAction.setName(name);
+            createTimerAction.setTransitionName(element.attributes.get(TRANSITION_ATTR));
+            String durationString = element.attributes.get(DUEDATE_ATTR);
+            if (Strings.isNullOrEmpty(durationString) && node instanceof TaskNode && Timer.ESCALATION_NAME.equals(name)) {
+                durationString = ((TaskNode) node).getFirstTaskNotNull().getDeadlineDuration();
+                if (Strings.isNullOrEmpty(durationString)) {
+                    throw new InvalidDefinitionException(processDefinition.getName(), "No '" + DUEDATE_ATTR + "' specified for timer in " + node);
+                }
+            }
+            createTimerAction.setDueDate(durationString);
+            createTimerAction.setRepeatDurationString(element.attributes.get(REPEAT_ATTR));
+            if (node instanceof TaskDefinition) {
+                throw new UnsupportedOperationException("task/timer");
+            }
+            String createEventType = node instanceof TaskNode ? Event.TASK_CREATE : Event.NODE_ENTER;
+            addAction(node, createEventType, createTimerAction);
+            if (element.action != null) {
+                Action timerAction = createAction(processDefinition, element.action);
+                timerAction.setName(name);
+                addAction(node, Event.TIMER, timerAction);
+            }
+            CancelTimerAction cancelTimerAction = ApplicationContextFactory.createAutowiredBean(CancelTimerAction.class);
+            cancelTimerAction.setNodeId(createTimerAction.getNodeId());
+            cancelTimerAction.setName(createTimerAction.getName());
+            String cancelEventType = node instanceof TaskDefinition ? Event.TASK_END : Event.NODE_LEAVE;
+            addAction(node, cancelEventType, cancelTimerAction);
+        }
+    }
+
+    private void readEvents(ProcessDefinition processDefinition, List<EventElement> elements, GraphElement graphElement) {
+        for (EventElement eventElement : elements) {
+            readActions(processDefinition, eventElement.actions, graphElement, eventElement.type);
+        }
+    }
+
+    private void readActions(ProcessDefinition processDefinition, List<DelegationElement> elements, GraphElement graphElement, String eventType) {
+        for (DelegationElement actionElement : elements) {
+            Action action = createAction(processDefinition, actionElement);
+            addAction(graphElement, eventType, action);
+        }
+    }
+
+    private void addAction(GraphElement graphElement, String eventType, Action action) {
+        Event event = graphElement.getEventNotNull(eventType);
+        action.setParent(graphElement);
+        event.addAction(action);
+    }
+
+    private Action createAction(ProcessDefinition processDefinition, DelegationElement element) {
+        Action action = new Action();
+        action.setName(element.name);
+        action.setDelegation(readDelegation(processDefinition, element));
+        return action;
+    }
+
+    private Delegation readDelegation(ProcessDefinition processDefinition, DelegationElement element) {
+        if (element.className == null) {
+            throw new InvalidDefinitionException(processDefinition.getName(), "no className specified in " + element);
+        }
+        Delegation delegation = new Delegation(element.className, element.configuration);
+        // check
+        try {
+            delegation.getInstance();
+        } catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+        return delegation;
+    }
+
+    private void resolveTransitionDestinations(ProcessDefinition processDefinition) {
+        for (Object[] unresolvedTransition : unresolvedTransitionDestinations) {
+            NodeElement nodeElement = (NodeElement) unresolvedTransition[0];
+            Node node = (Node) unresolvedTransition[1];
+            for (TransitionElement transitionElement : nodeElement.transitions) {
+                resolveTransitionDestination(processDefinition, transitionElement, node);
+            }
+        }
+    }
+
+    private void resolveTransitionDestination(ProcessDefinition processDefinition, TransitionElement element, Node node) {
+        Transition transition = new Transition();
+        transition.setProcessDefinition(processDefinition);
+        node.addLeavingTransition(transition);
+        transition.setName(element.name);
+        for (CreateTimerAction createTimerAction : node.getTimerActions(false)) {
+            if (Objects.equal(createTimerAction.getTransitionName(), transition.getName())) {
+                transition.setTimerTransition(true);
+            }
+        }
+        transition.setDescription(element.description);
+        // set destinationNode of the transition
+        if (element.to == null) {
+            throw new InvalidDefinitionException(processDefinition.getName(), "node '" + node + "' has a transition without a 'to'-attribute");
+        }
+        Node to = nodesById.get(element.to);
+        if (to == null) {
+            to = processDefinition.getNodeNotNull(element.to);
+        }
+        to.addArrivingTransition(transition);
+        // read the actions
+        readActions(processDefinition, element.actions, transition, Event.TRANSITION);
+    }
+
+    private void verifyElements(ProcessDefinition processDefinition) {
+        for (Node node : processDefinition.getNodes(false)) {
+            node.validate();
+        }
+    }
+
+    private static class NodeElement {
+        private final String name;
+        private final Map<String, String> attributes;
+        private String description;
+        private final List<EventElement> events = Lists.newArrayList();
+        private final List<TransitionElement> transitions = Lists.newArrayList();
+        private final List<TaskElement> tasks = Lists.newArrayList();
+        private final List<TimerElement> timers = Lists.newArrayList();
+        private final List<Map<String, String>> variables = Lists.newArrayList();
+        private Map<String, String> subProcess;
+        private DelegationElement handler;
+        private DelegationElement action;
+
+        private NodeElement(String name, Map<String, String> attributes) {
+            this.name = name;
+            this.attributes = attributes;
+        }
+    }
+
+    private static class TaskElement {
+        private final Map<String, String> attributes;
+        private String description;
+        private final List<EventElement> events = Lists.newArrayList();
+        private final List<TimerElement> timers = Lists.newArrayList();
+
+        private TaskElement(Map<String, String> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    private static class TimerElement {
+        private final Map<String, String> attributes;
+        private DelegationElement action;
+
+        private TimerElement(Map<String, String> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+    private static class EventElement {
+        private final String type;
+        private final List<DelegationElement> actions = Lists.newArrayList();
+
+        private EventElement(String type) {
+            this.type = type;
+        }
+    }
+
+    private static class TransitionElement {
+        private final String name;
+        private final String to;
+        private String description;
+        private final List<DelegationElement> actions = Lists.newArrayList();
+
+        private TransitionElement(String name, String to) {
+            this.name = name;
+            this.to = to;
+        }
+    }
+
+    private static class DelegationElement {
+        private final String elementName;
+        private final String name;
+        private final String className;
+        private String configuration;
+
+        private DelegationElement(String elementName, String name, String className) {
+            this.elementName = elementName;
+            this.name = name;
+            this.className = className;
+        }
+
+        @Override
+        public String toString() {
+            return "<" + elementName + (name != null ? " name=\"" + name + "\"" : "") + ">";
+        }
+    }
+}
@@ -105,7 +105,7 @@ public class JpdlXmlReader {
     private static final String IGNORE_SUBSTITUTION_RULES = "ignoreSubstitutionRules";
     private static final String CREATION_MODE = "creationMode";
 
-    private static Map<String, Class<? extends Node>> nodeTypes = Maps.newHashMap();
+    static final Map<String, Class<? extends Node>> nodeTypes = Maps.newHashMap();
     static {
         // nodeTypes.put("start-state", StartNode.class);
         // nodeTypes.put("end-token-state", EndToken.class);
@@ -89,8 +89,8 @@ public class ProcessArchive {
         for (ProcessArchiveParser processArchiveParser : processArchiveParsers) {
             processArchiveParser.readFromArchive(this, processDefinition);
         }
-        for (Map.Entry<String, byte[]> entry : processDefinition.getProcessFiles().entrySet()) {
-            Matcher matcher = SUBPROCESS_DEFINITION_PATTERN.matcher(entry.getKey());
+        for (String fileName : processDefinition.getProcessFiles().getFileNames()) {
+            Matcher matcher = SUBPROCESS_DEFINITION_PATTERN.matcher(fileName);
             if (matcher.matches()) {
                 int subprocessIndex = Integer.parseInt(matcher.group(1));
                 SubprocessDefinition subprocessDefinition = new SubprocessDefinition(processDefinition);
@@ -104,6 +104,7 @@ public class ProcessArchive {
             }
         }
         processDefinition.mergeWithEmbeddedSubprocesses();
+        processDefinition.getProcessFiles().release();
         return processDefinition;
     }
 
@@ -0,0 +1,240 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.definition.par;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.definition.DefinitionArchiveFormatException;
+import ru.runa.wfe.definition.Deployment;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * Process archive files, attached to parsed process definition.
+ *
+ * All files are held in memory while archive is parsed. After {@link #release()} only files not greater than
+ * {@link SystemProperties#getProcessDefinitionFileRetainMaxSize()} are held in memory, other files are read from local file store
+ * {@link SystemProperties#getProcessDefinitionFilesStoragePath()}. Depending on {@link SystemProperties#getProcessDefinitionFilesStorage()} they
+ * are extracted there at once or unpacked from deployment content on first access.
+ *
+ * @since 4.3.0
+ */
+public class ProcessArchiveFiles implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private static final Log log = LogFactory.getLog(ProcessArchiveFiles.class);
+
+    public enum StorageMode {
+        /**
+         * All files are held in memory.
+         */
+        MEMORY,
+        /**
+         * Released files are unpacked from deployment content on first access and stored to local file system for next accesses.
+         */
+        DEPLOYMENT,
+        /**
+         * Released files are extracted to local file system and read on demand.
+         */
+        FILESYSTEM
+    }
+
+    private final Deployment deployment;
+    private final Map<String, Integer> fileSizes = Maps.newLinkedHashMap();
+    private final Map<String, byte[]> retainedFiles = Maps.newHashMap();
+    private File extractedDirectory;
+    private long retainedSize;
+
+    public ProcessArchiveFiles(Deployment deployment) {
+        this.deployment = deployment;
+    }
+
+    public void add(String fileName, byte[] data) {
+        Preconditions.checkNotNull(fileName, "fileName");
+        Preconditions.checkNotNull(data, "data");
+        byte[] previous = retainedFiles.put(fileName, data);
+        if (previous != null) {
+            retainedSize -= previous.length;
+        }
+        retainedSize += data.length;
+        fileSizes.put(fileName, data.length);
+    }
+
+    public Set<String> getFileNames() {
+        return Collections.unmodifiableSet(fileSizes.keySet());
+    }
+
+    public boolean contains(String fileName) {
+        return fileSizes.containsKey(fileName);
+    }
+
+    public byte[] get(String fileName) {
+        byte[] data = retainedFiles.get(fileName);
+        if (data != null || !fileSizes.containsKey(fileName)) {
+            return data;
+        }
+        if (extractedDirectory == null) {
+            return readFromDeployment(fileName);
+        }
+        File file = resolve(extractedDirectory, fileName);
+        if (file.exists()) {
+            try {
+                return Files.toByteArray(file);
+            } catch (IOException e) {
+                log.warn("Unable to read extracted file " + file + ", loading from deployment", e);
+            }
+        }
+        data = readFromDeployment(fileName);
+        try {
+            store(file, data);
+        } catch (IOException e) {
+            log.warn("Unable to store file " + file, e);
+        }
+        return data;
+    }
+
+    /**
+     * @return size of files content held in memory
+     */
+    public long getRetainedSize() {
+        return retainedSize;
+    }
+
+    /**
+     * @return approximate heap size occupied by archive: deployment content plus retained files
+     */
+    public long getEstimatedSize() {
+        long contentSize = deployment.getContent() != null ? deployment.getContent().length : 0;
+        return contentSize + retainedSize;
+    }
+
+    /**
+     * Releases memory held by large files according to configured storage mode. Invoked after process archive parsing.
+     */
+    public void release() {
+        StorageMode storageMode = SystemProperties.getProcessDefinitionFilesStorage();
+        if (storageMode == StorageMode.MEMORY || deployment.getContent() == null) {
+            return;
+        }
+        int retainMaxSize = SystemProperties.getProcessDefinitionFileRetainMaxSize();
+        if (deployment.getId() != null) {
+            if (storageMode == StorageMode.FILESYSTEM) {
+                extractedDirectory = extract(retainMaxSize);
+            } else {
+                extractedDirectory = getStorageDirectory();
+            }
+        }
+        for (Map.Entry<String, Integer> entry : fileSizes.entrySet()) {
+            if (entry.getValue() > retainMaxSize) {
+                byte[] data = retainedFiles.remove(entry.getKey());
+                if (data != null) {
+                    retainedSize -= data.length;
+                }
+            }
+        }
+    }
+
+    private File getStorageDirectory() {
+        CRC32 crc = new CRC32();
+        crc.update(deployment.getContent());
+        return new File(SystemProperties.getProcessDefinitionFilesStoragePath(), deployment.getId() + "." + Long.toHexString(crc.getValue()));
+    }
+
+    private File extract(int retainMaxSize) {
+        File directory = getStorageDirectory();
+        try {
+            for (Map.Entry<String, byte[]> entry : retainedFiles.entrySet()) {
+                if (entry.getValue().length <= retainMaxSize) {
+                    continue;
+                }
+                File file = resolve(directory, entry.getKey());
+                if (file.exists() && file.length() == entry.getValue().length) {
+                    continue;
+                }
+                store(file, entry.getValue());
+            }
+            return directory;
+        } catch (IOException e) {
+            log.warn("Unable to extract files of " + deployment + " to " + directory + ", they will be loaded from deployment", e);
+            return null;
+        }
+    }
+
+    private static File resolve(File directory, String fileName) {
+        File file = new File(directory, fileName);
+        try {
+            if (!file.getCanonicalPath().startsWith(directory.getCanonicalPath() + File.separator)) {
+                throw new InternalApplicationException("Illegal file name '" + fileName + "'");
+            }
+        } catch (IOException e) {
+            throw new InternalApplicationException(e);
+        }
+        return file;
+    }
+
+    /**
+     * Writes file through temporary file renaming, so concurrent readers never see partially written content.
+     */
+    private static void store(File file, byte[] data) throws IOException {
+        file.getParentFile().mkdirs();
+        File temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+        Files.write(data, temporaryFile);
+        if (!temporaryFile.renameTo(file)) {
+            temporaryFile.delete();
+            if (!file.exists()) {
+                throw new IOException("Unable to rename " + temporaryFile + " to " + file);
+            }
+        }
+    }
+
+    private byte[] readFromDeployment(String fileName) {
+        ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(deployment.getContent()));
+        try {
+            ZipEntry zipEntry = zis.getNextEntry();
+            while (zipEntry != null) {
+                if (fileName.equals(zipEntry.getName())) {
+                    return ByteStreams.toByteArray(zis);
+                }
+                zipEntry = zis.getNextEntry();
+            }
+            throw new InternalApplicationException("File '" + fileName + "' not found in content of " + deployment);
+        } catch (IOException e) {
+            throw new DefinitionArchiveFormatException(e);
+        } finally {
+            Closeables.closeQuietly(zis);
+        }
+    }
+
+}
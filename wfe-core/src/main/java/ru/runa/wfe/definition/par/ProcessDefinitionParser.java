@@ -1,14 +1,20 @@
 package ru.runa.wfe.definition.par;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.dom4j.Document;
 import org.dom4j.Element;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.xml.StaxUtils;
 import ru.runa.wfe.commons.xml.XmlUtils;
 import ru.runa.wfe.definition.IFileDataProvider;
 import ru.runa.wfe.definition.Language;
+import ru.runa.wfe.definition.bpmn.BpmnStaxReader;
 import ru.runa.wfe.definition.bpmn.BpmnXmlReader;
+import ru.runa.wfe.definition.jpdl.JpdlStaxReader;
 import ru.runa.wfe.definition.jpdl.JpdlXmlReader;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.lang.SubprocessDefinition;
@@ -27,6 +33,10 @@ public class ProcessDefinitionParser implements ProcessArchiveParser {
             fileName = processDefinition.getNodeId() + "." + fileName;
         }
         byte[] definitionXml = processDefinition.getFileDataNotNull(fileName);
+        if (SystemProperties.isProcessDefinitionStreamingParserEnabled()) {
+            readStreaming(definitionXml, processDefinition);
+            return;
+        }
         Document document = XmlUtils.parseWithoutValidation(definitionXml);
         Element root = document.getRootElement();
         if ("process-definition".equals(root.getName())) {
@@ -41,4 +51,24 @@ public class ProcessDefinitionParser implements ProcessArchiveParser {
             throw new InternalApplicationException("Couldn't determine language from content");
         }
     }
+
+    private void readStreaming(byte[] definitionXml, ProcessDefinition processDefinition) {
+        XMLStreamReader xmlReader = StaxUtils.createReader(definitionXml);
+        try {
+            String rootName = xmlReader.getLocalName();
+            if ("process-definition".equals(rootName)) {
+                JpdlStaxReader reader = ApplicationContextFactory.autowireBean(new JpdlStaxReader(xmlReader));
+                reader.readProcessDefinition(processDefinition);
+                processDefinition.getDeployment().setLanguage(Language.JPDL);
+            } else if ("definitions".equals(rootName)) {
+                BpmnStaxReader reader = ApplicationContextFactory.autowireBean(new BpmnStaxReader(xmlReader));
+                reader.readProcessDefinition(processDefinition);
+                processDefinition.getDeployment().setLanguage(Language.BPMN2);
+            } else {
+                throw new InternalApplicationException("Couldn't determine language from content");
+            }
+        } finally {
+            StaxUtils.close(xmlReader);
+        }
+    }
 }
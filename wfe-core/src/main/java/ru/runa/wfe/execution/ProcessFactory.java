@@ -1,16 +1,22 @@
 package ru.runa.wfe.execution;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.beans.factory.annotation.Autowired;
 
 import ru.runa.wfe.audit.ProcessStartLog;
 import ru.runa.wfe.audit.SubprocessStartLog;
 import ru.runa.wfe.definition.DefinitionPermission;
+import ru.runa.wfe.definition.Deployment;
 import ru.runa.wfe.execution.dao.NodeProcessDAO;
 import ru.runa.wfe.execution.dao.ProcessDAO;
 import ru.runa.wfe.lang.Node;
@@ -25,7 +31,6 @@ import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.SystemExecutors;
 import ru.runa.wfe.user.dao.ExecutorDAO;
 
-import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
 
 public class ProcessFactory {
@@ -45,17 +50,54 @@ public class ProcessFactory {
         DEFINITION_TO_PROCESS_PERMISSION_MAP.put(DefinitionPermission.CANCEL_STARTED_PROCESS, ProcessPermission.CANCEL_PROCESS);
     }
 
-    private Set<Permission> getProcessPermissions(Executor executor, ProcessDefinition processDefinition) {
-        List<Permission> definitionPermissions = permissionDAO.getIssuedPermissions(executor, processDefinition.getDeployment());
+    /**
+     * Process permissions templates by deployment id.
+     */
+    private final ConcurrentMap<Long, ProcessPermissionsTemplate> permissionsTemplates = new ConcurrentHashMap<Long, ProcessPermissionsTemplate>();
+
+    private static Set<Permission> getProcessPermissions(Collection<Permission> definitionPermissions) {
         Set<Permission> result = new HashSet<Permission>();
-        for (Permission permission : definitionPermissions) {
-            if (DEFINITION_TO_PROCESS_PERMISSION_MAP.containsKey(permission)) {
-                result.add(DEFINITION_TO_PROCESS_PERMISSION_MAP.get(permission));
+        if (definitionPermissions != null) {
+            for (Permission permission : definitionPermissions) {
+                if (DEFINITION_TO_PROCESS_PERMISSION_MAP.containsKey(permission)) {
+                    result.add(DEFINITION_TO_PROCESS_PERMISSION_MAP.get(permission));
+                }
             }
         }
         return result;
     }
 
+    private ProcessPermissionsTemplate getPermissionsTemplate(Deployment deployment) {
+        long version = permissionDAO.getDefinitionPermissionsVersion();
+        ProcessPermissionsTemplate template = permissionsTemplates.get(deployment.getId());
+        if (template != null && template.version == version) {
+            return template;
+        }
+        Map<Executor, Set<Permission>> definitionPermissions = permissionDAO.getIssuedPermissions(deployment);
+        Map<Long, Set<Permission>> executorPermissions = new HashMap<Long, Set<Permission>>();
+        for (Map.Entry<Executor, Set<Permission>> entry : definitionPermissions.entrySet()) {
+            Set<Permission> permissions = getProcessPermissions(entry.getValue());
+            if (permissions.size() > 0) {
+                executorPermissions.put(entry.getKey().getId(), permissions);
+            }
+        }
+        Executor processStarter = executorDAO.getExecutor(SystemExecutors.PROCESS_STARTER_NAME);
+        Set<Permission> processStarterPermissions = getProcessPermissions(definitionPermissions.get(processStarter));
+        template = new ProcessPermissionsTemplate(version, executorPermissions, processStarterPermissions);
+        permissionsTemplates.put(deployment.getId(), template);
+        return template;
+    }
+
+    private void addPermissions(Map<Long, Set<Permission>> permissions, Process process) {
+        List<Long> executorIds = new ArrayList<Long>(permissions.keySet());
+        List<Executor> executors = executorDAO.getExecutors(executorIds);
+        Map<Executor, Set<Permission>> executorPermissions = new HashMap<Executor, Set<Permission>>();
+        for (int i = 0; i < executorIds.size(); i++) {
+            executorPermissions.put(executors.get(i), permissions.get(executorIds.get(i)));
+        }
+        permissionDAO.addPermissions(executorPermissions, process);
+    }
+
     /**
      * Creates and starts a new process for the given process definition, puts
      * the root-token (=main path of execution) in the start state and executes
@@ -77,24 +119,15 @@ public class ProcessFactory {
     }
 
     private void grantProcessPermissions(ProcessDefinition processDefinition, Process process, Actor actor) {
-        boolean permissionsAreSetToProcessStarter = false;
-        for (Executor executor : permissionDAO.getExecutorsWithPermission(processDefinition.getDeployment())) {
-            Set<Permission> permissions = getProcessPermissions(executor, processDefinition);
-            if (Objects.equal(actor, executor)) {
-                Executor processStarter = executorDAO.getExecutor(SystemExecutors.PROCESS_STARTER_NAME);
-                Set<Permission> processStarterPermissions = getProcessPermissions(processStarter, processDefinition);
-                permissions = Permission.mergePermissions(permissions, processStarterPermissions);
-                permissionsAreSetToProcessStarter = true;
-            }
-            if (permissions.size() > 0) {
-                permissionDAO.setPermissions(executor, permissions, process);
-            }
-        }
-        if (!permissionsAreSetToProcessStarter) {
-            Executor processStarter = executorDAO.getExecutor(SystemExecutors.PROCESS_STARTER_NAME);
-            Set<Permission> processStarterPermissions = getProcessPermissions(processStarter, processDefinition);
-            permissionDAO.setPermissions(actor, processStarterPermissions, process);
+        ProcessPermissionsTemplate template = getPermissionsTemplate(processDefinition.getDeployment());
+        Map<Long, Set<Permission>> permissions = new HashMap<Long, Set<Permission>>(template.executorPermissions);
+        Set<Permission> actorPermissions = permissions.get(actor.getId());
+        if (actorPermissions != null) {
+            permissions.put(actor.getId(), Permission.mergePermissions(actorPermissions, template.processStarterPermissions));
+        } else {
+            permissions.put(actor.getId(), template.processStarterPermissions);
         }
+        addPermissions(permissions, process);
     }
 
     public Process createSubprocess(ExecutionContext parentExecutionContext, ProcessDefinition processDefinition, Map<String, Object> variables,
@@ -120,17 +153,18 @@ public class ProcessFactory {
     }
 
     private void grantSubprocessPermissions(ProcessDefinition processDefinition, Process subProcess, Process parentProcess) {
-        Set<Executor> executors = new HashSet<Executor>();
-        executors.addAll(permissionDAO.getExecutorsWithPermission(processDefinition.getDeployment()));
-        executors.addAll(permissionDAO.getExecutorsWithPermission(parentProcess));
-        for (Executor executor : executors) {
-            List<Permission> permissionsByParentProcess = permissionDAO.getIssuedPermissions(executor, parentProcess);
-            Set<Permission> permissionsByDefinition = getProcessPermissions(executor, processDefinition);
-            Set<Permission> permissions = Permission.mergePermissions(permissionsByParentProcess, permissionsByDefinition);
-            if (permissions.size() > 0) {
-                permissionDAO.setPermissions(executor, permissions, subProcess);
+        ProcessPermissionsTemplate template = getPermissionsTemplate(processDefinition.getDeployment());
+        Map<Long, Set<Permission>> permissions = new HashMap<Long, Set<Permission>>(template.executorPermissions);
+        for (Map.Entry<Executor, Set<Permission>> entry : permissionDAO.getIssuedPermissions(parentProcess).entrySet()) {
+            Long executorId = entry.getKey().getId();
+            Set<Permission> permissionsByDefinition = permissions.get(executorId);
+            if (permissionsByDefinition != null) {
+                permissions.put(executorId, Permission.mergePermissions(entry.getValue(), permissionsByDefinition));
+            } else {
+                permissions.put(executorId, entry.getValue());
             }
         }
+        addPermissions(permissions, subProcess);
     }
 
     private ExecutionContext createProcessInternal(ProcessDefinition processDefinition, Map<String, Object> variables, Actor actor,
@@ -172,4 +206,20 @@ public class ProcessFactory {
         }
         startNode.leave(executionContext, transition);
     }
+
+    /**
+     * Process permissions derived from process definition permissions. Executors are kept by id as template outlives session in which they were
+     * loaded.
+     */
+    private static class ProcessPermissionsTemplate {
+        private final long version;
+        private final Map<Long, Set<Permission>> executorPermissions;
+        private final Set<Permission> processStarterPermissions;
+
+        public ProcessPermissionsTemplate(long version, Map<Long, Set<Permission>> executorPermissions, Set<Permission> processStarterPermissions) {
+            this.version = version;
+            this.executorPermissions = Collections.unmodifiableMap(executorPermissions);
+            this.processStarterPermissions = Collections.unmodifiableSet(processStarterPermissions);
+        }
+    }
 }
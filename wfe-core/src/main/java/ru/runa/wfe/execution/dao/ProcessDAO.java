@@ -39,6 +39,13 @@ public class ProcessDAO extends GenericDAO<Process> {
         return getHibernateTemplate().find("from Process where deployment.id=? order by startDate desc", definitionId);
     }
 
+    /**
+     * @return identifiers of definitions used by active processes.
+     */
+    public List<Long> getActiveProcessDefinitionIds() {
+        return getHibernateTemplate().find("select distinct deployment.id from Process where endDate is null");
+    }
+
     public Set<Number> getDependentProcessIds(Executor executor) {
         Set<Number> processes = Sets.newHashSet();
         processes.addAll(getHibernateTemplate().find("select process.id from Swimlane where executor=?", executor));
@@ -40,6 +40,7 @@ import ru.runa.wfe.user.dao.ExecutorDAO;
 import com.google.common.base.Objects;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.io.ByteStreams;
 
 /**
@@ -69,6 +70,7 @@ public class EmailTaskNotifierActionHandler extends ActionHandlerBase {
     @Override
     public void execute(ExecutionContext executionContext) throws Exception {
         List<Actor> actors = executorDAO.getAllActors(BatchPresentationFactory.ACTORS.createNonPaged());
+        List<EmailConfig> configs = Lists.newArrayList();
         for (Actor actor : actors) {
             String email = actor.getEmail();
             if (!Strings.isNullOrEmpty(email)) {
@@ -79,10 +81,11 @@ public class EmailTaskNotifierActionHandler extends ActionHandlerBase {
                         config.getHeaderProperties().put("To", email);
                         Interaction interaction = executionContext.getProcessDefinition().getInteractionNotNull(task.getNodeId());
                         EmailUtils.prepareMessage(UserHolder.get(), config, interaction, executionContext.getVariableProvider());
-                        EmailUtils.sendMessageRequest(config);
+                        configs.add(config);
                     }
                 }
             }
         }
+        EmailUtils.sendMessageRequests(configs);
     }
 }
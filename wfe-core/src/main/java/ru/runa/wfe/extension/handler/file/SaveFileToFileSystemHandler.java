@@ -4,6 +4,7 @@ import java.io.File;
 
 import ru.runa.wfe.extension.handler.CommonParamBasedHandler;
 import ru.runa.wfe.extension.handler.HandlerData;
+import ru.runa.wfe.var.file.FileVariableUtils;
 import ru.runa.wfe.var.file.IFileVariable;
 
 import com.google.common.base.Strings;
@@ -25,7 +26,7 @@ public class SaveFileToFileSystemHandler extends CommonParamBasedHandler {
         }
         file.getParentFile().mkdirs();
         file.createNewFile();
-        Files.write(fileVariable.getData(), file);
+        FileVariableUtils.copyTo(fileVariable, file);
     }
 
 }
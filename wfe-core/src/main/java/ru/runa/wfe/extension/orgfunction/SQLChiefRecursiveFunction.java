@@ -29,6 +29,7 @@ public class SQLChiefRecursiveFunction extends ActorOrgFunctionBase {
 
     @Override
     protected List<Long> getActorCodes(Long code) {
-        return SQLFunctionDAO.getActorCodesRecurisve(SQLFunctionResources.getChiefCodeBySubordinateCodeSQL(), new Long[] { code });
+        return SQLFunctionDAO.getActorCodesRecursive(SQLFunctionResources.getChiefCodeBySubordinateCodeSQL(),
+                SQLFunctionResources.getChiefCodesBySubordinateCodesSQL(), SQLFunctionResources.getChiefCodesRecursiveSQL(), code);
     }
 }
@@ -0,0 +1,57 @@
+package ru.runa.wfe.extension.orgfunction;
+
+import java.util.List;
+
+import javax.transaction.Transaction;
+
+import ru.runa.wfe.commons.cache.CachingLogic;
+import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.commons.cache.ChangedObjectParameter;
+import ru.runa.wfe.commons.cache.ExecutorChangeListener;
+import ru.runa.wfe.commons.cache.sm.ChangeListener;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorGroupMembership;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Drops {@link SQLFunctionDAO} cache together with executor caches: on completion of transaction, which changes executors, and on caches
+ * reset. Registered in both cache implementations as only one of them is notified depending on configuration.
+ */
+class SQLFunctionCacheListener implements ExecutorChangeListener, ChangeListener {
+
+    static void register() {
+        SQLFunctionCacheListener listener = new SQLFunctionCacheListener();
+        CachingLogic.registerChangeListener(listener);
+        ru.runa.wfe.commons.cache.sm.CachingLogic.registerChangeListener(listener);
+    }
+
+    @Override
+    public void onChange(Transaction transaction, ChangedObjectParameter changedObject) {
+        // changes are visible to org function queries only after commit
+    }
+
+    @Override
+    public void markTransactionComplete(Transaction transaction) {
+        SQLFunctionDAO.resetCache();
+    }
+
+    @Override
+    public void beforeTransactionComplete(Transaction transaction) {
+    }
+
+    @Override
+    public void onTransactionCompleted(Transaction transaction) {
+        SQLFunctionDAO.resetCache();
+    }
+
+    @Override
+    public void uninitialize(Object object, Change change) {
+        SQLFunctionDAO.resetCache();
+    }
+
+    @Override
+    public List<Class<?>> getListenObjectTypes() {
+        return Lists.<Class<?>> newArrayList(Executor.class, ExecutorGroupMembership.class);
+    }
+}
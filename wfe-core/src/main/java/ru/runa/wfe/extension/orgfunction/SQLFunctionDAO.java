@@ -21,8 +21,14 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.naming.Context;
 import javax.naming.InitialContext;
@@ -31,17 +37,33 @@ import javax.sql.DataSource;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SQLCommons;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TypeConversionUtil;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Created on 10.05.2005
  * 
  */
 public class SQLFunctionDAO {
-    private static List<Long> directorsCodesList;
+    /**
+     * Placeholder for codes list in queries for several codes.
+     */
+    public static final String CODES_PLACEHOLDER = "{codes}";
+    private static final Pattern SINGLE_CODE_CONDITION_PATTERN = Pattern.compile("\\s*=\\s*\\?(?=\\s*\\)*\\s*$)");
+    private static final int CACHE_MAX_SIZE = 10000;
+    private static final Cache<String, Object> CACHE = createCache();
+    static {
+        SQLFunctionCacheListener.register();
+    }
 
     /**
      * Returns codes of actors selected by sql query. e.g. chief query - select
@@ -85,82 +107,173 @@ public class SQLFunctionDAO {
      */
     public static List<Long> getActorCodesRecurisve(String sql, Object[] parameters) {
         Preconditions.checkNotNull(parameters);
+        Preconditions.checkArgument(parameters.length == 1, "expected parameters with 1 element");
+        return getActorCodesRecursive(sql, null, null, TypeConversionUtil.convertTo(Long.class, parameters[0]));
+    }
+
+    /**
+     * Returns codes of actors selected recursively. Hierarchy is expanded level by level, each level is selected by query for several codes
+     * (or by query for single code per code if such query can't be derived), or by single recursive query if it is provided.
+     * 
+     * @param sql
+     *            query for single code, e.g. select ID from EMPLOYEES where BOSS_ID = ?
+     * @param batchSql
+     *            query for several codes with {@link #CODES_PLACEHOLDER}, e.g. select ID from EMPLOYEES where BOSS_ID in ({codes}); can be
+     *            <code>null</code>
+     * @param recursiveSql
+     *            query with single parameter returning all codes at once (e.g. recursive common table expression); can be
+     *            <code>null</code>
+     * @param code
+     *            code to start from
+     * @return codes of actors
+     */
+    public static List<Long> getActorCodesRecursive(final String sql, final String batchSql, final String recursiveSql, final Long code) {
+        Preconditions.checkNotNull(code);
+        String key = (recursiveSql != null ? recursiveSql : sql) + "|" + code;
+        return Lists.newArrayList(getCached(key, new Callable<List<Long>>() {
+
+            @Override
+            public List<Long> call() throws Exception {
+                Connection con = getConnection();
+                try {
+                    if (recursiveSql != null) {
+                        return Lists.newArrayList(Sets.newLinkedHashSet(selectCodes(con, recursiveSql, code)));
+                    }
+                    Set<Long> result = Sets.newLinkedHashSet();
+                    List<Long> level = Lists.newArrayList(code);
+                    while (!level.isEmpty()) {
+                        List<Long> nextLevel = Lists.newArrayList();
+                        for (Long levelCode : selectCodes(con, sql, getBatchSql(sql, batchSql), level)) {
+                            if (result.add(levelCode)) {
+                                nextLevel.add(levelCode);
+                            }
+                        }
+                        level = nextLevel;
+                    }
+                    return Lists.newArrayList(result);
+                } finally {
+                    SQLCommons.releaseResources(con);
+                }
+            }
+        }));
+    }
+
+    public static List<Long> getDirectorCode(String sql, String chiefSQL, Long code) {
+        Set<Long> directorsCodes = getDirectorsCodes(sql);
+        if (directorsCodes.contains(code)) {
+            return Lists.newArrayList(code);
+        }
         Connection con = null;
-        PreparedStatement ps = null;
         try {
             con = getConnection();
-            ps = con.prepareStatement(sql);
-            List<Long> codeSet = Lists.newArrayList();
-            getCodesRecursive(ps, codeSet, parameters);
-            return codeSet;
+            String batchChiefSql = getBatchSql(chiefSQL, SQLFunctionResources.getChiefCodesBySubordinateCodesSQL());
+            Set<Long> visited = Sets.newHashSet(code);
+            List<Long> level = Lists.newArrayList(code);
+            while (!level.isEmpty()) {
+                List<Long> nextLevel = Lists.newArrayList();
+                for (Long chiefCode : selectCodes(con, chiefSQL, batchChiefSql, level)) {
+                    if (directorsCodes.contains(chiefCode)) {
+                        return Lists.newArrayList(chiefCode);
+                    }
+                    if (visited.add(chiefCode)) {
+                        nextLevel.add(chiefCode);
+                    }
+                }
+                level = nextLevel;
+            }
         } catch (SQLException e) {
             throw Throwables.propagate(e);
         } finally {
-            SQLCommons.releaseResources(con, ps);
+            SQLCommons.releaseResources(con);
         }
+        throw new InternalApplicationException("Code hierarchy contains no director for actor with code = " + code);
     }
 
-    private static void getCodesRecursive(PreparedStatement ps, List<Long> codeSet, Object[] parameters) throws SQLException {
-        setParameters(ps, parameters);
-        ResultSet rs = ps.executeQuery();
-        List<Long> codeList = getCodesFromResultSet(rs);
-        rs.close();
-        for (int i = 0; i < codeList.size(); i++) {
-            Long code = codeList.get(i);
-            if (!codeSet.contains(code)) {
-                if (!codeSet.add(code)) {
-                    // i.e. we have circle in hierarchy
-                    throw new InternalApplicationException("Code hierarchy contains cycle");
+    /**
+     * Drops cached results, they are selected again on next access. Called on executor caches invalidation.
+     */
+    public static void resetCache() {
+        CACHE.invalidateAll();
+    }
+
+    private static Set<Long> getDirectorsCodes(final String sql) {
+        return getCached(sql, new Callable<Set<Long>>() {
+
+            @Override
+            public Set<Long> call() throws Exception {
+                Connection con = getConnection();
+                try {
+                    return Sets.newHashSet(selectCodes(con, sql));
+                } finally {
+                    SQLCommons.releaseResources(con);
                 }
-                parameters[0] = code;
-                getCodesRecursive(ps, codeSet, parameters);
             }
-        }
+        });
     }
 
-    private static void initializeDirectorCodesList(String sql) {
-        Connection con = null;
-        PreparedStatement ps = null;
+    @SuppressWarnings("unchecked")
+    private static <T> T getCached(String key, Callable<T> loader) {
         try {
-            con = getConnection();
-            ps = con.prepareStatement(sql);
-            ResultSet rs = ps.executeQuery();
-            directorsCodesList = getCodesFromResultSet(rs);
-        } catch (SQLException e) {
-            throw Throwables.propagate(e);
-        } finally {
-            SQLCommons.releaseResources(con, ps);
+            return (T) CACHE.get(key, (Callable<Object>) loader);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
         }
     }
 
-    public static List<Long> getDirectorCode(String sql, String chiefSQL, Long code) {
-        List<Long> result = Lists.newArrayList();
-        if (directorsCodesList == null) {
-            initializeDirectorCodesList(sql);
-        }
-        if (directorsCodesList.contains(code)) {
-            result.add(code);
-            return result;
+    private static Cache<String, Object> createCache() {
+        int timeToLiveSeconds = SQLFunctionResources.getCacheTimeToLiveSeconds();
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(timeToLiveSeconds > 0 ? CACHE_MAX_SIZE : 0);
+        if (timeToLiveSeconds > 0) {
+            builder.expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS);
         }
+        return builder.build();
+    }
 
-        ArrayList<Long> codes = new ArrayList<Long>();
-        codes.add(code);
-        if (directorsCodesList.contains((codes.get(0)).longValue())) {
-            result.add(codes.get(0));
-            return result;
+    /**
+     * @return query for several codes or <code>null</code> if it is not configured and can't be derived from single code query
+     */
+    private static String getBatchSql(String sql, String batchSql) {
+        if (batchSql != null) {
+            return batchSql;
+        }
+        Matcher matcher = SINGLE_CODE_CONDITION_PATTERN.matcher(sql);
+        if (matcher.find()) {
+            return sql.substring(0, matcher.start()) + " in (" + CODES_PLACEHOLDER + ")" + sql.substring(matcher.end());
         }
-        while (codes.size() > 0) {
-            List<Long> chiefsCodes = getActorCodes(SQLFunctionResources.getChiefCodeBySubordinateCodeSQL(), new Long[] { codes.get(0) });
-            for (Long chiefCode : chiefsCodes) {
-                if (directorsCodesList.contains(chiefCode)) {
-                    result.add(chiefCode);
-                    return result;
+        return null;
+    }
+
+    private static List<Long> selectCodes(Connection con, String sql, String batchSql, List<Long> codes) throws SQLException {
+        List<Long> result = Lists.newArrayList();
+        if (batchSql == null) {
+            PreparedStatement ps = con.prepareStatement(sql);
+            try {
+                for (Long code : codes) {
+                    ps.setObject(1, code);
+                    result.addAll(getCodesFromResultSet(ps.executeQuery()));
                 }
-                codes.add(chiefCode);
+            } finally {
+                ps.close();
             }
-            codes.remove(0);
+            return result;
+        }
+        for (List<Long> partition : Lists.partition(codes, SystemProperties.getDatabaseParametersCount())) {
+            String partitionSql = batchSql.replace(CODES_PLACEHOLDER, Joiner.on(", ").join(Collections.nCopies(partition.size(), "?")));
+            result.addAll(selectCodes(con, partitionSql, partition.toArray()));
+        }
+        return result;
+    }
+
+    private static List<Long> selectCodes(Connection con, String sql, Object... parameters) throws SQLException {
+        PreparedStatement ps = con.prepareStatement(sql);
+        try {
+            setParameters(ps, parameters);
+            return getCodesFromResultSet(ps.executeQuery());
+        } finally {
+            ps.close();
         }
-        throw new InternalApplicationException("Code hierarchy contains no director for actor with code = " + code);
     }
 
     private static List<Long> getCodesFromResultSet(ResultSet rs) throws SQLException {
@@ -44,4 +44,43 @@ public class SQLFunctionResources {
         return RESOURCES.getStringPropertyNotNull("subordinate.codes.by.chief.code.sql");
     }
 
+    /**
+     * @return query for chiefs of several subordinates with {@link SQLFunctionDAO#CODES_PLACEHOLDER} in place of codes list, e.g. select
+     *         BOSS_ID from EMPLOYEES where ID in ({codes}); derived from single code query if not configured
+     */
+    public static String getChiefCodesBySubordinateCodesSQL() {
+        return RESOURCES.getStringProperty("chief.codes.by.subordinate.codes.sql");
+    }
+
+    /**
+     * @return query for subordinates of several chiefs with {@link SQLFunctionDAO#CODES_PLACEHOLDER} in place of codes list; derived from
+     *         single code query if not configured
+     */
+    public static String getSubordinateCodesByChiefCodesSQL() {
+        return RESOURCES.getStringProperty("subordinate.codes.by.chief.codes.sql");
+    }
+
+    /**
+     * @return single query (e.g. recursive common table expression) for all chiefs of subordinate with given code, <code>null</code> means
+     *         level by level evaluation
+     */
+    public static String getChiefCodesRecursiveSQL() {
+        return RESOURCES.getStringProperty("chief.codes.recursive.sql");
+    }
+
+    /**
+     * @return single query (e.g. recursive common table expression) for all subordinates of chief with given code, <code>null</code> means
+     *         level by level evaluation
+     */
+    public static String getSubordinateCodesRecursiveSQL() {
+        return RESOURCES.getStringProperty("subordinate.codes.recursive.sql");
+    }
+
+    /**
+     * @return time to keep evaluated codes in cache, 0 disables caching
+     */
+    public static int getCacheTimeToLiveSeconds() {
+        return RESOURCES.getIntegerProperty("cache.ttl.seconds", 60);
+    }
+
 }
@@ -1,7 +1,5 @@
 package ru.runa.wfe.job.impl;
 
-import java.util.TimerTask;
-
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
@@ -14,7 +12,7 @@ import ru.runa.wfe.commons.TransactionalExecutor;
  * @author Dofs
  * @since 4.1.0
  */
-public abstract class JobTask<TE extends TransactionalExecutor> extends TimerTask {
+public abstract class JobTask<TE extends TransactionalExecutor> implements Runnable {
     protected final Log log = LogFactory.getLog(getClass());
     private static boolean systemStartupCompleted = false;
     private TE transactionalExecutor;
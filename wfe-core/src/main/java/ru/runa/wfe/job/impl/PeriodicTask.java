@@ -0,0 +1,188 @@
+package ru.runa.wfe.job.impl;
+
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.BeanNameAware;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Periodic task executed by {@link PeriodicTaskScheduler}. Runs which would exceed concurrent runs limit are skipped, so slow task does not
+ * pile up. Keeps run duration statistics.
+ *
+ * @since 4.3.0
+ */
+public class PeriodicTask implements BeanNameAware {
+    private static final Log log = LogFactory.getLog(PeriodicTask.class);
+    private static final Random random = new Random();
+    private String name;
+    private Runnable task;
+    private volatile long delay;
+    private volatile long period;
+    private long jitter;
+    private int maxConcurrentRuns = 1;
+    private Semaphore runPermits;
+    private final AtomicLong runsCount = new AtomicLong();
+    private final AtomicLong failuresCount = new AtomicLong();
+    private final AtomicLong skippedRunsCount = new AtomicLong();
+    private final AtomicLong totalDuration = new AtomicLong();
+    private volatile long lastDuration;
+    private volatile long maxDuration;
+    private volatile Date lastStartDate;
+
+    @Override
+    public void setBeanName(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setTask(Runnable task) {
+        this.task = task;
+    }
+
+    public Runnable getTask() {
+        return task;
+    }
+
+    /**
+     * @param delay
+     *            delay in milliseconds before first run
+     */
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    /**
+     * @param period
+     *            period in milliseconds between run starts, new value is applied after next run start
+     */
+    public void setPeriod(long period) {
+        this.period = period;
+    }
+
+    public long getPeriod() {
+        return period;
+    }
+
+    /**
+     * @param jitter
+     *            maximal random addition to delay and period in milliseconds, spreads runs of tasks with equal periods
+     */
+    public void setJitter(long jitter) {
+        this.jitter = jitter;
+    }
+
+    public long getJitter() {
+        return jitter;
+    }
+
+    public void setMaxConcurrentRuns(int maxConcurrentRuns) {
+        Preconditions.checkArgument(maxConcurrentRuns > 0, "maxConcurrentRuns");
+        this.maxConcurrentRuns = maxConcurrentRuns;
+    }
+
+    public int getMaxConcurrentRuns() {
+        return maxConcurrentRuns;
+    }
+
+    public long getRunsCount() {
+        return runsCount.get();
+    }
+
+    public long getFailuresCount() {
+        return failuresCount.get();
+    }
+
+    public long getSkippedRunsCount() {
+        return skippedRunsCount.get();
+    }
+
+    public long getLastDuration() {
+        return lastDuration;
+    }
+
+    public long getMaxDuration() {
+        return maxDuration;
+    }
+
+    public long getAverageDuration() {
+        long count = runsCount.get();
+        return count > 0 ? totalDuration.get() / count : 0;
+    }
+
+    public Date getLastStartDate() {
+        return lastStartDate;
+    }
+
+    long getFirstRunDelay() {
+        return delay + getJitterValue();
+    }
+
+    long getNextRunDelay() {
+        return period + getJitterValue();
+    }
+
+    private long getJitterValue() {
+        if (jitter <= 0) {
+            return 0;
+        }
+        synchronized (random) {
+            return (long) (random.nextDouble() * jitter);
+        }
+    }
+
+    /**
+     * Runs task if concurrent runs limit is not reached.
+     */
+    void run() {
+        synchronized (this) {
+            if (runPermits == null) {
+                runPermits = new Semaphore(maxConcurrentRuns);
+            }
+        }
+        if (!runPermits.tryAcquire()) {
+            skippedRunsCount.incrementAndGet();
+            log.debug("Skipped " + name + " run, previous runs are in progress");
+            return;
+        }
+        lastStartDate = new Date();
+        long startTime = System.currentTimeMillis();
+        try {
+            task.run();
+        } catch (Throwable th) {
+            failuresCount.incrementAndGet();
+            log.error("Task " + name + " failed", th);
+        } finally {
+            long duration = System.currentTimeMillis() - startTime;
+            lastDuration = duration;
+            if (duration > maxDuration) {
+                maxDuration = duration;
+            }
+            totalDuration.addAndGet(duration);
+            runsCount.incrementAndGet();
+            runPermits.release();
+            if (period > 0 && duration > period) {
+                log.warn("Task " + name + " run took " + duration + " ms which exceeds period " + period + " ms");
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("name", name).add("period", period).add("runs", runsCount).add("failures", failuresCount)
+                .add("skipped", skippedRunsCount).add("averageDuration", getAverageDuration()).add("maxDuration", maxDuration).toString();
+    }
+}
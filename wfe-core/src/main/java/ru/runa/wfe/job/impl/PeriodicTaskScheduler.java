@@ -0,0 +1,97 @@
+package ru.runa.wfe.job.impl;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Executes {@link PeriodicTask}s in shared thread pool. Each task is rescheduled on its run start, so slow task occupies only its own thread
+ * and does not delay other tasks.
+ *
+ * @since 4.3.0
+ */
+public class PeriodicTaskScheduler implements InitializingBean, DisposableBean {
+    private static final Log log = LogFactory.getLog(PeriodicTaskScheduler.class);
+    private List<PeriodicTask> tasks = Lists.newArrayList();
+    private int poolSize;
+    private ScheduledExecutorService executorService;
+
+    public void setTasks(List<PeriodicTask> tasks) {
+        this.tasks = tasks;
+    }
+
+    public List<PeriodicTask> getTasks() {
+        return tasks;
+    }
+
+    /**
+     * @param poolSize
+     *            threads count, by default equals to sum of tasks concurrent runs limits
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int threadsCount = poolSize;
+        if (threadsCount <= 0) {
+            for (PeriodicTask task : tasks) {
+                threadsCount += task.getMaxConcurrentRuns();
+            }
+        }
+        executorService = new ScheduledThreadPoolExecutor(Math.max(threadsCount, 1), new SchedulerThreadFactory());
+        for (PeriodicTask task : tasks) {
+            schedule(task, task.getFirstRunDelay());
+        }
+        log.info("Scheduled " + tasks.size() + " tasks using " + threadsCount + " threads");
+    }
+
+    private void schedule(final PeriodicTask task, long delay) {
+        try {
+            executorService.schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (task.getPeriod() > 0) {
+                        schedule(task, task.getNextRunDelay());
+                    }
+                    task.run();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            if (!executorService.isShutdown()) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static class SchedulerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "wfe-scheduler-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.runa.wfe.job.impl;
+
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.var.file.LocalFileSystemStorage;
+
+/**
+ * Periodic removal of file variables content which is not referenced by processes.
+ *
+ * @since 4.3.0
+ */
+public class RemoveUnreferencedFileContentTask extends JobTask<TransactionalExecutor> {
+
+    @Override
+    protected void execute() throws Exception {
+        if (SystemProperties.isLocalFileStorageEnabled()) {
+            LocalFileSystemStorage.removeUnreferencedContent(SystemProperties.getLocalFileStorageUnreferencedContentTimeoutMinutes() * 60000L);
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ import ru.runa.wfe.definition.Deployment;
 import ru.runa.wfe.definition.IFileDataProvider;
 import ru.runa.wfe.definition.InvalidDefinitionException;
 import ru.runa.wfe.definition.ProcessDefinitionAccessType;
+import ru.runa.wfe.definition.par.ProcessArchiveFiles;
 import ru.runa.wfe.form.Interaction;
 import ru.runa.wfe.task.Task;
 import ru.runa.wfe.var.UserType;
@@ -47,7 +48,7 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
     private static final long serialVersionUID = 1L;
 
     protected Deployment deployment;
-    protected Map<String, byte[]> processFiles = Maps.newHashMap();
+    protected ProcessArchiveFiles processFiles;
     protected StartNode startNode;
     protected final List<Node> nodes = Lists.newArrayList();
     protected final List<SwimlaneDefinition> swimlaneDefinitions = Lists.newArrayList();
@@ -66,6 +67,7 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
 
     public ProcessDefinition(Deployment deployment) {
         this.deployment = deployment;
+        this.processFiles = new ProcessArchiveFiles(deployment);
         processDefinition = this;
     }
 
@@ -113,7 +115,7 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
      * add a file to this definition.
      */
     public void addFile(String name, byte[] bytes) {
-        processFiles.put(name, bytes);
+        processFiles.add(name, bytes);
     }
 
     public void addInteraction(String name, Interaction interaction) {
@@ -229,7 +231,7 @@ public class ProcessDefinition extends GraphElement implements IFileDataProvider
         return interaction;
     }
 
-    public Map<String, byte[]> getProcessFiles() {
+    public ProcessArchiveFiles getProcessFiles() {
         return processFiles;
     }
 
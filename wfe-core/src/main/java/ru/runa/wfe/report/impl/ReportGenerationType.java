@@ -4,6 +4,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
@@ -38,10 +39,8 @@ public enum ReportGenerationType {
 
     HTML_EMBEDDED {
         @Override
-        public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
-                throws JRException {
+        public String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream) throws JRException {
             String uid = UUID.randomUUID().toString();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             SimpleHtmlExporterOutput exporterOutput = new SimpleHtmlExporterOutput(outputStream);
             Map<String, byte[]> resourceMap = Maps.newHashMap();
             String pathPattern = request.getRequestURL().toString().substring(0, request.getRequestURL().toString().indexOf("/buildReport"))
@@ -61,7 +60,12 @@ public enum ReportGenerationType {
             exporter.setConfiguration(configuration);
             exporter.exportReport();
             saveResources(uid, resourceMap);
-            return new ReportBuildResult(reportName + ".html", outputStream.toByteArray());
+            return reportName + ".html";
+        }
+
+        @Override
+        public boolean isResultReusable() {
+            return false;
         }
 
         private void saveResources(String uid, Map<String, byte[]> resourceMap) {
@@ -107,18 +111,16 @@ public enum ReportGenerationType {
 
     DOCX {
         @Override
-        public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
-                throws JRException {
+        public String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream) throws JRException {
             JRDocxExporter exporter = new JRDocxExporter();
             SimpleDocxReportConfiguration configuration = new SimpleDocxReportConfiguration();
             configuration.setFramesAsNestedTables(false);
             exporter.setConfiguration(configuration);
             exporter.setReportContext(WebReportContext.getInstance(request));
             exporter.setExporterInput(new SimpleExporterInput(report));
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
             exporter.exportReport();
-            return new ReportBuildResult(reportName + ".docx", outputStream.toByteArray());
+            return reportName + ".docx";
         }
 
         @Override
@@ -133,15 +135,13 @@ public enum ReportGenerationType {
 
     PDF {
         @Override
-        public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
-                throws JRException {
+        public String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream) throws JRException {
             JRPdfExporter exporter = new JRPdfExporter();
             exporter.setReportContext(WebReportContext.getInstance(request));
             exporter.setExporterInput(new SimpleExporterInput(report));
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
             exporter.exportReport();
-            return new ReportBuildResult(reportName + ".pdf", outputStream.toByteArray());
+            return reportName + ".pdf";
         }
 
         @Override
@@ -156,15 +156,13 @@ public enum ReportGenerationType {
 
     RTF {
         @Override
-        public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
-                throws JRException {
+        public String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream) throws JRException {
             JRRtfExporter exporter = new JRRtfExporter();
             exporter.setReportContext(WebReportContext.getInstance(request));
             exporter.setExporterInput(new SimpleExporterInput(report));
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             exporter.setExporterOutput(new SimpleWriterExporterOutput(outputStream));
             exporter.exportReport();
-            return new ReportBuildResult(reportName + ".rtf", outputStream.toByteArray());
+            return reportName + ".rtf";
         }
 
         @Override
@@ -179,15 +177,13 @@ public enum ReportGenerationType {
 
     EXCEL {
         @Override
-        public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
-                throws JRException {
+        public String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream) throws JRException {
             JRXlsxExporter exporter = new JRXlsxExporter();
             exporter.setReportContext(WebReportContext.getInstance(request));
             exporter.setExporterInput(new SimpleExporterInput(report));
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
             exporter.exportReport();
-            return new ReportBuildResult(reportName + ".xlsx", outputStream.toByteArray());
+            return reportName + ".xlsx";
         }
 
         @Override
@@ -222,9 +218,37 @@ public enum ReportGenerationType {
      * @return result of report export.
      * @throws JRException
      */
-    public abstract ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
+    public ReportBuildResult exportReport(String reportName, HttpServletRequest request, HttpServletResponse response, JasperPrint report)
+            throws JRException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        String reportFileName = exportReport(reportName, request, report, outputStream);
+        return new ReportBuildResult(reportFileName, outputStream.toByteArray());
+    }
+
+    /**
+     * Exports report in the specified format to output stream.
+     * 
+     * @param reportName
+     *            Report name.
+     * @param request
+     *            HTTP request, it's necessary to build report in order to process this request.
+     * @param report
+     *            Report document that should be exported.
+     * @param outputStream
+     *            Stream to write exported report to, not closed by this method.
+     * @return exported report file name.
+     * @throws JRException
+     */
+    public abstract String exportReport(String reportName, HttpServletRequest request, JasperPrint report, OutputStream outputStream)
             throws JRException;
 
+    /**
+     * @return <code>true</code> if exported report does not depend on request and can be given to other requests with same parameters.
+     */
+    public boolean isResultReusable() {
+        return true;
+    }
+
     /**
      * Applies operation that is chosen on the basis of created report type.
      * 
@@ -23,6 +23,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
 
 import org.hibernate.Query;
 import org.hibernate.Session;
@@ -32,6 +36,7 @@ import org.springframework.orm.hibernate3.HibernateCallback;
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.TimeMeasurer;
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.dao.CommonDAO;
 import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.presentation.hibernate.CompilerParameters;
@@ -62,6 +67,10 @@ public class PermissionDAO extends CommonDAO {
 
     private final Map<SecuredObjectType, Set<Executor>> privelegedExecutors = Maps.newHashMap();
     private final Set<Long> privelegedExecutorIds = Sets.newHashSet();
+    /**
+     * Incremented on each change of process definition permissions and on completion (commit or rollback) of changing transaction.
+     */
+    private final AtomicLong definitionPermissionsVersion = new AtomicLong();
 
     @Override
     protected void initDao() throws Exception {
@@ -92,6 +101,103 @@ public class PermissionDAO extends CommonDAO {
         return permissions;
     }
 
+    /**
+     * Loads all not privileged executors permissions on identifiable with single query.
+     * 
+     * @param identifiable
+     *            Secured object, which permissions is loading.
+     * @return Executor permissions.
+     */
+    public Map<Executor, Set<Permission>> getIssuedPermissions(Identifiable identifiable) {
+        List<Object[]> rows = getHibernateTemplate().find("select pm.executor, pm.mask from PermissionMapping pm where pm.identifiableId=? and pm.type=?",
+                identifiable.getIdentifiableId(), identifiable.getSecuredObjectType());
+        Permission noPermission = identifiable.getSecuredObjectType().getNoPermission();
+        Map<Executor, Set<Permission>> result = Maps.newHashMap();
+        Set<Executor> privilegedExecutors = Sets.newHashSet();
+        for (Object[] row : rows) {
+            Executor executor = (Executor) row[0];
+            if (privilegedExecutors.contains(executor)) {
+                continue;
+            }
+            Set<Permission> permissions = result.get(executor);
+            if (permissions == null) {
+                if (isPrivilegedExecutor(identifiable, executor)) {
+                    privilegedExecutors.add(executor);
+                    continue;
+                }
+                permissions = Sets.newHashSet();
+                result.put(executor, permissions);
+            }
+            permissions.add(noPermission.getPermission((Long) row[1]));
+        }
+        return result;
+    }
+
+    /**
+     * Adds permissions on newly created identifiable, which has no permissions yet. All checks are done before saving, so mappings are flushed in
+     * single JDBC batch.
+     * 
+     * @param permissions
+     *            Executor permissions, privileged executors are skipped.
+     * @param identifiable
+     *            Secured object to set permission on.
+     */
+    public void addPermissions(Map<Executor, ? extends Collection<Permission>> permissions, Identifiable identifiable) {
+        List<PermissionMapping> mappings = Lists.newArrayList();
+        for (Map.Entry<Executor, ? extends Collection<Permission>> entry : permissions.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            if (isPrivilegedExecutor(identifiable, entry.getKey())) {
+                log.debug(entry.getValue() + " not granted for privileged " + entry.getKey());
+                continue;
+            }
+            checkArePermissionAllowed(identifiable, entry.getValue());
+            for (Permission permission : entry.getValue()) {
+                mappings.add(new PermissionMapping(entry.getKey(), identifiable, permission.getMask()));
+            }
+        }
+        for (PermissionMapping mapping : mappings) {
+            getHibernateTemplate().save(mapping);
+        }
+        onPermissionsChange(identifiable.getSecuredObjectType());
+    }
+
+    /**
+     * Version of process definition permissions, can be used to check validity of data derived from them. Version is kept in memory like other
+     * WFE caches, so permissions changed on another cluster node are not tracked.
+     */
+    public long getDefinitionPermissionsVersion() {
+        return definitionPermissionsVersion.get();
+    }
+
+    private void onPermissionsChange(SecuredObjectType securedObjectType) {
+        if (securedObjectType != null && securedObjectType != SecuredObjectType.DEFINITION) {
+            return;
+        }
+        definitionPermissionsVersion.incrementAndGet();
+        Transaction transaction = Utils.getTransaction();
+        if (transaction == null) {
+            return;
+        }
+        try {
+            transaction.registerSynchronization(new Synchronization() {
+
+                @Override
+                public void beforeCompletion() {
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    // data derived from uncommitted (or rolled back) permissions is dropped
+                    definitionPermissionsVersion.incrementAndGet();
+                }
+            });
+        } catch (Exception e) {
+            throw new InternalApplicationException("Unable to register permissions change synchronization", e);
+        }
+    }
+
     /**
      * Sets permissions for executor on identifiable.
      * 
@@ -118,6 +224,7 @@ public class PermissionDAO extends CommonDAO {
             }
         }
         getHibernateTemplate().deleteAll(permissionMappingToRemove);
+        onPermissionsChange(identifiable.getSecuredObjectType());
     }
 
     /**
@@ -265,6 +372,7 @@ public class PermissionDAO extends CommonDAO {
      */
     public void deleteOwnPermissions(Executor executor) {
         getHibernateTemplate().bulkUpdate("delete from PermissionMapping where executor=?", executor);
+        onPermissionsChange(null);
     }
 
     /**
@@ -276,6 +384,7 @@ public class PermissionDAO extends CommonDAO {
     public void deleteAllPermissions(Identifiable identifiable) {
         getHibernateTemplate().bulkUpdate("delete from PermissionMapping where type=? and identifiableId=?", identifiable.getSecuredObjectType(),
                 identifiable.getIdentifiableId());
+        onPermissionsChange(identifiable.getSecuredObjectType());
     }
 
     /**
@@ -59,6 +59,17 @@ class SubstitutionCacheCtrl extends BaseCacheCtrl<SubstitutionCacheImpl> impleme
         return cache.getSubstitutors(actor, false);
     }
 
+    @Override
+    protected void doMarkTransactionComplete() {
+        SubstitutionCacheImpl cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        if (!isLocked()) {
+            cache.onTransactionsCompleted();
+        }
+    }
+
     @Override
     public void doOnChange(ChangedObjectParameter changedObject) {
         SubstitutionCacheImpl cache = getCache();
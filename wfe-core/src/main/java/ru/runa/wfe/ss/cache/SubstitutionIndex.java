@@ -0,0 +1,555 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.ss.cache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.transaction.UserTransaction;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.commons.Utils;
+import ru.runa.wfe.commons.cache.Cache;
+import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.commons.cache.ChangedObjectParameter;
+import ru.runa.wfe.execution.logic.SwimlaneInitializerHelper;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.ss.Substitution;
+import ru.runa.wfe.ss.SubstitutionCriteria;
+import ru.runa.wfe.ss.TerminatorSubstitution;
+import ru.runa.wfe.ss.dao.SubstitutionDAO;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorDoesNotExistException;
+import ru.runa.wfe.user.ExecutorGroupMembership;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Substitutors of actors and reverse index from substitutor to substituted actors, shared between substitution cache instances. Change of
+ * substitution, criteria, group membership or executor invalidates only entries of affected actors, they are evaluated again on first access.
+ * Entries evaluated while cache is locked by changing transactions are not stored.
+ *
+ * @since 4.3.0
+ */
+class SubstitutionIndex {
+    private static final Log log = LogFactory.getLog(SubstitutionIndex.class);
+    /**
+     * Minimal count of actors with substitutions to evaluate them in parallel on cache build.
+     */
+    private static final int PARALLEL_BUILD_MIN_ACTORS = 100;
+
+    private final Cache<Long, TreeMap<Substitution, HashSet<Long>>> actorToSubstitutorsCache;
+    private final Cache<Long, HashSet<Long>> actorToSubstitutedCache;
+    /**
+     * Actors which substitutors must be evaluated again.
+     */
+    private final Set<Long> staleActorIds = Sets.newConcurrentHashSet();
+    /**
+     * Group (including nested groups) to actors which substitutors are evaluated using its members.
+     */
+    private final ConcurrentMap<Long, Set<Long>> groupToDependentActorIds = Maps.newConcurrentMap();
+    /**
+     * Actors which substitution rules evaluated to nobody, they can be resolved after executor creation or rename.
+     */
+    private final Set<Long> unresolvedActorIds = Sets.newConcurrentHashSet();
+    /**
+     * Incremented on each change, entries evaluated during change are not stored.
+     */
+    private final AtomicLong changesCount = new AtomicLong();
+    private final ExecutorDAO executorDAO;
+    private final SubstitutionDAO substitutionDAO;
+
+    public SubstitutionIndex(Cache<Long, TreeMap<Substitution, HashSet<Long>>> actorToSubstitutorsCache,
+            Cache<Long, HashSet<Long>> actorToSubstitutedCache) {
+        this(actorToSubstitutorsCache, actorToSubstitutedCache, ApplicationContextFactory.getExecutorDAO(), ApplicationContextFactory
+                .getSubstitutionDAO());
+    }
+
+    SubstitutionIndex(Cache<Long, TreeMap<Substitution, HashSet<Long>>> actorToSubstitutorsCache,
+            Cache<Long, HashSet<Long>> actorToSubstitutedCache, ExecutorDAO executorDAO, SubstitutionDAO substitutionDAO) {
+        this.actorToSubstitutorsCache = actorToSubstitutorsCache;
+        this.actorToSubstitutedCache = actorToSubstitutedCache;
+        this.executorDAO = executorDAO;
+        this.substitutionDAO = substitutionDAO;
+    }
+
+    /**
+     * Evaluates all substitutions.
+     *
+     * @param parallel
+     *            whether substitutions can be evaluated in separate transactions
+     */
+    public void build(boolean parallel) {
+        Map<Long, Actor> actors = Maps.newHashMap();
+        for (Actor actor : executorDAO.getAllActors(BatchPresentationFactory.ACTORS.createNonPaged())) {
+            actors.put(actor.getId(), actor);
+        }
+        Map<Long, List<Substitution>> actorToSubstitutions = Maps.newHashMap();
+        try {
+            for (Substitution substitution : loadSubstitutions()) {
+                List<Substitution> substitutions = actorToSubstitutions.get(substitution.getActorId());
+                if (substitutions == null) {
+                    substitutions = Lists.newArrayList();
+                    actorToSubstitutions.put(substitution.getActorId(), substitutions);
+                }
+                substitutions.add(substitution);
+            }
+        } catch (Throwable th) {
+            log.error("in substitution", th);
+        }
+        Map<Long, ActorSubstitutors> evaluated = evaluate(actorToSubstitutions, parallel);
+        Map<Long, TreeMap<Substitution, HashSet<Long>>> actorToSubstitutors = Maps.newHashMap();
+        for (Long actorId : actors.keySet()) {
+            actorToSubstitutors.put(actorId, new TreeMap<Substitution, HashSet<Long>>());
+        }
+        Map<Long, HashSet<Long>> actorToSubstituted = Maps.newHashMap();
+        for (Map.Entry<Long, ActorSubstitutors> entry : evaluated.entrySet()) {
+            Long actorId = entry.getKey();
+            addDependencies(actorId, entry.getValue());
+            actorToSubstitutors.put(actorId, entry.getValue().substitutors);
+            Actor actor = actors.get(actorId);
+            if (actor == null || actor.isActive()) {
+                continue;
+            }
+            for (HashSet<Long> substitutors : entry.getValue().substitutors.values()) {
+                if (substitutors == null) {
+                    continue;
+                }
+                for (Long substitutor : substitutors) {
+                    HashSet<Long> substituted = actorToSubstituted.get(substitutor);
+                    if (substituted == null) {
+                        substituted = new HashSet<Long>();
+                        actorToSubstituted.put(substitutor, substituted);
+                    }
+                    substituted.add(actorId);
+                }
+            }
+        }
+        for (Long actorId : actors.keySet()) {
+            if (!actorToSubstituted.containsKey(actorId)) {
+                actorToSubstituted.put(actorId, new HashSet<Long>());
+            }
+        }
+        actorToSubstitutorsCache.putAll(actorToSubstitutors);
+        actorToSubstitutedCache.putAll(actorToSubstituted);
+    }
+
+    /**
+     * @param loadIfRequired
+     *            whether not cached substitutors must be evaluated
+     * @param locked
+     *            whether changing transactions exist, evaluated substitutors are not stored in this case
+     * @return substitutors or <code>null</code> if not cached and loading is not required
+     */
+    public TreeMap<Substitution, HashSet<Long>> getSubstitutors(Long actorId, boolean loadIfRequired, boolean locked) {
+        TreeMap<Substitution, HashSet<Long>> result = actorToSubstitutorsCache.get(actorId);
+        if (result != null || !loadIfRequired) {
+            return result;
+        }
+        long changesCountBefore = changesCount.get();
+        ActorSubstitutors evaluated = evaluate(actorId, loadSubstitutions(actorId));
+        if (!locked && changesCountBefore == changesCount.get()) {
+            store(actorId, evaluated);
+        }
+        return evaluated.substitutors;
+    }
+
+    /**
+     * @param locked
+     *            whether changing transactions exist, evaluated entries are not stored in this case
+     * @return inactive actors which are substituted by given actor
+     */
+    public HashSet<Long> getSubstituted(Long actorId, boolean locked) {
+        Map<Long, TreeMap<Substitution, HashSet<Long>>> notStored = Maps.newHashMap();
+        for (Long staleActorId : Lists.newArrayList(staleActorIds)) {
+            TreeMap<Substitution, HashSet<Long>> substitutors = getSubstitutors(staleActorId, true, locked);
+            if (staleActorIds.contains(staleActorId)) {
+                notStored.put(staleActorId, substitutors);
+            }
+        }
+        if (notStored.isEmpty()) {
+            HashSet<Long> result = actorToSubstitutedCache.get(actorId);
+            if (result != null) {
+                return result;
+            }
+        }
+        long changesCountBefore = changesCount.get();
+        Set<Long> substitutedIds = Sets.newHashSet(actorToSubstitutorsCache.keySet());
+        substitutedIds.addAll(notStored.keySet());
+        HashSet<Long> result = new HashSet<Long>();
+        for (Long substitutedId : substitutedIds) {
+            TreeMap<Substitution, HashSet<Long>> substitutors = notStored.get(substitutedId);
+            if (substitutors == null) {
+                substitutors = getSubstitutors(substitutedId, true, locked);
+            }
+            if (!contains(substitutors, actorId)) {
+                continue;
+            }
+            try {
+                if (!executorDAO.getActor(substitutedId).isActive()) {
+                    result.add(substitutedId);
+                }
+            } catch (ExecutorDoesNotExistException e) {
+            }
+        }
+        if (notStored.isEmpty() && !locked && changesCountBefore == changesCount.get()) {
+            actorToSubstitutedCache.put(actorId, result);
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates entries of affected actors.
+     *
+     * @return false if change can't be handled and all entries must be dropped
+     */
+    public boolean onChange(ChangedObjectParameter changedObject) {
+        changesCount.incrementAndGet();
+        if (changedObject.object instanceof Substitution) {
+            invalidate(((Substitution) changedObject.object).getActorId());
+            if (changedObject.previousState != null) {
+                Object previousActorId = changedObject.previousState[changedObject.getPropertyIndex("actorId")];
+                if (previousActorId instanceof Long) {
+                    invalidate((Long) previousActorId);
+                }
+            }
+            return true;
+        }
+        if (changedObject.object instanceof SubstitutionCriteria) {
+            Long criteriaId = ((SubstitutionCriteria) changedObject.object).getId();
+            for (Long actorId : Lists.newArrayList(actorToSubstitutorsCache.keySet())) {
+                TreeMap<Substitution, HashSet<Long>> substitutors = actorToSubstitutorsCache.get(actorId);
+                if (substitutors == null) {
+                    continue;
+                }
+                for (Substitution substitution : substitutors.keySet()) {
+                    if (substitution.getCriteria() != null && Objects.equal(substitution.getCriteria().getId(), criteriaId)) {
+                        invalidate(actorId);
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+        if (changedObject.object instanceof ExecutorGroupMembership) {
+            Group group = ((ExecutorGroupMembership) changedObject.object).getGroup();
+            invalidateGroupDependents(group.getId());
+            return true;
+        }
+        if (changedObject.object instanceof Executor) {
+            onExecutorChange((Executor) changedObject.object, changedObject);
+            return true;
+        }
+        log.warn("Unexpected object " + changedObject.object);
+        return false;
+    }
+
+    private void onExecutorChange(Executor executor, ChangedObjectParameter changedObject) {
+        if (changedObject.changeType == Change.CREATE) {
+            invalidate(unresolvedActorIds);
+            return;
+        }
+        if (changedObject.changeType == Change.DELETE) {
+            invalidate(executor.getId());
+            actorToSubstitutedCache.remove(executor.getId());
+            invalidateSubstitutedBy(executor.getId());
+            invalidateGroupDependents(executor.getId());
+            return;
+        }
+        if (changedObject.previousState == null || isPropertyChanged(changedObject, "name")
+                || executor instanceof Actor && isPropertyChanged(changedObject, "code")) {
+            // executor can be resolved by organization function in other way
+            invalidate(unresolvedActorIds);
+            invalidateSubstitutedBy(executor.getId());
+            invalidateGroupDependents(executor.getId());
+        }
+        if (executor instanceof Actor && (changedObject.previousState == null || isPropertyChanged(changedObject, "active"))) {
+            // reverse index contains only inactive actors
+            TreeMap<Substitution, HashSet<Long>> substitutors = actorToSubstitutorsCache.get(executor.getId());
+            if (substitutors != null) {
+                removeSubstituted(substitutors);
+            } else {
+                invalidate(executor.getId());
+            }
+        }
+    }
+
+    private static boolean isPropertyChanged(ChangedObjectParameter changedObject, String propertyName) {
+        int index = changedObject.getPropertyIndex(propertyName);
+        return !Objects.equal(changedObject.currentState[index], changedObject.previousState[index]);
+    }
+
+    private void invalidate(Collection<Long> actorIds) {
+        for (Long actorId : Lists.newArrayList(actorIds)) {
+            invalidate(actorId);
+        }
+    }
+
+    private void invalidate(Long actorId) {
+        if (actorId == null) {
+            return;
+        }
+        staleActorIds.add(actorId);
+        TreeMap<Substitution, HashSet<Long>> substitutors = actorToSubstitutorsCache.get(actorId);
+        actorToSubstitutorsCache.remove(actorId);
+        if (substitutors != null) {
+            removeSubstituted(substitutors);
+        }
+    }
+
+    /**
+     * Invalidates actors which are substituted by given executor.
+     */
+    private void invalidateSubstitutedBy(Long executorId) {
+        for (Long actorId : Lists.newArrayList(actorToSubstitutorsCache.keySet())) {
+            if (contains(actorToSubstitutorsCache.get(actorId), executorId)) {
+                invalidate(actorId);
+            }
+        }
+    }
+
+    private void invalidateGroupDependents(Long groupId) {
+        Set<Long> actorIds = groupToDependentActorIds.remove(groupId);
+        if (actorIds != null) {
+            invalidate(actorIds);
+        }
+    }
+
+    private void removeSubstituted(TreeMap<Substitution, HashSet<Long>> substitutors) {
+        for (HashSet<Long> substitutorIds : substitutors.values()) {
+            if (substitutorIds != null) {
+                for (Long substitutorId : substitutorIds) {
+                    actorToSubstitutedCache.remove(substitutorId);
+                }
+            }
+        }
+    }
+
+    private void store(Long actorId, ActorSubstitutors evaluated) {
+        addDependencies(actorId, evaluated);
+        actorToSubstitutorsCache.put(actorId, evaluated.substitutors);
+        // new substitutors get this actor on next access
+        removeSubstituted(evaluated.substitutors);
+        staleActorIds.remove(actorId);
+    }
+
+    private void addDependencies(Long actorId, ActorSubstitutors evaluated) {
+        for (Long groupId : evaluated.groupIds) {
+            Set<Long> actorIds = groupToDependentActorIds.get(groupId);
+            if (actorIds == null) {
+                Set<Long> created = Sets.newConcurrentHashSet();
+                actorIds = groupToDependentActorIds.putIfAbsent(groupId, created);
+                if (actorIds == null) {
+                    actorIds = created;
+                }
+            }
+            actorIds.add(actorId);
+        }
+        if (evaluated.unresolved) {
+            unresolvedActorIds.add(actorId);
+        } else {
+            unresolvedActorIds.remove(actorId);
+        }
+    }
+
+    private static boolean contains(TreeMap<Substitution, HashSet<Long>> substitutors, Long substitutorId) {
+        if (substitutors == null) {
+            return false;
+        }
+        for (HashSet<Long> substitutorIds : substitutors.values()) {
+            if (substitutorIds != null && substitutorIds.contains(substitutorId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<Long, ActorSubstitutors> evaluate(final Map<Long, List<Substitution>> actorToSubstitutions, boolean parallel) {
+        int threadsCount = getBuildThreadsCount();
+        if (!parallel || threadsCount < 2 || actorToSubstitutions.size() < PARALLEL_BUILD_MIN_ACTORS) {
+            return evaluate(actorToSubstitutions.keySet(), actorToSubstitutions);
+        }
+        long startTime = System.currentTimeMillis();
+        List<Long> actorIds = Lists.newArrayList(actorToSubstitutions.keySet());
+        List<List<Long>> chunks = Lists.partition(actorIds, (actorIds.size() + threadsCount - 1) / threadsCount);
+        ExecutorService executorService = Executors.newFixedThreadPool(chunks.size(), new BuildThreadFactory());
+        try {
+            List<Future<Map<Long, ActorSubstitutors>>> futures = Lists.newArrayList();
+            for (final List<Long> chunk : chunks) {
+                futures.add(executorService.submit(new Callable<Map<Long, ActorSubstitutors>>() {
+
+                    @Override
+                    public Map<Long, ActorSubstitutors> call() {
+                        final Map<Long, ActorSubstitutors> result = Maps.newHashMap();
+                        new TransactionalExecutor(getUserTransaction()) {
+
+                            @Override
+                            protected void doExecuteInTransaction() {
+                                result.putAll(evaluate(chunk, actorToSubstitutions));
+                            }
+                        }.executeInTransaction(true);
+                        return result;
+                    }
+                }));
+            }
+            Map<Long, ActorSubstitutors> result = Maps.newHashMap();
+            for (int i = 0; i < chunks.size(); i++) {
+                try {
+                    result.putAll(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    log.warn("Unable to evaluate substitutions in separate transaction, evaluating in current: " + e.getCause());
+                    result.putAll(evaluate(chunks.get(i), actorToSubstitutions));
+                }
+            }
+            log.info("Substitutions of " + actorIds.size() + " actors evaluated in " + (System.currentTimeMillis() - startTime) + " ms using "
+                    + chunks.size() + " threads");
+            return result;
+        } catch (InterruptedException e) {
+            throw Throwables.propagate(e);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private Map<Long, ActorSubstitutors> evaluate(Collection<Long> actorIds, Map<Long, List<Substitution>> actorToSubstitutions) {
+        Map<Long, ActorSubstitutors> result = Maps.newHashMap();
+        for (Long actorId : actorIds) {
+            result.put(actorId, evaluate(actorId, actorToSubstitutions.get(actorId)));
+        }
+        return result;
+    }
+
+    private ActorSubstitutors evaluate(Long actorId, List<Substitution> substitutions) {
+        ActorSubstitutors result = new ActorSubstitutors();
+        if (substitutions.isEmpty()) {
+            return result;
+        }
+        try {
+            executorDAO.getActor(actorId);
+        } catch (ExecutorDoesNotExistException e) {
+            log.error("in " + substitutions + ": " + e);
+            return result;
+        }
+        for (Substitution substitution : substitutions) {
+            if (!substitution.isEnabled()) {
+                continue;
+            }
+            if (substitution instanceof TerminatorSubstitution) {
+                result.substitutors.put(substitution, null);
+                continue;
+            }
+            try {
+                List<? extends Executor> executors = evaluateOrgFunction(substitution);
+                HashSet<Long> substitutors = new HashSet<Long>();
+                for (Executor executor : executors) {
+                    if (executor instanceof Actor) {
+                        substitutors.add(executor.getId());
+                    } else {
+                        addGroupActors((Group) executor, substitutors, result.groupIds);
+                    }
+                }
+                if (substitutors.isEmpty()) {
+                    result.unresolved = true;
+                }
+                result.substitutors.put(substitution, substitutors);
+            } catch (Exception e) {
+                result.unresolved = true;
+                log.error("Error in " + substitution, e);
+            }
+        }
+        return result;
+    }
+
+    List<Substitution> loadSubstitutions() {
+        return substitutionDAO.getAll();
+    }
+
+    List<Substitution> loadSubstitutions(Long actorId) {
+        return substitutionDAO.getByActorId(actorId, true);
+    }
+
+    List<? extends Executor> evaluateOrgFunction(Substitution substitution) {
+        return SwimlaneInitializerHelper.evaluate(substitution.getOrgFunction(), null);
+    }
+
+    int getBuildThreadsCount() {
+        return SystemProperties.getSubstitutionCacheBuildThreadsCount();
+    }
+
+    UserTransaction getUserTransaction() {
+        return Utils.getUserTransaction();
+    }
+
+    private void addGroupActors(Group group, Set<Long> actorIds, Set<Long> groupIds) {
+        if (!groupIds.add(group.getId())) {
+            return;
+        }
+        for (Executor executor : executorDAO.getGroupChildren(group)) {
+            if (executor instanceof Group) {
+                addGroupActors((Group) executor, actorIds, groupIds);
+            } else {
+                actorIds.add(executor.getId());
+            }
+        }
+    }
+
+    /**
+     * Evaluated substitution rules of actor with groups they depend on.
+     */
+    private static class ActorSubstitutors {
+        private final TreeMap<Substitution, HashSet<Long>> substitutors = new TreeMap<Substitution, HashSet<Long>>();
+        private final Set<Long> groupIds = new HashSet<Long>();
+        private boolean unresolved;
+    }
+
+    private static class BuildThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "wfe-substitutions-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.user;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+
+/**
+ * Page of executors found by name prefix with total count of found executors. Count can be not exact when permissions are checked only for
+ * executors up to the next page, see {@link #isTotalCountExact()}.
+ * 
+ * @since 4.3.0
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class ExecutorSearchResult implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int totalCount;
+    private boolean totalCountExact = true;
+    private List<Executor> executors = Lists.newArrayList();
+
+    public ExecutorSearchResult() {
+    }
+
+    public ExecutorSearchResult(int totalCount, List<? extends Executor> executors) {
+        this(totalCount, true, executors);
+    }
+
+    public ExecutorSearchResult(int totalCount, boolean totalCountExact, List<? extends Executor> executors) {
+        this.totalCount = totalCount;
+        this.totalCountExact = totalCountExact;
+        this.executors.addAll(executors);
+    }
+
+    /**
+     * @return found executors count or, if not exact, count of found executors at least up to the end of the next page
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public boolean isTotalCountExact() {
+        return totalCountExact;
+    }
+
+    public List<Executor> getExecutors() {
+        return executors;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("totalCount", totalCount).add("totalCountExact", totalCountExact).add("executors", executors.size()).toString();
+    }
+}
@@ -125,4 +125,16 @@ public interface ExecutorCache {
      *            with specified class and presentation.
      */
     public <T extends Executor> void addAllExecutor(VersionedCacheData<List<T>> oldCached, Class<?> clazz, BatchPresentation batch, List<T> executors);
+
+    /**
+     * Return {@link Actor} or {@link Group} executors which name (or full name for actors) starts with specified prefix (case insensitive). System
+     * executors and temporary groups are not returned. May return null, if cache is not valid.
+     * 
+     * @param clazz
+     *            {@link Actor} or {@link Group}.
+     * @param prefix
+     *            Name prefix, null or empty string matches all executors.
+     * @return Executors ordered by matched name. Returned executors are shared with cache and must not be modified.
+     */
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix);
 }
@@ -141,4 +141,13 @@ class ExecutorCacheCtrl extends BaseCacheCtrl<ExecutorCacheImpl> implements Exec
         }
         cache.addAllExecutor(oldCachedData, clazz, batch, executors);
     }
+
+    @Override
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+        ExecutorCacheImpl cache = CachingLogic.getCacheImplIfNotLocked(this);
+        if (cache == null) {
+            return null;
+        }
+        return cache.getExecutorsByNamePrefix(clazz, prefix);
+    }
 }
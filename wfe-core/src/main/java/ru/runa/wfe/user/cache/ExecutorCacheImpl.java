@@ -24,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.lang.SerializationUtils;
 import org.hibernate.Criteria;
@@ -69,6 +70,12 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
     private final Cache<Long, HashSet<Actor>> groupToAllActorMembersCache;
     private final Cache<Long, HashSet<Group>> executorToAllParentGroupsCache;
     private final Cache<Class<?>, ConcurrentHashMap<BatchPresentationFieldEquals, List<Executor>>> batchAllExecutors;
+    private final ExecutorNameIndex nameIndex = new ExecutorNameIndex();
+    /**
+     * Set on executor change: index is not updated with not committed state and not used until cache is dropped after transactions
+     * completion and built again from committed executors.
+     */
+    private final AtomicBoolean nameIndexLocked = new AtomicBoolean(false);
 
     public ExecutorCacheImpl() {
         this(new CacheInitializationContextStub<ManageableExecutorCache>());
@@ -93,6 +100,7 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         }
         for (Executor executor : allExecutors) {
             addExecutorToCaches(executor);
+            nameIndex.add(executor);
             if (!context.isInitializationStillRequired()) {
                 return;
             }
@@ -170,6 +178,28 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
         }
     }
 
+    @Override
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+        if (nameIndexLocked.get()) {
+            return null;
+        }
+        List<? extends Executor> executors;
+        if (Actor.class.isAssignableFrom(clazz)) {
+            executors = nameIndex.findActors(prefix);
+        } else if (Group.class.isAssignableFrom(clazz)) {
+            executors = nameIndex.findGroups(prefix);
+        } else {
+            throw new IllegalArgumentException("Unsupported executor class " + clazz);
+        }
+        List<T> result = new ArrayList<T>(executors.size());
+        for (Executor executor : executors) {
+            if (clazz.isInstance(executor)) {
+                result.add((T) executor);
+            }
+        }
+        return result;
+    }
+
     public <T extends Executor> boolean onExecutorChange(String executorName, Class<T> executorClass, boolean createOrDelete) {
         Executor executor = nameToExecutorCache.get(executorName);
         if (executor == null) {
@@ -353,6 +383,7 @@ class ExecutorCacheImpl extends BaseCacheImpl implements ManageableExecutorCache
     @Override
     public boolean onChange(ChangedObjectParameter changedObject) {
         if (changedObject.object instanceof Executor) {
+            nameIndexLocked.set(true);
             boolean cleared = false;
             int idx = changedObject.getPropertyIndex("name");
             boolean createOrDelete = changedObject.changeType == Change.CREATE || changedObject.changeType == Change.DELETE;
@@ -57,6 +57,11 @@ class ExecutorCacheProxy implements ManageableExecutorCache {
     public <T extends Executor> void addAllExecutor(VersionedCacheData<List<T>> oldCached, Class<?> clazz, BatchPresentation batch, List<T> executors) {
     }
 
+    @Override
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+        return null;
+    }
+
     @Override
     public void commitCache() {
     }
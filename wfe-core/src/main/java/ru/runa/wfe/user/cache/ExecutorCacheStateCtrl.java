@@ -104,6 +104,15 @@ class ExecutorCacheStateCtrl extends BaseCacheCtrl<ManageableExecutorCache> impl
         cache.addAllExecutor(oldCachedData, clazz, batch, executors);
     }
 
+    @Override
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+        ManageableExecutorCache cache = CachingLogic.getCacheImplIfNotLocked(stateMachine);
+        if (cache == null) {
+            return null;
+        }
+        return cache.getExecutorsByNamePrefix(clazz, prefix);
+    }
+
     private static final List<ListenObjectDefinition> createListenObjectTypes() {
         ArrayList<ListenObjectDefinition> result = new ArrayList<ListenObjectDefinition>();
         result.add(new ListenObjectDefinition(Executor.class, ListenObjectLogType.ALL));
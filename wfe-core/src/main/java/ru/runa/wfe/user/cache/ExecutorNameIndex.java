@@ -0,0 +1,122 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.user.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.SystemExecutors;
+import ru.runa.wfe.user.TemporaryGroup;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Case insensitive prefix index over executor names. Actors are indexed by name and full name, groups by name. System executors and temporary
+ * groups are not indexed.
+ *
+ * Index is filled once with committed executors when executor cache is built. It is not updated on executor changes: executor cache with its
+ * index is dropped after transactions changing executors complete and built again on next access.
+ */
+class ExecutorNameIndex {
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final char MAX_CHAR = '\uffff';
+
+    private final NavigableMap<String, Actor> actors = new ConcurrentSkipListMap<String, Actor>();
+    private final NavigableMap<String, Group> groups = new ConcurrentSkipListMap<String, Group>();
+
+    /**
+     * Adds executor to index, invoked while index is built.
+     */
+    public void add(Executor executor) {
+        if (!isIndexed(executor)) {
+            return;
+        }
+        if (executor instanceof Actor) {
+            Actor actor = (Actor) executor;
+            addKey(actors, actor.getName(), actor);
+            if (!Strings.isNullOrEmpty(actor.getFullName()) && !actor.getFullName().equalsIgnoreCase(actor.getName())) {
+                addKey(actors, actor.getFullName(), actor);
+            }
+        } else {
+            addKey(groups, executor.getName(), (Group) executor);
+        }
+    }
+
+    /**
+     * Finds actors which name or full name starts with prefix (case insensitive).
+     *
+     * @return actors ordered by matched name, each actor is returned once
+     */
+    public List<Actor> findActors(String prefix) {
+        return find(actors, prefix);
+    }
+
+    /**
+     * Finds groups which name starts with prefix (case insensitive).
+     *
+     * @return groups ordered by name
+     */
+    public List<Group> findGroups(String prefix) {
+        return find(groups, prefix);
+    }
+
+    private <T extends Executor> List<T> find(NavigableMap<String, T> index, String prefix) {
+        Collection<T> matched;
+        if (Strings.isNullOrEmpty(prefix)) {
+            matched = index.values();
+        } else {
+            String from = prefix.toLowerCase();
+            matched = index.subMap(from, true, from + MAX_CHAR, true).values();
+        }
+        Map<Long, T> result = Maps.newLinkedHashMap();
+        for (T executor : matched) {
+            if (!result.containsKey(executor.getId())) {
+                result.put(executor.getId(), executor);
+            }
+        }
+        return Lists.newArrayList(result.values());
+    }
+
+    /**
+     * Key contains executor id, so executors with the same name or full name do not replace each other.
+     */
+    private <T extends Executor> void addKey(NavigableMap<String, T> index, String term, T executor) {
+        index.put(term.toLowerCase() + KEY_SEPARATOR + executor.getId(), executor);
+    }
+
+    private static boolean isIndexed(Executor executor) {
+        if (executor.getId() == null || executor.getName() == null) {
+            return false;
+        }
+        if (executor.getName().startsWith(SystemExecutors.SYSTEM_EXECUTORS_PREFIX)) {
+            return false;
+        }
+        if (executor instanceof TemporaryGroup) {
+            return false;
+        }
+        return executor instanceof Actor || executor instanceof Group;
+    }
+}
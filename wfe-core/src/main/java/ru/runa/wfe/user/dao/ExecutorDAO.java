@@ -204,6 +204,20 @@ public class ExecutorDAO extends CommonDAO implements IExecutorDAO {
         return getExecutors(Executor.class, ids, false);
     }
 
+    /**
+     * Load {@linkplain Actor}'s or {@linkplain Group}'s which name (or full name for actors) starts with given prefix from executor name index.
+     * System executors and temporary groups are not loaded.
+     * 
+     * @param clazz
+     *            {@linkplain Actor} or {@linkplain Group}.
+     * @param prefix
+     *            Name prefix, case insensitive.
+     * @return Executors ordered by name, shared with cache, or null if executor cache is not available now.
+     */
+    public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+        return executorCacheCtrl.getExecutorsByNamePrefix(clazz, prefix);
+    }
+
     /**
      * Load {@linkplain Actor}'s with given identities.
      * 
@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -32,6 +33,8 @@ import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.logic.CommonLogic;
 import ru.runa.wfe.commons.logic.PresentationCompilerHelper;
 import ru.runa.wfe.presentation.BatchPresentation;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.presentation.filter.StringFilterCriteria;
 import ru.runa.wfe.presentation.hibernate.PresentationConfiguredCompiler;
 import ru.runa.wfe.relation.dao.RelationPairDAO;
 import ru.runa.wfe.security.ASystem;
@@ -45,6 +48,7 @@ import ru.runa.wfe.user.ActorPermission;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.ExecutorParticipatesInProcessesException;
 import ru.runa.wfe.user.ExecutorPermission;
+import ru.runa.wfe.user.ExecutorSearchResult;
 import ru.runa.wfe.user.Group;
 import ru.runa.wfe.user.GroupPermission;
 import ru.runa.wfe.user.SystemExecutors;
@@ -100,6 +104,66 @@ public class ExecutorLogic extends CommonLogic {
         return compiler.getCount();
     }
 
+    /**
+     * Finds actors (by name or full name) or groups (by name) starting with prefix. Executor name index is used when available, presentation
+     * query otherwise.
+     * 
+     * @param pageNumber
+     *            page number starting from 1
+     */
+    public ExecutorSearchResult findExecutorsByNamePrefix(User user, boolean actors, String prefix, int pageNumber, int pageSize) {
+        if (actors) {
+            return findExecutorsByNamePrefix(user, Actor.class, prefix, pageNumber, pageSize);
+        }
+        return findExecutorsByNamePrefix(user, Group.class, prefix, pageNumber, pageSize);
+    }
+
+    private <T extends Executor> ExecutorSearchResult findExecutorsByNamePrefix(User user, Class<T> clazz, String prefix, int pageNumber,
+            int pageSize) {
+        List<T> candidates = executorDAO.getExecutorsByNamePrefix(clazz, prefix);
+        if (candidates == null) {
+            BatchPresentation batchPresentation = createNamePrefixPresentation(clazz, prefix, pageNumber, pageSize);
+            return new ExecutorSearchResult(getExecutorsCount(user, batchPresentation), getExecutors(user, batchPresentation));
+        }
+        // permissions are checked in prefix order only until requested and next pages are filled, window is doubled for sparse permissions
+        int requiredCount = (pageNumber + 1) * pageSize;
+        List<T> allowed = Lists.newArrayListWithExpectedSize(requiredCount);
+        int checkedCount = 0;
+        int window = requiredCount;
+        while (checkedCount < candidates.size() && allowed.size() < requiredCount) {
+            int windowEnd = Math.min(checkedCount + window, candidates.size());
+            allowed.addAll(filterIdentifiable(user, candidates.subList(checkedCount, windowEnd), Permission.READ));
+            checkedCount = windowEnd;
+            window *= 2;
+        }
+        int fromIndex = Math.min((pageNumber - 1) * pageSize, allowed.size());
+        int toIndex = Math.min(fromIndex + pageSize, allowed.size());
+        List<Executor> page = Lists.newArrayListWithExpectedSize(toIndex - fromIndex);
+        for (T executor : allowed.subList(fromIndex, toIndex)) {
+            page.add((Executor) SerializationUtils.clone(executor));
+        }
+        return new ExecutorSearchResult(allowed.size(), checkedCount == candidates.size(), page);
+    }
+
+    private BatchPresentation createNamePrefixPresentation(Class<? extends Executor> clazz, String prefix, int pageNumber, int pageSize) {
+        BatchPresentation batchPresentation;
+        int filterIndex;
+        if (Actor.class.isAssignableFrom(clazz)) {
+            batchPresentation = BatchPresentationFactory.ACTORS.createDefault();
+            filterIndex = 1;
+        } else {
+            batchPresentation = BatchPresentationFactory.GROUPS.createDefault();
+            filterIndex = 0;
+        }
+        batchPresentation.setRangeSize(pageSize);
+        batchPresentation.setFieldsToSort(new int[] { 1 }, new boolean[] { true });
+        if (!Strings.isNullOrEmpty(prefix)) {
+            batchPresentation.getFilteredFields().put(filterIndex, new StringFilterCriteria(prefix + StringFilterCriteria.ANY_SYMBOLS, true));
+        }
+        batchPresentation.setPageNumber(pageNumber);
+        return batchPresentation;
+    }
+
     public Actor getActor(User user, String name) {
         return checkPermissionsOnExecutor(user, executorDAO.getActor(name), Permission.READ);
     }
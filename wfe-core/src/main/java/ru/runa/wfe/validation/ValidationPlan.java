@@ -0,0 +1,58 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wfe.validation;
+
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+/**
+ * Parsed validators configuration of form with resolved validator classes. Built once per validation xml by {@link ValidatorManager},
+ * validators are created from it for each validation.
+ *
+ * @since 4.3.0
+ */
+public class ValidationPlan {
+    private final List<ValidatorConfig> configs;
+    private final List<Class<? extends Validator>> validatorClasses;
+
+    ValidationPlan(List<ValidatorConfig> configs, List<Class<? extends Validator>> validatorClasses) {
+        this.configs = Collections.unmodifiableList(configs);
+        this.validatorClasses = Collections.unmodifiableList(validatorClasses);
+    }
+
+    /**
+     * @return configs with default messages applied, must not be changed
+     */
+    public List<ValidatorConfig> getConfigs() {
+        return configs;
+    }
+
+    /**
+     * @return validator classes in the same order as {@link #getConfigs()}
+     */
+    public List<Class<? extends Validator>> getValidatorClasses() {
+        return validatorClasses;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("configs", configs).toString();
+    }
+}
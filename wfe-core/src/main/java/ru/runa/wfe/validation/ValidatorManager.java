@@ -6,6 +6,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -15,15 +17,21 @@ import org.dom4j.Element;
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.ApplicationContextFactory;
 import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.GroovyScriptExecutor;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.xml.XmlUtils;
 import ru.runa.wfe.definition.par.ValidationXmlParser;
 import ru.runa.wfe.execution.dto.WfProcess;
 import ru.runa.wfe.user.User;
+import ru.runa.wfe.validation.impl.GroovyExpressionValidator;
 import ru.runa.wfe.var.IVariableProvider;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 public class ValidatorManager {
     private static final Log log = LogFactory.getLog(ValidatorManager.class);
@@ -32,6 +40,7 @@ public class ValidatorManager {
     private static Properties validatorProperties = ClassLoaderUtil.getLocalizedProperties("validators", ValidatorManager.class);
 
     private static ValidatorManager instance;
+    private final Cache<byte[], ValidationPlan> validationPlans = CacheBuilder.newBuilder().weakKeys().build();
 
     public static synchronized ValidatorManager getInstance() {
         if (instance == null) {
@@ -85,10 +94,28 @@ public class ValidatorManager {
         return "";
     }
 
-    public List<Validator> createValidators(User user, IVariableProvider variableProvider, byte[] validationXml, ValidatorContext validatorContext,
-            Map<String, Object> variables) {
+    /**
+     * @return validation plan cached while given validation xml (held by process definition) is reachable
+     */
+    public ValidationPlan getValidationPlan(final byte[] validationXml) {
+        try {
+            return validationPlans.get(validationXml, new Callable<ValidationPlan>() {
+
+                @Override
+                public ValidationPlan call() {
+                    return createValidationPlan(validationXml);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private ValidationPlan createValidationPlan(byte[] validationXml) {
         List<ValidatorConfig> configs = ValidationXmlParser.parseValidatorConfigs(validationXml);
-        ArrayList<Validator> validators = new ArrayList<Validator>(configs.size());
+        List<Class<? extends Validator>> validatorClasses = new ArrayList<Class<? extends Validator>>(configs.size());
         for (ValidatorConfig config : configs) {
             if (Strings.isNullOrEmpty(config.getMessage())) {
                 config.setMessage(getDefaultValidationMessage(config.getType()));
@@ -97,8 +124,30 @@ public class ValidatorManager {
             if (className == null) {
                 throw new InternalApplicationException("Validator '" + config.getType() + "' is not registered");
             }
-            Validator validator = ApplicationContextFactory.createAutowiredBean(className);
-            validator.init(user, variableProvider, config, validatorContext, variables);
+            Class<? extends Validator> validatorClass = ClassLoaderUtil.loadClass(className).asSubclass(Validator.class);
+            if (validatorClass == GroovyExpressionValidator.class) {
+                String expression = config.getParams().get(GroovyExpressionValidator.EXPRESSION_PARAMETER_NAME);
+                if (expression != null && !expression.contains("${")) {
+                    try {
+                        GroovyScriptExecutor.compileExpression(expression);
+                    } catch (Exception e) {
+                        log.warn("Unable to compile " + config + ": " + e);
+                    }
+                }
+            }
+            validatorClasses.add(validatorClass);
+        }
+        return new ValidationPlan(configs, validatorClasses);
+    }
+
+    public List<Validator> createValidators(User user, IVariableProvider variableProvider, byte[] validationXml, ValidatorContext validatorContext,
+            Map<String, Object> variables) {
+        ValidationPlan plan = getValidationPlan(validationXml);
+        List<ValidatorConfig> configs = plan.getConfigs();
+        ArrayList<Validator> validators = new ArrayList<Validator>(configs.size());
+        for (int i = 0; i < configs.size(); i++) {
+            Validator validator = ApplicationContextFactory.createAutowiredBean(plan.getValidatorClasses().get(i));
+            validator.init(user, variableProvider, configs.get(i), validatorContext, variables);
             validators.add(validator);
         }
         return validators;
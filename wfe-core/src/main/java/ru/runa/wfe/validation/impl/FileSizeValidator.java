@@ -18,6 +18,7 @@
 package ru.runa.wfe.validation.impl;
 
 import ru.runa.wfe.validation.FieldValidator;
+import ru.runa.wfe.var.file.FileVariableUtils;
 import ru.runa.wfe.var.file.IFileVariable;
 
 public class FileSizeValidator extends FieldValidator {
@@ -30,7 +31,7 @@ public class FileSizeValidator extends FieldValidator {
             return;
         }
 
-        int fileSize = fileVariable.getData().length;
+        long fileSize = FileVariableUtils.getSize(fileVariable);
         int minLength = getParameter(int.class, "minLength", -1);
         int maxLength = getParameter(int.class, "maxLength", -1);
         if ((minLength > -1) && (fileSize < minLength)) {
@@ -12,6 +12,7 @@ import ru.runa.wfe.var.MapDelegableVariableProvider;
 import com.google.common.collect.Maps;
 
 public class GroovyExpressionValidator extends Validator {
+    public static final String EXPRESSION_PARAMETER_NAME = "expression";
 
     protected IScriptExecutor getScriptExecutor() {
         return new GroovyScriptExecutor();
@@ -21,7 +22,7 @@ public class GroovyExpressionValidator extends Validator {
     public void validate() {
         try {
             IScriptExecutor scriptExecutor = getScriptExecutor();
-            String expression = getParameterNotNull(String.class, "expression");
+            String expression = getParameterNotNull(String.class, EXPRESSION_PARAMETER_NAME);
             Map<String, Object> variables = Maps.newHashMap();
             variables.put("validator", this);
             IVariableProvider validatorVariableProvider = new MapDelegableVariableProvider(variables, getVariableProvider());
@@ -1,15 +1,22 @@
 package ru.runa.wfe.var.converter;
 
+import java.util.List;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.beans.factory.annotation.Required;
 
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.var.Variable;
+import ru.runa.wfe.var.file.FileVariable;
 import ru.runa.wfe.var.file.IFileVariable;
 import ru.runa.wfe.var.file.IFileVariableStorage;
+import ru.runa.wfe.var.file.TemporaryFileVariable;
 import ru.runa.wfe.var.matcher.FileVariableMatcher;
 
+import com.google.common.collect.Lists;
+
 /**
  * Besides straightforward functionality this class persist large file variables
  * in local disc storage.
@@ -37,9 +44,58 @@ public class FileVariableToByteArrayConverter extends SerializableToByteArrayCon
 
     @Override
     public Object convert(ExecutionContext executionContext, Variable<?> variable, Object object) {
+        final List<TemporaryFileVariable> temporaryFiles = getTemporaryFiles(object);
         object = storage.save(executionContext, variable, object);
+        object = loadTemporaryFiles(object);
         log.debug("Saving " + (object != null ? object.getClass() : "null") + " using " + storage);
-        return super.convert(executionContext, variable, object);
+        Object result = super.convert(executionContext, variable, object);
+        if (!temporaryFiles.isEmpty()) {
+            // content is copied, temporary files are kept until commit as transaction can be retried
+            Utils.executeAfterCommit(new Runnable() {
+
+                @Override
+                public void run() {
+                    for (TemporaryFileVariable temporaryFile : temporaryFiles) {
+                        temporaryFile.delete();
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    private static List<TemporaryFileVariable> getTemporaryFiles(Object object) {
+        List<TemporaryFileVariable> result = Lists.newArrayList();
+        if (object instanceof TemporaryFileVariable) {
+            result.add((TemporaryFileVariable) object);
+        }
+        if (object instanceof List) {
+            for (Object item : (List<?>) object) {
+                if (item instanceof TemporaryFileVariable) {
+                    result.add((TemporaryFileVariable) item);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Temporary file content which was not moved to storage is saved in database.
+     */
+    @SuppressWarnings("unchecked")
+    private Object loadTemporaryFiles(Object object) {
+        if (object instanceof TemporaryFileVariable) {
+            return new FileVariable((TemporaryFileVariable) object);
+        }
+        if (object instanceof List) {
+            List<Object> list = (List<Object>) object;
+            for (int i = 0; i < list.size(); i++) {
+                if (list.get(i) instanceof TemporaryFileVariable) {
+                    list.set(i, new FileVariable((TemporaryFileVariable) list.get(i)));
+                }
+            }
+        }
+        return object;
     }
 
 }
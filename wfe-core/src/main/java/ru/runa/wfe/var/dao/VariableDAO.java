@@ -3,6 +3,10 @@ package ru.runa.wfe.var.dao;
 import java.util.List;
 import java.util.Map;
 
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.springframework.orm.hibernate3.HibernateCallback;
+
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.dao.GenericDAO;
 import ru.runa.wfe.execution.Process;
@@ -28,6 +32,31 @@ public class VariableDAO extends GenericDAO<Variable> {
         return findFirstOrNull("from Variable where process=? and name=?", process, name);
     }
 
+    /**
+     * Loads variables by names with one query per {@link SystemProperties#getDatabaseParametersCount()} names.
+     *
+     * @return found variables by names
+     */
+    public Map<String, Variable<?>> get(final Process process, List<String> names) {
+        Map<String, Variable<?>> variables = Maps.newHashMap();
+        for (final List<String> partition : Lists.partition(names, SystemProperties.getDatabaseParametersCount())) {
+            List<Variable<?>> list = getHibernateTemplate().executeFind(new HibernateCallback<List<Variable<?>>>() {
+
+                @Override
+                public List<Variable<?>> doInHibernate(Session session) {
+                    Query query = session.createQuery("from Variable where process=:process and name in (:names)");
+                    query.setParameter("process", process);
+                    query.setParameterList("names", partition);
+                    return query.list();
+                }
+            });
+            for (Variable<?> variable : list) {
+                variables.put(variable.getName(), variable);
+            }
+        }
+        return variables;
+    }
+
     /**
      * @return all variable values.
      */
@@ -44,6 +73,18 @@ public class VariableDAO extends GenericDAO<Variable> {
         return variables;
     }
 
+    /**
+     * @return stored string representations of variable values by names, values itself are not loaded.
+     */
+    public Map<String, String> getStringValues(Process process) {
+        Map<String, String> stringValues = Maps.newHashMap();
+        List<Object[]> list = getHibernateTemplate().find("select name, stringValue from Variable where process=?", process);
+        for (Object[] row : list) {
+            stringValues.put((String) row[0], (String) row[1]);
+        }
+        return stringValues;
+    }
+
     public void deleteAll(Process process) {
         log.debug("deleting variables for process " + process.getId());
         getHibernateTemplate().bulkUpdate("delete from Variable where process=?", process);
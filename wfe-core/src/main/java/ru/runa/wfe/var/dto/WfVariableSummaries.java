@@ -0,0 +1,44 @@
+package ru.runa.wfe.var.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+
+/**
+ * Page of process variables metadata together with total variables count.
+ *
+ * @since 4.3.0
+ */
+public class WfVariableSummaries implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<WfVariableSummary> summaries = Lists.newArrayList();
+    private int totalCount;
+
+    public WfVariableSummaries() {
+    }
+
+    public WfVariableSummaries(List<WfVariableSummary> summaries, int totalCount) {
+        this.summaries = summaries;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * @return requested page, empty if first result is out of total count
+     */
+    public List<WfVariableSummary> getSummaries() {
+        return summaries;
+    }
+
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("size", summaries.size()).add("totalCount", totalCount).toString();
+    }
+
+}
@@ -0,0 +1,82 @@
+package ru.runa.wfe.var.dto;
+
+import java.io.Serializable;
+
+import ru.runa.wfe.var.VariableDefinition;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * Variable metadata without value: value is loaded on demand by name.
+ *
+ * @since 4.3.0
+ */
+public class WfVariableSummary implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private VariableDefinition definition;
+    private String stringValue;
+    private int size;
+    private boolean container;
+    private boolean file;
+
+    public WfVariableSummary() {
+    }
+
+    public WfVariableSummary(VariableDefinition definition, String stringValue, boolean file) {
+        Preconditions.checkNotNull(definition);
+        this.definition = definition;
+        this.stringValue = stringValue;
+        this.size = stringValue != null ? stringValue.length() : 0;
+        this.file = file;
+    }
+
+    public WfVariableSummary(VariableDefinition definition, int size, boolean file) {
+        Preconditions.checkNotNull(definition);
+        this.definition = definition;
+        this.size = size;
+        this.container = true;
+        this.file = file;
+    }
+
+    public VariableDefinition getDefinition() {
+        return definition;
+    }
+
+    /**
+     * @return stored string representation of value truncated to {@link ru.runa.wfe.var.Variable#MAX_STRING_SIZE}, <code>null</code>
+     *         for containers
+     */
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    /**
+     * @return elements count for lists, filled attributes count for user types, string representation length for other values
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return whether variable is list or user type
+     */
+    public boolean isContainer() {
+        return container;
+    }
+
+    /**
+     * @return whether variable, its elements or attributes hold files; size does not reflect content length then as string representation
+     *         of file is its name
+     */
+    public boolean isFile() {
+        return file;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("definition", definition).add("size", size).add("file", file).toString();
+    }
+
+}
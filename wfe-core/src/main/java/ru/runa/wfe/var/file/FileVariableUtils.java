@@ -0,0 +1,89 @@
+package ru.runa.wfe.var.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+
+/**
+ * Access to file variable content which does not load whole content in memory for {@link IStreamingFileVariable}.
+ *
+ * @since 4.3.0
+ */
+public class FileVariableUtils {
+
+    public static long getSize(IFileVariable fileVariable) {
+        if (fileVariable instanceof IStreamingFileVariable) {
+            return ((IStreamingFileVariable) fileVariable).getSize();
+        }
+        return fileVariable.getData().length;
+    }
+
+    public static InputStream getInputStream(IFileVariable fileVariable) throws IOException {
+        if (fileVariable instanceof IStreamingFileVariable) {
+            return ((IStreamingFileVariable) fileVariable).getInputStream();
+        }
+        return new ByteArrayInputStream(fileVariable.getData());
+    }
+
+    /**
+     * Writes content range to stream. Content of local file is transferred through file channel.
+     *
+     * @param offset
+     *            first byte position
+     * @param length
+     *            bytes count
+     */
+    public static void transferTo(IFileVariable fileVariable, long offset, long length, OutputStream out) throws IOException {
+        File file = fileVariable instanceof IStreamingFileVariable ? ((IStreamingFileVariable) fileVariable).getContentFile() : null;
+        if (file != null) {
+            FileInputStream in = new FileInputStream(file);
+            try {
+                FileChannel channel = in.getChannel();
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = offset;
+                long end = offset + length;
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+            } finally {
+                Closeables.closeQuietly(in);
+            }
+        } else if (fileVariable instanceof IStreamingFileVariable) {
+            InputStream in = getInputStream(fileVariable);
+            try {
+                ByteStreams.skipFully(in, offset);
+                ByteStreams.copy(ByteStreams.limit(in, length), out);
+            } finally {
+                Closeables.closeQuietly(in);
+            }
+        } else {
+            out.write(fileVariable.getData(), (int) offset, (int) length);
+        }
+    }
+
+    /**
+     * Writes content to file.
+     */
+    public static void copyTo(IFileVariable fileVariable, File file) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            transferTo(fileVariable, 0, getSize(fileVariable), out);
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.runa.wfe.var.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * File variable which content can be read without loading it in memory.
+ *
+ * @see FileVariableUtils
+ * @since 4.3.0
+ */
+public interface IStreamingFileVariable extends IFileVariable {
+
+    /**
+     * @return content length in bytes
+     */
+    public long getSize();
+
+    /**
+     * @return new stream of file content, caller is responsible to close it
+     */
+    public InputStream getInputStream() throws IOException;
+
+    /**
+     * @return file with content in local file system, can be <code>null</code>
+     */
+    public File getContentFile();
+
+}
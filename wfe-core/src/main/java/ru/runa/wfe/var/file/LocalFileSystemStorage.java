@@ -1,17 +1,41 @@
 package ru.runa.wfe.var.file;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.var.Variable;
 
-import com.google.common.io.Files;
+import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 
+/**
+ * Stores large file variables content in local file system. Content is addressed by its hash: equal content is stored once and shared by
+ * all variables and processes (e.g. mapped to subprocesses). Each process referencing content is recorded as empty file
+ * <code>references/processId/hash</code>, references are written and released after transaction commit, unreferenced content is removed by
+ * {@link #removeUnreferencedContent(long)}.
+ */
 public class LocalFileSystemStorage implements IFileVariableStorage {
+    private static final Log log = LogFactory.getLog(LocalFileSystemStorage.class);
+    private static final String CONTENT_DIR_NAME = "content";
+    private static final String REFERENCES_DIR_NAME = "references";
+    private static final Object CONTENT_LOCK = new Object();
     private static File storageDir = new File(SystemProperties.getLocalFileStoragePath());
 
     static {
@@ -36,6 +60,10 @@ public class LocalFileSystemStorage implements IFileVariableStorage {
         return file;
     }
 
+    static void setStorageDir(File storageDir) {
+        LocalFileSystemStorage.storageDir = storageDir;
+    }
+
     @Override
     public Object save(ExecutionContext executionContext, Variable<?> variable, Object object) {
         if (object instanceof IFileVariable) {
@@ -54,16 +82,217 @@ public class LocalFileSystemStorage implements IFileVariableStorage {
 
     private IFileVariable save(Variable<?> variable, IFileVariable fileVariable, Integer index) {
         if (SystemProperties.isLocalFileStorageEnabled() && fileVariable != null
-                && fileVariable.getData().length > SystemProperties.getLocalFileStorageFileLimit()) {
+                && FileVariableUtils.getSize(fileVariable) > SystemProperties.getLocalFileStorageFileLimit()) {
             try {
-                String variableName = index != null ? variable.getName() + index : variable.getName();
-                LocalFileSystemVariable fileSystemVariable = new LocalFileSystemVariable(variable, variableName, fileVariable);
-                Files.write(fileVariable.getData(), getContentFile(fileSystemVariable.getVariablePath(), true));
-                return fileSystemVariable;
+                Long processId = variable.getProcess().getId();
+                String contentPath = getContentPath(fileVariable);
+                if (contentPath != null && touchContent(contentPath)) {
+                    // shared content, only reference is written
+                    addReference(processId, contentPath);
+                    return new LocalFileSystemVariable(fileVariable.getName(), fileVariable.getContentType(), contentPath);
+                }
+                contentPath = storeContent(fileVariable);
+                addReference(processId, contentPath);
+                return new LocalFileSystemVariable(fileVariable.getName(), fileVariable.getContentType(), contentPath);
             } catch (IOException e) {
                 throw new InternalApplicationException("Unable to save file variable to local drive", e);
             }
         }
         return fileVariable;
     }
+
+    /**
+     * @return content path for variable stored by hash, <code>null</code> otherwise
+     */
+    private static String getContentPath(IFileVariable fileVariable) {
+        if (fileVariable instanceof LocalFileSystemVariable) {
+            String variablePath = ((LocalFileSystemVariable) fileVariable).getVariablePath();
+            if (variablePath.startsWith(CONTENT_DIR_NAME + "/")) {
+                return variablePath;
+            }
+        }
+        return null;
+    }
+
+    private static String storeContent(IFileVariable fileVariable) throws IOException {
+        File contentDir = new File(storageDir, CONTENT_DIR_NAME);
+        contentDir.mkdirs();
+        File temporaryFile = File.createTempFile("content", ".tmp", contentDir);
+        try {
+            HashingOutputStream out = new HashingOutputStream(Hashing.sha256(), new FileOutputStream(temporaryFile));
+            InputStream in = FileVariableUtils.getInputStream(fileVariable);
+            try {
+                ByteStreams.copy(in, out);
+            } finally {
+                Closeables.closeQuietly(in);
+                out.close();
+            }
+            String hash = out.hash().toString();
+            String contentPath = CONTENT_DIR_NAME + "/" + hash.substring(0, 2) + "/" + hash;
+            synchronized (CONTENT_LOCK) {
+                if (!touchContent(contentPath)) {
+                    File contentFile = new File(storageDir, contentPath);
+                    contentFile.getParentFile().mkdirs();
+                    if (!temporaryFile.renameTo(contentFile)) {
+                        throw new IOException("Unable to move content to '" + contentFile + "'");
+                    }
+                }
+            }
+            return contentPath;
+        } finally {
+            temporaryFile.delete();
+        }
+    }
+
+    /**
+     * Marks existing content as used now to prevent its concurrent removal.
+     *
+     * @return whether content exists
+     */
+    private static boolean touchContent(String contentPath) {
+        synchronized (CONTENT_LOCK) {
+            File contentFile = new File(storageDir, contentPath);
+            return contentFile.exists() && contentFile.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Adds content reference after transaction commit, content of rolled back transaction stays unreferenced.
+     */
+    private static void addReference(final Long processId, final String contentPath) {
+        Utils.executeAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    writeReference(processId, contentPath);
+                } catch (IOException e) {
+                    log.error("Unable to add reference of process " + processId + " to " + contentPath, e);
+                }
+            }
+        });
+    }
+
+    private static void writeReference(Long processId, String contentPath) throws IOException {
+        File referenceFile = new File(storageDir, REFERENCES_DIR_NAME + "/" + processId + "/" + new File(contentPath).getName());
+        if (!referenceFile.exists()) {
+            referenceFile.getParentFile().mkdirs();
+            OutputStream out = new FileOutputStream(referenceFile);
+            out.close();
+        }
+    }
+
+    /**
+     * Releases content references of deleted process after transaction commit.
+     */
+    public static void releaseReferences(final Long processId) {
+        if (!SystemProperties.isLocalFileStorageEnabled()) {
+            return;
+        }
+        Utils.executeAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                doReleaseReferences(processId);
+            }
+        });
+    }
+
+    /**
+     * Replaces content references of process with references of given variable values after transaction commit. Used when process is moved
+     * to another database with its variables, e.g. on archiving.
+     * 
+     * @param values
+     *            file variables or lists of file variables, other values are ignored
+     */
+    public static void replaceReferences(final Long processId, Collection<?> values) {
+        if (!SystemProperties.isLocalFileStorageEnabled()) {
+            return;
+        }
+        final Set<String> contentPaths = Sets.newHashSet();
+        for (Object value : values) {
+            List<?> list = value instanceof List ? (List<?>) value : Arrays.asList(value);
+            for (Object item : list) {
+                if (item instanceof IFileVariable) {
+                    String contentPath = getContentPath((IFileVariable) item);
+                    if (contentPath != null) {
+                        contentPaths.add(contentPath);
+                    }
+                }
+            }
+        }
+        Utils.executeAfterCommit(new Runnable() {
+
+            @Override
+            public void run() {
+                doReleaseReferences(processId);
+                for (String contentPath : contentPaths) {
+                    try {
+                        writeReference(processId, contentPath);
+                    } catch (IOException e) {
+                        log.error("Unable to add reference of process " + processId + " to " + contentPath, e);
+                    }
+                }
+            }
+        });
+    }
+
+    private static void doReleaseReferences(Long processId) {
+        File referencesDir = new File(storageDir, REFERENCES_DIR_NAME + "/" + processId);
+        File[] referenceFiles = referencesDir.listFiles();
+        if (referenceFiles != null) {
+            for (File referenceFile : referenceFiles) {
+                referenceFile.delete();
+            }
+        }
+        referencesDir.delete();
+    }
+
+    /**
+     * Removes content which is not referenced by any process and was not used during given timeout.
+     *
+     * @return removed content files count
+     */
+    public static int removeUnreferencedContent(long timeoutMillis) {
+        Set<String> referencedHashes = Sets.newHashSet();
+        File[] processReferencesDirs = new File(storageDir, REFERENCES_DIR_NAME).listFiles();
+        if (processReferencesDirs != null) {
+            for (File processReferencesDir : processReferencesDirs) {
+                String[] hashes = processReferencesDir.list();
+                if (hashes != null) {
+                    referencedHashes.addAll(Arrays.asList(hashes));
+                }
+            }
+        }
+        int count = 0;
+        long threshold = System.currentTimeMillis() - timeoutMillis;
+        File[] contentDirs = new File(storageDir, CONTENT_DIR_NAME).listFiles();
+        if (contentDirs != null) {
+            for (File contentDir : contentDirs) {
+                if (contentDir.isFile() && contentDir.lastModified() < threshold) {
+                    // temporary file left after failure
+                    contentDir.delete();
+                    continue;
+                }
+                File[] contentFiles = contentDir.listFiles();
+                if (contentFiles == null) {
+                    continue;
+                }
+                for (File contentFile : contentFiles) {
+                    if (referencedHashes.contains(contentFile.getName())) {
+                        continue;
+                    }
+                    synchronized (CONTENT_LOCK) {
+                        if (contentFile.lastModified() < threshold && contentFile.delete()) {
+                            count++;
+                        }
+                    }
+                }
+            }
+        }
+        if (count > 0) {
+            log.info("Removed " + count + " unreferenced file variable contents");
+        }
+        return count;
+    }
 }
@@ -1,7 +1,9 @@
 package ru.runa.wfe.var.file;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.var.Variable;
@@ -15,7 +17,7 @@ import com.google.common.io.Files;
  * @author dofs
  * @since 4.0
  */
-public class LocalFileSystemVariable implements IFileVariable {
+public class LocalFileSystemVariable implements IStreamingFileVariable {
     private static final long serialVersionUID = 1L;
     private String name;
     private String contentType;
@@ -39,6 +41,12 @@ public class LocalFileSystemVariable implements IFileVariable {
         variablePath = variable.getProcess().getId() + "/" + b + "/" + version;
     }
 
+    public LocalFileSystemVariable(String name, String contentType, String variablePath) {
+        this.name = name;
+        this.contentType = contentType;
+        this.variablePath = variablePath;
+    }
+
     public String getVariablePath() {
         return variablePath;
     }
@@ -53,6 +61,21 @@ public class LocalFileSystemVariable implements IFileVariable {
         }
     }
 
+    @Override
+    public long getSize() {
+        return getContentFile().length();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FileInputStream(getContentFile());
+    }
+
+    @Override
+    public File getContentFile() {
+        return LocalFileSystemStorage.getContentFile(variablePath, false);
+    }
+
     @Override
     public String getName() {
         return name;
@@ -77,7 +100,7 @@ public class LocalFileSystemVariable implements IFileVariable {
     public boolean equals(Object obj) {
         if (obj instanceof LocalFileSystemVariable) {
             LocalFileSystemVariable f = (LocalFileSystemVariable) obj;
-            return Objects.equal(variablePath, f.variablePath);
+            return Objects.equal(variablePath, f.variablePath) && Objects.equal(name, f.name);
         }
         return false;
     }
@@ -0,0 +1,144 @@
+package ru.runa.wfe.var.file;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+import ru.runa.wfe.InternalApplicationException;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * File variable which content is spooled to temporary file, used for transferring uploaded files without holding them in memory. Temporary
+ * file is deleted after its content is saved in process or when upload is removed from session; deletion on finalization is a safety net
+ * only. Content is written in serialized form so that remote side receives its own temporary file. Converted
+ * to {@link FileVariable} or {@link LocalFileSystemVariable} on saving in process.
+ *
+ * @since 4.3.0
+ */
+public class TemporaryFileVariable implements IStreamingFileVariable {
+    private static final long serialVersionUID = 1L;
+    private String name;
+    private String contentType;
+    private transient File file;
+
+    public TemporaryFileVariable(String name, String contentType, File file) {
+        this.name = name;
+        this.contentType = contentType;
+        this.file = file;
+    }
+
+    /**
+     * Spools stream content to new temporary file.
+     */
+    public static TemporaryFileVariable create(String name, String contentType, InputStream in) throws IOException {
+        File file = createTemporaryFile();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            ByteStreams.copy(in, out);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            out.close();
+        }
+        return new TemporaryFileVariable(name, contentType, file);
+    }
+
+    public static File createTemporaryFile() throws IOException {
+        return File.createTempFile("runawfe-file", ".tmp");
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public byte[] getData() {
+        try {
+            return Files.toByteArray(file);
+        } catch (IOException e) {
+            throw new InternalApplicationException("Unable to read file variable from '" + file + "'", e);
+        }
+    }
+
+    @Override
+    public long getSize() {
+        return file.length();
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new FileInputStream(file);
+    }
+
+    @Override
+    public File getContentFile() {
+        return file;
+    }
+
+    @Override
+    public String getStringValue() {
+        return null;
+    }
+
+    /**
+     * Deletes temporary file.
+     */
+    public void delete() {
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    /**
+     * Safety net for files which were not deleted explicitly.
+     */
+    @Override
+    protected void finalize() throws Throwable {
+        delete();
+        super.finalize();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeLong(file.length());
+        InputStream in = getInputStream();
+        try {
+            ByteStreams.copy(in, out);
+        } finally {
+            Closeables.closeQuietly(in);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        long size = in.readLong();
+        file = createTemporaryFile();
+        OutputStream out = new FileOutputStream(file);
+        try {
+            ByteStreams.copy(ByteStreams.limit(in, size), out);
+        } finally {
+            out.close();
+        }
+    }
+
+}
@@ -21,6 +21,7 @@ import java.util.List;
 import java.util.Map;
 
 import ru.runa.wfe.audit.AdminActionLog;
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.logic.WFCommonLogic;
 import ru.runa.wfe.execution.ExecutionContext;
 import ru.runa.wfe.execution.Process;
@@ -32,14 +33,20 @@ import ru.runa.wfe.task.Task;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.UserType;
 import ru.runa.wfe.var.UserTypeMap;
+import ru.runa.wfe.var.Variable;
 import ru.runa.wfe.var.VariableDefinition;
 import ru.runa.wfe.var.VariableMapping;
 import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummaries;
+import ru.runa.wfe.var.dto.WfVariableSummary;
+import ru.runa.wfe.var.format.FileFormat;
 import ru.runa.wfe.var.format.ListFormat;
+import ru.runa.wfe.var.format.StringFormat;
 import ru.runa.wfe.var.format.VariableFormatContainer;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 /**
  * Process execution logic.
@@ -119,6 +126,143 @@ public class VariableLogic extends WFCommonLogic {
         return list;
     }
 
+    /**
+     * Gets page of variable summaries together with total summaries count, summaries are built once for both.
+     */
+    public WfVariableSummaries getVariableSummaries(User user, Long processId, int firstResult, int maxResults)
+            throws ProcessDoesNotExistException {
+        Process process = processDAO.getNotNull(processId);
+        ProcessDefinition processDefinition = getDefinition(process);
+        checkPermissionAllowed(user, process, ProcessPermission.READ);
+        List<WfVariableSummary> summaries = buildVariableSummaries(processDefinition, variableDAO.getStringValues(process));
+        int fromIndex = Math.min(firstResult, summaries.size());
+        int toIndex = Math.min(fromIndex + maxResults, summaries.size());
+        return new WfVariableSummaries(Lists.newArrayList(summaries.subList(fromIndex, toIndex)), summaries.size());
+    }
+
+    /**
+     * Builds summaries in the same order as {@link #getVariables(User, Long)} from stored string representations.
+     */
+    List<WfVariableSummary> buildVariableSummaries(ProcessDefinition processDefinition, Map<String, String> stringValues) {
+        List<WfVariableSummary> result = Lists.newArrayList();
+        for (VariableDefinition variableDefinition : processDefinition.getVariables()) {
+            WfVariableSummary summary = buildVariableSummary(stringValues, variableDefinition);
+            if (summary != null) {
+                result.add(summary);
+            }
+        }
+        for (String name : Sets.newTreeSet(stringValues.keySet())) {
+            VariableDefinition variableDefinition = new VariableDefinition(name, null, StringFormat.class.getName(), null);
+            result.add(new WfVariableSummary(variableDefinition, stringValues.get(name), false));
+        }
+        return result;
+    }
+
+    private WfVariableSummary buildVariableSummary(Map<String, String> stringValues, VariableDefinition variableDefinition) {
+        String name = variableDefinition.getName();
+        boolean file = isFileVariable(variableDefinition);
+        if (variableDefinition.isUserType()) {
+            int size = 0;
+            for (VariableDefinition attributeDefinition : variableDefinition.getUserType().getAttributes()) {
+                String variableName = name + UserType.DELIM + attributeDefinition.getName();
+                VariableDefinition componentDefinition = new VariableDefinition(variableName, null, attributeDefinition);
+                if (buildVariableSummary(stringValues, componentDefinition) != null) {
+                    size++;
+                }
+            }
+            return size > 0 ? new WfVariableSummary(variableDefinition, size, file) : null;
+        } else if (ListFormat.class.getName().equals(variableDefinition.getFormatClassName())) {
+            String sizeString = stringValues.remove(name + VariableFormatContainer.SIZE_SUFFIX);
+            if (sizeString == null) {
+                // back compatibility
+                if (stringValues.containsKey(name)) {
+                    return new WfVariableSummary(variableDefinition, stringValues.remove(name), file);
+                }
+                return null;
+            }
+            int size = Integer.parseInt(sizeString);
+            String componentFormat = variableDefinition.getFormatComponentClassNames()[0];
+            UserType componentUserType = variableDefinition.getFormatComponentUserTypes()[0];
+            for (int i = 0; i < size; i++) {
+                String componentName = name + VariableFormatContainer.COMPONENT_QUALIFIER_START + i + VariableFormatContainer.COMPONENT_QUALIFIER_END;
+                buildVariableSummary(stringValues, new VariableDefinition(componentName, null, componentFormat, componentUserType));
+            }
+            return new WfVariableSummary(variableDefinition, size, file);
+        } else {
+            if (stringValues.containsKey(name)) {
+                return new WfVariableSummary(variableDefinition, stringValues.remove(name), file);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return whether variable itself, its list elements or user type attributes are files
+     */
+    private boolean isFileVariable(VariableDefinition variableDefinition) {
+        if (variableDefinition.isUserType()) {
+            return hasFileAttributes(variableDefinition.getUserType());
+        }
+        if (ListFormat.class.getName().equals(variableDefinition.getFormatClassName())) {
+            String[] componentFormats = variableDefinition.getFormatComponentClassNames();
+            UserType[] componentUserTypes = variableDefinition.getFormatComponentUserTypes();
+            if (componentUserTypes != null && componentUserTypes.length > 0 && componentUserTypes[0] != null) {
+                return hasFileAttributes(componentUserTypes[0]);
+            }
+            return componentFormats.length > 0 && FileFormat.class.getName().equals(componentFormats[0]);
+        }
+        return FileFormat.class.getName().equals(variableDefinition.getFormatClassName());
+    }
+
+    private boolean hasFileAttributes(UserType userType) {
+        for (VariableDefinition attributeDefinition : userType.getAttributes()) {
+            if (isFileVariable(attributeDefinition)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets variables by names as {@link #getVariable(User, Long, String)} does. Stored values of defined variables which are not lists, user
+     * types or swimlanes are loaded at once, others are loaded one by one.
+     *
+     * @return variables in order of names, <code>null</code> for not defined ones
+     */
+    public List<WfVariable> getVariables(User user, Long processId, List<String> variableNames) throws ProcessDoesNotExistException {
+        Process process = processDAO.getNotNull(processId);
+        ProcessDefinition processDefinition = getDefinition(process);
+        checkPermissionAllowed(user, process, ProcessPermission.READ);
+        List<String> simpleVariableNames = Lists.newArrayList();
+        for (String variableName : variableNames) {
+            VariableDefinition variableDefinition = processDefinition.getVariable(variableName, false);
+            if (variableDefinition != null && !variableDefinition.isUserType()
+                    && !ListFormat.class.getName().equals(variableDefinition.getFormatClassName())
+                    && processDefinition.getSwimlane(variableName) == null) {
+                simpleVariableNames.add(variableName);
+            }
+        }
+        Map<String, Variable<?>> dbVariables = variableDAO.get(process, simpleVariableNames);
+        ExecutionContext executionContext = new ExecutionContext(processDefinition, process);
+        List<WfVariable> result = Lists.newArrayListWithExpectedSize(variableNames.size());
+        for (String variableName : variableNames) {
+            Variable<?> dbVariable = dbVariables.get(variableName);
+            Object value = null;
+            VariableDefinition variableDefinition = processDefinition.getVariable(variableName, false);
+            if (dbVariable != null) {
+                value = dbVariable.getValue();
+                value = variableDAO.processComplexVariablesPre430(processDefinition, variableDefinition, variableDefinition.getUserType(), value);
+            }
+            if (Utils.isNullOrEmpty(value) || value instanceof UserTypeMap) {
+                // default values, base process values
+                result.add(executionContext.getVariable(variableName, true));
+            } else {
+                result.add(new WfVariable(variableDefinition, value));
+            }
+        }
+        return result;
+    }
+
     public WfVariable getVariable(User user, Long processId, String variableName) throws ProcessDoesNotExistException {
         Process process = processDAO.getNotNull(processId);
         ProcessDefinition processDefinition = getDefinition(process);
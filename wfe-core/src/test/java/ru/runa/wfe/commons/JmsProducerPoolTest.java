@@ -0,0 +1,116 @@
+package ru.runa.wfe.commons;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.Serializable;
+import java.util.List;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.ObjectMessage;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.Transaction;
+
+import org.mockito.ArgumentCaptor;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.JmsProducerPool.MessageBuilder;
+
+import com.google.common.collect.Lists;
+
+public class JmsProducerPoolTest extends Assert {
+    private ConnectionFactory connectionFactory;
+    private Connection connection;
+    private Session session;
+    private MessageProducer producer;
+    private Queue queue;
+    private Transaction transaction;
+
+    @BeforeMethod
+    public void setUp() throws JMSException {
+        connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        session = mock(Session.class);
+        producer = mock(MessageProducer.class);
+        queue = mock(Queue.class);
+        transaction = mock(Transaction.class);
+        when(connectionFactory.createConnection()).thenReturn(connection);
+        when(connection.createSession(anyBoolean(), anyInt())).thenReturn(session);
+        when(session.createProducer(queue)).thenReturn(producer);
+        when(session.createObjectMessage(any(Serializable.class))).thenReturn(mock(ObjectMessage.class));
+    }
+
+    @Test
+    public void testResourcesAreReusedInTransaction() throws Exception {
+        JmsProducerPool pool = createPool(transaction);
+        pool.send(queue, new TestMessageBuilder("1"), 0);
+        pool.send(queue, Lists.newArrayList(new TestMessageBuilder("2"), new TestMessageBuilder("3")), 1000);
+        verify(connectionFactory, times(1)).createConnection();
+        verify(connection, times(1)).createSession(true, Session.SESSION_TRANSACTED);
+        verify(session, times(1)).createProducer(queue);
+        verify(producer, times(1)).send(any(Message.class), anyInt(), anyInt(), anyLong());
+        verify(producer, times(2)).send(any(Message.class), anyInt(), anyInt(), eq(1000L));
+        verify(connection, times(0)).close();
+        assertEquals(pool.getTransactionsCount(), 1);
+
+        ArgumentCaptor<Synchronization> synchronization = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transaction, times(1)).registerSynchronization(synchronization.capture());
+        synchronization.getValue().afterCompletion(Status.STATUS_COMMITTED);
+        verify(producer, times(1)).close();
+        verify(session, times(1)).close();
+        verify(connection, times(1)).close();
+        assertEquals(pool.getTransactionsCount(), 0);
+    }
+
+    @Test
+    public void testResourcesAreClosedWithoutTransaction() throws Exception {
+        JmsProducerPool pool = createPool(null);
+        List<ObjectMessage> messages = pool.send(queue, Lists.newArrayList(new TestMessageBuilder("1"), new TestMessageBuilder("2")), 0);
+        assertEquals(messages.size(), 2);
+        pool.send(queue, new TestMessageBuilder("3"), 0);
+        verify(connectionFactory, times(2)).createConnection();
+        verify(producer, times(3)).send(any(Message.class), anyInt(), anyInt(), anyLong());
+        verify(session, times(2)).close();
+        verify(connection, times(2)).close();
+        assertEquals(pool.getTransactionsCount(), 0);
+    }
+
+    private JmsProducerPool createPool(final Transaction activeTransaction) {
+        return new JmsProducerPool(connectionFactory) {
+
+            @Override
+            protected Transaction getActiveTransaction() {
+                return activeTransaction;
+            }
+        };
+    }
+
+    private static class TestMessageBuilder implements MessageBuilder<ObjectMessage> {
+        private final String content;
+
+        public TestMessageBuilder(String content) {
+            this.content = content;
+        }
+
+        @Override
+        public ObjectMessage build(Session session) throws JMSException {
+            return session.createObjectMessage(content);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Date;
+
+/**
+ * Compares business durations calculation by walking day by day and with {@link WorkingTimeIndex}. Not a unit test, run manually:
+ * <code>BusinessCalendarBenchmark [calculations]</code>.
+ */
+public class BusinessCalendarBenchmark {
+
+    public static void main(String[] args) {
+        int calculations = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        String[] durations = { "400 business hours", "3 business months", "-6 business months", "1 business years" };
+        AbstractBusinessCalendar walkingCalendar = new WorkingTimeIndexTest.TestBusinessCalendar(0);
+        AbstractBusinessCalendar indexedCalendar = new DefaultBusinessCalendar();
+        for (String duration : durations) {
+            for (int round = 0; round < 2; round++) {
+                long walkingTime = measure(walkingCalendar, duration, calculations);
+                long indexedTime = measure(indexedCalendar, duration, calculations);
+                System.out.println(duration + ": walking " + walkingTime / calculations + " ns, indexed " + indexedTime / calculations + " ns");
+            }
+        }
+    }
+
+    private static long measure(AbstractBusinessCalendar businessCalendar, String duration, int calculations) {
+        long baseTime = System.currentTimeMillis();
+        long start = System.nanoTime();
+        for (int i = 0; i < calculations; i++) {
+            businessCalendar.apply(new Date(baseTime + i * 60000L), duration);
+        }
+        return System.nanoTime() - start;
+    }
+}
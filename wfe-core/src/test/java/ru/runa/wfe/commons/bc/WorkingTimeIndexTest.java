@@ -0,0 +1,70 @@
+package ru.runa.wfe.commons.bc;
+
+import java.util.Calendar;
+import java.util.Date;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.CalendarUtil;
+
+public class WorkingTimeIndexTest extends Assert {
+    private final DefaultBusinessCalendar walkingCalendar = new TestBusinessCalendar(0);
+
+    @DataProvider
+    public Object[][] getIndexedCalendars() {
+        return new Object[][] { { new DefaultBusinessCalendar() }, { new TestBusinessCalendar(3) } };
+    }
+
+    @Test(dataProvider = "getIndexedCalendars")
+    public void testSameAsWalking(DefaultBusinessCalendar indexedCalendar) {
+        String[] durations = { "1 business minutes", "-1 business minutes", "239 business minutes", "-240 business minutes",
+                "481 business minutes", "-481 business minutes", "3 business hours", "-3 business hours", "17 business hours",
+                "-17 business hours", "200 business hours", "-200 business hours", "1 business days", "-1 business days", "4 business days",
+                "-4 business days", "1 business weeks", "-1 business weeks", "3 business months", "-3 business months", "1 business years",
+                "-1 business years" };
+        Calendar calendar = CalendarUtil.convertToCalendar("26.08.2013 00:00", CalendarUtil.DATE_WITH_HOUR_MINUTES_FORMAT);
+        // holidays are 04.09.2013, 06.09.2013, 17.09.2013
+        for (int i = 0; i < 200; i++) {
+            Date baseDate = calendar.getTime();
+            for (String duration : durations) {
+                Date expected = walkingCalendar.apply(baseDate, duration);
+                Date actual = indexedCalendar.apply(baseDate, duration);
+                assertEquals(CalendarUtil.formatDateTime(actual), CalendarUtil.formatDateTime(expected),
+                        CalendarUtil.formatDateTime(baseDate) + " " + duration);
+            }
+            calendar.add(Calendar.MINUTE, 173);
+        }
+    }
+
+    @Test
+    public void testCalendarWithoutWorkingTime() {
+        DefaultBusinessCalendar holidaysCalendar = new DefaultBusinessCalendar() {
+
+            @Override
+            protected BusinessDay getBusinessDay(Calendar calendar) {
+                return BusinessDay.HOLIDAY;
+            }
+        };
+        try {
+            holidaysCalendar.apply(new Date(), "1 business hours");
+            fail("indefinite loop is expected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().contains("Indefinite loop"), e.getMessage());
+        }
+    }
+
+    static class TestBusinessCalendar extends DefaultBusinessCalendar {
+        private final int horizonDays;
+
+        TestBusinessCalendar(int horizonDays) {
+            this.horizonDays = horizonDays;
+        }
+
+        @Override
+        protected int getWorkingTimeIndexHorizonDays() {
+            return horizonDays;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.runa.wfe.commons.cache;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.transaction.Transaction;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.DaemonSafeThread;
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class ChangesRecordingTest extends Assert {
+    private final List<TestListener> registeredListeners = Lists.newArrayList();
+
+    @AfterMethod
+    public void tearDown() {
+        for (TestListener listener : registeredListeners) {
+            ru.runa.wfe.commons.cache.sm.CachingLogic.unregisterChangeListener(listener);
+        }
+        registeredListeners.clear();
+    }
+
+    @Test
+    public void recordingIsThreadScopedTest() {
+        assertFalse(CachingLogic.recordChange(new Actor("test", null)));
+        CachingLogic.startChangesRecording();
+        assertTrue(CachingLogic.recordChange(new Actor("test", null)));
+        final AtomicBoolean recordedInOtherThread = new AtomicBoolean(true);
+        DaemonSafeThread.createAndStartAndJoin(new Runnable() {
+
+            @Override
+            public void run() {
+                recordedInOtherThread.set(CachingLogic.recordChange(new Deployment()));
+            }
+        });
+        assertFalse(recordedInOtherThread.get());
+        Set<Class<?>> changedClasses = CachingLogic.stopChangesRecording();
+        assertEquals(changedClasses, Sets.<Class<?>> newHashSet(Actor.class));
+        assertFalse(CachingLogic.recordChange(new Actor("test", null)));
+        assertTrue(CachingLogic.stopChangesRecording().isEmpty());
+    }
+
+    @Test
+    public void resetOnlyAffectedCachesTest() {
+        TestListener executorListener = new TestListener(Executor.class);
+        TestListener deploymentListener = new TestListener(Deployment.class);
+        register(executorListener);
+        register(deploymentListener);
+        ru.runa.wfe.commons.cache.sm.CachingLogic.resetCaches(Sets.<Class<?>> newHashSet(Actor.class));
+        assertEquals(executorListener.uninitializeCount, 1);
+        assertEquals(deploymentListener.uninitializeCount, 0);
+        ru.runa.wfe.commons.cache.sm.CachingLogic.resetCaches(Sets.<Class<?>> newHashSet());
+        assertEquals(executorListener.uninitializeCount, 1);
+        assertEquals(deploymentListener.uninitializeCount, 0);
+        ru.runa.wfe.commons.cache.sm.CachingLogic.unregisterChangeListener(executorListener);
+        ru.runa.wfe.commons.cache.sm.CachingLogic.resetCaches(Sets.<Class<?>> newHashSet(Actor.class));
+        assertEquals(executorListener.uninitializeCount, 1);
+    }
+
+    private void register(TestListener listener) {
+        ru.runa.wfe.commons.cache.sm.CachingLogic.registerChangeListener(listener);
+        registeredListeners.add(listener);
+    }
+
+    private static class TestListener implements ru.runa.wfe.commons.cache.sm.ChangeListener {
+        private final Class<?> listenObjectType;
+        private int uninitializeCount;
+
+        public TestListener(Class<?> listenObjectType) {
+            this.listenObjectType = listenObjectType;
+        }
+
+        @Override
+        public void onChange(Transaction transaction, ChangedObjectParameter changedObject) {
+        }
+
+        @Override
+        public void beforeTransactionComplete(Transaction transaction) {
+        }
+
+        @Override
+        public void onTransactionCompleted(Transaction transaction) {
+        }
+
+        @Override
+        public void uninitialize(Object object, Change change) {
+            uninitializeCount++;
+        }
+
+        @Override
+        public List<Class<?>> getListenObjectTypes() {
+            return Lists.<Class<?>> newArrayList(listenObjectType);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.runa.wfe.commons.cache;
+
+import java.util.List;
+
+import net.sf.ehcache.CacheManager;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class EhCacheSupportTest extends Assert {
+    private static final String CACHE_NAME = "ru.runa.wfe.commons.cache.EhCacheSupportTest";
+    private final List<Long> evictedKeys = Lists.newArrayList();
+    private final CacheEvictionListener<Long> listener = new CacheEvictionListener<Long>() {
+
+        @Override
+        public void onEvicted(Long key) {
+            evictedKeys.add(key);
+        }
+    };
+
+    @BeforeMethod
+    public void setUp() {
+        evictedKeys.clear();
+        CacheManager manager = EhcacheHelper.getCacheManager();
+        assertNotNull(manager);
+        manager.addCache(new net.sf.ehcache.Cache(CACHE_NAME, 2, false, true, 0, 0));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        EhcacheHelper.getCacheManager().removeCache(CACHE_NAME);
+    }
+
+    @Test
+    public void notifiesAboutEvictionsOnly() {
+        EhCacheSupport<Long, String> cache = new EhCacheSupport<Long, String>(CACHE_NAME, listener);
+        cache.commitCache();
+        cache.put(1L, "1");
+        cache.put(2L, "2");
+        cache.remove(2L);
+        cache.put(3L, "3");
+        assertTrue(evictedKeys.isEmpty());
+        cache.put(4L, "4");
+        assertEquals(evictedKeys.size(), 1);
+        assertFalse(cache.contains(evictedKeys.get(0)));
+    }
+
+    @Test
+    public void notifiesOnlyLastCommittedComponent() {
+        final List<Long> previousEvictedKeys = Lists.newArrayList();
+        EhCacheSupport<Long, String> previous = new EhCacheSupport<Long, String>(CACHE_NAME, new CacheEvictionListener<Long>() {
+
+            @Override
+            public void onEvicted(Long key) {
+                previousEvictedKeys.add(key);
+            }
+        });
+        previous.commitCache();
+        EhCacheSupport<Long, String> cache = new EhCacheSupport<Long, String>(CACHE_NAME, listener);
+        cache.commitCache();
+        for (long key = 0; key < 5; key++) {
+            cache.put(key, String.valueOf(key));
+        }
+        assertEquals(evictedKeys.size(), 3);
+        assertTrue(previousEvictedKeys.isEmpty());
+    }
+}
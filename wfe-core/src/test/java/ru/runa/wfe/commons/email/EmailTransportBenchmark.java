@@ -0,0 +1,69 @@
+package ru.runa.wfe.commons.email;
+
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.mail.Message.RecipientType;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import ru.runa.wfe.commons.email.EmailTransportPool.Endpoint;
+
+/**
+ * Compares email delivery with new connection per message and with pooled connections under burst of notifications. Not a unit test,
+ * run manually: <code>EmailTransportBenchmark [messages] [threads] [handshake delay ms]</code>.
+ */
+public class EmailTransportBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int messages = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long handshakeDelay = args.length > 2 ? Long.parseLong(args[2]) : 5;
+        TestSmtpServer server = new TestSmtpServer(handshakeDelay);
+        run("New connection per message", new EmailTransportPool(0, 0, 1, 3, 100), server, messages, threads);
+        run("Pooled connections", new EmailTransportPool(threads, 60000, 100, 3, 100), server, messages, threads);
+        server.stop();
+    }
+
+    private static void run(String name, EmailTransportPool pool, TestSmtpServer server, final int messages, int threads) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(EmailConfig.CONNECTION_MAIL_TRANSPORT, "smtp");
+        properties.setProperty(EmailConfig.CONNECTION_MAIL_HOST, "localhost");
+        properties.setProperty("mail.smtp.port", String.valueOf(server.getPort()));
+        final Endpoint endpoint = pool.getEndpoint(properties, null);
+        final AtomicInteger counter = new AtomicInteger();
+        int connections = server.getConnectionsCount();
+        long start = System.currentTimeMillis();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        int index;
+                        while ((index = counter.incrementAndGet()) <= messages) {
+                            MimeMessage message = new MimeMessage(endpoint.getSession());
+                            message.setFrom(new InternetAddress("runawfe@localhost"));
+                            message.setRecipient(RecipientType.TO, new InternetAddress("user" + index + "@localhost"));
+                            message.setSubject("Task " + index);
+                            message.setText("Task " + index + " is assigned");
+                            endpoint.send(message);
+                        }
+                    } catch (Exception e) {
+                        e.printStackTrace();
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.HOURS);
+        long time = Math.max(System.currentTimeMillis() - start, 1);
+        pool.closeIdle();
+        System.out.println(name + ": " + pool.getSentCount() * 1000L / time + " messages/s, " + (server.getConnectionsCount() - connections)
+                + " connections, " + pool.getRetriesCount() + " retries");
+    }
+}
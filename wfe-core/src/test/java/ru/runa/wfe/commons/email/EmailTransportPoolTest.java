@@ -0,0 +1,121 @@
+package ru.runa.wfe.commons.email;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.mail.Message.RecipientType;
+import javax.mail.SendFailedException;
+import javax.mail.internet.InternetAddress;
+import javax.mail.internet.MimeMessage;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.email.EmailTransportPool.Endpoint;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+
+public class EmailTransportPoolTest extends Assert {
+    private TestSmtpServer server;
+
+    @BeforeMethod
+    public void startServer() throws Exception {
+        server = new TestSmtpServer(0);
+    }
+
+    @AfterMethod
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception {
+        EmailTransportPool pool = new EmailTransportPool(2, 60000, 100, 3, 10);
+        Endpoint endpoint = pool.getEndpoint(createProperties(server.getPort()), null);
+        assertSame(pool.getEndpoint(createProperties(server.getPort()), null), endpoint);
+        for (int i = 0; i < 250; i++) {
+            endpoint.send(createMessage(endpoint, i));
+        }
+        assertEquals(server.getMessagesCount(), 250);
+        assertEquals(pool.getSentCount(), 250);
+        assertEquals(server.getConnectionsCount(), 3);
+        assertEquals(pool.getConnectionsCount(), 3);
+        pool.closeIdle();
+    }
+
+    @Test
+    public void testDroppedConnectionIsReplaced() throws Exception {
+        EmailTransportPool pool = new EmailTransportPool(2, 60000, 100, 3, 10);
+        Endpoint endpoint = pool.getEndpoint(createProperties(server.getPort()), null);
+        endpoint.send(createMessage(endpoint, 1));
+        server.dropConnections();
+        Thread.sleep(100);
+        endpoint.send(createMessage(endpoint, 2), createMessage(endpoint, 3));
+        assertEquals(server.getMessagesCount(), 3);
+        assertEquals(server.getConnectionsCount(), 2);
+        assertEquals(pool.getRetriesCount(), 1);
+        assertEquals(pool.getFailedCount(), 0);
+        pool.closeIdle();
+    }
+
+    @Test
+    public void testBatchDelivery() throws Exception {
+        List<EmailConfig> configs = Lists.newArrayList();
+        for (int i = 0; i < 20; i++) {
+            configs.add(createConfig("user" + i + "@localhost", i));
+        }
+        assertTrue(EmailUtils.sendMessages(configs).isEmpty());
+        assertEquals(server.getMessagesCount(), 20);
+        assertEquals(server.getConnectionsCount(), 1);
+    }
+
+    @Test
+    public void testBatchFailuresAreReportedPerMessage() throws Exception {
+        List<EmailConfig> configs = Lists.newArrayList();
+        for (int i = 0; i < 5; i++) {
+            configs.add(createConfig(i == 2 ? "rejected@localhost" : "user" + i + "@localhost", i));
+        }
+        EmailConfig invalid = createConfig("user@localhost", 5);
+        invalid.getConnectionProperties().clear();
+        configs.add(invalid);
+        Map<EmailConfig, Exception> failures = EmailUtils.sendMessages(configs);
+        assertEquals(failures.keySet(), Sets.newHashSet(configs.get(2), invalid));
+        assertTrue(failures.get(configs.get(2)) instanceof SendFailedException, String.valueOf(failures.get(configs.get(2))));
+        assertEquals(server.getMessagesCount(), 4);
+        assertEquals(server.getConnectionsCount(), 1);
+    }
+
+    private EmailConfig createConfig(String to, int index) {
+        EmailConfig config = new EmailConfig();
+        Properties properties = createProperties(server.getPort());
+        for (String name : properties.stringPropertyNames()) {
+            config.getConnectionProperties().put(name, properties.getProperty(name));
+        }
+        config.getHeaderProperties().put(EmailConfig.HEADER_TO, to);
+        config.getHeaderProperties().put("From", "runawfe@localhost");
+        config.getHeaderProperties().put("Subject", "Task " + index);
+        config.setMessage("Task " + index + " is assigned");
+        return config;
+    }
+
+    private Properties createProperties(int port) {
+        Properties properties = new Properties();
+        properties.setProperty(EmailConfig.CONNECTION_MAIL_TRANSPORT, "smtp");
+        properties.setProperty(EmailConfig.CONNECTION_MAIL_HOST, "localhost");
+        properties.setProperty("mail.smtp.port", String.valueOf(port));
+        return properties;
+    }
+
+    private MimeMessage createMessage(Endpoint endpoint, int index) throws Exception {
+        MimeMessage message = new MimeMessage(endpoint.getSession());
+        message.setFrom(new InternetAddress("runawfe@localhost"));
+        message.setRecipient(RecipientType.TO, new InternetAddress("user" + index + "@localhost"));
+        message.setSubject("Task " + index);
+        message.setText("Task " + index + " is assigned");
+        return message;
+    }
+}
@@ -0,0 +1,136 @@
+package ru.runa.wfe.commons.email;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Sets;
+
+/**
+ * Minimal in-process SMTP server accepting all messages, counts connections and delivered messages.
+ */
+public class TestSmtpServer implements Runnable {
+    private final ServerSocket serverSocket;
+    private final Set<Socket> sockets = Sets.newConcurrentHashSet();
+    private final AtomicInteger connectionsCount = new AtomicInteger();
+    private final AtomicInteger messagesCount = new AtomicInteger();
+    private final long responseDelayMillis;
+
+    /**
+     * @param responseDelayMillis
+     *            delay of greeting, emulates handshake of remote server
+     */
+    public TestSmtpServer(long responseDelayMillis) throws IOException {
+        this.responseDelayMillis = responseDelayMillis;
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread thread = new Thread(this, "TestSmtpServer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionsCount() {
+        return connectionsCount.get();
+    }
+
+    public int getMessagesCount() {
+        return messagesCount.get();
+    }
+
+    /**
+     * Closes all client connections as remote server does on idle timeout.
+     */
+    public void dropConnections() {
+        for (Socket socket : sockets) {
+            close(socket);
+        }
+    }
+
+    public void stop() {
+        dropConnections();
+        try {
+            serverSocket.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    @Override
+    public void run() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connectionsCount.incrementAndGet();
+                sockets.add(socket);
+                Thread thread = new Thread("TestSmtpServer connection") {
+
+                    @Override
+                    public void run() {
+                        try {
+                            handle(socket);
+                        } catch (IOException ignore) {
+                        } finally {
+                            sockets.remove(socket);
+                            close(socket);
+                        }
+                    }
+                };
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), Charsets.US_ASCII));
+        OutputStream out = socket.getOutputStream();
+        try {
+            Thread.sleep(responseDelayMillis);
+        } catch (InterruptedException e) {
+            return;
+        }
+        reply(out, "220 localhost test");
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String command = line.length() >= 4 ? line.substring(0, 4).toUpperCase() : line.toUpperCase();
+            if ("EHLO".equals(command)) {
+                reply(out, "250-localhost\r\n250 8BITMIME");
+            } else if ("DATA".equals(command)) {
+                reply(out, "354 end with .");
+                while ((line = reader.readLine()) != null && !".".equals(line)) {
+                }
+                messagesCount.incrementAndGet();
+                reply(out, "250 accepted");
+            } else if ("RCPT".equals(command) && line.toLowerCase().contains("rejected@")) {
+                reply(out, "550 mailbox unavailable");
+            } else if ("QUIT".equals(command)) {
+                reply(out, "221 bye");
+                return;
+            } else {
+                reply(out, "250 ok");
+            }
+        }
+    }
+
+    private static void reply(OutputStream out, String reply) throws IOException {
+        out.write((reply + "\r\n").getBytes(Charsets.US_ASCII));
+        out.flush();
+    }
+
+    private static void close(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignore) {
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.runa.wfe.commons.logic;
+
+import java.lang.reflect.Field;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.logic.StartupWarmUpLogic.State;
+
+/**
+ * Readiness state transitions on successful and failed system startup and warm-up.
+ */
+public class StartupWarmUpLogicTest extends Assert {
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        setState(State.STARTING);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        setState(State.STARTING);
+    }
+
+    @Test
+    public void becomesReadyWhenWarmUpIsDisabled() {
+        assertFalse(StartupWarmUpLogic.isReady());
+        assertEquals(StartupWarmUpLogic.getStatus(), "starting");
+        new StartupWarmUpLogic().start();
+        assertEquals(StartupWarmUpLogic.getState(), State.READY);
+        assertTrue(StartupWarmUpLogic.isReady());
+        assertEquals(StartupWarmUpLogic.getStatus(), "ready");
+    }
+
+    @Test
+    public void becomesReadyAfterFailedWarmUp() throws Exception {
+        setState(State.WARMING_UP);
+        assertTrue(StartupWarmUpLogic.getStatus().startsWith("warming up"));
+        // no transaction and DAOs are available
+        new StartupWarmUpLogic().runWarmUp();
+        assertTrue(StartupWarmUpLogic.isReady());
+    }
+
+    @Test
+    public void reportsFailedStartup() {
+        InitializerLogic initializerLogic = new InitializerLogic();
+        ReflectionTestUtils.setField(initializerLogic, "startupWarmUpLogic", new StartupWarmUpLogic());
+        // fails on database version request without DAO
+        initializerLogic.onStartup(null);
+        assertEquals(StartupWarmUpLogic.getState(), State.FAILED);
+        assertFalse(StartupWarmUpLogic.isReady());
+        assertEquals(StartupWarmUpLogic.getStatus(), "startup failed, see server log");
+    }
+
+    private static void setState(State state) throws Exception {
+        Field field = StartupWarmUpLogic.class.getDeclaredField("state");
+        field.setAccessible(true);
+        field.set(null, state);
+    }
+}
@@ -0,0 +1,37 @@
+package ru.runa.wfe.commons.metrics;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest extends Assert {
+
+    @Test
+    public void bucketsTest() {
+        for (long value = 0; value < 10000000; value = value * 11 / 10 + 1) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            assertTrue(LatencyHistogram.getBucketUpperBound(index) >= value, "value " + value);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.getBucketUpperBound(index - 1) < value, "value " + value);
+            }
+            assertTrue(LatencyHistogram.getBucketUpperBound(index) - value <= value / LatencyHistogram.SUB_BUCKETS_COUNT, "value " + value);
+        }
+        assertEquals(LatencyHistogram.getBucketIndex(Long.MAX_VALUE), LatencyHistogram.BUCKETS_COUNT - 1);
+    }
+
+    @Test
+    public void percentilesTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        MethodMetrics metrics = new MethodMetrics("test", 1000, histogram, 5);
+        assertEquals(metrics.getCallsCount(), 1000);
+        assertEquals(metrics.getErrorsCount(), 5);
+        assertEquals(metrics.getThroughput(), 1000.0, 0.001);
+        assertEquals(metrics.getMeanTime(), 500.5, 0.001);
+        assertEquals(metrics.getMaxTime(), 1000.0, 0.001);
+        assertEquals(metrics.getPercentileTime(50), 500, 500 / LatencyHistogram.SUB_BUCKETS_COUNT);
+        assertEquals(metrics.getPercentileTime(99), 990, 990 / LatencyHistogram.SUB_BUCKETS_COUNT);
+        assertEquals(metrics.getPercentileTime(100), 1000.0, 0.001);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.runa.wfe.definition.cache;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class ProcessDefCacheSizeLimiterTest extends Assert {
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ProcessDefCacheSizeLimiter limiter = new ProcessDefCacheSizeLimiter(300);
+        assertTrue(limiter.add(1L, 100).isEmpty());
+        assertTrue(limiter.add(2L, 100).isEmpty());
+        assertTrue(limiter.add(3L, 100).isEmpty());
+        limiter.touch(1L);
+        List<Long> evicted = limiter.add(4L, 150);
+        assertEquals(evicted, Lists.newArrayList(2L, 3L));
+        assertEquals(limiter.getTotalSize(), 250);
+    }
+
+    @Test
+    public void keepsPinnedDefinitions() {
+        ProcessDefCacheSizeLimiter limiter = new ProcessDefCacheSizeLimiter(200);
+        limiter.pin(1L);
+        limiter.add(1L, 150);
+        List<Long> evicted = limiter.add(2L, 100);
+        assertTrue(evicted.isEmpty());
+        evicted = limiter.add(3L, 10);
+        assertEquals(evicted, Lists.newArrayList(2L));
+        limiter.unpin(1L);
+        evicted = limiter.add(4L, 100);
+        assertEquals(evicted, Lists.newArrayList(1L));
+    }
+
+    @Test
+    public void unboundedLimiterNeverEvicts() {
+        ProcessDefCacheSizeLimiter limiter = new ProcessDefCacheSizeLimiter(0);
+        for (long id = 0; id < 100; id++) {
+            assertTrue(limiter.add(id, Integer.MAX_VALUE).isEmpty());
+        }
+        limiter.remove(5L);
+        assertEquals(limiter.getTotalSize(), 99L * Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void forgetsDefinitionsEvictedByCache() {
+        ProcessDefCacheSizeLimiter limiter = new ProcessDefCacheSizeLimiter(300);
+        limiter.pin(1L);
+        limiter.add(1L, 100);
+        limiter.add(2L, 100);
+        limiter.add(3L, 100);
+        limiter.onEvicted(1L);
+        limiter.onEvicted(2L);
+        assertEquals(limiter.getTotalSize(), 100);
+        assertTrue(limiter.add(4L, 200).isEmpty());
+        // evicted definition is loaded again and stays pinned
+        assertEquals(limiter.add(1L, 100), Lists.newArrayList(3L));
+        assertEquals(limiter.add(5L, 100), Lists.newArrayList(4L));
+    }
+}
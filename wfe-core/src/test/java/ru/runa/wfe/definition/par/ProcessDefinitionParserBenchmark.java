@@ -0,0 +1,33 @@
+package ru.runa.wfe.definition.par;
+
+/**
+ * Compares process definition parsing through dom4j document with streaming parsing on generated definitions with many nodes. Not a
+ * unit test, run manually: <code>ProcessDefinitionParserBenchmark [nodes] [iterations]</code>.
+ */
+public class ProcessDefinitionParserBenchmark {
+    public static void main(String[] args) throws Exception {
+        int nodes = args.length > 0 ? Integer.parseInt(args[0]) : 3000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        ProcessDefinitionParserTestHelper.initializeContext();
+        byte[] jpdl = ProcessDefinitionParserTestHelper.generateJpdl(nodes);
+        byte[] bpmn = ProcessDefinitionParserTestHelper.generateBpmn(nodes);
+        System.out.println("JPDL " + nodes + " nodes, " + jpdl.length / 1024 + " KB; BPMN " + nodes + " nodes, " + bpmn.length / 1024 + " KB");
+        for (int round = 0; round < 2; round++) {
+            // first round warms up
+            run("JPDL dom4j", jpdl, iterations, false);
+            run("JPDL streaming", jpdl, iterations, true);
+            run("BPMN dom4j", bpmn, iterations, false);
+            run("BPMN streaming", bpmn, iterations, true);
+        }
+    }
+
+    private static void run(String name, byte[] definitionXml, int iterations, boolean streaming) {
+        long start = System.nanoTime();
+        int nodes = 0;
+        for (int i = 0; i < iterations; i++) {
+            nodes = ProcessDefinitionParserTestHelper.read(definitionXml, streaming).getNodes(false).size();
+        }
+        long time = (System.nanoTime() - start) / 1000000;
+        System.out.println(name + ": " + time / iterations + " ms per definition (" + nodes + " nodes)");
+    }
+}
@@ -0,0 +1,235 @@
+package ru.runa.wfe.definition.par;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.job.CreateTimerAction;
+import ru.runa.wfe.lang.Action;
+import ru.runa.wfe.lang.Event;
+import ru.runa.wfe.lang.InteractionNode;
+import ru.runa.wfe.lang.MultiTaskNode;
+import ru.runa.wfe.lang.Node;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.SubprocessNode;
+import ru.runa.wfe.lang.SwimlaneDefinition;
+import ru.runa.wfe.lang.TaskDefinition;
+import ru.runa.wfe.lang.Transition;
+import ru.runa.wfe.lang.VariableContainerNode;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Streaming readers must build the same model as dom4j based ones.
+ */
+public class ProcessDefinitionParserTest extends Assert {
+    private static final String JPDL = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<process-definition xmlns=\"urn:jbpm.org:jpdl-3.2\" name=\"jpdl\" default-task-duedate=\"3 days\" accessType=\"Process\">\n"
+            + "  <swimlane name=\"manager\"><assignment class=\"ru.runa.wfe.extension.assign.DefaultAssignmentHandler\">\n"
+            + "    <![CDATA[manager]]> </assignment></swimlane>\n"
+            + "  <start-state id=\"ID1\" name=\"start\">\n"
+            + "    <task swimlane=\"manager\" />\n"
+            + "    <transition name=\"to decision\" to=\"ID2\"><description>first\n   transition</description>\n"
+            + "      <action class=\"ru.runa.wfe.extension.handler.GroovyHandler\">log.info(1)</action></transition>\n"
+            + "  </start-state>\n"
+            + "  <decision id=\"ID2\" name=\"decision\">\n"
+            + "    <handler class=\"ru.runa.wfe.extension.decision.GroovyDecisionHandler\"><![CDATA[return \"wait\";]]></handler>\n"
+            + "    <transition name=\"wait\" to=\"ID3\" />\n"
+            + "    <transition name=\"task\" to=\"ID4\" />\n"
+            + "  </decision>\n"
+            + "  <task-node id=\"ID3\" name=\"no swimlane task\">\n"
+            + "    <task />\n"
+            + "    <timer duedate=\"1 hours\" transition=\"tr\" />\n"
+            + "    <transition name=\"tr\" to=\"ID4\" />\n"
+            + "  </task-node>\n"
+            + "  <task-node id=\"ID4\" name=\"task\" async=\"true\">\n"
+            + "    <task name=\"described\" swimlane=\"manager\" reassign=\"true\"><event type=\"task-create\">"
+            + "<action class=\"ru.runa.wfe.extension.handler.GroovyHandler\">log.info(2)</action></event></task>\n"
+            + "    <description>described after task</description>\n"
+            + "    <timer name=\"__ESCALATION\" transition=\"tr\"><action class=\"ru.runa.wfe.extension.handler.GroovyHandler\">x</action></timer>\n"
+            + "    <transition name=\"tr\" to=\"ID5\" />\n"
+            + "  </task-node>\n"
+            + "  <process-state id=\"ID5\" name=\"subprocess\">\n"
+            + "    <sub-process name=\"child\" embedded=\"false\" />\n"
+            + "    <variable name=\"a\" mapped-name=\"b\" access=\"read\" />\n"
+            + "    <variable name=\"c\" mapped-name=\"d\" />\n"
+            + "    <transition to=\"ID6\" />\n"
+            + "  </process-state>\n"
+            + "  <multi-task-node id=\"ID6\" name=\"multi\" taskExecutors=\"list\" taskExecutorsUsage=\"user\" creationMode=\"BY_DISCRIMINATOR\">\n"
+            + "    <task name=\"multi\" />\n"
+            + "    <variable name=\"list\" mapped-name=\"item\" />\n"
+            + "    <transition to=\"ID7\" />\n"
+            + "  </multi-task-node>\n"
+            + "  <node id=\"ID7\" name=\"script\">\n"
+            + "    <action class=\"ru.runa.wfe.extension.handler.GroovyHandler\"><![CDATA[a = 1;]]></action>\n"
+            + "    <event type=\"node-leave\"><action name=\"leave\" class=\"ru.runa.wfe.extension.handler.GroovyHandler\">b = 2;</action></event>\n"
+            + "    <transition to=\"ID8\" />\n"
+            + "  </node>\n"
+            + "  <end-state id=\"ID8\" name=\"end\" />\n"
+            + "  <event type=\"process-start\"><action class=\"ru.runa.wfe.extension.handler.GroovyHandler\">c = 3;</action></event>\n"
+            + "  <description>  process\n description </description>\n"
+            + "</process-definition>\n";
+    private static final String BPMN = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" xmlns:runa=\"http://runa.ru/wfe/xml\" "
+            + "xmlns:bpmndi=\"http://www.omg.org/spec/BPMN/20100524/DI\">\n"
+            + "  <process name=\"bpmn\" isExecutable=\"true\">\n"
+            + "    <extensionElements><runa:property name=\"documentation\" value=\"process documentation\" />"
+            + "<runa:property name=\"defaultTaskDeadline\">\n 2 days \n</runa:property></extensionElements>\n"
+            + "    <laneSet id=\"laneSet\"><lane id=\"lane1\" name=\"manager\"><extensionElements>"
+            + "<runa:property name=\"class\" value=\"ru.runa.wfe.extension.assign.DefaultAssignmentHandler\" />"
+            + "<runa:property name=\"config\"><![CDATA[manager]]></runa:property></extensionElements>"
+            + "<flowNodeRef>ID1</flowNodeRef><flowNodeRef> ID2 </flowNodeRef></lane></laneSet>\n"
+            + "    <boundaryEvent id=\"ID2_timer\" name=\"__ESCALATION\" attachedToRef=\"ID2\"><timerEventDefinition>"
+            + "<extensionElements><runa:property name=\"class\" value=\"ru.runa.wfe.extension.handler.GroovyHandler\" />"
+            + "<runa:property name=\"repeat\" value=\"1 hours\" /></extensionElements></timerEventDefinition></boundaryEvent>\n"
+            + "    <startEvent id=\"ID1\" name=\"start\"><extensionElements><runa:property name=\"lane\" value=\"manager\" />"
+            + "</extensionElements></startEvent>\n"
+            + "    <userTask id=\"ID2\" name=\"task\"><documentation>task\n documentation</documentation><extensionElements>"
+            + "<runa:property name=\"lane\" value=\"manager\" /><runa:property name=\"async\" value=\"true\" />"
+            + "<runa:property name=\"reassign\" value=\"true\" /><runa:property name=\"taskDeadline\" value=\"4 hours\" />"
+            + "</extensionElements></userTask>\n"
+            + "    <exclusiveGateway id=\"ID3\" name=\"gateway\"><extensionElements>"
+            + "<runa:property name=\"class\" value=\"ru.runa.wfe.extension.decision.GroovyDecisionHandler\" />"
+            + "<runa:property name=\"config\"><![CDATA[return \"ID3_4\";]]></runa:property></extensionElements></exclusiveGateway>\n"
+            + "    <intermediateCatchEvent id=\"ID4\" name=\"wait\"><timerEventDefinition><timeDuration>5 minutes</timeDuration>"
+            + "</timerEventDefinition></intermediateCatchEvent>\n"
+            + "    <subProcess id=\"ID5\" name=\"subprocess\" runa:process=\"child\"><extensionElements>"
+            + "<runa:property name=\"embedded\" value=\"false\" /><runa:variables><runa:variable name=\"a\" mappedName=\"b\" usage=\"read\" />"
+            + "</runa:variables></extensionElements></subProcess>\n"
+            + "    <sendTask id=\"ID6\" name=\"send\" runa:timeDuration=\"2 hours\"><extensionElements><runa:variables>"
+            + "<runa:variable name=\"c\" mappedName=\"d\" usage=\"read\" /></runa:variables></extensionElements></sendTask>\n"
+            + "    <scriptTask id=\"ID7\" name=\"script\"><extensionElements>"
+            + "<runa:property name=\"class\" value=\"ru.runa.wfe.extension.handler.GroovyHandler\" />"
+            + "<runa:property name=\"config\"><![CDATA[a = 1;]]></runa:property></extensionElements></scriptTask>\n"
+            + "    <textAnnotation id=\"ID9\"><text> some\n text </text></textAnnotation>\n"
+            + "    <endEvent id=\"ID8\" name=\"end\" />\n"
+            + "    <sequenceFlow id=\"ID1_2\" name=\"tr1\" sourceRef=\"ID1\" targetRef=\"ID2\"><documentation>flow</documentation></sequenceFlow>\n"
+            + "    <sequenceFlow id=\"ID2_3\" name=\"tr2\" sourceRef=\"ID2\" targetRef=\"ID3\" />\n"
+            + "    <sequenceFlow id=\"ID2_timer_8\" name=\"timeout\" sourceRef=\"ID2_timer\" targetRef=\"ID8\" />\n"
+            + "    <sequenceFlow id=\"ID3_4\" name=\"tr3\" sourceRef=\"ID3\" targetRef=\"ID4\" />\n"
+            + "    <sequenceFlow id=\"ID4_5\" name=\"tr4\" sourceRef=\"ID4\" targetRef=\"ID5\" />\n"
+            + "    <sequenceFlow id=\"ID5_6\" name=\"tr5\" sourceRef=\"ID5\" targetRef=\"ID6\" />\n"
+            + "    <sequenceFlow id=\"ID6_7\" name=\"tr6\" sourceRef=\"ID6\" targetRef=\"ID7\" />\n"
+            + "    <sequenceFlow id=\"ID7_8\" name=\"tr7\" sourceRef=\"ID7\" targetRef=\"ID8\" />\n"
+            + "  </process>\n"
+            + "  <bpmndi:BPMNDiagram><bpmndi:BPMNPlane bpmnElement=\"bpmn\" /></bpmndi:BPMNDiagram>\n"
+            + "</definitions>\n";
+
+    @BeforeClass
+    public void initializeContext() throws Exception {
+        ProcessDefinitionParserTestHelper.initializeContext();
+    }
+
+    @Test
+    public void testJpdl() {
+        assertSameModel(JPDL.getBytes(Charsets.UTF_8));
+    }
+
+    @Test
+    public void testBpmn() {
+        assertSameModel(BPMN.getBytes(Charsets.UTF_8));
+    }
+
+    @Test
+    public void testGeneratedDefinitions() {
+        assertSameModel(ProcessDefinitionParserTestHelper.generateJpdl(50));
+        assertSameModel(ProcessDefinitionParserTestHelper.generateBpmn(50));
+    }
+
+    @Test
+    public void testDeclaredEncoding() throws Exception {
+        String xml = "<?xml version=\"1.0\" encoding=\"windows-1251\"?>\n"
+                + "<process-definition xmlns=\"urn:jbpm.org:jpdl-3.2\" name=\"\u041f\u0440\u043e\u0446\u0435\u0441\u0441\">\n"
+                + "  <start-state id=\"ID1\" name=\"start\"><transition to=\"ID2\" /></start-state>\n"
+                + "  <end-state id=\"ID2\" name=\"end\" />\n" + "</process-definition>\n";
+        ProcessDefinition processDefinition = ProcessDefinitionParserTestHelper.read(xml.getBytes("windows-1251"), true);
+        assertEquals(processDefinition.getName(), "\u041f\u0440\u043e\u0446\u0435\u0441\u0441");
+    }
+
+    @Test
+    public void testByteOrderMark() {
+        byte[] data = JPDL.getBytes(Charsets.UTF_8);
+        byte[] dataWithBOM = new byte[data.length + 3];
+        dataWithBOM[0] = (byte) 0xEF;
+        dataWithBOM[1] = (byte) 0xBB;
+        dataWithBOM[2] = (byte) 0xBF;
+        System.arraycopy(data, 0, dataWithBOM, 3, data.length);
+        String expected = describe(ProcessDefinitionParserTestHelper.read(data, true));
+        assertEquals(describe(ProcessDefinitionParserTestHelper.read(dataWithBOM, true)), expected);
+    }
+
+    private void assertSameModel(byte[] definitionXml) {
+        String expected = describe(ProcessDefinitionParserTestHelper.read(definitionXml, false));
+        String actual = describe(ProcessDefinitionParserTestHelper.read(definitionXml, true));
+        assertEquals(actual, expected);
+    }
+
+    private static String describe(ProcessDefinition processDefinition) {
+        StringBuilder result = new StringBuilder();
+        result.append(processDefinition.getName()).append(" | ").append(processDefinition.getDescription()).append(" | ")
+                .append(processDefinition.getAccessType()).append("\n");
+        describeEvents(result, processDefinition.getEvents());
+        for (SwimlaneDefinition swimlaneDefinition : processDefinition.getSwimlanes()) {
+            result.append("swimlane ").append(swimlaneDefinition.getNodeId()).append(" ").append(swimlaneDefinition.getName()).append(" ")
+                    .append(swimlaneDefinition.getDelegation()).append(" ").append(swimlaneDefinition.getOrgFunctionLabel()).append(" ")
+                    .append(swimlaneDefinition.getFlowNodeIds()).append("\n");
+        }
+        for (Node node : processDefinition.getNodes(false)) {
+            result.append(node.getClass().getName()).append(" ").append(node.getNodeId()).append(" ").append(node.getName()).append(" | ")
+                    .append(node.getDescription()).append("\n");
+            describeEvents(result, node.getEvents());
+            if (node instanceof InteractionNode) {
+                for (TaskDefinition taskDefinition : ((InteractionNode) node).getTasks()) {
+                    result.append("  task ").append(taskDefinition.getNodeId()).append(" ").append(taskDefinition.getName()).append(" | ")
+                            .append(taskDefinition.getDescription()).append(" | ")
+                            .append(taskDefinition.getSwimlane() != null ? taskDefinition.getSwimlane().getName() : null).append(" ")
+                            .append(taskDefinition.getDeadlineDuration()).append(" ").append(taskDefinition.isReassignSwimlane()).append(" ")
+                            .append(taskDefinition.isReassignSwimlaneToTaskPerformer()).append(" ")
+                            .append(taskDefinition.isIgnoreSubsitutionRules()).append("\n");
+                    describeEvents(result, taskDefinition.getEvents());
+                }
+            }
+            if (node instanceof VariableContainerNode) {
+                result.append("  variables ").append(((VariableContainerNode) node).getVariableMappings()).append("\n");
+            }
+            if (node instanceof SubprocessNode) {
+                SubprocessNode subprocessNode = (SubprocessNode) node;
+                result.append("  subprocess ").append(subprocessNode.getSubProcessName()).append(" ").append(subprocessNode.isEmbedded())
+                        .append(" ").append(subprocessNode.isAsync()).append(" ").append(subprocessNode.getCompletionMode()).append("\n");
+            }
+            if (node instanceof MultiTaskNode) {
+                MultiTaskNode multiTaskNode = (MultiTaskNode) node;
+                result.append("  multitask ").append(multiTaskNode.getCreationMode()).append(" ").append(multiTaskNode.getSynchronizationMode())
+                        .append(" ").append(multiTaskNode.getDiscriminatorVariableName()).append(" ")
+                        .append(multiTaskNode.getDiscriminatorUsage()).append(" ").append(multiTaskNode.getVariableMappings()).append("\n");
+            }
+            for (Transition transition : node.getLeavingTransitions()) {
+                result.append("  leaving ").append(transition.getNodeId()).append(" ").append(transition.getName()).append(" ")
+                        .append(transition.getFrom().getNodeId()).append(" -> ").append(transition.getTo().getNodeId()).append(" ")
+                        .append(transition.isTimerTransition()).append(" | ").append(transition.getDescription()).append("\n");
+                describeEvents(result, transition.getEvents());
+            }
+            result.append("  arriving ").append(node.getArrivingTransitions().size()).append("\n");
+        }
+        return result.toString();
+    }
+
+    private static void describeEvents(StringBuilder result, Map<String, Event> events) {
+        for (Map.Entry<String, Event> entry : new TreeMap<String, Event>(events).entrySet()) {
+            List<Action> actions = entry.getValue().getActions();
+            for (Action action : actions) {
+                result.append("    ").append(entry.getKey()).append(" ").append(action.getClass().getSimpleName()).append(" ")
+                        .append(action.getNodeId()).append(" ").append(action.getName()).append(" ").append(action.getDelegation());
+                if (action instanceof CreateTimerAction) {
+                    CreateTimerAction createTimerAction = (CreateTimerAction) action;
+                    result.append(" ").append(createTimerAction.getDueDate()).append(" ").append(createTimerAction.getTransitionName());
+                }
+                result.append("\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.runa.wfe.definition.par;
+
+import java.lang.reflect.Field;
+
+import javax.xml.stream.XMLStreamReader;
+
+import org.dom4j.Document;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.support.GenericApplicationContext;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.dao.LocalizationDAO;
+import ru.runa.wfe.commons.xml.StaxUtils;
+import ru.runa.wfe.commons.xml.XmlUtils;
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.definition.bpmn.BpmnStaxReader;
+import ru.runa.wfe.definition.bpmn.BpmnXmlReader;
+import ru.runa.wfe.definition.jpdl.JpdlStaxReader;
+import ru.runa.wfe.definition.jpdl.JpdlXmlReader;
+import ru.runa.wfe.lang.ProcessDefinition;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Process definition reading through dom4j document or streaming readers without persistent services and generated definitions with
+ * many nodes; shared by {@link ProcessDefinitionParserTest} and {@link ProcessDefinitionParserBenchmark}.
+ */
+public class ProcessDefinitionParserTestHelper {
+    private static final String ACTION_CLASS = "ru.runa.wfe.extension.handler.GroovyHandler";
+    private static final String ASSIGNMENT_CLASS = "ru.runa.wfe.extension.assign.DefaultAssignmentHandler";
+
+    static ProcessDefinition read(byte[] definitionXml, boolean streaming) {
+        ProcessDefinition processDefinition = new ProcessDefinition(new Deployment());
+        if (streaming) {
+            XMLStreamReader reader = StaxUtils.createReader(definitionXml);
+            if ("process-definition".equals(reader.getLocalName())) {
+                ApplicationContextFactory.autowireBean(new JpdlStaxReader(reader)).readProcessDefinition(processDefinition);
+            } else {
+                ApplicationContextFactory.autowireBean(new BpmnStaxReader(reader)).readProcessDefinition(processDefinition);
+            }
+            StaxUtils.close(reader);
+        } else {
+            Document document = XmlUtils.parseWithoutValidation(definitionXml);
+            if ("process-definition".equals(document.getRootElement().getName())) {
+                ApplicationContextFactory.autowireBean(new JpdlXmlReader(document)).readProcessDefinition(processDefinition);
+            } else {
+                ApplicationContextFactory.autowireBean(new BpmnXmlReader(document)).readProcessDefinition(processDefinition);
+            }
+        }
+        return processDefinition;
+    }
+
+    /**
+     * Spring context without beans: readers get only not persistent {@link LocalizationDAO}, parsing does not depend on other services.
+     */
+    static void initializeContext() throws Exception {
+        final LocalizationDAO localizationDAO = new LocalizationDAO();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory() {
+
+            @Override
+            public void autowireBean(Object existingBean) {
+                try {
+                    Field field = existingBean.getClass().getDeclaredField("localizationDAO");
+                    field.setAccessible(true);
+                    field.set(existingBean, localizationDAO);
+                } catch (NoSuchFieldException e) {
+                    // nothing to inject
+                } catch (IllegalAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        GenericApplicationContext context = new GenericApplicationContext(beanFactory);
+        context.refresh();
+        Field field = ApplicationContextFactory.class.getDeclaredField("applicationContext");
+        field.setAccessible(true);
+        field.set(null, context);
+    }
+
+    static byte[] generateJpdl(int nodes) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<process-definition xmlns=\"urn:jbpm.org:jpdl-3.2\" name=\"benchmark\" default-task-duedate=\"1 days\">\n");
+        xml.append("  <description>Generated definition</description>\n");
+        xml.append("  <swimlane name=\"manager\">\n");
+        xml.append("    <assignment class=\"" + ASSIGNMENT_CLASS + "\"><![CDATA[manager]]>"
+                + "</assignment>\n");
+        xml.append("  </swimlane>\n");
+        xml.append("  <start-state id=\"ID0\" name=\"start\">\n");
+        xml.append("    <task swimlane=\"manager\" />\n");
+        xml.append("    <transition name=\"tr\" to=\"ID1\" />\n");
+        xml.append("  </start-state>\n");
+        for (int i = 1; i <= nodes; i++) {
+            String to = i < nodes ? "ID" + (i + 1) : "IDEnd";
+            xml.append("  <task-node id=\"ID" + i + "\" name=\"task " + i + "\">\n");
+            xml.append("    <description>Task number " + i + "</description>\n");
+            xml.append("    <event type=\"node-enter\">\n");
+            xml.append("      <action name=\"log " + i + "\" class=\"" + ACTION_CLASS + "\"><![CDATA[log.info(\"enter " + i + "\")]]></action>\n");
+            xml.append("    </event>\n");
+            xml.append("    <task name=\"task " + i + "\" swimlane=\"manager\" duedate=\"2 hours\" />\n");
+            xml.append("    <timer duedate=\"1 days\" transition=\"timeout\">\n");
+            xml.append("      <action class=\"" + ACTION_CLASS + "\"><![CDATA[log.info(\"timer " + i + "\")]]></action>\n");
+            xml.append("    </timer>\n");
+            xml.append("    <transition name=\"next\" to=\"" + to + "\" />\n");
+            xml.append("    <transition name=\"timeout\" to=\"IDEnd\" />\n");
+            xml.append("  </task-node>\n");
+        }
+        xml.append("  <end-state id=\"IDEnd\" name=\"end\" />\n");
+        xml.append("</process-definition>\n");
+        return xml.toString().getBytes(Charsets.UTF_8);
+    }
+
+    static byte[] generateBpmn(int nodes) {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        xml.append("<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" xmlns:runa=\"http://runa.ru/wfe/xml\">\n");
+        xml.append("  <process name=\"benchmark\" isExecutable=\"true\">\n");
+        xml.append("    <extensionElements><runa:property name=\"documentation\" value=\"Generated definition\" />"
+                + "<runa:property name=\"defaultTaskDeadline\" value=\"1 days\" /></extensionElements>\n");
+        xml.append("    <laneSet id=\"laneSet\">\n");
+        xml.append("      <lane id=\"lane\" name=\"manager\">\n");
+        xml.append("        <extensionElements><runa:property name=\"class\" value=\"" + ASSIGNMENT_CLASS + "\" />"
+                + "<runa:property name=\"config\"><![CDATA[manager]]>"
+                + "</runa:property></extensionElements>\n");
+        for (int i = 1; i <= nodes; i++) {
+            xml.append("        <flowNodeRef>ID" + i + "</flowNodeRef>\n");
+        }
+        xml.append("      </lane>\n");
+        xml.append("    </laneSet>\n");
+        xml.append("    <startEvent id=\"ID0\" name=\"start\">\n");
+        xml.append("      <extensionElements><runa:property name=\"lane\" value=\"manager\" /></extensionElements>\n");
+        xml.append("    </startEvent>\n");
+        xml.append("    <sequenceFlow id=\"ID0_1\" name=\"tr\" sourceRef=\"ID0\" targetRef=\"ID1\" />\n");
+        for (int i = 1; i <= nodes; i++) {
+            String to = i < nodes ? "ID" + (i + 1) : "IDEnd";
+            xml.append("    <userTask id=\"ID" + i + "\" name=\"task " + i + "\">\n");
+            xml.append("      <documentation>Task number " + i + "</documentation>\n");
+            xml.append("      <extensionElements><runa:property name=\"lane\" value=\"manager\" />"
+                    + "<runa:property name=\"taskDeadline\" value=\"2 hours\" /></extensionElements>\n");
+            xml.append("    </userTask>\n");
+            xml.append("    <boundaryEvent id=\"ID" + i + "_timer\" name=\"timer " + i + "\" attachedToRef=\"ID" + i + "\">\n");
+            xml.append("      <timerEventDefinition><timeDuration>1 days</timeDuration>\n");
+            xml.append("        <extensionElements><runa:property name=\"class\" value=\"" + ACTION_CLASS + "\" />"
+                    + "<runa:property name=\"config\"><![CDATA[log.info(\"timer " + i + "\")]]></runa:property></extensionElements>\n");
+            xml.append("      </timerEventDefinition>\n");
+            xml.append("    </boundaryEvent>\n");
+            xml.append("    <sequenceFlow id=\"ID" + i + "_next\" name=\"next\" sourceRef=\"ID" + i + "\" targetRef=\"" + to + "\" />\n");
+            xml.append("    <sequenceFlow id=\"ID" + i + "_timeout\" name=\"timeout\" sourceRef=\"ID" + i + "_timer\" targetRef=\"IDEnd\" />\n");
+        }
+        xml.append("    <endEvent id=\"IDEnd\" name=\"end\" />\n");
+        xml.append("  </process>\n");
+        xml.append("</definitions>\n");
+        return xml.toString().getBytes(Charsets.UTF_8);
+    }
+}
@@ -0,0 +1,184 @@
+package ru.runa.wfe.execution;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ru.runa.wfe.definition.DefinitionPermission;
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.security.Identifiable;
+import ru.runa.wfe.security.Permission;
+import ru.runa.wfe.security.dao.PermissionDAO;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.SystemExecutors;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Compares granting of process permissions with per executor queries (as before templates) with granting from cached template. Each
+ * permission DAO call is counted as one database round trip of given duration, executors are taken from executor cache. Not a unit test,
+ * run manually: <code>ProcessPermissionsBenchmark [executors] [processes] [roundTripMicros]</code>.
+ */
+public class ProcessPermissionsBenchmark {
+    private static int roundTrips;
+    private static long roundTripNanos;
+
+    public static void main(String[] args) throws Exception {
+        int executorsCount = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int processesCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        roundTripNanos = TimeUnit.MICROSECONDS.toNanos(args.length > 2 ? Long.parseLong(args[2]) : 200);
+        Deployment deployment = new Deployment();
+        deployment.setId(1L);
+        deployment.setName("benchmark");
+        ProcessDefinition processDefinition = new ProcessDefinition(deployment);
+        final Map<Executor, Set<Permission>> definitionPermissions = Maps.newHashMap();
+        final Map<Long, Executor> executors = Maps.newHashMap();
+        final Executor processStarter = new Group(SystemExecutors.PROCESS_STARTER_NAME, null);
+        processStarter.setId(0L);
+        executors.put(processStarter.getId(), processStarter);
+        definitionPermissions.put(processStarter, Sets.<Permission> newHashSet(DefinitionPermission.READ_STARTED_PROCESS,
+                DefinitionPermission.CANCEL_STARTED_PROCESS));
+        for (long id = 1; id <= executorsCount; id++) {
+            Executor executor = new Actor("actor" + id, null);
+            executor.setId(id);
+            executors.put(id, executor);
+            definitionPermissions.put(executor, Sets.<Permission> newHashSet(DefinitionPermission.READ, DefinitionPermission.READ_STARTED_PROCESS));
+        }
+        ExecutorDAO executorDAO = new ExecutorDAO() {
+
+            @Override
+            public Executor getExecutor(String name) {
+                return processStarter;
+            }
+
+            @Override
+            public List<Executor> getExecutors(List<Long> ids) {
+                List<Executor> result = Lists.newArrayList();
+                for (Long id : ids) {
+                    result.add(executors.get(id));
+                }
+                return result;
+            }
+        };
+        PermissionDAO permissionDAO = new PermissionDAO() {
+
+            @Override
+            public long getDefinitionPermissionsVersion() {
+                return 1;
+            }
+
+            @Override
+            public Map<Executor, Set<Permission>> getIssuedPermissions(Identifiable identifiable) {
+                roundTrip();
+                return definitionPermissions;
+            }
+
+            @Override
+            public Set<Executor> getExecutorsWithPermission(Identifiable identifiable) {
+                roundTrip();
+                return definitionPermissions.keySet();
+            }
+
+            @Override
+            public List<Permission> getIssuedPermissions(Executor executor, Identifiable identifiable) {
+                roundTrip();
+                Set<Permission> permissions = definitionPermissions.get(executor);
+                return permissions != null ? Lists.newArrayList(permissions) : Lists.<Permission> newArrayList();
+            }
+
+            @Override
+            public void setPermissions(Executor executor, Collection<Permission> permissions, Identifiable identifiable) {
+                // loading of existing mappings and flush of inserted ones
+                roundTrip();
+                roundTrip();
+            }
+
+            @Override
+            public void addPermissions(Map<Executor, ? extends Collection<Permission>> permissions, Identifiable identifiable) {
+                // single JDBC batch
+                roundTrip();
+            }
+        };
+        ProcessFactory processFactory = new ProcessFactory();
+        ReflectionTestUtils.setField(processFactory, "permissionDAO", permissionDAO);
+        ReflectionTestUtils.setField(processFactory, "executorDAO", executorDAO);
+        Method grantProcessPermissions = ProcessFactory.class.getDeclaredMethod("grantProcessPermissions", ProcessDefinition.class,
+                Process.class, Actor.class);
+        grantProcessPermissions.setAccessible(true);
+        Actor actor = (Actor) executors.get(1L);
+        System.out.println(executorsCount + " executors with definition permissions, " + processesCount + " processes, "
+                + TimeUnit.NANOSECONDS.toMicros(roundTripNanos) + " us per round trip");
+        for (int round = 0; round < 2; round++) {
+            // first round warms up
+            roundTrips = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < processesCount; i++) {
+                grantPerExecutor(permissionDAO, executorDAO, deployment, new Process(deployment), actor);
+            }
+            print("per executor", start, processesCount);
+            roundTrips = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < processesCount; i++) {
+                grantProcessPermissions.invoke(processFactory, processDefinition, new Process(deployment), actor);
+            }
+            print("template", start, processesCount);
+        }
+    }
+
+    /**
+     * Process permissions granting as it was done before templates.
+     */
+    private static void grantPerExecutor(PermissionDAO permissionDAO, ExecutorDAO executorDAO, Deployment deployment, Process process,
+            Actor actor) {
+        boolean permissionsAreSetToProcessStarter = false;
+        Executor processStarter = executorDAO.getExecutor(SystemExecutors.PROCESS_STARTER_NAME);
+        for (Executor executor : permissionDAO.getExecutorsWithPermission(deployment)) {
+            Set<Permission> permissions = getProcessPermissions(permissionDAO.getIssuedPermissions(executor, deployment));
+            if (actor.equals(executor)) {
+                permissions = Permission.mergePermissions(permissions, getProcessPermissions(permissionDAO.getIssuedPermissions(processStarter,
+                        deployment)));
+                permissionsAreSetToProcessStarter = true;
+            }
+            if (permissions.size() > 0) {
+                permissionDAO.setPermissions(executor, permissions, process);
+            }
+        }
+        if (!permissionsAreSetToProcessStarter) {
+            permissionDAO.setPermissions(actor, getProcessPermissions(permissionDAO.getIssuedPermissions(processStarter, deployment)), process);
+        }
+    }
+
+    private static Set<Permission> getProcessPermissions(Collection<Permission> definitionPermissions) {
+        Set<Permission> result = Sets.newHashSet();
+        for (Permission permission : definitionPermissions) {
+            if (permission == DefinitionPermission.READ_STARTED_PROCESS) {
+                result.add(ProcessPermission.READ);
+            } else if (permission == DefinitionPermission.CANCEL_STARTED_PROCESS) {
+                result.add(ProcessPermission.CANCEL_PROCESS);
+            }
+        }
+        return result;
+    }
+
+    private static void roundTrip() {
+        roundTrips++;
+        LockSupport.parkNanos(roundTripNanos);
+    }
+
+    private static void print(String name, long start, int processesCount) {
+        long time = (System.nanoTime() - start) / 1000;
+        System.out.println(name + ": " + time / processesCount + " us, " + roundTrips / processesCount + " round trips per process");
+    }
+}
@@ -0,0 +1,203 @@
+package ru.runa.wfe.extension.orgfunction;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import javax.naming.Context;
+import javax.sql.DataSource;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.cache.CachingLogic;
+import ru.runa.wfe.user.Actor;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Org functions evaluation on in-memory employees hierarchy: 1 is chief of 2 and 3, 2 is chief of 4 and 5, 4 is chief of 6; 7 has no chief.
+ */
+public class SQLFunctionDAOTest extends Assert {
+    private static final String SUBORDINATES_SQL = "select ID from EMPLOYEES where CHIEF_ID = ?";
+    private static final String CHIEF_SQL = "select CHIEF_ID from EMPLOYEES where ID = ?";
+    private static final String DIRECTORS_SQL = "select ID from DIRECTORS";
+    private static final Map<Long, Long> CHIEFS = ImmutableMap.of(2L, 1L, 3L, 1L, 4L, 2L, 5L, 2L, 6L, 4L);
+    private final List<String> executedQueries = Lists.newArrayList();
+    private final List<Long> directors = Lists.newArrayList();
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        executedQueries.clear();
+        directors.clear();
+        directors.add(1L);
+        SQLFunctionDAO.resetCache();
+        final DataSource dataSource = createProxy(DataSource.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return createConnection();
+            }
+        });
+        Context context = createProxy(Context.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                return dataSource;
+            }
+        });
+        Field field = SQLFunctionDAO.class.getDeclaredField("context");
+        field.setAccessible(true);
+        field.set(null, context);
+    }
+
+    @Test
+    public void selectsSubordinatesLevelByLevel() {
+        List<Long> codes = SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, null, null, 1L);
+        assertEquals(Sets.newHashSet(codes), Sets.newHashSet(2L, 3L, 4L, 5L, 6L));
+        assertEquals(executedQueries.size(), 4);
+        for (String sql : executedQueries) {
+            assertTrue(sql.startsWith("select ID from EMPLOYEES where CHIEF_ID in ("), sql);
+        }
+    }
+
+    @Test
+    public void selectsSubordinatesByCodeWhenBatchQueryCantBeDerived() {
+        String sql = SUBORDINATES_SQL + " order by ID";
+        List<Long> codes = SQLFunctionDAO.getActorCodesRecursive(sql, null, null, 1L);
+        assertEquals(Sets.newHashSet(codes), Sets.newHashSet(2L, 3L, 4L, 5L, 6L));
+        // one query per code of each level
+        assertEquals(executedQueries.size(), 6);
+        assertEquals(Sets.newHashSet(executedQueries), Sets.newHashSet(sql));
+    }
+
+    @Test
+    public void usesConfiguredBatchQuery() {
+        String batchSql = "select ID from EMPLOYEES where CHIEF_ID in (" + SQLFunctionDAO.CODES_PLACEHOLDER + ") and 1 = 1";
+        List<Long> codes = SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, batchSql, null, 2L);
+        assertEquals(Sets.newHashSet(codes), Sets.newHashSet(4L, 5L, 6L));
+        assertEquals(executedQueries.get(0), "select ID from EMPLOYEES where CHIEF_ID in (?) and 1 = 1");
+        assertEquals(executedQueries.get(1), "select ID from EMPLOYEES where CHIEF_ID in (?, ?) and 1 = 1");
+    }
+
+    @Test
+    public void removesDuplicatesFromRecursiveQueryResult() {
+        List<Long> codes = SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, null, "with recursive", 1L);
+        assertEquals(codes, Lists.newArrayList(2L, 3L, 4L, 5L, 6L));
+        assertEquals(executedQueries, Lists.newArrayList("with recursive"));
+    }
+
+    @Test
+    public void findsNearestDirector() {
+        directors.add(2L);
+        assertEquals(SQLFunctionDAO.getDirectorCode(DIRECTORS_SQL, CHIEF_SQL, 6L), Lists.newArrayList(2L));
+        assertEquals(SQLFunctionDAO.getDirectorCode(DIRECTORS_SQL, CHIEF_SQL, 3L), Lists.newArrayList(1L));
+        assertEquals(SQLFunctionDAO.getDirectorCode(DIRECTORS_SQL, CHIEF_SQL, 1L), Lists.newArrayList(1L));
+    }
+
+    @Test(expectedExceptions = InternalApplicationException.class)
+    public void failsWithoutDirector() {
+        SQLFunctionDAO.getDirectorCode(DIRECTORS_SQL, CHIEF_SQL, 7L);
+    }
+
+    @Test
+    public void cachesResultsUntilExecutorCachesReset() {
+        SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, null, null, 1L);
+        int queriesCount = executedQueries.size();
+        assertEquals(SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, null, null, 1L).size(), 5);
+        assertEquals(executedQueries.size(), queriesCount);
+        CachingLogic.resetCaches(Sets.<Class<?>> newHashSet(Actor.class));
+        assertEquals(SQLFunctionDAO.getActorCodesRecursive(SUBORDINATES_SQL, null, null, 1L).size(), 5);
+        assertEquals(executedQueries.size(), 2 * queriesCount);
+    }
+
+    private Object createConnection() {
+        return createProxy(Connection.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("prepareStatement".equals(method.getName())) {
+                    return createStatement((String) args[0]);
+                }
+                return null;
+            }
+        });
+    }
+
+    private Object createStatement(final String sql) {
+        final Map<Integer, Object> parameters = Maps.newTreeMap();
+        return createProxy(PreparedStatement.class, new InvocationHandler() {
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("setObject".equals(method.getName())) {
+                    parameters.put((Integer) args[0], args[1]);
+                } else if ("executeQuery".equals(method.getName())) {
+                    executedQueries.add(sql);
+                    return createResultSet(select(sql, parameters.values()));
+                }
+                return null;
+            }
+        });
+    }
+
+    private List<Long> select(String sql, Iterable<Object> codes) {
+        if (sql.startsWith("with")) {
+            return Lists.newArrayList(2L, 3L, 4L, 2L, 5L, 6L, 4L);
+        }
+        if (sql.equals(DIRECTORS_SQL)) {
+            return directors;
+        }
+        List<Long> result = Lists.newArrayList();
+        for (Object code : codes) {
+            if (sql.startsWith("select CHIEF_ID")) {
+                if (CHIEFS.containsKey(code)) {
+                    result.add(CHIEFS.get(code));
+                }
+            } else {
+                for (Map.Entry<Long, Long> entry : CHIEFS.entrySet()) {
+                    if (entry.getValue().equals(code)) {
+                        result.add(entry.getKey());
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Object createResultSet(List<Long> codes) {
+        final Iterator<Long> iterator = codes.iterator();
+        return createProxy(ResultSet.class, new InvocationHandler() {
+            private Long current;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if ("next".equals(method.getName())) {
+                    current = iterator.hasNext() ? iterator.next() : null;
+                    return current != null;
+                }
+                if ("getLong".equals(method.getName())) {
+                    return current;
+                }
+                return null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T createProxy(Class<T> clazz, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SQLFunctionDAOTest.class.getClassLoader(), new Class<?>[] { clazz }, handler);
+    }
+}
@@ -0,0 +1,58 @@
+package ru.runa.wfe.job.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+
+public class PeriodicTaskSchedulerTest extends Assert {
+
+    @Test
+    public void testSlowAndFailingTasksDoNotAffectOthers() throws Exception {
+        PeriodicTask slowTask = createTask("slow", new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                }
+            }
+        });
+        PeriodicTask failingTask = createTask("failing", new Runnable() {
+
+            @Override
+            public void run() {
+                throw new IllegalStateException("test failure");
+            }
+        });
+        PeriodicTask regularTask = createTask("regular", new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        });
+        PeriodicTaskScheduler scheduler = new PeriodicTaskScheduler();
+        scheduler.setTasks(Lists.newArrayList(slowTask, failingTask, regularTask));
+        scheduler.afterPropertiesSet();
+        try {
+            Thread.sleep(800);
+        } finally {
+            scheduler.destroy();
+        }
+        assertTrue(slowTask.getRunsCount() <= 2, slowTask.toString());
+        assertTrue(slowTask.getSkippedRunsCount() > 0, slowTask.toString());
+        assertTrue(failingTask.getRunsCount() >= 5, failingTask.toString());
+        assertEquals(failingTask.getFailuresCount(), failingTask.getRunsCount());
+        assertTrue(regularTask.getRunsCount() >= 5, regularTask.toString());
+        assertEquals(regularTask.getSkippedRunsCount(), 0);
+    }
+
+    private PeriodicTask createTask(String name, Runnable runnable) {
+        PeriodicTask task = new PeriodicTask();
+        task.setBeanName(name);
+        task.setTask(runnable);
+        task.setPeriod(50);
+        return task;
+    }
+}
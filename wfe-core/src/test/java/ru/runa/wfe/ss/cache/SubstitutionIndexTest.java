@@ -0,0 +1,361 @@
+package ru.runa.wfe.ss.cache;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.transaction.UserTransaction;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.cache.Cache;
+import ru.runa.wfe.commons.cache.Change;
+import ru.runa.wfe.commons.cache.ChangedObjectParameter;
+import ru.runa.wfe.presentation.BatchPresentation;
+import ru.runa.wfe.ss.Substitution;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorDoesNotExistException;
+import ru.runa.wfe.user.ExecutorGroupMembership;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+/**
+ * Invalidation of substitution index entries on substitution and group membership changes.
+ */
+public class SubstitutionIndexTest extends Assert {
+    private final Map<Long, Executor> executors = Maps.newHashMap();
+    private final Map<Long, Set<Executor>> groupChildren = Maps.newHashMap();
+    private final Map<Long, List<Substitution>> substitutions = Maps.newHashMap();
+    private final ExecutorDAO executorDAO = new ExecutorDAO() {
+
+        @Override
+        public List<Actor> getAllActors(BatchPresentation batchPresentation) {
+            List<Actor> actors = Lists.newArrayList();
+            for (Executor executor : executors.values()) {
+                if (executor instanceof Actor) {
+                    actors.add((Actor) executor);
+                }
+            }
+            return actors;
+        }
+
+        @Override
+        public Actor getActor(Long id) {
+            Executor executor = executors.get(id);
+            if (!(executor instanceof Actor)) {
+                throw new ExecutorDoesNotExistException(id, Actor.class);
+            }
+            return (Actor) executor;
+        }
+
+        @Override
+        public Set<Executor> getGroupChildren(Group group) {
+            Set<Executor> children = groupChildren.get(group.getId());
+            return children != null ? Sets.newHashSet(children) : Sets.<Executor> newHashSet();
+        }
+    };
+    private final List<Long> evaluatedActorIds = Collections.synchronizedList(Lists.<Long> newArrayList());
+    private final Set<String> evaluatingThreadNames = Collections.synchronizedSet(Sets.<String> newHashSet());
+    private final AtomicInteger transactionsCount = new AtomicInteger();
+    private final UserTransaction userTransaction = (UserTransaction) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { UserTransaction.class }, new InvocationHandler() {
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) {
+                    if ("begin".equals(method.getName())) {
+                        transactionsCount.incrementAndGet();
+                    }
+                    return null;
+                }
+            });
+    private int buildThreadsCount;
+
+    @BeforeMethod
+    public void setUp() {
+        executors.clear();
+        groupChildren.clear();
+        substitutions.clear();
+        evaluatedActorIds.clear();
+        evaluatingThreadNames.clear();
+        transactionsCount.set(0);
+        buildThreadsCount = 1;
+        // 1 is substituted by group 10 (actors 2, 3), 4 by actor 5, 6 by group 11 (actor 7 and group 12 with actor 9)
+        for (long id : new long[] { 2, 3, 5, 7, 8, 9 }) {
+            addActor(id, true);
+        }
+        addActor(1, false);
+        addActor(4, false);
+        addActor(6, false);
+        addGroup(10, 2, 3);
+        addGroup(12, 9);
+        addGroup(11, 7, 12);
+        addSubstitution(1, 1, "10");
+        addSubstitution(2, 4, "5");
+        addSubstitution(3, 6, "11");
+    }
+
+    @Test
+    public void buildsIndex() {
+        SubstitutionIndex index = createIndex();
+        index.build(false);
+        assertEquals(getSubstitutors(index, 1), Sets.newHashSet(2L, 3L));
+        assertEquals(getSubstitutors(index, 4), Sets.newHashSet(5L));
+        assertEquals(getSubstitutors(index, 6), Sets.newHashSet(7L, 9L));
+        assertTrue(getSubstitutors(index, 2).isEmpty());
+        assertEquals(index.getSubstituted(2L, false), Sets.newHashSet(1L));
+        assertEquals(index.getSubstituted(9L, false), Sets.newHashSet(6L));
+        assertTrue(index.getSubstituted(1L, false).isEmpty());
+        assertTrue(getStaleActorIds(index).isEmpty());
+        Map<Long, Set<Long>> groupToDependentActorIds = getGroupToDependentActorIds(index);
+        assertEquals(groupToDependentActorIds.keySet(), Sets.newHashSet(10L, 11L, 12L));
+        assertEquals(groupToDependentActorIds.get(10L), Sets.newHashSet(1L));
+        assertEquals(groupToDependentActorIds.get(12L), Sets.newHashSet(6L));
+    }
+
+    @Test
+    public void substitutionChangeInvalidatesItsActorOnly() {
+        SubstitutionIndex index = createIndex();
+        index.build(false);
+        assertEquals(index.getSubstituted(5L, false), Sets.newHashSet(4L));
+        Substitution substitution = substitutions.get(4L).get(0);
+        substitution.setOrgFunction("7");
+        assertTrue(index.onChange(new ChangedObjectParameter(substitution, Change.UPDATE, new Object[] { 4L }, new Object[] { 4L },
+                new String[] { "actorId" }, null)));
+        assertEquals(getStaleActorIds(index), Sets.newHashSet(4L));
+        assertNull(index.getSubstitutors(4L, false, false));
+        assertNotNull(index.getSubstitutors(1L, false, false));
+        assertNotNull(index.getSubstitutors(6L, false, false));
+
+        evaluatedActorIds.clear();
+        assertEquals(index.getSubstituted(7L, false), Sets.newHashSet(4L, 6L));
+        assertTrue(index.getSubstituted(5L, false).isEmpty());
+        assertEquals(evaluatedActorIds, Lists.newArrayList(4L));
+        assertEquals(getSubstitutors(index, 4), Sets.newHashSet(7L));
+        assertTrue(getStaleActorIds(index).isEmpty());
+    }
+
+    @Test
+    public void substitutionMoveInvalidatesBothActors() {
+        SubstitutionIndex index = createIndex();
+        index.build(false);
+        Substitution substitution = substitutions.get(4L).remove(0);
+        substitution.setActorId(8L);
+        addSubstitution(substitution);
+        assertTrue(index.onChange(new ChangedObjectParameter(substitution, Change.UPDATE, new Object[] { 8L }, new Object[] { 4L },
+                new String[] { "actorId" }, null)));
+        assertEquals(getStaleActorIds(index), Sets.newHashSet(4L, 8L));
+        assertTrue(getSubstitutors(index, 4).isEmpty());
+        assertEquals(getSubstitutors(index, 8), Sets.newHashSet(5L));
+    }
+
+    @Test
+    public void groupMembershipChangeInvalidatesDependentActorsOnly() {
+        SubstitutionIndex index = createIndex();
+        index.build(false);
+        groupChildren.get(12L).add(executors.get(8L));
+        assertTrue(index.onChange(new ChangedObjectParameter(new ExecutorGroupMembership((Group) executors.get(12L), executors.get(8L)),
+                Change.CREATE, null, null, null, null)));
+        assertEquals(getStaleActorIds(index), Sets.newHashSet(6L));
+        assertFalse(getGroupToDependentActorIds(index).containsKey(12L));
+        assertEquals(getGroupToDependentActorIds(index).get(10L), Sets.newHashSet(1L));
+
+        evaluatedActorIds.clear();
+        assertEquals(index.getSubstituted(8L, false), Sets.newHashSet(6L));
+        assertEquals(evaluatedActorIds, Lists.newArrayList(6L));
+        assertEquals(getSubstitutors(index, 6), Sets.newHashSet(7L, 8L, 9L));
+        assertEquals(getGroupToDependentActorIds(index).get(12L), Sets.newHashSet(6L));
+        assertEquals(index.getSubstituted(2L, false), Sets.newHashSet(1L));
+        assertEquals(evaluatedActorIds, Lists.newArrayList(6L));
+    }
+
+    @Test
+    public void doesNotStoreEntriesEvaluatedWhileLocked() {
+        SubstitutionIndex index = createIndex();
+        index.build(false);
+        Substitution substitution = substitutions.get(1L).get(0);
+        assertTrue(index.onChange(new ChangedObjectParameter(substitution, Change.UPDATE, new Object[] { 1L }, new Object[] { 1L },
+                new String[] { "actorId" }, null)));
+        assertNotNull(index.getSubstitutors(1L, true, true));
+        assertNull(index.getSubstitutors(1L, false, false));
+        assertEquals(getStaleActorIds(index), Sets.newHashSet(1L));
+        assertNotNull(index.getSubstitutors(1L, true, false));
+        assertNotNull(index.getSubstitutors(1L, false, false));
+        assertTrue(getStaleActorIds(index).isEmpty());
+    }
+
+    @Test
+    public void buildsInParallelTransactions() {
+        for (long id = 100; id < 250; id++) {
+            addActor(id, false);
+            addSubstitution(id, id, id % 2 == 0 ? "10" : "5");
+        }
+        SubstitutionIndex sequentialIndex = createIndex();
+        sequentialIndex.build(false);
+        assertEquals(transactionsCount.get(), 0);
+
+        buildThreadsCount = 4;
+        evaluatingThreadNames.clear();
+        SubstitutionIndex parallelIndex = createIndex();
+        parallelIndex.build(true);
+        assertEquals(transactionsCount.get(), 4);
+        assertFalse(evaluatingThreadNames.contains(Thread.currentThread().getName()), evaluatingThreadNames.toString());
+        for (Executor executor : executors.values()) {
+            if (executor instanceof Actor) {
+                assertEquals(getSubstitutors(parallelIndex, executor.getId()), getSubstitutors(sequentialIndex, executor.getId()));
+            }
+        }
+        assertEquals(getGroupToDependentActorIds(parallelIndex), getGroupToDependentActorIds(sequentialIndex));
+    }
+
+    private SubstitutionIndex createIndex() {
+        return new SubstitutionIndex(new MapCache<Long, TreeMap<Substitution, HashSet<Long>>>(), new MapCache<Long, HashSet<Long>>(),
+                executorDAO, null) {
+
+            @Override
+            List<Substitution> loadSubstitutions() {
+                List<Substitution> result = Lists.newArrayList();
+                for (List<Substitution> actorSubstitutions : substitutions.values()) {
+                    result.addAll(actorSubstitutions);
+                }
+                return result;
+            }
+
+            @Override
+            List<Substitution> loadSubstitutions(Long actorId) {
+                List<Substitution> result = substitutions.get(actorId);
+                return result != null ? Lists.newArrayList(result) : Lists.<Substitution> newArrayList();
+            }
+
+            @Override
+            List<? extends Executor> evaluateOrgFunction(Substitution substitution) {
+                evaluatedActorIds.add(substitution.getActorId());
+                evaluatingThreadNames.add(Thread.currentThread().getName());
+                return Lists.newArrayList(executors.get(Long.valueOf(substitution.getOrgFunction())));
+            }
+
+            @Override
+            int getBuildThreadsCount() {
+                return buildThreadsCount;
+            }
+
+            @Override
+            UserTransaction getUserTransaction() {
+                return userTransaction;
+            }
+        };
+    }
+
+    private Set<Long> getSubstitutors(SubstitutionIndex index, long actorId) {
+        Set<Long> result = Sets.newHashSet();
+        for (HashSet<Long> substitutors : index.getSubstitutors(actorId, true, false).values()) {
+            result.addAll(substitutors);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Long> getStaleActorIds(SubstitutionIndex index) {
+        return (Set<Long>) ReflectionTestUtils.getField(index, "staleActorIds");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<Long, Set<Long>> getGroupToDependentActorIds(SubstitutionIndex index) {
+        return (ConcurrentMap<Long, Set<Long>>) ReflectionTestUtils.getField(index, "groupToDependentActorIds");
+    }
+
+    private void addActor(long id, boolean active) {
+        Actor actor = new Actor("actor" + id, null);
+        actor.setId(id);
+        actor.setActive(active);
+        executors.put(id, actor);
+    }
+
+    private void addGroup(long id, long... childIds) {
+        Group group = new Group("group" + id, null);
+        group.setId(id);
+        executors.put(id, group);
+        Set<Executor> children = Sets.newHashSet();
+        for (long childId : childIds) {
+            children.add(executors.get(childId));
+        }
+        groupChildren.put(id, children);
+    }
+
+    private void addSubstitution(long id, long actorId, String substitutorId) {
+        Substitution substitution = new Substitution();
+        substitution.setId(id);
+        substitution.setActorId(actorId);
+        substitution.setPosition(0);
+        substitution.setOrgFunction(substitutorId);
+        addSubstitution(substitution);
+    }
+
+    private void addSubstitution(Substitution substitution) {
+        List<Substitution> actorSubstitutions = substitutions.get(substitution.getActorId());
+        if (actorSubstitutions == null) {
+            actorSubstitutions = Lists.newArrayList();
+            substitutions.put(substitution.getActorId(), actorSubstitutions);
+        }
+        actorSubstitutions.add(substitution);
+    }
+
+    private static class MapCache<K extends Serializable, V extends Serializable> implements Cache<K, V> {
+        private final Map<K, V> map = Maps.newConcurrentMap();
+
+        @Override
+        public void commitCache() {
+        }
+
+        @Override
+        public V get(K key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean contains(K key) {
+            return map.containsKey(key);
+        }
+
+        @Override
+        public void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        @Override
+        public void putAll(Map<K, V> collection) {
+            map.putAll(collection);
+        }
+
+        @Override
+        public boolean remove(K key) {
+            return map.remove(key) != null;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public Iterable<K> keySet() {
+            return map.keySet();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.runa.wfe.user.cache;
+
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.Group;
+import ru.runa.wfe.user.SystemExecutors;
+import ru.runa.wfe.user.TemporaryGroup;
+
+import com.google.common.collect.Lists;
+
+public class ExecutorNameIndexTest extends Assert {
+
+    @Test
+    public void findsActorsByNameAndFullName() {
+        ExecutorNameIndex index = new ExecutorNameIndex();
+        index.add(executor(new Actor("ivanov", null, "Ivanov Ivan"), 1L));
+        index.add(executor(new Actor("petrov", null, "Ivanova Olga"), 2L));
+        index.add(executor(new Actor("sidorov", null, "Sidorov Petr"), 3L));
+        assertEquals(ids(index.findActors("iva")), Lists.newArrayList(1L, 2L));
+        assertEquals(ids(index.findActors("PET")), Lists.newArrayList(2L));
+        assertEquals(ids(index.findActors("")), Lists.newArrayList(1L, 2L, 3L));
+        assertTrue(index.findActors("x").isEmpty());
+        assertTrue(index.findGroups("iva").isEmpty());
+    }
+
+    @Test
+    public void skipsSystemAndTemporaryExecutors() {
+        ExecutorNameIndex index = new ExecutorNameIndex();
+        index.add(executor(new Group("staff", null), 1L));
+        index.add(executor(new Group(SystemExecutors.PROCESS_STARTER_NAME, null), 2L));
+        index.add(executor(TemporaryGroup.create(1L, "staff"), 3L));
+        assertEquals(ids(index.findGroups("")), Lists.newArrayList(1L));
+    }
+
+    @Test
+    public void keepsExecutorsWithSameNames() {
+        ExecutorNameIndex index = new ExecutorNameIndex();
+        index.add(executor(new Actor("ivanov", null, "Ivanov Ivan"), 1L));
+        index.add(executor(new Actor("ivanov2", null, "Ivanov Ivan"), 2L));
+        index.add(executor(new Group("ivanov", null), 3L));
+        assertEquals(ids(index.findActors("ivanov i")), Lists.newArrayList(1L, 2L));
+        assertEquals(ids(index.findActors("ivanov")), Lists.newArrayList(1L, 2L));
+        assertEquals(ids(index.findGroups("ivanov")), Lists.newArrayList(3L));
+    }
+
+    private static <T extends Executor> T executor(T executor, Long id) {
+        executor.setId(id);
+        return executor;
+    }
+
+    private static List<Long> ids(List<? extends Executor> executors) {
+        List<Long> ids = Lists.newArrayList();
+        for (Executor executor : executors) {
+            ids.add(executor.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,101 @@
+package ru.runa.wfe.user.logic;
+
+import java.util.List;
+
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.security.Identifiable;
+import ru.runa.wfe.security.Permission;
+import ru.runa.wfe.security.dao.PermissionDAO;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorSearchResult;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.user.dao.ExecutorDAO;
+
+import com.google.common.collect.Lists;
+
+public class ExecutorLogicNamePrefixTest extends Assert {
+    private final List<Integer> checkedWindows = Lists.newArrayList();
+
+    @Test
+    public void checksPermissionsOnlyUpToNextPage() {
+        // each third actor is readable
+        ExecutorLogic executorLogic = createLogic(createActors(1000), 3);
+        ExecutorSearchResult result = executorLogic.findExecutorsByNamePrefix(null, true, "a", 2, 10);
+        assertEquals(ids(result.getExecutors()), Lists.newArrayList(33L, 36L, 39L, 42L, 45L, 48L, 51L, 54L, 57L, 60L));
+        assertFalse(result.isTotalCountExact());
+        assertTrue(result.getTotalCount() >= 30);
+        // windows are doubled: 30, 60
+        assertEquals(checkedWindows, Lists.newArrayList(30, 60));
+    }
+
+    @Test
+    public void countsExactlyWhenAllCandidatesChecked() {
+        ExecutorLogic executorLogic = createLogic(createActors(25), 1);
+        ExecutorSearchResult result = executorLogic.findExecutorsByNamePrefix(null, true, "a", 3, 10);
+        assertEquals(ids(result.getExecutors()), Lists.newArrayList(21L, 22L, 23L, 24L, 25L));
+        assertTrue(result.isTotalCountExact());
+        assertEquals(result.getTotalCount(), 25);
+        assertEquals(checkedWindows, Lists.newArrayList(25));
+    }
+
+    @Test
+    public void returnsEmptyPageBeyondFoundExecutors() {
+        ExecutorLogic executorLogic = createLogic(createActors(5), 1);
+        ExecutorSearchResult result = executorLogic.findExecutorsByNamePrefix(null, true, "a", 2, 10);
+        assertTrue(result.getExecutors().isEmpty());
+        assertTrue(result.isTotalCountExact());
+        assertEquals(result.getTotalCount(), 5);
+    }
+
+    private ExecutorLogic createLogic(final List<Actor> actors, final int allowedEach) {
+        checkedWindows.clear();
+        ExecutorDAO executorDAO = new ExecutorDAO() {
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public <T extends Executor> List<T> getExecutorsByNamePrefix(Class<T> clazz, String prefix) {
+                assertEquals(clazz, Actor.class);
+                return (List<T>) actors;
+            }
+        };
+        PermissionDAO permissionDAO = new PermissionDAO() {
+
+            @Override
+            public <T extends Identifiable> boolean[] isAllowed(User user, Permission permission, List<T> identifiables) {
+                assertEquals(permission, Permission.READ);
+                checkedWindows.add(identifiables.size());
+                boolean[] result = new boolean[identifiables.size()];
+                for (int i = 0; i < identifiables.size(); i++) {
+                    result[i] = identifiables.get(i).getIdentifiableId() % allowedEach == 0;
+                }
+                return result;
+            }
+        };
+        ExecutorLogic executorLogic = new ExecutorLogic();
+        ReflectionTestUtils.setField(executorLogic, "executorDAO", executorDAO);
+        ReflectionTestUtils.setField(executorLogic, "permissionDAO", permissionDAO);
+        return executorLogic;
+    }
+
+    private static List<Actor> createActors(int count) {
+        List<Actor> actors = Lists.newArrayList();
+        for (long id = 1; id <= count; id++) {
+            Actor actor = new Actor("a" + id, null);
+            actor.setId(id);
+            actors.add(actor);
+        }
+        return actors;
+    }
+
+    private static List<Long> ids(List<Executor> executors) {
+        List<Long> ids = Lists.newArrayList();
+        for (Executor executor : executors) {
+            ids.add(executor.getId());
+        }
+        return ids;
+    }
+}
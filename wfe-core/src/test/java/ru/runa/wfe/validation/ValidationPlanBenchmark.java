@@ -0,0 +1,98 @@
+package ru.runa.wfe.validation;
+
+import groovy.lang.GroovyShell;
+
+import java.util.List;
+import java.util.Map;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.definition.par.ValidationXmlParser;
+import ru.runa.wfe.validation.impl.GroovyExpressionValidator;
+import ru.runa.wfe.var.IVariableProvider;
+import ru.runa.wfe.var.MapVariableProvider;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Compares per-submission validation cost with parsing of validation xml (as it was before {@link ValidationPlan}) and with cached plan.
+ * Validators are instantiated without autowiring in both cases. Not a unit test, run manually:
+ * <code>ValidationPlanBenchmark [submissions] [fields]</code>.
+ */
+public class ValidationPlanBenchmark {
+    private static final String EXPRESSION = "field1 != null";
+
+    public static void main(String[] args) throws Exception {
+        int submissions = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int fields = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        byte[] validationXml = createValidationXml(fields);
+        Map<String, Object> variables = Maps.newHashMap();
+        for (int i = 1; i <= fields; i++) {
+            variables.put("field" + i, "value" + i);
+        }
+        IVariableProvider variableProvider = new MapVariableProvider(variables);
+        Map<String, String> registrations = Maps.newHashMap();
+        registrations.put("required", "ru.runa.wfe.validation.impl.RequiredFieldValidator");
+        registrations.put("stringlength", "ru.runa.wfe.validation.impl.StringLengthFieldValidator");
+        registrations.put("regex", "ru.runa.wfe.validation.impl.RegexFieldValidator");
+        registrations.put("expression", GroovyExpressionValidator.class.getName());
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < submissions; i++) {
+                List<ValidatorConfig> configs = ValidationXmlParser.parseValidatorConfigs(validationXml);
+                List<Validator> validators = Lists.newArrayList();
+                for (ValidatorConfig config : configs) {
+                    Class<?> validatorClass = ClassLoaderUtil.loadClass(registrations.get(config.getType()));
+                    if (validatorClass == GroovyExpressionValidator.class) {
+                        // expression was compiled on each evaluation
+                        new GroovyShell(ClassLoaderUtil.getExtensionClassLoader()).parse(EXPRESSION);
+                    }
+                    validators.add((Validator) validatorClass.newInstance());
+                }
+                validate(validators, configs, variableProvider, variables);
+            }
+            long parsingTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < submissions; i++) {
+                ValidationPlan plan = ValidatorManager.getInstance().getValidationPlan(validationXml);
+                List<Validator> validators = Lists.newArrayList();
+                for (Class<? extends Validator> validatorClass : plan.getValidatorClasses()) {
+                    validators.add(validatorClass.newInstance());
+                }
+                validate(validators, plan.getConfigs(), variableProvider, variables);
+            }
+            long planTime = System.nanoTime() - start;
+            System.out.println("Round " + round + " (" + fields + " fields): parsing " + parsingTime / 1000 / submissions + " us/submission, plan "
+                    + planTime / 1000 / submissions + " us/submission");
+        }
+    }
+
+    private static void validate(List<Validator> validators, List<ValidatorConfig> configs, IVariableProvider variableProvider,
+            Map<String, Object> variables) throws Exception {
+        ValidatorContext context = new ValidatorContext();
+        for (int i = 0; i < validators.size(); i++) {
+            Validator validator = validators.get(i);
+            validator.init(null, variableProvider, configs.get(i), context, variables);
+            validator.validate();
+        }
+        if (context.hasGlobalErrors() || context.hasFieldErrors()) {
+            throw new IllegalStateException("Unexpected errors " + context.getGlobalErrors() + ", " + context.getFieldErrors());
+        }
+    }
+
+    private static byte[] createValidationXml(int fields) throws Exception {
+        StringBuilder xml = new StringBuilder("<validators>");
+        xml.append("<validator type=\"expression\"><param name=\"expression\">").append(EXPRESSION).append("</param>");
+        xml.append("<message>field1 is empty</message></validator>");
+        for (int i = 1; i <= fields; i++) {
+            xml.append("<field name=\"field").append(i).append("\">");
+            xml.append("<field-validator type=\"required\"><message>required</message></field-validator>");
+            xml.append("<field-validator type=\"stringlength\"><param name=\"maxLength\">100</param><message>too long</message></field-validator>");
+            xml.append("<field-validator type=\"regex\"><param name=\"expression\">value\\d+</param><message>wrong format</message></field-validator>");
+            xml.append("</field>");
+        }
+        xml.append("</validators>");
+        return xml.toString().getBytes("UTF-8");
+    }
+}
@@ -0,0 +1,100 @@
+package ru.runa.wfe.var.file;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.Process;
+import ru.runa.wfe.var.impl.ByteArrayVariable;
+
+import com.google.common.io.Files;
+
+public class LocalFileSystemStorageTest extends Assert {
+    private File storageDir;
+    private final LocalFileSystemStorage storage = new LocalFileSystemStorage();
+
+    @BeforeMethod
+    public void setUp() {
+        storageDir = Files.createTempDir();
+        LocalFileSystemStorage.setStorageDir(storageDir);
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        deleteRecursively(storageDir);
+    }
+
+    @Test
+    public void testContentIsShared() throws Exception {
+        byte[] data = new byte[200000];
+        Arrays.fill(data, (byte) 7);
+        LocalFileSystemVariable parent = (LocalFileSystemVariable) storage.save(null, createVariable(1L), new FileVariable("a.bin", data,
+                "application/octet-stream"));
+        assertEquals(parent.getData(), data);
+        for (long processId = 2; processId <= 100; processId++) {
+            LocalFileSystemVariable child = (LocalFileSystemVariable) storage.save(null, createVariable(processId), parent);
+            assertEquals(child.getVariablePath(), parent.getVariablePath());
+        }
+        LocalFileSystemVariable uploaded = (LocalFileSystemVariable) storage.save(null, createVariable(101L), new FileVariable("b.bin",
+                data, "application/octet-stream"));
+        assertEquals(uploaded.getVariablePath(), parent.getVariablePath());
+        assertNotEquals(uploaded, parent);
+        assertEquals(new File(storageDir, "content").listFiles().length, 1);
+        assertEquals(new File(storageDir, "references").listFiles().length, 101);
+
+        for (long processId = 1; processId <= 100; processId++) {
+            LocalFileSystemStorage.releaseReferences(processId);
+        }
+        assertEquals(LocalFileSystemStorage.removeUnreferencedContent(0), 0);
+        assertEquals(uploaded.getData(), data);
+        LocalFileSystemStorage.releaseReferences(101L);
+        assertEquals(LocalFileSystemStorage.removeUnreferencedContent(60000), 0);
+        assertEquals(LocalFileSystemStorage.removeUnreferencedContent(-1), 1);
+        assertFalse(new File(storageDir, uploaded.getVariablePath()).exists());
+    }
+
+    @Test
+    public void testReferencesAreReplacedWithMovedVariables() throws Exception {
+        byte[] data = new byte[200000];
+        Arrays.fill(data, (byte) 7);
+        LocalFileSystemVariable kept = (LocalFileSystemVariable) storage.save(null, createVariable(1L), new FileVariable("a.bin", data,
+                "application/octet-stream"));
+        Arrays.fill(data, (byte) 8);
+        LocalFileSystemVariable removed = (LocalFileSystemVariable) storage.save(null, createVariable(1L), new FileVariable("b.bin", data,
+                "application/octet-stream"));
+        LocalFileSystemStorage.replaceReferences(1L, Arrays.<Object> asList(Arrays.asList(kept), "not a file"));
+        assertEquals(new File(storageDir, "references/1").list(), new String[] { new File(kept.getVariablePath()).getName() });
+        assertEquals(LocalFileSystemStorage.removeUnreferencedContent(-1), 1);
+        assertTrue(new File(storageDir, kept.getVariablePath()).exists());
+        assertFalse(new File(storageDir, removed.getVariablePath()).exists());
+    }
+
+    @Test
+    public void testSmallFileIsNotStored() {
+        FileVariable fileVariable = new FileVariable("a.txt", new byte[] { 1, 2, 3 }, "text/plain");
+        assertSame(storage.save(null, createVariable(1L), fileVariable), fileVariable);
+    }
+
+    private ByteArrayVariable createVariable(Long processId) {
+        Process process = new Process();
+        process.setId(processId);
+        ByteArrayVariable variable = new ByteArrayVariable();
+        variable.setName("file");
+        variable.setProcess(process);
+        return variable;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
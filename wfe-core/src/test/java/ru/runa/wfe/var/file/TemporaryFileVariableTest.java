@@ -0,0 +1,212 @@
+package ru.runa.wfe.var.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.var.Variable;
+import ru.runa.wfe.var.converter.FileVariableToByteArrayConverter;
+
+import com.google.common.collect.Lists;
+
+public class TemporaryFileVariableTest extends Assert {
+    private static final long LARGE_SIZE = 64L * 1024 * 1024;
+    private static final long MEMORY_LIMIT = 4L * 1024 * 1024;
+
+    @Test
+    public void testContent() throws Exception {
+        byte[] data = "file variable content".getBytes("UTF-8");
+        TemporaryFileVariable fileVariable = TemporaryFileVariable.create("test.txt", "text/plain", new ByteArrayInputStream(data));
+        assertEquals(fileVariable.getSize(), data.length);
+        assertEquals(FileVariableUtils.getSize(fileVariable), data.length);
+        assertEquals(fileVariable.getData(), data);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FileVariableUtils.transferTo(fileVariable, 5, 8, out);
+        assertEquals(new String(out.toByteArray(), "UTF-8"), "variable");
+        out.reset();
+        FileVariableUtils.transferTo(new FileVariable("test.txt", data, "text/plain"), 5, 8, out);
+        assertEquals(new String(out.toByteArray(), "UTF-8"), "variable");
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(serialized);
+        oos.writeObject(fileVariable);
+        oos.close();
+        TemporaryFileVariable copy = (TemporaryFileVariable) new ObjectInputStream(new ByteArrayInputStream(serialized.toByteArray()))
+                .readObject();
+        assertNotEquals(copy.getContentFile(), fileVariable.getContentFile());
+        assertEquals(copy.getName(), "test.txt");
+        assertEquals(copy.getData(), data);
+        File file = fileVariable.getContentFile();
+        fileVariable.delete();
+        copy.delete();
+        assertFalse(file.exists());
+    }
+
+    /**
+     * Large content is spooled, serialized and transferred with constant memory allocation.
+     */
+    @Test
+    public void testLargeContentIsNotLoadedInMemory() throws Exception {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        long threadId = Thread.currentThread().getId();
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId);
+        final TemporaryFileVariable fileVariable = TemporaryFileVariable.create("large.bin", "application/octet-stream", new GeneratedInputStream(
+                LARGE_SIZE));
+        assertEquals(fileVariable.getSize(), LARGE_SIZE);
+        CountingOutputStream out = new CountingOutputStream();
+        FileVariableUtils.transferTo(fileVariable, 0, LARGE_SIZE, out);
+        assertEquals(out.count, LARGE_SIZE);
+        assertTrue(allocationBean.getThreadAllocatedBytes(threadId) - allocated < MEMORY_LIMIT);
+
+        final PipedOutputStream pipedOut = new PipedOutputStream();
+        PipedInputStream pipedIn = new PipedInputStream(pipedOut, 64 * 1024);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<Void> writer = executorService.submit(new Callable<Void>() {
+
+            @Override
+            public Void call() throws Exception {
+                ObjectOutputStream oos = new ObjectOutputStream(pipedOut);
+                oos.writeObject(fileVariable);
+                oos.close();
+                return null;
+            }
+        });
+        allocated = allocationBean.getThreadAllocatedBytes(threadId);
+        TemporaryFileVariable copy = (TemporaryFileVariable) new ObjectInputStream(pipedIn).readObject();
+        assertTrue(allocationBean.getThreadAllocatedBytes(threadId) - allocated < MEMORY_LIMIT);
+        writer.get();
+        executorService.shutdown();
+        assertEquals(copy.getSize(), LARGE_SIZE);
+        fileVariable.delete();
+        copy.delete();
+    }
+
+    /**
+     * Large content is spooled, serialized and transferred in JVM with heap smaller than content.
+     */
+    @Test
+    public void testLargeContentWithSmallHeap() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Xmx16m", "-cp", System.getProperty("java.class.path"), getClass().getName())
+                .redirectErrorStream(true).start();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        InputStream in = process.getInputStream();
+        byte[] buffer = new byte[1024];
+        for (int count = in.read(buffer); count != -1; count = in.read(buffer)) {
+            output.write(buffer, 0, count);
+        }
+        assertEquals(process.waitFor(), 0, output.toString());
+    }
+
+    public static void main(String[] args) throws Exception {
+        TemporaryFileVariable fileVariable = TemporaryFileVariable.create("large.bin", "application/octet-stream", new GeneratedInputStream(
+                LARGE_SIZE));
+        CountingOutputStream out = new CountingOutputStream();
+        FileVariableUtils.transferTo(fileVariable, 0, LARGE_SIZE, out);
+        File serialized = TemporaryFileVariable.createTemporaryFile();
+        ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(serialized));
+        oos.writeObject(fileVariable);
+        oos.close();
+        fileVariable.delete();
+        ObjectInputStream ois = new ObjectInputStream(new FileInputStream(serialized));
+        TemporaryFileVariable copy = (TemporaryFileVariable) ois.readObject();
+        ois.close();
+        serialized.delete();
+        long copySize = copy.getSize();
+        copy.delete();
+        if (out.count != LARGE_SIZE || copySize != LARGE_SIZE) {
+            System.exit(1);
+        }
+    }
+
+    @Test
+    public void testTemporaryFilesAreDeletedOnSave() throws Exception {
+        FileVariableToByteArrayConverter converter = new FileVariableToByteArrayConverter();
+        converter.setStorage(new IFileVariableStorage() {
+
+            @Override
+            public Object save(ExecutionContext executionContext, Variable<?> variable, Object object) {
+                return object;
+            }
+        });
+        byte[] data = "file variable content".getBytes("UTF-8");
+        TemporaryFileVariable fileVariable = TemporaryFileVariable.create("test.txt", "text/plain", new ByteArrayInputStream(data));
+        TemporaryFileVariable listItem = TemporaryFileVariable.create("test.txt", "text/plain", new ByteArrayInputStream(data));
+        List<Object> list = Lists.<Object> newArrayList(listItem);
+        // no transaction in test, files are deleted immediately
+        byte[] serialized = (byte[]) converter.convert(null, null, fileVariable);
+        assertFalse(fileVariable.getContentFile().exists());
+        assertEquals(((IFileVariable) converter.revert(serialized)).getData(), data);
+        converter.convert(null, null, list);
+        assertFalse(listItem.getContentFile().exists());
+        assertTrue(list.get(0) instanceof FileVariable);
+    }
+
+    private static class GeneratedInputStream extends InputStream {
+        private long remaining;
+
+        public GeneratedInputStream(long size) {
+            remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return (int) (remaining & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(len, remaining);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) (remaining - i);
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) throws IOException {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.runa.wfe.var.logic;
+
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.definition.Deployment;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.var.UserType;
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.dto.WfVariableSummary;
+import ru.runa.wfe.var.format.FileFormat;
+import ru.runa.wfe.var.format.ListFormat;
+import ru.runa.wfe.var.format.LongFormat;
+import ru.runa.wfe.var.format.StringFormat;
+import ru.runa.wfe.var.format.VariableFormatContainer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Variable summaries building from stored string representations.
+ */
+public class VariableLogicTest extends Assert {
+    private final VariableLogic variableLogic = new VariableLogic();
+    private ProcessDefinition processDefinition;
+    private Map<String, String> stringValues;
+
+    @BeforeMethod
+    public void setUp() {
+        Deployment deployment = new Deployment();
+        deployment.setId(1L);
+        deployment.setName("summaries");
+        processDefinition = new ProcessDefinition(deployment);
+        stringValues = Maps.newHashMap();
+    }
+
+    @Test
+    public void buildsSimpleVariableSummary() {
+        addVariable("text", StringFormat.class.getName(), null);
+        addVariable("unset", LongFormat.class.getName(), null);
+        stringValues.put("text", "value");
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 1);
+        WfVariableSummary summary = summaries.get(0);
+        assertEquals(summary.getDefinition().getName(), "text");
+        assertEquals(summary.getStringValue(), "value");
+        assertEquals(summary.getSize(), 5);
+        assertFalse(summary.isContainer());
+        assertFalse(summary.isFile());
+    }
+
+    @Test
+    public void countsFilledUserTypeAttributes() {
+        UserType userType = new UserType("Person");
+        userType.addAttribute(new VariableDefinition("name", "name", StringFormat.class.getName(), null));
+        userType.addAttribute(new VariableDefinition("age", "age", LongFormat.class.getName(), null));
+        userType.addAttribute(new VariableDefinition("email", "email", StringFormat.class.getName(), null));
+        processDefinition.addUserType(userType);
+        addVariable("person", userType.getName(), userType);
+        addVariable("nobody", userType.getName(), userType);
+        stringValues.put("person" + UserType.DELIM + "name", "John");
+        stringValues.put("person" + UserType.DELIM + "age", "42");
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 1, "attributes are not reported as not defined variables: " + summaries);
+        WfVariableSummary summary = summaries.get(0);
+        assertEquals(summary.getDefinition().getName(), "person");
+        assertTrue(summary.isContainer());
+        assertEquals(summary.getSize(), 2);
+        assertNull(summary.getStringValue());
+        assertFalse(summary.isFile());
+    }
+
+    @Test
+    public void countsListElements() {
+        addVariable("list", listFormat(StringFormat.class.getName()), null);
+        stringValues.put("list" + VariableFormatContainer.SIZE_SUFFIX, "3");
+        for (int i = 0; i < 3; i++) {
+            stringValues.put(elementName("list", i), "element" + i);
+        }
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 1, "elements are not reported as not defined variables: " + summaries);
+        WfVariableSummary summary = summaries.get(0);
+        assertTrue(summary.isContainer());
+        assertEquals(summary.getSize(), 3);
+        assertFalse(summary.isFile());
+    }
+
+    @Test
+    public void consumesUserTypeListElementAttributes() {
+        UserType userType = new UserType("Person");
+        userType.addAttribute(new VariableDefinition("name", "name", StringFormat.class.getName(), null));
+        processDefinition.addUserType(userType);
+        addVariable("persons", listFormat(userType.getName()), null);
+        stringValues.put("persons" + VariableFormatContainer.SIZE_SUFFIX, "2");
+        stringValues.put(elementName("persons", 0) + UserType.DELIM + "name", "John");
+        stringValues.put(elementName("persons", 1) + UserType.DELIM + "name", "Mary");
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 1, summaries.toString());
+        assertTrue(summaries.get(0).isContainer());
+        assertEquals(summaries.get(0).getSize(), 2);
+    }
+
+    @Test
+    public void usesStringValueOfListStoredBefore430() {
+        addVariable("legacy", listFormat(StringFormat.class.getName()), null);
+        stringValues.put("legacy", "[a, b]");
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 1);
+        WfVariableSummary summary = summaries.get(0);
+        assertEquals(summary.getDefinition().getName(), "legacy");
+        assertFalse(summary.isContainer());
+        assertEquals(summary.getStringValue(), "[a, b]");
+        assertEquals(summary.getSize(), 6);
+    }
+
+    @Test
+    public void appendsNotDefinedVariablesSortedByName() {
+        addVariable("text", StringFormat.class.getName(), null);
+        stringValues.put("text", "value");
+        stringValues.put("zeta", "z");
+        stringValues.put("alpha", null);
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 3);
+        assertEquals(summaries.get(0).getDefinition().getName(), "text");
+        assertFalse(summaries.get(0).getDefinition().isSynthetic());
+        assertEquals(summaries.get(1).getDefinition().getName(), "alpha");
+        assertTrue(summaries.get(1).getDefinition().isSynthetic());
+        assertNull(summaries.get(1).getStringValue());
+        assertEquals(summaries.get(2).getDefinition().getName(), "zeta");
+        assertTrue(summaries.get(2).getDefinition().isSynthetic());
+        assertEquals(summaries.get(2).getStringValue(), "z");
+    }
+
+    @Test
+    public void marksFileVariables() {
+        UserType userType = new UserType("Document");
+        userType.addAttribute(new VariableDefinition("title", "title", StringFormat.class.getName(), null));
+        userType.addAttribute(new VariableDefinition("content", "content", FileFormat.class.getName(), null));
+        processDefinition.addUserType(userType);
+        addVariable("file", FileFormat.class.getName(), null);
+        addVariable("files", listFormat(FileFormat.class.getName()), null);
+        addVariable("document", userType.getName(), userType);
+        addVariable("documents", listFormat(userType.getName()), null);
+        stringValues.put("file", "report.pdf");
+        stringValues.put("files" + VariableFormatContainer.SIZE_SUFFIX, "1");
+        stringValues.put(elementName("files", 0), "scan.png");
+        stringValues.put("document" + UserType.DELIM + "title", "report");
+        stringValues.put("documents" + VariableFormatContainer.SIZE_SUFFIX, "0");
+
+        List<WfVariableSummary> summaries = build();
+        assertEquals(summaries.size(), 4, summaries.toString());
+        for (WfVariableSummary summary : summaries) {
+            assertTrue(summary.isFile(), summary.toString());
+        }
+        assertFalse(summaries.get(0).isContainer());
+        assertEquals(summaries.get(0).getStringValue(), "report.pdf");
+    }
+
+    private List<WfVariableSummary> build() {
+        return variableLogic.buildVariableSummaries(processDefinition, stringValues);
+    }
+
+    private void addVariable(String name, String format, UserType userType) {
+        VariableDefinition variableDefinition = new VariableDefinition(name, name, format, userType);
+        variableDefinition.initComponentUserTypes(processDefinition);
+        processDefinition.addVariable(variableDefinition);
+    }
+
+    private static String listFormat(String componentFormat) {
+        return ListFormat.class.getName() + VariableFormatContainer.COMPONENT_PARAMETERS_START + componentFormat
+                + VariableFormatContainer.COMPONENT_PARAMETERS_END;
+    }
+
+    private static String elementName(String name, int index) {
+        return name + VariableFormatContainer.COMPONENT_QUALIFIER_START + index + VariableFormatContainer.COMPONENT_QUALIFIER_END;
+    }
+}
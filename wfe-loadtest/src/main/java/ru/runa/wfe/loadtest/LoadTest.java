@@ -0,0 +1,89 @@
+package ru.runa.wfe.loadtest;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.logging.LogManager;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.loadtest.scenario.CompleteTaskScenario;
+import ru.runa.wfe.loadtest.scenario.DeployDefinitionScenario;
+import ru.runa.wfe.loadtest.scenario.FireTimerScenario;
+import ru.runa.wfe.loadtest.scenario.SendMessageScenario;
+import ru.runa.wfe.loadtest.scenario.StartProcessScenario;
+import ru.runa.wfe.loadtest.scenario.TaskListScenario;
+import ru.runa.wfe.user.User;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Runs core workflow scenarios in embedded environment and prints throughput, latency percentiles and SQL statements counts. Usage:
+ * <code>LoadTest [name=value ...]</code>, see {@link LoadTestSettings#USAGE}.
+ *
+ * @since 4.3.0
+ */
+public class LoadTest {
+    private static final String LOGGING_CONFIGURATION = "loadtest.logging.properties";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings;
+        try {
+            settings = LoadTestSettings.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        configureLogging();
+        System.out.println("Load test " + settings);
+        LoadTestEnvironment.start(settings.getJdbcUrl(), settings.getThreads() + 2);
+        try {
+            List<User> actors = LoadTestEnvironment.getActors(settings.getActors());
+            ScenarioRunner runner = new ScenarioRunner(settings.getThreads());
+            for (int round = 1; round <= settings.getRounds(); round++) {
+                List<ScenarioResult> results = Lists.newArrayList();
+                for (Scenario scenario : createScenarios(settings, actors)) {
+                    results.add(runner.run(scenario));
+                }
+                System.out.println("Round " + round + " of " + settings.getRounds());
+                System.out.println(ScenarioResult.getHeader());
+                for (ScenarioResult result : results) {
+                    System.out.println(result);
+                }
+            }
+        } finally {
+            LoadTestEnvironment.stop();
+        }
+    }
+
+    private static List<Scenario> createScenarios(LoadTestSettings settings, List<User> actors) {
+        List<Scenario> scenarios = Lists.newArrayList();
+        for (String name : settings.getScenarios()) {
+            if ("deploy".equals(name)) {
+                scenarios.add(new DeployDefinitionScenario(settings.getDeployments()));
+            } else if ("start".equals(name)) {
+                scenarios.add(new StartProcessScenario(settings.getProcesses(), actors.size()));
+            } else if ("tasks".equals(name)) {
+                scenarios.add(new TaskListScenario(actors, settings.getTaskListRounds()));
+            } else if ("complete".equals(name)) {
+                scenarios.add(new CompleteTaskScenario(actors));
+            } else if ("timers".equals(name)) {
+                scenarios.add(new FireTimerScenario(settings.getProcesses(), actors.size()));
+            } else if ("messages".equals(name)) {
+                scenarios.add(new SendMessageScenario(settings.getProcesses(), actors.size()));
+            }
+        }
+        return scenarios;
+    }
+
+    /**
+     * Core logs each process start and task completion on info level, that affects results. Logging is reduced unless configured by
+     * <code>java.util.logging.config.file</code> system property.
+     */
+    private static void configureLogging() throws Exception {
+        if (System.getProperty("java.util.logging.config.file") == null) {
+            InputStream inputStream = ClassLoaderUtil.getAsStreamNotNull(LOGGING_CONFIGURATION, LoadTest.class);
+            LogManager.getLogManager().readConfiguration(inputStream);
+            inputStream.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.runa.wfe.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.definition.DefinitionDoesNotExistException;
+import ru.runa.wfe.definition.IFileDataProvider;
+import ru.runa.wfe.definition.logic.DefinitionLogic;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Process archives used by scenarios. Archive files are stored in <code>ru/runa/wfe/loadtest/definition/{template}</code> resources,
+ * <code>@name@</code> placeholder is replaced by process definition name.
+ *
+ * @since 4.3.0
+ */
+public class LoadTestDefinitions {
+    public static final String TASK = "task";
+    public static final String TIMER = "timer";
+    public static final String MESSAGE = "message";
+    private static final String NAME_PLACEHOLDER = "@name@";
+    private static final String RESOURCE_PATH = "ru/runa/wfe/loadtest/definition/";
+    private static final String[] FILE_NAMES = { IFileDataProvider.PROCESSDEFINITION_XML_FILE_NAME, IFileDataProvider.VARIABLES_XML_FILE_NAME,
+            IFileDataProvider.GPD_XML_FILE_NAME };
+    private static final List<String> CATEGORIES = Lists.newArrayList("loadtest");
+
+    /**
+     * @return name of definition which is deployed once and reused by scenarios
+     */
+    public static String getDefinitionName(String template) {
+        return "loadtest-" + template;
+    }
+
+    public static byte[] createArchive(String template, String definitionName) {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+            for (String fileName : FILE_NAMES) {
+                InputStream inputStream = ClassLoaderUtil.getAsStreamNotNull(RESOURCE_PATH + template + "/" + fileName, LoadTestDefinitions.class);
+                String content = new String(ByteStreams.toByteArray(inputStream), Charsets.UTF_8);
+                inputStream.close();
+                zipOutputStream.putNextEntry(new ZipEntry(fileName));
+                zipOutputStream.write(content.replace(NAME_PLACEHOLDER, definitionName).getBytes(Charsets.UTF_8));
+                zipOutputStream.closeEntry();
+            }
+            zipOutputStream.close();
+            return outputStream.toByteArray();
+        } catch (IOException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    /**
+     * @return categories of deployed definitions
+     */
+    public static List<String> getCategories() {
+        return CATEGORIES;
+    }
+
+    /**
+     * Deploys definition by template if it is not deployed yet (database can be reused between runs).
+     *
+     * @return definition name
+     */
+    public static String deployIfNotExists(final String template) {
+        final String definitionName = getDefinitionName(template);
+        new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                DefinitionLogic definitionLogic = LoadTestEnvironment.getBean(DefinitionLogic.class);
+                try {
+                    definitionLogic.getLatestProcessDefinition(LoadTestEnvironment.getAdministrator(), definitionName);
+                } catch (DefinitionDoesNotExistException e) {
+                    definitionLogic.deployProcessDefinition(LoadTestEnvironment.getAdministrator(), createArchive(template, definitionName),
+                            CATEGORIES);
+                }
+            }
+        }.executeInTransaction(true);
+        return definitionName;
+    }
+}
@@ -0,0 +1,139 @@
+package ru.runa.wfe.loadtest;
+
+import java.util.List;
+
+import javax.naming.NamingException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.jndi.SimpleNamingContextBuilder;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.commons.logic.InitializerLogic;
+import ru.runa.wfe.security.logic.AuthenticationLogic;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.user.logic.ExecutorLogic;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Core context running outside of application server: embedded H2 database, {@link LocalTransactionManager} and JNDI names bound in memory
+ * before context creation. JMS and periodic tasks are not available, see <code>wfe.custom.system.context.xml</code>.
+ *
+ * @since 4.3.0
+ */
+public class LoadTestEnvironment {
+    private static final Log log = LogFactory.getLog(LoadTestEnvironment.class);
+    public static final String DATA_SOURCE_JNDI_NAME = "java:/runawfe-loadtest-ds";
+    public static final String USER_TRANSACTION_JNDI_NAME = "java:comp/UserTransaction";
+    public static final String TRANSACTION_MANAGER_JNDI_NAME = "java:/TransactionManager";
+    private static final String ACTOR_NAME_PREFIX = "loadtest-actor-";
+    private static final String ACTOR_PASSWORD = "loadtest";
+
+    private static JdbcConnectionPool connectionPool;
+    private static LocalTransactionManager transactionManager;
+    private static User administrator;
+
+    /**
+     * Creates core context and initializes database.
+     *
+     * @param jdbcUrl
+     *            H2 database url, database is created on first start
+     * @param maxConnections
+     *            connection pool size, should exceed threads count
+     */
+    public static synchronized void start(String jdbcUrl, int maxConnections) throws NamingException {
+        if (transactionManager != null) {
+            throw new IllegalStateException("Environment is already started");
+        }
+        connectionPool = JdbcConnectionPool.create(jdbcUrl, "sa", "");
+        connectionPool.setMaxConnections(maxConnections);
+        transactionManager = new LocalTransactionManager(connectionPool);
+        SimpleNamingContextBuilder builder = new SimpleNamingContextBuilder();
+        builder.bind(DATA_SOURCE_JNDI_NAME, transactionManager);
+        builder.bind(USER_TRANSACTION_JNDI_NAME, transactionManager);
+        builder.bind(TRANSACTION_MANAGER_JNDI_NAME, transactionManager);
+        builder.activate();
+        long start = System.currentTimeMillis();
+        getBean(InitializerLogic.class).onStartup(transactionManager);
+        new TransactionalExecutor(transactionManager) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                administrator = getBean(AuthenticationLogic.class).authenticate(SystemProperties.getAdministratorName(),
+                        SystemProperties.getAdministratorDefaultPassword());
+            }
+        }.executeInTransaction(true);
+        log.info("Environment started in " + (System.currentTimeMillis() - start) + " ms using " + jdbcUrl);
+    }
+
+    public static synchronized void stop() {
+        if (ApplicationContextFactory.isContextInitialized()) {
+            ((ConfigurableApplicationContext) ApplicationContextFactory.getContext()).close();
+        }
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    public static LocalTransactionManager getTransactionManager() {
+        if (transactionManager == null) {
+            throw new IllegalStateException("Environment is not started");
+        }
+        return transactionManager;
+    }
+
+    public static <T> T getBean(Class<T> beanClass) {
+        return ApplicationContextFactory.getContext().getBean(beanClass);
+    }
+
+    public static Statistics getStatistics() {
+        return ApplicationContextFactory.getSessionFactory().getStatistics();
+    }
+
+    public static User getAdministrator() {
+        return administrator;
+    }
+
+    public static String getActorName(int index) {
+        return ACTOR_NAME_PREFIX + index;
+    }
+
+    /**
+     * Creates missing actors and authenticates them.
+     */
+    public static List<User> getActors(final int count) {
+        final List<User> users = Lists.newArrayListWithCapacity(count);
+        new TransactionalExecutor(transactionManager) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                ExecutorLogic executorLogic = getBean(ExecutorLogic.class);
+                for (int i = 0; i < count; i++) {
+                    String name = getActorName(i);
+                    if (!executorLogic.isExecutorExist(administrator, name)) {
+                        Actor actor = executorLogic.create(administrator, new Actor(name, "Load test actor"));
+                        executorLogic.setPassword(administrator, actor, ACTOR_PASSWORD);
+                    }
+                }
+            }
+        }.executeInTransaction(true);
+        new TransactionalExecutor(transactionManager) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                AuthenticationLogic authenticationLogic = getBean(AuthenticationLogic.class);
+                for (int i = 0; i < count; i++) {
+                    users.add(authenticationLogic.authenticate(getActorName(i), ACTOR_PASSWORD));
+                }
+            }
+        }.executeInTransaction(true);
+        return users;
+    }
+}
@@ -0,0 +1,121 @@
+package ru.runa.wfe.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Load test parameters given as <code>name=value</code> command line arguments.
+ *
+ * @since 4.3.0
+ */
+public class LoadTestSettings {
+    public static final String USAGE = "Arguments (name=value):\n" + "  threads         concurrent threads, default 4\n"
+            + "  processes       processes count for start, timers and messages scenarios, default 200\n"
+            + "  actors          actors count, tasks are distributed evenly, default 20\n"
+            + "  deployments     definitions count for deploy scenario, default 10\n"
+            + "  taskListRounds  task list requests per actor in tasks scenario, default 5\n"
+            + "  rounds          repeat count of all scenarios, first round warms up JVM, default 1\n"
+            + "  scenarios       comma separated list of deploy, start, tasks, complete, timers, messages; default all\n"
+            + "                  (tasks and complete use processes created by start)\n"
+            + "  jdbcUrl         H2 database url, default in-memory database";
+    private static final List<String> SCENARIOS = Lists.newArrayList("deploy", "start", "tasks", "complete", "timers", "messages");
+    private int threads = 4;
+    private int processes = 200;
+    private int actors = 20;
+    private int deployments = 10;
+    private int taskListRounds = 5;
+    private int rounds = 1;
+    private List<String> scenarios = SCENARIOS;
+    private String jdbcUrl = "jdbc:h2:mem:runawfe;DB_CLOSE_DELAY=-1;MVCC=TRUE;LOCK_TIMEOUT=30000";
+
+    public static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = Maps.newHashMap();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index <= 0) {
+                throw new IllegalArgumentException("Invalid argument '" + arg + "'\n" + USAGE);
+            }
+            values.put(arg.substring(0, index), arg.substring(index + 1));
+        }
+        LoadTestSettings settings = new LoadTestSettings();
+        settings.threads = getInt(values, "threads", settings.threads);
+        settings.processes = getInt(values, "processes", settings.processes);
+        settings.actors = getInt(values, "actors", settings.actors);
+        settings.deployments = getInt(values, "deployments", settings.deployments);
+        settings.taskListRounds = getInt(values, "taskListRounds", settings.taskListRounds);
+        settings.rounds = getInt(values, "rounds", settings.rounds);
+        String scenarios = values.remove("scenarios");
+        if (scenarios != null) {
+            settings.scenarios = Lists.newArrayList(Splitter.on(',').trimResults().omitEmptyStrings().split(scenarios));
+            for (String scenario : settings.scenarios) {
+                if (!SCENARIOS.contains(scenario)) {
+                    throw new IllegalArgumentException("Unknown scenario '" + scenario + "'\n" + USAGE);
+                }
+            }
+        }
+        String jdbcUrl = values.remove("jdbcUrl");
+        if (jdbcUrl != null) {
+            settings.jdbcUrl = jdbcUrl;
+        }
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown arguments " + values.keySet() + "\n" + USAGE);
+        }
+        return settings;
+    }
+
+    private static int getInt(Map<String, String> values, String name, int defaultValue) {
+        String value = values.remove(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int result = Integer.parseInt(value);
+        if (result <= 0) {
+            throw new IllegalArgumentException("Positive value expected for '" + name + "'");
+        }
+        return result;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getProcesses() {
+        return processes;
+    }
+
+    public int getActors() {
+        return actors;
+    }
+
+    public int getDeployments() {
+        return deployments;
+    }
+
+    public int getTaskListRounds() {
+        return taskListRounds;
+    }
+
+    public int getRounds() {
+        return rounds;
+    }
+
+    public List<String> getScenarios() {
+        return scenarios;
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(this).add("threads", threads).add("processes", processes).add("actors", actors)
+                .add("deployments", deployments).add("taskListRounds", taskListRounds).add("rounds", rounds).add("scenarios", scenarios)
+                .add("jdbcUrl", jdbcUrl).toString();
+    }
+}
@@ -0,0 +1,202 @@
+package ru.runa.wfe.loadtest;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.xa.XAResource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.google.common.collect.Lists;
+
+/**
+ * JTA transaction over single JDBC connection. Connection is opened on first request and shared by all statements of transaction.
+ *
+ * @since 4.3.0
+ */
+public class LocalTransaction implements Transaction {
+    private static final Log log = LogFactory.getLog(LocalTransaction.class);
+    private final DataSource dataSource;
+    private final List<Synchronization> synchronizations = Lists.newArrayList();
+    private int status = Status.STATUS_ACTIVE;
+    private Connection connection;
+    private Connection connectionProxy;
+
+    public LocalTransaction(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return connection bound to this transaction, its <code>close</code> method is ignored
+     */
+    public Connection getConnection() throws SQLException {
+        if (status != Status.STATUS_ACTIVE && status != Status.STATUS_MARKED_ROLLBACK && status != Status.STATUS_PREPARING) {
+            throw new SQLException("Transaction is completed: " + this);
+        }
+        if (connection == null) {
+            connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            connectionProxy = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class },
+                    new NotClosingConnectionHandler(connection));
+        }
+        return connectionProxy;
+    }
+
+    @Override
+    public void commit() throws RollbackException, SystemException {
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            rollback();
+            throw new RollbackException("Transaction is marked for rollback");
+        }
+        checkActive();
+        status = Status.STATUS_PREPARING;
+        try {
+            // list can grow during iteration
+            for (int i = 0; i < synchronizations.size(); i++) {
+                synchronizations.get(i).beforeCompletion();
+            }
+        } catch (RuntimeException e) {
+            rollback();
+            RollbackException rollbackException = new RollbackException("Transaction is rolled back due to synchronization error");
+            rollbackException.initCause(e);
+            throw rollbackException;
+        }
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            rollback();
+            throw new RollbackException("Transaction is marked for rollback during completion");
+        }
+        status = Status.STATUS_COMMITTING;
+        if (connection != null) {
+            try {
+                connection.commit();
+            } catch (SQLException e) {
+                rollback();
+                RollbackException rollbackException = new RollbackException("Commit failed");
+                rollbackException.initCause(e);
+                throw rollbackException;
+            }
+        }
+        status = Status.STATUS_COMMITTED;
+        complete();
+    }
+
+    @Override
+    public void rollback() throws SystemException {
+        if (status == Status.STATUS_COMMITTED || status == Status.STATUS_ROLLEDBACK) {
+            throw new IllegalStateException("Transaction is completed: " + this);
+        }
+        status = Status.STATUS_ROLLING_BACK;
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                log.warn("Rollback failed", e);
+            }
+        }
+        status = Status.STATUS_ROLLEDBACK;
+        complete();
+    }
+
+    private void complete() {
+        for (Synchronization synchronization : synchronizations) {
+            try {
+                synchronization.afterCompletion(status);
+            } catch (RuntimeException e) {
+                log.warn("Synchronization " + synchronization + " failed", e);
+            }
+        }
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException e) {
+                log.warn("Unable to release connection", e);
+            }
+            connection = null;
+            connectionProxy = null;
+        }
+    }
+
+    @Override
+    public void setRollbackOnly() {
+        checkActive();
+        status = Status.STATUS_MARKED_ROLLBACK;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void registerSynchronization(Synchronization synchronization) throws RollbackException {
+        if (status == Status.STATUS_MARKED_ROLLBACK) {
+            throw new RollbackException("Transaction is marked for rollback");
+        }
+        checkActive();
+        synchronizations.add(synchronization);
+    }
+
+    @Override
+    public boolean enlistResource(XAResource resource) throws SystemException {
+        throw new SystemException("XA resources are not supported");
+    }
+
+    @Override
+    public boolean delistResource(XAResource resource, int flag) throws SystemException {
+        throw new SystemException("XA resources are not supported");
+    }
+
+    private void checkActive() {
+        if (status != Status.STATUS_ACTIVE && status != Status.STATUS_PREPARING) {
+            throw new IllegalStateException("Transaction is not active: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()) + "[status=" + status + "]";
+    }
+
+    private static class NotClosingConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        public NotClosingConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return false;
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
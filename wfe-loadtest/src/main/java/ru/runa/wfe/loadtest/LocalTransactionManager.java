@@ -0,0 +1,162 @@
+package ru.runa.wfe.loadtest;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+import javax.transaction.HeuristicMixedException;
+import javax.transaction.HeuristicRollbackException;
+import javax.transaction.InvalidTransactionException;
+import javax.transaction.NotSupportedException;
+import javax.transaction.RollbackException;
+import javax.transaction.Status;
+import javax.transaction.SystemException;
+import javax.transaction.Transaction;
+import javax.transaction.TransactionManager;
+import javax.transaction.UserTransaction;
+
+/**
+ * Minimal JTA transaction manager for running core without application server: transactions are bound to thread and use single JDBC
+ * connection, XA and nested transactions are not supported. Instance serves also as {@link DataSource} for Hibernate, connection requested
+ * in transaction is its bound connection.
+ *
+ * @since 4.3.0
+ */
+public class LocalTransactionManager implements TransactionManager, UserTransaction, DataSource {
+    private final DataSource dataSource;
+    private final ThreadLocal<LocalTransaction> transactions = new ThreadLocal<LocalTransaction>();
+
+    public LocalTransactionManager(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void begin() throws NotSupportedException {
+        if (transactions.get() != null) {
+            throw new NotSupportedException("Nested transactions are not supported");
+        }
+        transactions.set(new LocalTransaction(dataSource));
+    }
+
+    @Override
+    public void commit() throws RollbackException, HeuristicMixedException, HeuristicRollbackException, SystemException {
+        LocalTransaction transaction = getTransactionNotNull();
+        try {
+            transaction.commit();
+        } finally {
+            transactions.remove();
+        }
+    }
+
+    @Override
+    public void rollback() throws SystemException {
+        LocalTransaction transaction = getTransactionNotNull();
+        try {
+            transaction.rollback();
+        } finally {
+            transactions.remove();
+        }
+    }
+
+    @Override
+    public void setRollbackOnly() throws SystemException {
+        getTransactionNotNull().setRollbackOnly();
+    }
+
+    @Override
+    public int getStatus() {
+        LocalTransaction transaction = transactions.get();
+        return transaction != null ? transaction.getStatus() : Status.STATUS_NO_TRANSACTION;
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        return transactions.get();
+    }
+
+    @Override
+    public void setTransactionTimeout(int seconds) {
+        // timeouts are not supported
+    }
+
+    @Override
+    public Transaction suspend() {
+        LocalTransaction transaction = transactions.get();
+        transactions.remove();
+        return transaction;
+    }
+
+    @Override
+    public void resume(Transaction transaction) throws InvalidTransactionException {
+        if (transactions.get() != null) {
+            throw new IllegalStateException("Thread is already associated with transaction");
+        }
+        if (!(transaction instanceof LocalTransaction)) {
+            throw new InvalidTransactionException(String.valueOf(transaction));
+        }
+        transactions.set((LocalTransaction) transaction);
+    }
+
+    private LocalTransaction getTransactionNotNull() {
+        LocalTransaction transaction = transactions.get();
+        if (transaction == null) {
+            throw new IllegalStateException("No transaction associated with thread");
+        }
+        return transaction;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        LocalTransaction transaction = transactions.get();
+        if (transaction != null) {
+            return transaction.getConnection();
+        }
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    // since java 7
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        return dataSource.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+}
@@ -0,0 +1,26 @@
+package ru.runa.wfe.loadtest;
+
+import java.util.Properties;
+
+import javax.transaction.TransactionManager;
+
+import org.hibernate.HibernateException;
+import org.hibernate.transaction.TransactionManagerLookup;
+
+/**
+ * Hibernate lookup of {@link LocalTransactionManager} bound by {@link LoadTestEnvironment}.
+ *
+ * @since 4.3.0
+ */
+public class LocalTransactionManagerLookup implements TransactionManagerLookup {
+
+    @Override
+    public TransactionManager getTransactionManager(Properties props) throws HibernateException {
+        return LoadTestEnvironment.getTransactionManager();
+    }
+
+    @Override
+    public String getUserTransactionName() {
+        return LoadTestEnvironment.USER_TRANSACTION_JNDI_NAME;
+    }
+}
@@ -0,0 +1,41 @@
+package ru.runa.wfe.loadtest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Load test scenario: set of similar operations executed concurrently by {@link ScenarioRunner}.
+ *
+ * @since 4.3.0
+ */
+public abstract class Scenario {
+    protected final Log log = LogFactory.getLog(getClass());
+
+    /**
+     * @return name used in options and report
+     */
+    public abstract String getName();
+
+    /**
+     * Prepares data for operations, not measured.
+     *
+     * @return operations count
+     */
+    public abstract int prepare() throws Exception;
+
+    /**
+     * Executes operation, invoked concurrently.
+     *
+     * @param index
+     *            operation index, 0..operations count
+     */
+    public abstract void execute(int index) throws Exception;
+
+    /**
+     * @return <code>true</code> if operation is executed in transaction started by runner (as service call), otherwise operation manages
+     *         transactions itself
+     */
+    public boolean isTransactional() {
+        return true;
+    }
+}
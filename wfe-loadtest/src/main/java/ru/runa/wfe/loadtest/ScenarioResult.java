@@ -0,0 +1,67 @@
+package ru.runa.wfe.loadtest;
+
+import ru.runa.wfe.commons.metrics.MethodMetrics;
+
+/**
+ * Scenario operations latency and database access statistics.
+ *
+ * @since 4.3.0
+ */
+public class ScenarioResult {
+    private final MethodMetrics metrics;
+    private final long periodMillis;
+    private final long statementsCount;
+    private final long queriesCount;
+    private final long entityLoadsCount;
+
+    public ScenarioResult(MethodMetrics metrics, long periodMillis, long statementsCount, long queriesCount, long entityLoadsCount) {
+        this.metrics = metrics;
+        this.periodMillis = periodMillis;
+        this.statementsCount = statementsCount;
+        this.queriesCount = queriesCount;
+        this.entityLoadsCount = entityLoadsCount;
+    }
+
+    public MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+
+    /**
+     * @return prepared JDBC statements count
+     */
+    public long getStatementsCount() {
+        return statementsCount;
+    }
+
+    /**
+     * @return HQL and SQL queries count
+     */
+    public long getQueriesCount() {
+        return queriesCount;
+    }
+
+    public long getEntityLoadsCount() {
+        return entityLoadsCount;
+    }
+
+    public double getStatementsPerOperation() {
+        return metrics.getCallsCount() > 0 ? (double) statementsCount / metrics.getCallsCount() : 0;
+    }
+
+    public static String getHeader() {
+        return String.format("%-10s %7s %6s %9s %9s %8s %8s %8s %8s %8s %9s %7s %8s %9s", "scenario", "ops", "errors", "time,ms", "ops/s",
+                "mean,ms", "p50,ms", "p90,ms", "p99,ms", "max,ms", "sql", "sql/op", "queries", "loads");
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-10s %7d %6d %9d %9.1f %8.2f %8.2f %8.2f %8.2f %8.2f %9d %7.1f %8d %9d", metrics.getName(),
+                metrics.getCallsCount(), metrics.getErrorsCount(), periodMillis, metrics.getThroughput(), metrics.getMeanTime(),
+                metrics.getPercentileTime(50), metrics.getPercentileTime(90), metrics.getPercentileTime(99), metrics.getMaxTime(),
+                statementsCount, getStatementsPerOperation(), queriesCount, entityLoadsCount);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.runa.wfe.loadtest;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.stat.Statistics;
+
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.commons.metrics.LatencyHistogram;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
+
+/**
+ * Executes scenario operations in fixed threads pool and collects latency histogram and Hibernate statistics.
+ *
+ * @since 4.3.0
+ */
+public class ScenarioRunner {
+    private static final Log log = LogFactory.getLog(ScenarioRunner.class);
+    private static final int LOGGED_ERRORS_LIMIT = 10;
+    private final int threadsCount;
+
+    public ScenarioRunner(int threadsCount) {
+        this.threadsCount = threadsCount;
+    }
+
+    public ScenarioResult run(final Scenario scenario) throws Exception {
+        log.info("Preparing " + scenario.getName());
+        final int operationsCount = scenario.prepare();
+        log.info("Running " + scenario.getName() + ": " + operationsCount + " operations in " + threadsCount + " threads");
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final AtomicLong errorsCount = new AtomicLong();
+        Statistics statistics = LoadTestEnvironment.getStatistics();
+        statistics.clear();
+        ExecutorService executorService = Executors.newFixedThreadPool(threadsCount);
+        long start = System.nanoTime();
+        for (int i = 0; i < threadsCount; i++) {
+            executorService.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    int index;
+                    while ((index = nextIndex.getAndIncrement()) < operationsCount) {
+                        long operationStart = System.nanoTime();
+                        try {
+                            execute(scenario, index);
+                        } catch (Throwable th) {
+                            if (errorsCount.incrementAndGet() <= LOGGED_ERRORS_LIMIT) {
+                                log.error(scenario.getName() + " operation " + index + " failed", th);
+                            }
+                        }
+                        histogram.record((System.nanoTime() - operationStart) / 1000);
+                    }
+                }
+            });
+        }
+        executorService.shutdown();
+        executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        long periodMillis = (System.nanoTime() - start) / 1000000;
+        MethodMetrics metrics = new MethodMetrics(scenario.getName(), periodMillis, histogram, errorsCount.get());
+        return new ScenarioResult(metrics, periodMillis, statistics.getPrepareStatementCount(), statistics.getQueryExecutionCount(),
+                statistics.getEntityLoadCount());
+    }
+
+    private void execute(final Scenario scenario, final int index) throws Exception {
+        if (!scenario.isTransactional()) {
+            scenario.execute(index);
+            return;
+        }
+        new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+            @Override
+            protected void doExecuteInTransaction() throws Exception {
+                scenario.execute(index);
+            }
+        }.executeInTransaction(true);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import java.util.List;
+
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.loadtest.LoadTestDefinitions;
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.task.dto.WfTask;
+import ru.runa.wfe.task.logic.TaskLogic;
+import ru.runa.wfe.user.User;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Completes all tasks of single task processes assigned to actors, completion finishes process.
+ *
+ * @since 4.3.0
+ */
+public class CompleteTaskScenario extends Scenario {
+    private final List<User> actors;
+    private final List<User> taskActors = Lists.newArrayList();
+    private final List<Long> taskIds = Lists.newArrayList();
+
+    public CompleteTaskScenario(List<User> actors) {
+        this.actors = actors;
+    }
+
+    @Override
+    public String getName() {
+        return "complete";
+    }
+
+    @Override
+    public int prepare() {
+        taskActors.clear();
+        taskIds.clear();
+        final String definitionName = LoadTestDefinitions.getDefinitionName(LoadTestDefinitions.TASK);
+        new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                TaskLogic taskLogic = LoadTestEnvironment.getBean(TaskLogic.class);
+                for (User actor : actors) {
+                    for (WfTask task : taskLogic.getMyTasks(actor, BatchPresentationFactory.TASKS.createNonPaged())) {
+                        if (definitionName.equals(task.getDefinitionName())) {
+                            taskActors.add(actor);
+                            taskIds.add(task.getId());
+                        }
+                    }
+                }
+            }
+        }.executeInTransaction(true);
+        return taskIds.size();
+    }
+
+    @Override
+    public void execute(int index) {
+        LoadTestEnvironment.getBean(TaskLogic.class).completeTask(taskActors.get(index), taskIds.get(index), null, null);
+    }
+}
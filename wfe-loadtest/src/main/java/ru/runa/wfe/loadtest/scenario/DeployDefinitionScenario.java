@@ -0,0 +1,41 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import ru.runa.wfe.definition.logic.DefinitionLogic;
+import ru.runa.wfe.loadtest.LoadTestDefinitions;
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+
+/**
+ * Deploys new process definitions: archive parsing, definition and permissions persisting.
+ *
+ * @since 4.3.0
+ */
+public class DeployDefinitionScenario extends Scenario {
+    private final int deploymentsCount;
+    private byte[][] archives;
+
+    public DeployDefinitionScenario(int deploymentsCount) {
+        this.deploymentsCount = deploymentsCount;
+    }
+
+    @Override
+    public String getName() {
+        return "deploy";
+    }
+
+    @Override
+    public int prepare() {
+        String prefix = LoadTestDefinitions.getDefinitionName(LoadTestDefinitions.TASK) + "-" + System.currentTimeMillis() + "-";
+        archives = new byte[deploymentsCount][];
+        for (int i = 0; i < deploymentsCount; i++) {
+            archives[i] = LoadTestDefinitions.createArchive(LoadTestDefinitions.TASK, prefix + i);
+        }
+        return deploymentsCount;
+    }
+
+    @Override
+    public void execute(int index) {
+        LoadTestEnvironment.getBean(DefinitionLogic.class).deployProcessDefinition(LoadTestEnvironment.getAdministrator(), archives[index],
+                LoadTestDefinitions.getCategories());
+    }
+}
@@ -0,0 +1,70 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import java.util.List;
+
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.job.Job;
+import ru.runa.wfe.job.dao.JobDAO;
+import ru.runa.wfe.job.impl.JobTransactionalExecutor;
+import ru.runa.wfe.loadtest.LoadTestDefinitions;
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Fires expired timers which cancel tasks and finish processes. Jobs are executed as by job executor periodic task, which is disabled in load
+ * test environment.
+ *
+ * @since 4.3.0
+ */
+public class FireTimerScenario extends Scenario {
+    /**
+     * Timer due date in definition template plus reserve.
+     */
+    private static final long TIMER_WAIT_MILLIS = 1500;
+    private final int processesCount;
+    private final int actorsCount;
+    private final List<Long> jobIds = Lists.newArrayList();
+
+    public FireTimerScenario(int processesCount, int actorsCount) {
+        this.processesCount = processesCount;
+        this.actorsCount = actorsCount;
+    }
+
+    @Override
+    public String getName() {
+        return "timers";
+    }
+
+    @Override
+    public int prepare() throws InterruptedException {
+        String definitionName = LoadTestDefinitions.deployIfNotExists(LoadTestDefinitions.TIMER);
+        StartProcessScenario.startProcesses(definitionName, processesCount, actorsCount);
+        Thread.sleep(TIMER_WAIT_MILLIS);
+        jobIds.clear();
+        new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                for (Job job : LoadTestEnvironment.getBean(JobDAO.class).getExpiredJobs()) {
+                    jobIds.add(job.getId());
+                }
+            }
+        }.executeInTransaction(true);
+        return jobIds.size();
+    }
+
+    @Override
+    public void execute(int index) {
+        JobTransactionalExecutor transactionalExecutor = ApplicationContextFactory.createAutowiredBean(JobTransactionalExecutor.class);
+        transactionalExecutor.setJobId(jobIds.get(index));
+        transactionalExecutor.executeInTransaction(true);
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+}
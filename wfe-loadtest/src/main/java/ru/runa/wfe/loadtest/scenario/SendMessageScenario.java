@@ -0,0 +1,131 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import java.util.List;
+import java.util.Map;
+
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.audit.ReceiveMessageLog;
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.commons.TypeConversionUtil;
+import ru.runa.wfe.commons.ftl.ExpressionEvaluator;
+import ru.runa.wfe.definition.dao.IProcessDefinitionLoader;
+import ru.runa.wfe.execution.ExecutionContext;
+import ru.runa.wfe.execution.Token;
+import ru.runa.wfe.execution.dao.TokenDAO;
+import ru.runa.wfe.lang.NodeType;
+import ru.runa.wfe.lang.ProcessDefinition;
+import ru.runa.wfe.lang.ReceiveMessageNode;
+import ru.runa.wfe.loadtest.LoadTestDefinitions;
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+import ru.runa.wfe.var.VariableMapping;
+import ru.runa.wfe.var.dto.Variables;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Delivers message to each process waiting in receive message node. JMS is not available in load test environment, so message is handled
+ * directly in the same way as <code>ReceiveMessageBean</code> does: receivers are searched among all active receive message tokens in
+ * one transaction, each receiver handles message in separate transaction.
+ *
+ * @since 4.3.0
+ */
+public class SendMessageScenario extends Scenario {
+    private static final String SELECTOR_NAME = "processId";
+    private static final String DATA_NAME = "reply";
+    private final int processesCount;
+    private final int actorsCount;
+    private List<Long> processIds;
+
+    public SendMessageScenario(int processesCount, int actorsCount) {
+        this.processesCount = processesCount;
+        this.actorsCount = actorsCount;
+    }
+
+    @Override
+    public String getName() {
+        return "messages";
+    }
+
+    @Override
+    public int prepare() {
+        String definitionName = LoadTestDefinitions.deployIfNotExists(LoadTestDefinitions.MESSAGE);
+        processIds = StartProcessScenario.startProcesses(definitionName, processesCount, actorsCount);
+        return processIds.size();
+    }
+
+    @Override
+    public void execute(int index) {
+        final Map<String, String> selectors = Maps.newHashMap();
+        selectors.put(SELECTOR_NAME, String.valueOf(processIds.get(index)));
+        final Map<String, Object> data = Maps.newHashMap();
+        data.put(DATA_NAME, "reply to " + processIds.get(index));
+        final String message = "selectors=" + selectors + ", data=" + data;
+        final List<Long> tokenIds = Lists.newArrayList();
+        new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+            @Override
+            protected void doExecuteInTransaction() {
+                IProcessDefinitionLoader processDefinitionLoader = LoadTestEnvironment.getBean(IProcessDefinitionLoader.class);
+                for (Token token : LoadTestEnvironment.getBean(TokenDAO.class).findActiveTokens(NodeType.RECEIVE_MESSAGE)) {
+                    ProcessDefinition processDefinition = processDefinitionLoader.getDefinition(token.getProcess().getDeployment().getId());
+                    ReceiveMessageNode receiveMessageNode = (ReceiveMessageNode) token.getNodeNotNull(processDefinition);
+                    if (isSuitable(new ExecutionContext(processDefinition, token), receiveMessageNode, selectors)) {
+                        tokenIds.add(token.getId());
+                    }
+                }
+            }
+        }.executeInTransaction(true);
+        if (tokenIds.isEmpty()) {
+            throw new InternalApplicationException("No receivers found for " + message);
+        }
+        for (final Long tokenId : tokenIds) {
+            new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+                @Override
+                protected void doExecuteInTransaction() {
+                    Token token = LoadTestEnvironment.getBean(TokenDAO.class).getNotNull(tokenId);
+                    ProcessDefinition processDefinition = LoadTestEnvironment.getBean(IProcessDefinitionLoader.class).getDefinition(
+                            token.getProcess().getDeployment().getId());
+                    ReceiveMessageNode receiveMessageNode = (ReceiveMessageNode) token.getNodeNotNull(processDefinition);
+                    ExecutionContext executionContext = new ExecutionContext(processDefinition, token);
+                    executionContext.addLog(new ReceiveMessageLog(receiveMessageNode, message));
+                    for (VariableMapping variableMapping : receiveMessageNode.getVariableMappings()) {
+                        if (!variableMapping.isPropertySelector() && data.containsKey(variableMapping.getMappedName())) {
+                            executionContext.setVariableValue(variableMapping.getName(), data.get(variableMapping.getMappedName()));
+                        }
+                    }
+                    receiveMessageNode.leave(executionContext);
+                }
+            }.executeInTransaction(true);
+        }
+    }
+
+    private boolean isSuitable(ExecutionContext executionContext, ReceiveMessageNode receiveMessageNode, Map<String, String> selectors) {
+        for (VariableMapping mapping : receiveMessageNode.getVariableMappings()) {
+            if (mapping.isPropertySelector()) {
+                String testValue = mapping.getMappedName();
+                String expectedValue;
+                if (Variables.CURRENT_PROCESS_ID_WRAPPED.equals(testValue)) {
+                    expectedValue = String.valueOf(executionContext.getProcess().getId());
+                } else if (Variables.CURRENT_NODE_ID_WRAPPED.equals(testValue)) {
+                    expectedValue = receiveMessageNode.getNodeId();
+                } else {
+                    Object value = ExpressionEvaluator.evaluateVariable(executionContext.getVariableProvider(), testValue);
+                    expectedValue = TypeConversionUtil.convertTo(String.class, value);
+                }
+                if (!Objects.equal(expectedValue, selectors.get(mapping.getName()))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import java.util.List;
+import java.util.Map;
+
+import ru.runa.wfe.commons.TransactionalExecutor;
+import ru.runa.wfe.execution.logic.ExecutionLogic;
+import ru.runa.wfe.loadtest.LoadTestDefinitions;
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Starts processes with single task, performers are taken from actors by turn.
+ *
+ * @since 4.3.0
+ */
+public class StartProcessScenario extends Scenario {
+    /**
+     * Swimlane of definition templates which is assigned on process start.
+     */
+    public static final String PERFORMER_SWIMLANE = "performer";
+    private static final int PREPARE_BATCH_SIZE = 50;
+    private final int processesCount;
+    private final int actorsCount;
+    private String definitionName;
+
+    public StartProcessScenario(int processesCount, int actorsCount) {
+        this.processesCount = processesCount;
+        this.actorsCount = actorsCount;
+    }
+
+    @Override
+    public String getName() {
+        return "start";
+    }
+
+    @Override
+    public int prepare() {
+        definitionName = LoadTestDefinitions.deployIfNotExists(LoadTestDefinitions.TASK);
+        return processesCount;
+    }
+
+    @Override
+    public void execute(int index) {
+        startProcess(definitionName, index % actorsCount);
+    }
+
+    /**
+     * Starts process, must be called in transaction.
+     *
+     * @return process id
+     */
+    public static Long startProcess(String definitionName, int actorIndex) {
+        Map<String, Object> variables = Maps.newHashMap();
+        variables.put(PERFORMER_SWIMLANE, LoadTestEnvironment.getActorName(actorIndex));
+        return LoadTestEnvironment.getBean(ExecutionLogic.class).startProcess(LoadTestEnvironment.getAdministrator(), definitionName, variables);
+    }
+
+    /**
+     * Starts processes for scenario data preparation, several processes per transaction.
+     *
+     * @return processes ids
+     */
+    public static List<Long> startProcesses(final String definitionName, final int processesCount, final int actorsCount) {
+        final List<Long> processIds = Lists.newArrayListWithCapacity(processesCount);
+        while (processIds.size() < processesCount) {
+            new TransactionalExecutor(LoadTestEnvironment.getTransactionManager()) {
+
+                @Override
+                protected void doExecuteInTransaction() {
+                    int last = Math.min(processIds.size() + PREPARE_BATCH_SIZE, processesCount);
+                    for (int i = processIds.size(); i < last; i++) {
+                        processIds.add(startProcess(definitionName, i % actorsCount));
+                    }
+                }
+            }.executeInTransaction(true);
+        }
+        return processIds;
+    }
+}
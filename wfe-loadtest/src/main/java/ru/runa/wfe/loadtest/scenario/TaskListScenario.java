@@ -0,0 +1,40 @@
+package ru.runa.wfe.loadtest.scenario;
+
+import java.util.List;
+
+import ru.runa.wfe.loadtest.LoadTestEnvironment;
+import ru.runa.wfe.loadtest.Scenario;
+import ru.runa.wfe.presentation.BatchPresentationFactory;
+import ru.runa.wfe.task.logic.TaskLogic;
+import ru.runa.wfe.user.User;
+
+/**
+ * Requests task lists of actors with default presentation as web interface does.
+ *
+ * @since 4.3.0
+ */
+public class TaskListScenario extends Scenario {
+    private final List<User> actors;
+    private final int rounds;
+
+    public TaskListScenario(List<User> actors, int rounds) {
+        this.actors = actors;
+        this.rounds = rounds;
+    }
+
+    @Override
+    public String getName() {
+        return "tasks";
+    }
+
+    @Override
+    public int prepare() {
+        return actors.size() * rounds;
+    }
+
+    @Override
+    public void execute(int index) {
+        User actor = actors.get(index % actors.size());
+        LoadTestEnvironment.getBean(TaskLogic.class).getMyTasks(actor, BatchPresentationFactory.TASKS.createDefault());
+    }
+}
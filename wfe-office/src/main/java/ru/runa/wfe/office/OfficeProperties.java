@@ -13,4 +13,16 @@ public class OfficeProperties {
         return RESOURCES.getStringProperty("docx.placeholder.end", "}");
     }
 
+    public static int getDocxTemplateCacheSize() {
+        return RESOURCES.getIntegerProperty("docx.template.cache.size", 50);
+    }
+
+    public static boolean isExcelStreamingEnabled() {
+        return RESOURCES.getBooleanProperty("excel.streaming.enabled", true);
+    }
+
+    public static int getExcelStreamingWindowSize() {
+        return RESOURCES.getIntegerProperty("excel.streaming.window.size", 100);
+    }
+
 }
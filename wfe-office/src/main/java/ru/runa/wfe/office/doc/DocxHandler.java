@@ -1,5 +1,6 @@
 package ru.runa.wfe.office.doc;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Map;
@@ -14,6 +15,7 @@ import ru.runa.wfe.office.shared.OfficeFilesSupplierHandler;
 import ru.runa.wfe.var.IVariableProvider;
 
 import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
 
 public class DocxHandler extends OfficeFilesSupplierHandler<DocxConfig> {
 
@@ -26,21 +28,35 @@ public class DocxHandler extends OfficeFilesSupplierHandler<DocxConfig> {
     protected Map<String, Object> executeAction(IVariableProvider variableProvider, IFileDataProvider fileDataProvider) throws Exception {
         Map<String, Object> result = Maps.newHashMap();
         InputStream templateInputStream = config.getFileInputStream(variableProvider, fileDataProvider, true);
-        XWPFDocument document;
+        XWPFDocument document = null;
+        byte[] content = null;
         if (config.getTables().size() > 0) {
             log.warn("Using deprecated pre 4.0.6 changer for table configs");
             DocxFileChangerPre406 fileChanger = new DocxFileChangerPre406(config, variableProvider, templateInputStream);
             document = fileChanger.changeAll();
         } else {
-            DocxFileChanger fileChanger = new DocxFileChanger(config, variableProvider, templateInputStream);
-            document = fileChanger.changeAll();
+            byte[] template = ByteStreams.toByteArray(templateInputStream);
+            DocxTemplate compiledTemplate = DocxTemplate.get(config, template);
+            if (compiledTemplate != null) {
+                content = compiledTemplate.generate(config, variableProvider);
+            }
+            if (content == null) {
+                DocxFileChanger fileChanger = new DocxFileChanger(config, variableProvider, new ByteArrayInputStream(template));
+                document = fileChanger.changeAll();
+            }
         }
         OutputStream outputStream = config.getFileOutputStream(result, variableProvider, true);
         if (config.getOutputFileName().endsWith(DocxConfig.PDF_EXTENSION)) {
+            if (document == null) {
+                document = new XWPFDocument(new ByteArrayInputStream(content));
+            }
             PdfOptions options = PdfOptions.create();
             PdfConverter.getInstance().convert(document, outputStream, options);
-        } else {
+        } else if (document != null) {
             document.write(outputStream);
+        } else {
+            outputStream.write(content);
+            outputStream.close();
         }
         return result;
     }
@@ -0,0 +1,317 @@
+package ru.runa.wfe.office.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.poi.xwpf.usermodel.IBodyElement;
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.apache.xmlbeans.impl.xb.xmlschema.SpaceAttribute;
+import org.openxmlformats.schemas.wordprocessingml.x2006.main.CTText;
+
+import ru.runa.wfe.office.OfficeProperties;
+import ru.runa.wfe.var.IVariableProvider;
+import ru.runa.wfe.var.MapDelegableVariableProvider;
+import ru.runa.wfe.var.file.IFileVariable;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Docx template compiled for placeholder replacement: runs are restructured and texts are parsed once, document is generated by concatenation
+ * of static document.xml parts with formatted values. Templates are cached by content so any change of process definition file is detected.
+ *
+ * Iterations (loops, column expansions), images and multi-line values change document structure, generation returns <code>null</code> in this
+ * case and template should be processed by {@link DocxFileChanger}.
+ *
+ * @since 4.3.0
+ */
+public class DocxTemplate {
+    private static final Log log = LogFactory.getLog(DocxTemplate.class);
+    private static final String SLOT_MARKER = "RUNAWFE_DOCX_SLOT_";
+    private static final Cache<String, Optional<DocxTemplate>> cache = CacheBuilder.newBuilder()
+            .maximumSize(Math.max(OfficeProperties.getDocxTemplateCacheSize(), 0)).build();
+
+    private final Map<String, byte[]> entries = Maps.newLinkedHashMap();
+    private final List<String> iterationCandidates = Lists.newArrayList();
+    private final List<String> columnExpansionCandidates = Lists.newArrayList();
+    private final List<Slot> slots = Lists.newArrayList();
+    private String documentEntryName;
+    private String[] documentParts;
+
+    /**
+     * @return compiled template or <code>null</code> if template can't be compiled or cache is disabled
+     */
+    public static DocxTemplate get(final DocxConfig config, final byte[] template) {
+        if (OfficeProperties.getDocxTemplateCacheSize() <= 0) {
+            return null;
+        }
+        String key = Hashing.md5().hashBytes(template).toString() + "." + template.length;
+        try {
+            return cache.get(key, new Callable<Optional<DocxTemplate>>() {
+
+                @Override
+                public Optional<DocxTemplate> call() {
+                    try {
+                        DocxTemplate compiled = new DocxTemplate();
+                        if (compiled.compile(config, template)) {
+                            return Optional.of(compiled);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Unable to compile template", e);
+                    }
+                    return Optional.absent();
+                }
+            }).orNull();
+        } catch (ExecutionException e) {
+            log.warn("Unable to compile template", e);
+            return null;
+        }
+    }
+
+    private DocxTemplate() {
+    }
+
+    private boolean compile(DocxConfig config, byte[] template) throws IOException {
+        XWPFDocument document = new XWPFDocument(new ByteArrayInputStream(template));
+        // same elements as in DocxFileChanger.changeAll()
+        for (IBodyElement bodyElement : Lists.newArrayList(document.getBodyElements())) {
+            if (bodyElement instanceof XWPFParagraph) {
+                compile(config, (XWPFParagraph) bodyElement);
+            }
+            if (bodyElement instanceof XWPFTable) {
+                for (XWPFTableRow row : ((XWPFTable) bodyElement).getRows()) {
+                    for (XWPFTableCell cell : row.getTableCells()) {
+                        if (isIterationCandidate(cell.getText())) {
+                            columnExpansionCandidates.add(cell.getText());
+                        }
+                        for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                            compile(config, paragraph);
+                        }
+                    }
+                }
+            }
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(template.length);
+        document.write(baos);
+        documentEntryName = document.getPackagePart().getPartName().getName().substring(1);
+        ZipInputStream zipInputStream = new ZipInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        ZipEntry entry;
+        while ((entry = zipInputStream.getNextEntry()) != null) {
+            entries.put(entry.getName(), ByteStreams.toByteArray(zipInputStream));
+        }
+        if (!entries.containsKey(documentEntryName)) {
+            log.warn("No " + documentEntryName + " found in template");
+            return false;
+        }
+        return split(new String(entries.get(documentEntryName), Charsets.UTF_8));
+    }
+
+    /**
+     * Replaces texts containing placeholders with markers, parsing mirrors DocxUtils.replaceText.
+     */
+    private void compile(DocxConfig config, XWPFParagraph paragraph) {
+        if (isIterationCandidate(paragraph.getText())) {
+            iterationCandidates.add(paragraph.getText());
+        }
+        String paragraphText = paragraph.getParagraphText();
+        if (!paragraphText.contains(DocxUtils.PLACEHOLDER_START) || !paragraphText.contains(DocxUtils.PLACEHOLDER_END)) {
+            return;
+        }
+        DocxUtils.fixRunsToStateInWhichSingleRunContainsPlaceholders(config, paragraph);
+        StringBuilder placeholder = null;
+        for (XWPFRun run : paragraph.getRuns()) {
+            if (run == null) {
+                continue;
+            }
+            for (CTText ctText : run.getCTR().getTList()) {
+                String text = ctText.getStringValue();
+                if (text == null) {
+                    continue;
+                }
+                List<String> literals = Lists.newArrayList();
+                List<String> placeholders = Lists.newArrayList();
+                StringBuilder literal = new StringBuilder();
+                String remainder = text;
+                while (true) {
+                    if (placeholder == null) {
+                        int placeholderStartIndex = remainder.indexOf(DocxUtils.PLACEHOLDER_START);
+                        if (placeholderStartIndex < 0) {
+                            literal.append(remainder);
+                            break;
+                        }
+                        literal.append(remainder.substring(0, placeholderStartIndex));
+                        placeholder = new StringBuilder();
+                        remainder = remainder.substring(placeholderStartIndex + DocxUtils.PLACEHOLDER_START.length());
+                    } else {
+                        int placeholderEndIndex = remainder.indexOf(DocxUtils.PLACEHOLDER_END);
+                        if (placeholderEndIndex < 0) {
+                            placeholder.append(remainder);
+                            break;
+                        }
+                        placeholder.append(remainder.substring(0, placeholderEndIndex));
+                        literals.add(literal.toString());
+                        literal = new StringBuilder();
+                        placeholders.add(placeholder.toString().trim());
+                        placeholder = null;
+                        remainder = remainder.substring(placeholderEndIndex + DocxUtils.PLACEHOLDER_END.length());
+                    }
+                }
+                literals.add(literal.toString());
+                if (placeholders.isEmpty() && text.equals(literals.get(0))) {
+                    continue;
+                }
+                ctText.setStringValue(SLOT_MARKER + slots.size() + "_");
+                ctText.setSpace(SpaceAttribute.Space.PRESERVE);
+                slots.add(new Slot(literals, placeholders));
+            }
+        }
+    }
+
+    private boolean split(String documentXml) {
+        Map<Integer, Slot> slotsByPosition = new TreeMap<Integer, Slot>();
+        for (int i = 0; i < slots.size(); i++) {
+            String marker = SLOT_MARKER + i + "_";
+            int position = documentXml.indexOf(marker);
+            if (position < 0 || documentXml.indexOf(marker, position + 1) >= 0) {
+                return false;
+            }
+            slotsByPosition.put(position, slots.get(i));
+        }
+        int markersCount = 0;
+        for (int position = documentXml.indexOf(SLOT_MARKER); position >= 0; position = documentXml.indexOf(SLOT_MARKER, position + 1)) {
+            markersCount++;
+        }
+        if (markersCount != slots.size()) {
+            return false;
+        }
+        documentParts = new String[slots.size() + 1];
+        slots.clear();
+        int partStart = 0;
+        for (Map.Entry<Integer, Slot> entry : slotsByPosition.entrySet()) {
+            documentParts[slots.size()] = documentXml.substring(partStart, entry.getKey());
+            partStart = documentXml.indexOf("_", entry.getKey() + SLOT_MARKER.length()) + 1;
+            slots.add(entry.getValue());
+        }
+        documentParts[slots.size()] = documentXml.substring(partStart);
+        return true;
+    }
+
+    /**
+     * @return generated document or <code>null</code> if template should be processed by {@link DocxFileChanger}
+     */
+    public byte[] generate(DocxConfig config, IVariableProvider variableProvider) throws IOException {
+        MapDelegableVariableProvider provider = new MapDelegableVariableProvider(new HashMap<String, Object>(), variableProvider);
+        for (String text : iterationCandidates) {
+            LoopOperation operation = DocxUtils.parseIterationOperation(config, provider, text, new LoopOperation());
+            if (operation != null && operation.isValid()) {
+                return null;
+            }
+        }
+        for (String text : columnExpansionCandidates) {
+            ColumnExpansionOperation operation = DocxUtils.parseIterationOperation(config, provider, text, new ColumnExpansionOperation());
+            if (operation != null && operation.isValid()) {
+                return null;
+            }
+        }
+        StringBuilder documentXml = new StringBuilder(documentParts[0]);
+        for (int i = 0; i < slots.size(); i++) {
+            String text = slots.get(i).format(config, provider);
+            if (text == null) {
+                return null;
+            }
+            documentXml.append(text).append(documentParts[i + 1]);
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ZipOutputStream zipOutputStream = new ZipOutputStream(baos);
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+            zipOutputStream.putNextEntry(new ZipEntry(entry.getKey()));
+            if (documentEntryName.equals(entry.getKey())) {
+                zipOutputStream.write(documentXml.toString().getBytes(Charsets.UTF_8));
+            } else {
+                zipOutputStream.write(entry.getValue());
+            }
+            zipOutputStream.closeEntry();
+        }
+        zipOutputStream.close();
+        return baos.toByteArray();
+    }
+
+    private static boolean isIterationCandidate(String text) {
+        text = text.trim();
+        return text.startsWith(DocxUtils.PLACEHOLDER_START) && text.endsWith(DocxUtils.PLACEHOLDER_END)
+                && !text.startsWith(DocxUtils.CLOSING_PLACEHOLDER_START);
+    }
+
+    /**
+     * Text of run in which placeholders are replaced.
+     */
+    private static class Slot {
+        private final List<String> literals;
+        private final List<String> placeholders;
+
+        public Slot(List<String> literals, List<String> placeholders) {
+            this.literals = Collections.unmodifiableList(literals);
+            this.placeholders = Collections.unmodifiableList(placeholders);
+        }
+
+        /**
+         * @return escaped text or <code>null</code> if value can't be inserted as text
+         */
+        public String format(DocxConfig config, IVariableProvider variableProvider) {
+            StringBuilder text = new StringBuilder(literals.get(0));
+            for (int i = 0; i < placeholders.size(); i++) {
+                Object value = DocxUtils.getPlaceholderValue(config, variableProvider, placeholders.get(i));
+                if (value instanceof IFileVariable) {
+                    return null;
+                }
+                text.append(value != null ? (String) value : placeholders.get(i));
+                text.append(literals.get(i + 1));
+            }
+            return escape(text);
+        }
+
+        private static String escape(CharSequence text) {
+            StringBuilder result = new StringBuilder(text.length() + 16);
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '&') {
+                    result.append("&amp;");
+                } else if (c == '<') {
+                    result.append("&lt;");
+                } else if (c == '>') {
+                    result.append("&gt;");
+                } else if (c < ' ' && c != '\t') {
+                    // line breaks are inserted as run breaks
+                    return null;
+                } else {
+                    result.append(c);
+                }
+            }
+            return result.toString();
+        }
+    }
+}
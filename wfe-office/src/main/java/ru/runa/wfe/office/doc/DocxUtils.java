@@ -367,41 +367,7 @@ public class DocxUtils {
             config.warn("No placeholder end '" + PLACEHOLDER_END + "' found for '" + PLACEHOLDER_START + "' in " + paragraphText);
             return;
         }
-        List<XWPFRun> paragraphRuns = Lists.newArrayList(paragraph.getRuns());
-        int whetherSingleRunContainsPlaceholderStart = 0;
-        int whetherMultRunContainsPlaceholderStart = 0;
-        int whetherSingleRunContainsPlaceholderEnd = 0;
-        for (int i = 0; i < paragraphRuns.size(); i++) {
-            XWPFRun run = paragraphRuns.get(i);
-            XWPFRun next = i + 1 < paragraphRuns.size() ? paragraphRuns.get(i + 1) : null;
-            if (run == null || run.getText(0) == null) {
-                continue;
-            }
-            if (run.getText(0).contains(PLACEHOLDER_START)) {
-                whetherSingleRunContainsPlaceholderStart++;
-            }
-            if (run.getText(0).contains(PLACEHOLDER_END)) {
-                whetherSingleRunContainsPlaceholderEnd++;
-            }
-            if (next == null || next.getText(0) == null || PLACEHOLDER_START.length() < 2) {
-                continue;
-            }
-            int j = 1;
-            String test = PLACEHOLDER_START.substring(0, j);
-            while (j < PLACEHOLDER_START.length() && !run.getText(0).endsWith(test)) {
-                test = PLACEHOLDER_START.substring(0, ++j);
-            }
-            if (j == PLACEHOLDER_START.length() || !next.getText(0).startsWith(PLACEHOLDER_START.substring(j, PLACEHOLDER_START.length()))) {
-                continue;
-            }
-            whetherMultRunContainsPlaceholderStart++;
-        }
-        if (whetherMultRunContainsPlaceholderStart > 0) {
-            fixRunsToStateInWhichSingleRunContainsPlaceholder(config, paragraph, PLACEHOLDER_START);
-        }
-        if (whetherSingleRunContainsPlaceholderEnd < whetherSingleRunContainsPlaceholderStart + whetherMultRunContainsPlaceholderStart) {
-            fixRunsToStateInWhichSingleRunContainsPlaceholder(config, paragraph, PLACEHOLDER_END);
-        }
+        fixRunsToStateInWhichSingleRunContainsPlaceholders(config, paragraph);
         List<ReplaceOperation> operations = Lists.newArrayList();
         for (XWPFRun run : Lists.newArrayList(paragraph.getRuns())) {
             if (run == null) {
@@ -452,6 +418,47 @@ public class DocxUtils {
         }
     }
 
+    /**
+     * Restructures runs so that each placeholder start and end is contained in single run.
+     */
+    static void fixRunsToStateInWhichSingleRunContainsPlaceholders(DocxConfig config, XWPFParagraph paragraph) {
+        List<XWPFRun> paragraphRuns = Lists.newArrayList(paragraph.getRuns());
+        int whetherSingleRunContainsPlaceholderStart = 0;
+        int whetherMultRunContainsPlaceholderStart = 0;
+        int whetherSingleRunContainsPlaceholderEnd = 0;
+        for (int i = 0; i < paragraphRuns.size(); i++) {
+            XWPFRun run = paragraphRuns.get(i);
+            XWPFRun next = i + 1 < paragraphRuns.size() ? paragraphRuns.get(i + 1) : null;
+            if (run == null || run.getText(0) == null) {
+                continue;
+            }
+            if (run.getText(0).contains(PLACEHOLDER_START)) {
+                whetherSingleRunContainsPlaceholderStart++;
+            }
+            if (run.getText(0).contains(PLACEHOLDER_END)) {
+                whetherSingleRunContainsPlaceholderEnd++;
+            }
+            if (next == null || next.getText(0) == null || PLACEHOLDER_START.length() < 2) {
+                continue;
+            }
+            int j = 1;
+            String test = PLACEHOLDER_START.substring(0, j);
+            while (j < PLACEHOLDER_START.length() && !run.getText(0).endsWith(test)) {
+                test = PLACEHOLDER_START.substring(0, ++j);
+            }
+            if (j == PLACEHOLDER_START.length() || !next.getText(0).startsWith(PLACEHOLDER_START.substring(j, PLACEHOLDER_START.length()))) {
+                continue;
+            }
+            whetherMultRunContainsPlaceholderStart++;
+        }
+        if (whetherMultRunContainsPlaceholderStart > 0) {
+            fixRunsToStateInWhichSingleRunContainsPlaceholder(config, paragraph, PLACEHOLDER_START);
+        }
+        if (whetherSingleRunContainsPlaceholderEnd < whetherSingleRunContainsPlaceholderStart + whetherMultRunContainsPlaceholderStart) {
+            fixRunsToStateInWhichSingleRunContainsPlaceholder(config, paragraph, PLACEHOLDER_END);
+        }
+    }
+
     private static void fixRunsToStateInWhichSingleRunContainsPlaceholder(DocxConfig config, XWPFParagraph paragraph, String placeholder) {
         config.warn("Restructuring runs for '" + placeholder + "' in '" + paragraph.getParagraphText() + "'");
         try {
@@ -560,12 +567,7 @@ public class DocxUtils {
                 operation.appendPlaceholder(text.substring(0, placeholderEndIndex));
                 operation.setEnded(true);
                 String remainder = text.substring(placeholderEndIndex + PLACEHOLDER_END.length());
-                Object value = getValue(config, variableProvider, null, operation.getPlaceholder());
-                if (value == null) {
-                    if (config.isStrictMode()) {
-                        config.reportProblem("No template variable defined in process: '" + operation.getPlaceholder() + "'");
-                    }
-                }
+                Object value = getPlaceholderValue(config, variableProvider, operation.getPlaceholder());
                 if (value instanceof IFileVariable) {
                     try {
                         operations.remove(operation);
@@ -587,34 +589,7 @@ public class DocxUtils {
                         config.reportProblem(e);
                     }
                 } else {
-                    VariableFormat valueFormat = null;
-                    String placeholder = operation.getPlaceholder();
-                    if (placeholder.contains(VariableFormatContainer.COMPONENT_QUALIFIER_START)
-                            && placeholder.endsWith(VariableFormatContainer.COMPONENT_QUALIFIER_END)) {
-                        placeholder = placeholder.substring(0, placeholder.indexOf(VariableFormatContainer.COMPONENT_QUALIFIER_START));
-                        WfVariable containerVariable = variableProvider.getVariable(placeholder);
-                        if (containerVariable != null) {
-                            int index = containerVariable.getValue() instanceof Map ? 1 : 0;
-                            valueFormat = FormatCommons.createComponent(containerVariable, index);
-                        }
-                    } else {
-                        if (!placeholder.startsWith(GROOVY)) {
-                            WfVariable variable = variableProvider.getVariable(placeholder);
-                            if (variable != null) {
-                                valueFormat = variable.getDefinition().getFormatNotNull();
-                            }
-                        }
-                    }
-                    String replacement;
-                    if (valueFormat != null) {
-                        replacement = valueFormat.format(value);
-                        if (replacement == null) {
-                            replacement = "";
-                        }
-                    } else {
-                        replacement = TypeConversionUtil.convertTo(String.class, value);
-                    }
-                    operation.setValue(replacement);
+                    operation.setValue((String) value);
                 }
                 return operation.getValue() + replaceText(config, variableProvider, operations, remainder);
             } else {
@@ -624,6 +599,49 @@ public class DocxUtils {
         }
     }
 
+    /**
+     * @return file variable for image placeholder or formatted value
+     */
+    static Object getPlaceholderValue(DocxConfig config, IVariableProvider variableProvider, String placeholder) {
+        Object value = getValue(config, variableProvider, null, placeholder);
+        if (value == null) {
+            if (config.isStrictMode()) {
+                config.reportProblem("No template variable defined in process: '" + placeholder + "'");
+            }
+        }
+        if (value instanceof IFileVariable) {
+            return value;
+        }
+        VariableFormat valueFormat = null;
+        String variableName = placeholder;
+        if (variableName.contains(VariableFormatContainer.COMPONENT_QUALIFIER_START)
+                && variableName.endsWith(VariableFormatContainer.COMPONENT_QUALIFIER_END)) {
+            variableName = variableName.substring(0, variableName.indexOf(VariableFormatContainer.COMPONENT_QUALIFIER_START));
+            WfVariable containerVariable = variableProvider.getVariable(variableName);
+            if (containerVariable != null) {
+                int index = containerVariable.getValue() instanceof Map ? 1 : 0;
+                valueFormat = FormatCommons.createComponent(containerVariable, index);
+            }
+        } else {
+            if (!variableName.startsWith(GROOVY)) {
+                WfVariable variable = variableProvider.getVariable(variableName);
+                if (variable != null) {
+                    valueFormat = variable.getDefinition().getFormatNotNull();
+                }
+            }
+        }
+        String replacement;
+        if (valueFormat != null) {
+            replacement = valueFormat.format(value);
+            if (replacement == null) {
+                replacement = "";
+            }
+        } else {
+            replacement = TypeConversionUtil.convertTo(String.class, value);
+        }
+        return replacement;
+    }
+
     public static class StylesHolder {
         private final boolean bold;
         private final String color;
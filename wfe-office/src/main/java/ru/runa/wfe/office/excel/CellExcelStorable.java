@@ -1,5 +1,7 @@
 package ru.runa.wfe.office.excel;
 
+import java.util.List;
+
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
@@ -14,6 +16,12 @@ public class CellExcelStorable extends ExcelStorable<CellConstraints, Object> {
         setData(ExcelHelper.getCellValue(getCell(workbook), format));
     }
 
+    @Override
+    public void load(List<Object> cellValues) {
+        // missing cell is read as empty string
+        setData(ExcelHelper.convertCellValue(cellValues.isEmpty() ? "" : cellValues.get(0), format));
+    }
+
     @Override
     public void storeIn(Workbook workbook) {
         ExcelHelper.setCellValue(getCell(workbook), format.format(data));
@@ -3,13 +3,17 @@ package ru.runa.wfe.office.excel;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import ru.runa.wfe.office.OfficeProperties;
+
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
 public class ExcelDataStore {
@@ -60,4 +64,33 @@ public class ExcelDataStore {
         storable.storeIn(workbook);
     }
 
+    /**
+     * Loads storables from .xlsx file in streaming mode.
+     */
+    public void load(InputStream inputStream, List<ExcelStorable<?, ?>> storables) throws Exception {
+        XlsxStreamReader reader = new XlsxStreamReader();
+        List<List<Object>> cellValues = Lists.newArrayListWithExpectedSize(storables.size());
+        for (ExcelStorable<?, ?> storable : storables) {
+            cellValues.add(reader.add((OnSheetConstraints) storable.getConstraints()));
+        }
+        reader.read(inputStream);
+        for (int i = 0; i < storables.size(); i++) {
+            storables.get(i).load(cellValues.get(i));
+        }
+    }
+
+    /**
+     * @return whether storables can be saved to workbook in streaming mode
+     */
+    public boolean isStreamingSaveSupported(Workbook workbook, List<ExcelStorable<?, ?>> storables) {
+        return workbook instanceof XSSFWorkbook && XlsxStreamWriter.isApplicable((XSSFWorkbook) workbook, storables);
+    }
+
+    /**
+     * Saves storables to workbook in streaming mode and writes it to output stream.
+     */
+    public void saveWorkbook(Workbook workbook, List<ExcelStorable<?, ?>> storables, OutputStream outputStream) throws IOException {
+        new XlsxStreamWriter(OfficeProperties.getExcelStreamingWindowSize()).write((XSSFWorkbook) workbook, storables, outputStream);
+    }
+
 }
@@ -1,5 +1,7 @@
 package ru.runa.wfe.office.excel;
 
+import java.util.List;
+
 import org.apache.poi.ss.usermodel.Workbook;
 
 import ru.runa.wfe.var.format.VariableFormat;
@@ -33,4 +35,12 @@ public abstract class ExcelStorable<C extends IExcelConstraints, Data> {
 
     public abstract void load(Workbook workbook);
 
+    /**
+     * Loads data from raw cell values read in streaming mode.
+     * 
+     * @param cellValues
+     *            values of constraints cells in order until first empty cell
+     */
+    public abstract void load(List<Object> cellValues);
+
 }
@@ -9,17 +9,15 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
 import ru.runa.wfe.office.excel.utils.ExcelHelper;
-import ru.runa.wfe.var.format.FormatCommons;
 import ru.runa.wfe.var.format.VariableFormat;
-import ru.runa.wfe.var.format.VariableFormatContainer;
 
-public class ListColumnExcelStorable extends ExcelStorable<ColumnConstraints, List<?>> {
+public class ListColumnExcelStorable extends ListExcelStorable<ColumnConstraints> {
 
     @Override
     public void load(Workbook workbook) {
         List<Object> list = new ArrayList<Object>();
         int rowIndex = constraints.getRowStartIndex();
-        VariableFormat elementFormat = FormatCommons.createComponent((VariableFormatContainer) format, 0);
+        VariableFormat elementFormat = getElementFormat();
         while (true) {
             Cell cell = getCell(workbook, rowIndex, false);
             if (ExcelHelper.isCellEmptyOrNull(cell)) {
@@ -35,7 +33,7 @@ public class ListColumnExcelStorable extends ExcelStorable<ColumnConstraints, Li
     public void storeIn(Workbook workbook) {
         List<?> list = data;
         int rowIndex = constraints.getRowStartIndex();
-        VariableFormat elementFormat = FormatCommons.createComponent((VariableFormatContainer) format, 0);
+        VariableFormat elementFormat = getElementFormat();
         for (Object object : list) {
             Cell cell = getCell(workbook, rowIndex, true);
             ExcelHelper.setCellValue(cell, elementFormat.format(object));
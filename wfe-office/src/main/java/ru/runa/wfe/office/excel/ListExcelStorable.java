@@ -0,0 +1,30 @@
+package ru.runa.wfe.office.excel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ru.runa.wfe.office.excel.utils.ExcelHelper;
+import ru.runa.wfe.var.format.FormatCommons;
+import ru.runa.wfe.var.format.VariableFormat;
+import ru.runa.wfe.var.format.VariableFormatContainer;
+
+/**
+ * List stored in consecutive cells of row or column.
+ */
+public abstract class ListExcelStorable<C extends IExcelConstraints> extends ExcelStorable<C, List<?>> {
+
+    @Override
+    public void load(List<Object> cellValues) {
+        List<Object> list = new ArrayList<Object>(cellValues.size());
+        VariableFormat elementFormat = getElementFormat();
+        for (Object cellValue : cellValues) {
+            list.add(ExcelHelper.convertCellValue(cellValue, elementFormat));
+        }
+        setData(list);
+    }
+
+    protected VariableFormat getElementFormat() {
+        return FormatCommons.createComponent((VariableFormatContainer) format, 0);
+    }
+
+}
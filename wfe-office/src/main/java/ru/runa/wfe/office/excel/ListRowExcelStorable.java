@@ -9,18 +9,16 @@ import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 
 import ru.runa.wfe.office.excel.utils.ExcelHelper;
-import ru.runa.wfe.var.format.FormatCommons;
 import ru.runa.wfe.var.format.VariableFormat;
-import ru.runa.wfe.var.format.VariableFormatContainer;
 
-public class ListRowExcelStorable extends ExcelStorable<RowConstraints, List<?>> {
+public class ListRowExcelStorable extends ListExcelStorable<RowConstraints> {
 
     @Override
     public void load(Workbook workbook) {
         List<Object> list = new ArrayList<Object>();
         Row row = getRow(workbook);
         int columnIndex = constraints.getColumnStartIndex();
-        VariableFormat elementFormat = FormatCommons.createComponent((VariableFormatContainer) format, 0);
+        VariableFormat elementFormat = getElementFormat();
         while (true) {
             Cell cell = ExcelHelper.getCell(row, columnIndex, false);
             if (ExcelHelper.isCellEmptyOrNull(cell)) {
@@ -37,7 +35,7 @@ public class ListRowExcelStorable extends ExcelStorable<RowConstraints, List<?>>
         Row row = getRow(workbook);
         List<?> list = data;
         int columnIndex = constraints.getColumnStartIndex();
-        VariableFormat elementFormat = FormatCommons.createComponent((VariableFormatContainer) format, 0);
+        VariableFormat elementFormat = getElementFormat();
         for (Object object : list) {
             Cell cell = ExcelHelper.getCell(row, columnIndex, true);
             ExcelHelper.setCellValue(cell, elementFormat.format(object));
@@ -0,0 +1,281 @@
+package ru.runa.wfe.office.excel;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Reads cell values of .xlsx file with SAX parser without building workbook in memory. Only cells of registered constraints are retained, so
+ * memory usage does not depend on sheet size.
+ */
+public class XlsxStreamReader {
+    private final List<Target> targets = Lists.newArrayList();
+
+    /**
+     * Registers cells to read.
+     *
+     * @return list which will be filled with raw cell values (string, double, date or boolean) in order until first empty cell
+     */
+    public List<Object> add(OnSheetConstraints constraints) {
+        Target target;
+        if (constraints instanceof CellConstraints) {
+            CellConstraints cellConstraints = (CellConstraints) constraints;
+            target = new Target(constraints, cellConstraints.getRowIndex(), cellConstraints.getColumnIndex(), false, true);
+        } else if (constraints instanceof RowConstraints) {
+            RowConstraints rowConstraints = (RowConstraints) constraints;
+            target = new Target(constraints, rowConstraints.getRowIndex(), rowConstraints.getColumnStartIndex(), true, false);
+        } else if (constraints instanceof ColumnConstraints) {
+            ColumnConstraints columnConstraints = (ColumnConstraints) constraints;
+            target = new Target(constraints, columnConstraints.getRowStartIndex(), columnConstraints.getColumnIndex(), false, false);
+        } else {
+            throw new IllegalArgumentException("Unsupported constraints " + constraints);
+        }
+        targets.add(target);
+        return target.values;
+    }
+
+    public void read(InputStream inputStream) throws Exception {
+        // package opened from stream is unpacked in memory, from file - on demand
+        File file = File.createTempFile("excel", ".xlsx");
+        try {
+            OutputStream os = new FileOutputStream(file);
+            try {
+                ByteStreams.copy(inputStream, os);
+            } finally {
+                os.close();
+            }
+            OPCPackage opcPackage = OPCPackage.open(file.getAbsolutePath(), PackageAccess.READ);
+            try {
+                read(opcPackage);
+            } finally {
+                opcPackage.revert();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private void read(OPCPackage opcPackage) throws Exception {
+        XSSFReader reader = new XSSFReader(opcPackage);
+        ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+        StylesTable styles = reader.getStylesTable();
+        SAXParserFactory parserFactory = SAXParserFactory.newInstance();
+        parserFactory.setNamespaceAware(true);
+        XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+        int sheetIndex = 0;
+        while (iterator.hasNext()) {
+            InputStream sheetInputStream = iterator.next();
+            try {
+                List<Target> sheetTargets = getTargets(iterator.getSheetName(), sheetIndex);
+                if (!sheetTargets.isEmpty()) {
+                    XMLReader xmlReader = parserFactory.newSAXParser().getXMLReader();
+                    xmlReader.setContentHandler(new SheetHandler(sharedStrings, styles, sheetTargets));
+                    xmlReader.parse(new InputSource(sheetInputStream));
+                }
+            } finally {
+                sheetInputStream.close();
+            }
+            sheetIndex++;
+        }
+        for (Target target : targets) {
+            if (target.constraints.getSheetName() == null && target.constraints.getSheetIndex() >= sheetIndex) {
+                throw new IllegalArgumentException("Sheet index (" + target.constraints.getSheetIndex() + ") is out of range (0.."
+                        + (sheetIndex - 1) + ")");
+            }
+        }
+    }
+
+    private List<Target> getTargets(String sheetName, int sheetIndex) {
+        List<Target> result = Lists.newArrayList();
+        for (Target target : targets) {
+            if (target.constraints.getSheetName() != null) {
+                if (target.constraints.getSheetName().equals(sheetName)) {
+                    result.add(target);
+                }
+            } else if (target.constraints.getSheetIndex() == sheetIndex) {
+                result.add(target);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Cells range: single cell, row from start column or column from start row.
+     */
+    private static class Target {
+        private final OnSheetConstraints constraints;
+        private final boolean single;
+        private final boolean horizontal;
+        private final List<Object> values = Lists.newArrayList();
+        private int rowIndex;
+        private int columnIndex;
+        private boolean completed;
+
+        public Target(OnSheetConstraints constraints, int rowIndex, int columnIndex, boolean horizontal, boolean single) {
+            this.constraints = constraints;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.horizontal = horizontal;
+            this.single = single;
+        }
+
+        public void onRowStart(int row) {
+            if (!completed && row > rowIndex) {
+                completed = true;
+            }
+        }
+
+        public void onCell(int row, int column, Object value) {
+            if (completed || row != rowIndex) {
+                return;
+            }
+            if (horizontal && column > columnIndex || !horizontal && column != columnIndex) {
+                completed = horizontal;
+                return;
+            }
+            if (column < columnIndex) {
+                return;
+            }
+            if (value == null) {
+                completed = true;
+                return;
+            }
+            values.add(value);
+            if (single) {
+                completed = true;
+            } else if (horizontal) {
+                columnIndex++;
+            } else {
+                rowIndex++;
+            }
+        }
+
+        public void onRowEnd(int row) {
+            if (!completed && row == rowIndex) {
+                completed = true;
+            }
+        }
+    }
+
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable sharedStrings;
+        private final StylesTable styles;
+        private final List<Target> targets;
+        private final StringBuilder text = new StringBuilder();
+        private int rowIndex = -1;
+        private int columnIndex;
+        private String cellType;
+        private String cellStyle;
+        private String value;
+        private String formula;
+        private boolean textExpected;
+
+        public SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, List<Target> targets) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.targets = targets;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                String reference = attributes.getValue("r");
+                rowIndex = reference != null ? Integer.parseInt(reference) - 1 : rowIndex + 1;
+                columnIndex = -1;
+                for (Target target : targets) {
+                    target.onRowStart(rowIndex);
+                }
+            } else if ("c".equals(localName)) {
+                String reference = attributes.getValue("r");
+                columnIndex = reference != null ? new CellReference(reference).getCol() : columnIndex + 1;
+                cellType = attributes.getValue("t");
+                cellStyle = attributes.getValue("s");
+                value = null;
+                formula = null;
+            } else if ("v".equals(localName) || "f".equals(localName) || "t".equals(localName)) {
+                text.setLength(0);
+                textExpected = true;
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (textExpected) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if ("v".equals(localName)) {
+                value = text.toString();
+                textExpected = false;
+            } else if ("t".equals(localName)) {
+                value = value != null ? value + text : text.toString();
+                textExpected = false;
+            } else if ("f".equals(localName)) {
+                formula = text.toString();
+                textExpected = false;
+            } else if ("c".equals(localName)) {
+                Object cellValue = getCellValue();
+                for (Target target : targets) {
+                    target.onCell(rowIndex, columnIndex, cellValue);
+                }
+            } else if ("row".equals(localName)) {
+                for (Target target : targets) {
+                    target.onRowEnd(rowIndex);
+                }
+            }
+        }
+
+        /**
+         * @return value as it is returned by {@link ru.runa.wfe.office.excel.utils.ExcelHelper} or <code>null</code> for blank cell
+         */
+        private Object getCellValue() {
+            if (formula != null) {
+                return formula;
+            }
+            if (value == null) {
+                return null;
+            }
+            if ("s".equals(cellType)) {
+                return sharedStrings.getEntryAt(Integer.parseInt(value));
+            }
+            if ("inlineStr".equals(cellType) || "str".equals(cellType) || "e".equals(cellType)) {
+                return value;
+            }
+            if ("b".equals(cellType)) {
+                return "1".equals(value);
+            }
+            double number = Double.parseDouble(value);
+            if (cellStyle != null && styles != null && DateUtil.isValidExcelDate(number)) {
+                XSSFCellStyle style = styles.getStyleAt(Integer.parseInt(cellStyle));
+                if (style != null && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString())) {
+                    return DateUtil.getJavaDate(number);
+                }
+            }
+            return number;
+        }
+    }
+}
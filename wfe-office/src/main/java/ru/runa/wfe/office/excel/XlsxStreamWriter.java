@@ -0,0 +1,165 @@
+package ru.runa.wfe.office.excel;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import ru.runa.wfe.office.excel.utils.ExcelHelper;
+import ru.runa.wfe.var.format.VariableFormat;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Writes storables to .xlsx file through SXSSF, only configured window of rows is held in memory. Template rows can't be changed in this mode,
+ * so all cells must be written below existing rows of template sheets (see {@link #isApplicable(XSSFWorkbook, List)}).
+ */
+public class XlsxStreamWriter {
+    private final int windowSize;
+
+    public XlsxStreamWriter(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * @return whether storables are written to template rows not occupied in template
+     */
+    public static boolean isApplicable(XSSFWorkbook template, List<ExcelStorable<?, ?>> storables) {
+        for (ExcelStorable<?, ?> storable : storables) {
+            Range range = createRange(storable);
+            if (range == null) {
+                return false;
+            }
+            Sheet sheet;
+            if (range.constraints.getSheetName() != null) {
+                sheet = template.getSheet(range.constraints.getSheetName());
+            } else if (range.constraints.getSheetIndex() < template.getNumberOfSheets()) {
+                sheet = template.getSheetAt(range.constraints.getSheetIndex());
+            } else {
+                return false;
+            }
+            if (sheet != null && sheet.getPhysicalNumberOfRows() > 0 && range.rowIndex <= sheet.getLastRowNum()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void write(XSSFWorkbook template, List<ExcelStorable<?, ?>> storables, OutputStream outputStream) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(template, windowSize);
+        workbook.setCompressTempFiles(true);
+        try {
+            Map<Sheet, PriorityQueue<Range>> sheetRanges = Maps.newLinkedHashMap();
+            for (ExcelStorable<?, ?> storable : storables) {
+                Range range = createRange(storable);
+                Sheet sheet = ExcelHelper.getSheet(workbook, range.constraints.getSheetName(), range.constraints.getSheetIndex());
+                PriorityQueue<Range> ranges = sheetRanges.get(sheet);
+                if (ranges == null) {
+                    ranges = new PriorityQueue<Range>();
+                    sheetRanges.put(sheet, ranges);
+                }
+                if (range.hasNext()) {
+                    ranges.add(range);
+                }
+            }
+            for (Map.Entry<Sheet, PriorityQueue<Range>> entry : sheetRanges.entrySet()) {
+                write(entry.getKey(), entry.getValue());
+            }
+            workbook.write(outputStream);
+            outputStream.close();
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    /**
+     * Rows are flushed when window is exceeded, so cells are written in row order.
+     */
+    private void write(Sheet sheet, PriorityQueue<Range> ranges) {
+        Row row = null;
+        while (!ranges.isEmpty()) {
+            Range range = ranges.poll();
+            if (row == null || row.getRowNum() != range.rowIndex) {
+                row = ExcelHelper.getRow(sheet, range.rowIndex, true);
+            }
+            range.writeNext(row);
+            if (range.hasNext()) {
+                ranges.add(range);
+            }
+        }
+    }
+
+    private static Range createRange(ExcelStorable<?, ?> storable) {
+        if (storable instanceof CellExcelStorable) {
+            CellConstraints constraints = ((CellExcelStorable) storable).getConstraints();
+            List<Object> values = Lists.newArrayList();
+            values.add(storable.format.format(storable.getData()));
+            return new Range(constraints, values, null, constraints.getRowIndex(), constraints.getColumnIndex(), false);
+        }
+        if (storable instanceof ListRowExcelStorable) {
+            ListRowExcelStorable listStorable = (ListRowExcelStorable) storable;
+            RowConstraints constraints = listStorable.getConstraints();
+            return new Range(constraints, listStorable.getData(), listStorable.getElementFormat(), constraints.getRowIndex(),
+                    constraints.getColumnStartIndex(), true);
+        }
+        if (storable instanceof ListColumnExcelStorable) {
+            ListColumnExcelStorable listStorable = (ListColumnExcelStorable) storable;
+            ColumnConstraints constraints = listStorable.getConstraints();
+            return new Range(constraints, listStorable.getData(), listStorable.getElementFormat(), constraints.getRowStartIndex(),
+                    constraints.getColumnIndex(), false);
+        }
+        return null;
+    }
+
+    /**
+     * Cells written by storable: single cell, row from start column or column from start row.
+     */
+    private static class Range implements Comparable<Range> {
+        private final OnSheetConstraints constraints;
+        private final List<?> values;
+        private final VariableFormat elementFormat;
+        private final boolean horizontal;
+        private int rowIndex;
+        private int columnIndex;
+        private int valueIndex;
+
+        public Range(OnSheetConstraints constraints, List<?> values, VariableFormat elementFormat, int rowIndex, int columnIndex,
+                boolean horizontal) {
+            this.constraints = constraints;
+            this.values = values;
+            this.elementFormat = elementFormat;
+            this.rowIndex = rowIndex;
+            this.columnIndex = columnIndex;
+            this.horizontal = horizontal;
+        }
+
+        public boolean hasNext() {
+            return valueIndex < values.size();
+        }
+
+        public void writeNext(Row row) {
+            Object value = values.get(valueIndex++);
+            if (elementFormat != null) {
+                value = elementFormat.format(value);
+            }
+            ExcelHelper.setCellValue(ExcelHelper.getCell(row, columnIndex, true), value);
+            if (horizontal) {
+                columnIndex++;
+            } else {
+                rowIndex++;
+            }
+        }
+
+        @Override
+        public int compareTo(Range o) {
+            return rowIndex < o.rowIndex ? -1 : rowIndex == o.rowIndex ? 0 : 1;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package ru.runa.wfe.office.excel.handler;
 
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Workbook;
 
 import ru.runa.wfe.definition.IFileDataProvider;
+import ru.runa.wfe.office.OfficeProperties;
 import ru.runa.wfe.office.excel.ExcelDataStore;
 import ru.runa.wfe.office.excel.ExcelStorable;
 import ru.runa.wfe.office.shared.FilesSupplierConfigParser;
@@ -14,6 +16,8 @@ import ru.runa.wfe.office.shared.OfficeFilesSupplierHandler;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dto.WfVariable;
 
+import com.google.common.collect.Lists;
+
 public class ExcelReadHandler extends OfficeFilesSupplierHandler<ExcelBindings> {
 
     @Override
@@ -27,14 +31,26 @@ public class ExcelReadHandler extends OfficeFilesSupplierHandler<ExcelBindings>
         Map<String, Object> result = new HashMap<String, Object>();
         ExcelDataStore dataStore = new ExcelDataStore();
         InputStream templateInputStream = config.getFileInputStream(variableProvider, fileDataProvider, true);
-        Workbook workbook = dataStore.loadWorkbook(templateInputStream, config.isInputFileXLSX(variableProvider, false));
+        boolean xlsx = config.isInputFileXLSX(variableProvider, false);
+        List<ExcelStorable<?, ?>> storables = Lists.newArrayList();
         for (ExcelBinding binding : config.getBindings()) {
             WfVariable variable = variableProvider.getVariableNotNull(binding.getVariableName());
             binding.getConstraints().applyPlaceholders(variableProvider);
             ExcelStorable storable = dataStore.create(binding.getConstraints());
             storable.setFormat(variable.getDefinition().getFormatNotNull());
-            storable.load(workbook);
-            result.put(binding.getVariableName(), storable.getData());
+            storables.add(storable);
+        }
+        if (templateInputStream != null && xlsx && OfficeProperties.isExcelStreamingEnabled()) {
+            dataStore.load(templateInputStream, storables);
+        } else {
+            Workbook workbook = dataStore.loadWorkbook(templateInputStream, xlsx);
+            for (ExcelStorable<?, ?> storable : storables) {
+                storable.load(workbook);
+            }
+        }
+        int i = 0;
+        for (ExcelBinding binding : config.getBindings()) {
+            result.put(binding.getVariableName(), storables.get(i++).getData());
         }
         return result;
     }
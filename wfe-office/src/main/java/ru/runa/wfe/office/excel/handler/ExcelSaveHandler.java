@@ -2,11 +2,13 @@ package ru.runa.wfe.office.excel.handler;
 
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.poi.ss.usermodel.Workbook;
 
 import ru.runa.wfe.definition.IFileDataProvider;
+import ru.runa.wfe.office.OfficeProperties;
 import ru.runa.wfe.office.excel.ExcelDataStore;
 import ru.runa.wfe.office.excel.ExcelStorable;
 import ru.runa.wfe.office.shared.FilesSupplierConfigParser;
@@ -14,6 +16,8 @@ import ru.runa.wfe.office.shared.OfficeFilesSupplierHandler;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.dto.WfVariable;
 
+import com.google.common.collect.Lists;
+
 public class ExcelSaveHandler extends OfficeFilesSupplierHandler<ExcelBindings> {
 
     @Override
@@ -28,6 +32,7 @@ public class ExcelSaveHandler extends OfficeFilesSupplierHandler<ExcelBindings>
         ExcelDataStore dataStore = new ExcelDataStore();
         InputStream templateInputStream = config.getFileInputStream(variableProvider, fileDataProvider, true);
         Workbook workbook = dataStore.loadWorkbook(templateInputStream, config.isInputFileXLSX(variableProvider, false));
+        List<ExcelStorable<?, ?>> storables = Lists.newArrayList();
         for (ExcelBinding binding : config.getBindings()) {
             binding.getConstraints().applyPlaceholders(variableProvider);
             WfVariable variable = variableProvider.getVariableNotNull(binding.getVariableName());
@@ -35,12 +40,19 @@ public class ExcelSaveHandler extends OfficeFilesSupplierHandler<ExcelBindings>
                 ExcelStorable storable = dataStore.create(binding.getConstraints());
                 storable.setFormat(variable.getDefinition().getFormatNotNull());
                 storable.setData(variable.getValue());
-                dataStore.save(workbook, storable);
+                storables.add(storable);
             } else {
                 log.warn("Omitted binding as variable was null: " + binding.getVariableName());
             }
         }
-        dataStore.saveWorkbook(workbook, config.getFileOutputStream(result, variableProvider, true));
+        if (OfficeProperties.isExcelStreamingEnabled() && dataStore.isStreamingSaveSupported(workbook, storables)) {
+            dataStore.saveWorkbook(workbook, storables, config.getFileOutputStream(result, variableProvider, true));
+        } else {
+            for (ExcelStorable<?, ?> storable : storables) {
+                dataStore.save(workbook, storable);
+            }
+            dataStore.saveWorkbook(workbook, config.getFileOutputStream(result, variableProvider, true));
+        }
         return result;
     }
 
@@ -85,6 +85,13 @@ public class ExcelHelper {
         default:
             value = cell.getStringCellValue();
         }
+        return convertCellValue(value, elementFormat);
+    }
+
+    /**
+     * Converts raw cell value (string, double, date or boolean) to variable value.
+     */
+    public static Object convertCellValue(Object value, VariableFormat elementFormat) {
         return TypeConversionUtil.convertTo(elementFormat.getJavaClass(), value);
     }
 
@@ -95,35 +95,9 @@ public class ConditionProcessor {
                 sb.append(token);
                 sb.append(LIKE_EXPR_END);
             } else if (token.startsWith("@")) {
-                String variableName = token.substring(1);
-                String toAppend = "";
                 if (variableProvider instanceof ParamBasedVariableProvider) {
-                    ParamsDef paramsDef = ((ParamBasedVariableProvider) variableProvider).getParamsDef();
-                    if (paramsDef != null) {
-                        if (paramsDef.getInputParam(variableName) != null) {
-                            Object inputParamValue = paramsDef.getInputParamValue(variableName, variableProvider);
-                            if (inputParamValue instanceof Number) {
-                                toAppend = inputParamValue.toString();
-                            } else if (inputParamValue instanceof Date) {
-                                toAppend = ((Date) inputParamValue).getTime() + "";
-                            } else {
-                                toAppend = "'" + inputParamValue + "'";
-                            }
-                        } else {
-                            WfVariable wfVariable = variableProvider.getVariableNotNull(variableName);
-                            VariableFormat format = wfVariable.getDefinition().getFormatNotNull();
-                            if (format instanceof LongFormat) {
-                                toAppend = wfVariable.getStringValue();
-                            } else if (format instanceof DateTimeFormat || format instanceof DateFormat) {
-                                Date date = (Date) wfVariable.getValue();
-                                toAppend = String.valueOf(date.getTime());
-                            } else {
-                                toAppend = "'" + wfVariable.getStringValue() + "'";
-                            }
-                        }
-                    }
                     sb.append(SPACE);
-                    sb.append(toAppend);
+                    sb.append(getVariableExpression(token.substring(1), (ParamBasedVariableProvider) variableProvider));
                 }
             } else {
                 sb.append(SPACE);
@@ -141,6 +115,71 @@ public class ConditionProcessor {
         return sb.toString();
     }
 
+    /**
+     * Parses condition of form <code>[attribute] == 'value'</code> or <code>[attribute] == @variable</code> where variable has string value. For
+     * string attributes such condition is true exactly for records with equal attribute value.
+     * 
+     * @return attribute name and value or <code>null</code> if condition has other form
+     */
+    public static String[] parseStringEquality(String condition, IVariableProvider variableProvider) {
+        StringTokenizer st = new StringTokenizer(condition);
+        if (st.countTokens() != 3) {
+            return null;
+        }
+        String attributeToken = st.nextToken();
+        String operatorToken = st.nextToken();
+        String valueToken = st.nextToken();
+        if (!attributeToken.startsWith("[") || !attributeToken.endsWith("]") || attributeToken.length() < 3) {
+            return null;
+        }
+        if (!"==".equals(operatorToken) && !"===".equals(operatorToken)) {
+            return null;
+        }
+        if (valueToken.startsWith("@")) {
+            if (!(variableProvider instanceof ParamBasedVariableProvider)) {
+                return null;
+            }
+            valueToken = getVariableExpression(valueToken.substring(1), (ParamBasedVariableProvider) variableProvider);
+        }
+        if (valueToken.length() < 2 || !valueToken.startsWith("'") || !valueToken.endsWith("'")) {
+            return null;
+        }
+        String value = valueToken.substring(1, valueToken.length() - 1);
+        if (value.contains("'")) {
+            return null;
+        }
+        return new String[] { attributeToken.substring(1, attributeToken.length() - 1), value };
+    }
+
+    private static String getVariableExpression(String variableName, ParamBasedVariableProvider variableProvider) {
+        String toAppend = "";
+        ParamsDef paramsDef = variableProvider.getParamsDef();
+        if (paramsDef != null) {
+            if (paramsDef.getInputParam(variableName) != null) {
+                Object inputParamValue = paramsDef.getInputParamValue(variableName, variableProvider);
+                if (inputParamValue instanceof Number) {
+                    toAppend = inputParamValue.toString();
+                } else if (inputParamValue instanceof Date) {
+                    toAppend = ((Date) inputParamValue).getTime() + "";
+                } else {
+                    toAppend = "'" + inputParamValue + "'";
+                }
+            } else {
+                WfVariable wfVariable = variableProvider.getVariableNotNull(variableName);
+                VariableFormat format = wfVariable.getDefinition().getFormatNotNull();
+                if (format instanceof LongFormat) {
+                    toAppend = wfVariable.getStringValue();
+                } else if (format instanceof DateTimeFormat || format instanceof DateFormat) {
+                    Date date = (Date) wfVariable.getValue();
+                    toAppend = String.valueOf(date.getTime());
+                } else {
+                    toAppend = "'" + wfVariable.getStringValue() + "'";
+                }
+            }
+        }
+        return toAppend;
+    }
+
     private static long getTime(String source) {
         source = source.replaceAll("'", "");
         Date date = null;
@@ -0,0 +1,253 @@
+package ru.runa.wfe.office.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Maps;
+
+/**
+ * In-memory image of store file shared between store services. Workbook is parsed once and reloaded only when file is changed by somebody else
+ * (detected by modification time and length). Records read from workbook are cached until workbook is changed.
+ * 
+ * Changes are made under {@link #lock()} and written by {@link #flush(Batch)} after lock is released: workbook is serialized to memory under lock
+ * and the file is written outside of it. Changes made concurrently while file is being written are joined in next batch and written once. POI
+ * can't write XSSF workbook twice, so it is parsed again from serialized data on next access after each write.
+ * 
+ * Files are kept while they are in use and are released by garbage collector on memory shortage.
+ */
+class StoreFile {
+    private static final Log log = LogFactory.getLog(StoreFile.class);
+    private static final LoadingCache<String, StoreFile> files = CacheBuilder.newBuilder().softValues()
+            .build(new CacheLoader<String, StoreFile>() {
+
+                @Override
+                public StoreFile load(String path) {
+                    return new StoreFile(new File(path));
+                }
+            });
+
+    private final File file;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Map<Object, StoreRecords> records = Maps.newHashMap();
+    private Workbook workbook;
+    private long lastModified;
+    private long length;
+    private Batch pendingBatch;
+    /**
+     * Serialized workbook which is written to file now, XSSF workbook is parsed from it.
+     */
+    private byte[] writtenData;
+
+    public static StoreFile get(String path) {
+        return files.getUnchecked(new File(path).getAbsolutePath());
+    }
+
+    private StoreFile(File file) {
+        this.file = file;
+    }
+
+    public void lock() {
+        lock.lock();
+    }
+
+    public void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Must be invoked under {@link #lock()}.
+     */
+    public Workbook getWorkbook() throws IOException {
+        checkModified();
+        if (workbook == null) {
+            if (writtenData != null) {
+                workbook = parse(new ByteArrayInputStream(writtenData));
+            } else {
+                long fileLastModified = file.lastModified();
+                long fileLength = file.length();
+                workbook = parse(new FileInputStream(file));
+                lastModified = fileLastModified;
+                length = fileLength;
+            }
+        }
+        return workbook;
+    }
+
+    private Workbook parse(InputStream is) throws IOException {
+        try {
+            if (file.getName().endsWith(".xls")) {
+                return new HSSFWorkbook(is);
+            } else if (file.getName().endsWith(".xlsx")) {
+                return new XSSFWorkbook(is);
+            } else {
+                throw new IllegalArgumentException("excel file extension is incorrect!");
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Must be invoked under {@link #lock()}.
+     */
+    public StoreRecords getRecords(Object key) {
+        checkModified();
+        return records.get(key);
+    }
+
+    /**
+     * Must be invoked under {@link #lock()}.
+     */
+    public void putRecords(Object key, StoreRecords storeRecords) {
+        records.put(key, storeRecords);
+    }
+
+    private void checkModified() {
+        if ((workbook != null || !records.isEmpty()) && pendingBatch == null && writtenData == null
+                && (file.lastModified() != lastModified || file.length() != length)) {
+            log.debug("Reloading changed " + file);
+            reset();
+        }
+    }
+
+    /**
+     * Registers workbook change, must be invoked under {@link #lock()}.
+     * 
+     * @return batch which must be passed to {@link #flush(Batch)} after lock is released
+     */
+    public Batch markChanged() {
+        records.clear();
+        if (pendingBatch == null) {
+            pendingBatch = new Batch();
+        }
+        return pendingBatch;
+    }
+
+    /**
+     * Discards workbook with all not written changes, must be invoked under {@link #lock()}.
+     */
+    public void reset() {
+        workbook = null;
+        writtenData = null;
+        records.clear();
+        if (pendingBatch != null) {
+            pendingBatch.flushed = true;
+            pendingBatch.failed = true;
+            pendingBatch = null;
+        }
+    }
+
+    /**
+     * Writes batch to file unless it is already written together with previous changes.
+     * 
+     * @throws BlockedFileException
+     *             if file can't be written
+     */
+    public void flush(Batch batch) {
+        flushLock.lock();
+        try {
+            if (!batch.flushed) {
+                write();
+            }
+            if (batch.failed) {
+                throw new BlockedFileException();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write() {
+        Batch batch;
+        byte[] data;
+        lock.lock();
+        try {
+            batch = pendingBatch;
+            if (batch == null) {
+                return;
+            }
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            try {
+                workbook.write(os);
+            } catch (IOException e) {
+                log.error("Unable to serialize " + file, e);
+                reset();
+                return;
+            }
+            data = os.toByteArray();
+            writtenData = data;
+            pendingBatch = null;
+            if (workbook instanceof XSSFWorkbook) {
+                // POI does not support writing of XSSF workbook twice
+                workbook = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writeFile(data);
+        } catch (IOException e) {
+            log.error("Unable to write " + file, e);
+            batch.failed = true;
+        }
+        lock.lock();
+        try {
+            if (batch.failed) {
+                reset();
+            } else if (writtenData == data) {
+                lastModified = file.lastModified();
+                length = file.length();
+                writtenData = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        batch.flushed = true;
+    }
+
+    private void writeFile(byte[] data) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            // file lock is released together with channel
+            if (channel.tryLock() == null) {
+                throw new IOException(file + " is locked by another process");
+            }
+            channel.truncate(0);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Workbook changes written to file at once.
+     */
+    public static class Batch {
+        private volatile boolean flushed;
+        private volatile boolean failed;
+    }
+
+}
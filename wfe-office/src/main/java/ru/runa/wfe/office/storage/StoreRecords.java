@@ -0,0 +1,49 @@
+package ru.runa.wfe.office.storage;
+
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Maps;
+
+/**
+ * Records read from store file sheet with lazily built indexes by string attribute values. Not thread safe, used under {@link StoreFile} lock.
+ */
+class StoreRecords {
+    private final List<?> records;
+    /**
+     * Attribute name to attribute value to record indexes.
+     */
+    private final Map<String, ListMultimap<String, Integer>> indexes = Maps.newHashMap();
+
+    public StoreRecords(List<?> records) {
+        this.records = records;
+    }
+
+    public List<?> getRecords() {
+        return records;
+    }
+
+    /**
+     * @return indexes of records which attribute is equal to value, in ascending order
+     */
+    public List<Integer> findIndexes(String attributeName, String value) {
+        ListMultimap<String, Integer> index = indexes.get(attributeName);
+        if (index == null) {
+            index = ArrayListMultimap.create();
+            for (int i = 0; i < records.size(); i++) {
+                Object record = records.get(i);
+                if (record instanceof Map) {
+                    Object attributeValue = ((Map<?, ?>) record).get(attributeName);
+                    if (attributeValue instanceof String) {
+                        index.put((String) attributeValue, i);
+                    }
+                }
+            }
+            indexes.put(attributeName, index);
+        }
+        return index.get(value);
+    }
+
+}
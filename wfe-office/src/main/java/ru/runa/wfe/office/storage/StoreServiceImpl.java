@@ -1,12 +1,10 @@
 package ru.runa.wfe.office.storage;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -92,62 +90,63 @@ public class StoreServiceImpl implements StoreService {
             return ExecutionResult.EMPTY;
         }
         initParams(properties);
-        Workbook wb = getWorkbook(fullPath);
-        return new ExecutionResult(find(wb, constraints, format, condition));
+        StoreFile storeFile = StoreFile.get(fullPath);
+        storeFile.lock();
+        try {
+            StoreRecords records = getRecords(storeFile, constraints, format);
+            return new ExecutionResult(copy(find(records, format, condition)));
+        } finally {
+            storeFile.unlock();
+        }
     }
 
     @Override
     public void update(Properties properties, WfVariable variable, String condition) throws Exception {
-        initParams(properties);
-        Workbook wb = getWorkbook(fullPath);
-        update(wb, constraints, variable.getValue(), format, condition, false);
-        OutputStream os = null;
-        try {
-            os = new FileOutputStream(fullPath);
-            wb.write(os);
-        } catch (IOException e) {
-            log.error("", e);
-            throw new BlockedFileException();
-        } finally {
-            os.close();
-        }
+        update(properties, variable, condition, false);
     }
 
     @Override
     public void delete(Properties properties, WfVariable variable, String condition) throws Exception {
+        update(properties, variable, condition, true);
+    }
+
+    @Override
+    public void save(Properties properties, WfVariable variable, boolean appendTo) throws Exception {
         initParams(properties);
-        Workbook wb = getWorkbook(fullPath);
-        update(wb, constraints, variable.getValue(), format, condition, true);
-        OutputStream os = null;
+        StoreFile storeFile = StoreFile.get(fullPath);
+        StoreFile.Batch batch;
+        storeFile.lock();
         try {
-            os = new FileOutputStream(fullPath);
-            wb.write(os);
-        } catch (IOException e) {
-            log.error("", e);
-            throw new BlockedFileException();
+            Workbook wb = storeFile.getWorkbook();
+            save(wb, constraints, format, variable, appendTo);
+            batch = storeFile.markChanged();
+        } catch (Exception e) {
+            storeFile.reset();
+            throw e;
         } finally {
-            if (os != null) {
-                os.close();
-            }
+            storeFile.unlock();
         }
+        storeFile.flush(batch);
     }
 
-    @Override
-    public void save(Properties properties, WfVariable variable, boolean appendTo) throws Exception {
+    private void update(Properties properties, WfVariable variable, String condition, boolean clear) throws Exception {
         initParams(properties);
-        Workbook wb = getWorkbook(fullPath);
-        save(wb, constraints, format, variable, appendTo);
-        OutputStream os = null;
+        StoreFile storeFile = StoreFile.get(fullPath);
+        StoreFile.Batch batch = null;
+        storeFile.lock();
         try {
-            os = new FileOutputStream(fullPath);
-            wb.write(os);
-        } catch (IOException e) {
-            log.error("", e);
-            throw new BlockedFileException();
-        } finally {
-            if (os != null) {
-                os.close();
+            StoreRecords records = getRecords(storeFile, constraints, format);
+            if (update(storeFile.getWorkbook(), constraints, records, variable.getValue(), format, condition, clear)) {
+                batch = storeFile.markChanged();
             }
+        } catch (Exception e) {
+            storeFile.reset();
+            throw e;
+        } finally {
+            storeFile.unlock();
+        }
+        if (batch != null) {
+            storeFile.flush(batch);
         }
     }
 
@@ -161,9 +160,9 @@ public class StoreServiceImpl implements StoreService {
     }
 
     @SuppressWarnings("unchecked")
-    private void update(Workbook workbook, IExcelConstraints constraints, Object variable, VariableFormat variableFormat, String condition,
-            boolean clear) {
-        List list = findAll(workbook, constraints, variableFormat);
+    private boolean update(Workbook workbook, IExcelConstraints constraints, StoreRecords records, Object variable, VariableFormat variableFormat,
+            String condition, boolean clear) {
+        List list = copy(records.getRecords());
         boolean changed = false;
         if (Strings.isNullOrEmpty(condition)) {
             int i = 0;
@@ -172,21 +171,28 @@ public class StoreServiceImpl implements StoreService {
                 i++;
             }
             changed = true;
-        } else {
-            int i = 0;
-            for (Object object : list) {
-                if (variableFormat instanceof UserTypeFormat) {
+        } else if (variableFormat instanceof UserTypeFormat) {
+            List<Integer> indexes = findIndexes(records, variableFormat, condition);
+            if (indexes != null) {
+                for (int i : indexes) {
+                    changeVariable(constraints, variable, clear, list, i, list.get(i));
+                    changed = true;
+                }
+            } else {
+                int i = 0;
+                for (Object object : list) {
                     if (ConditionProcessor.filter(condition, (Map<String, Object>) object, variableProvider)) {
                         changeVariable(constraints, variable, clear, list, i, object);
                         changed = true;
                     }
+                    i++;
                 }
-                i++;
             }
         }
         if (changed) {
             save(workbook, constraints, variableFormat, list, false);
         }
+        return changed;
     }
 
     @SuppressWarnings("unchecked")
@@ -243,27 +249,80 @@ public class StoreServiceImpl implements StoreService {
         }
     }
 
-    @SuppressWarnings("resource")
-    private Workbook getWorkbook(String fullPath) throws IOException, FileNotFoundException {
-        Workbook wb = null;
-        InputStream is = new FileInputStream(fullPath);
-        if (fullPath.endsWith(".xls")) {
-            wb = new HSSFWorkbook(is);
-        } else if (fullPath.endsWith(".xlsx")) {
-            wb = new XSSFWorkbook(is);
-        } else {
-            throw new IllegalArgumentException("excel file extension is incorrect!");
+    private StoreRecords getRecords(StoreFile storeFile, IExcelConstraints constraints, VariableFormat variableFormat) throws IOException {
+        List<Object> key = getRecordsKey(constraints, variableFormat);
+        StoreRecords records = key != null ? storeFile.getRecords(key) : null;
+        if (records == null) {
+            records = new StoreRecords(findAll(storeFile.getWorkbook(), constraints, variableFormat));
+            if (key != null) {
+                storeFile.putRecords(key, records);
+            }
         }
-        is.close();
-        return wb;
+        return records;
+    }
+
+    private List<Object> getRecordsKey(IExcelConstraints constraints, VariableFormat variableFormat) {
+        if (!(constraints instanceof AttributeConstraints)) {
+            return null;
+        }
+        AttributeConstraints attributeConstraints = (AttributeConstraints) constraints;
+        VariableFormat format = getVariableFormat(variableFormat);
+        Object formatKey = format instanceof UserTypeFormat ? ((UserTypeFormat) format).getUserType() : format.getClass();
+        return Arrays.<Object> asList(attributeConstraints.getSheetName(), attributeConstraints.getSheetIndex(), variableFormat.getClass(),
+                formatKey);
     }
 
     @SuppressWarnings("rawtypes")
-    private List find(Workbook workbook, IExcelConstraints constraints, VariableFormat variableFormat, String condition) {
-        boolean all = Strings.isNullOrEmpty(condition);
-        List result = findAll(workbook, constraints, variableFormat);
-        if (!all) {
-            return filter(result, condition);
+    private List find(StoreRecords records, VariableFormat variableFormat, String condition) {
+        if (Strings.isNullOrEmpty(condition)) {
+            return records.getRecords();
+        }
+        List<Integer> indexes = findIndexes(records, variableFormat, condition);
+        if (indexes != null) {
+            List result = Lists.newArrayListWithCapacity(indexes.size());
+            for (int i : indexes) {
+                result.add(records.getRecords().get(i));
+            }
+            return result;
+        }
+        return filter(records.getRecords(), condition);
+    }
+
+    /**
+     * Finds records by index for conditions like <code>[attribute] == 'value'</code> on string attributes.
+     * 
+     * @return indexes of matched records or <code>null</code> if condition can't be evaluated by index
+     */
+    private List<Integer> findIndexes(StoreRecords records, VariableFormat variableFormat, String condition) {
+        VariableFormat format = getVariableFormat(variableFormat);
+        if (!(format instanceof UserTypeFormat)) {
+            return null;
+        }
+        String[] equality = ConditionProcessor.parseStringEquality(condition, variableProvider);
+        if (equality == null) {
+            return null;
+        }
+        VariableDefinition attribute = ((UserTypeFormat) format).getUserType().getAttribute(equality[0]);
+        if (attribute == null || attribute.getFormatNotNull().getJavaClass() != String.class) {
+            return null;
+        }
+        return records.findIndexes(equality[0], equality[1]);
+    }
+
+    /**
+     * Cached records are shared, so records are copied before they are returned or changed.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private List copy(List<?> records) {
+        List result = Lists.newArrayListWithCapacity(records.size());
+        for (Object record : records) {
+            if (record instanceof UserTypeMap) {
+                UserTypeMap userTypeMap = new UserTypeMap(((UserTypeMap) record).getUserType());
+                userTypeMap.putAll((UserTypeMap) record);
+                result.add(userTypeMap);
+            } else {
+                result.add(record);
+            }
         }
         return result;
     }
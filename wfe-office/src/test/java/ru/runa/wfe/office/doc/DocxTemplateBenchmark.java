@@ -0,0 +1,79 @@
+package ru.runa.wfe.office.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFRun;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.format.DateFormat;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Compares document generation by {@link DocxFileChanger} and {@link DocxTemplate}. Not a unit test, run manually:
+ * <code>DocxTemplateBenchmark [documents] [paragraphs]</code>.
+ */
+public class DocxTemplateBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int documents = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int paragraphs = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        byte[] template = createTemplate(paragraphs);
+        Map<String, Object> data = Maps.newHashMap();
+        data.put("number", "2015/17");
+        data.put("customer", "Ivanov Ivan");
+        VariableDefinition definition = new VariableDefinition("date", null);
+        definition.setFormat(DateFormat.class.getName());
+        data.put("date", new WfVariable(definition, new Date()));
+        DocxConfig config = new DocxConfig();
+        config.setStrictMode(true);
+
+        long start = System.currentTimeMillis();
+        long size = 0;
+        for (int i = 0; i < documents; i++) {
+            XWPFDocument document = new DocxFileChanger(config, new TestVariableProvider(data), new ByteArrayInputStream(template)).changeAll();
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            document.write(baos);
+            size += baos.size();
+        }
+        long changerTime = System.currentTimeMillis() - start;
+        System.out.println("DocxFileChanger: " + documents * 1000L / Math.max(changerTime, 1) + " documents/s, " + size / documents + " bytes");
+
+        start = System.currentTimeMillis();
+        size = 0;
+        for (int i = 0; i < documents; i++) {
+            byte[] content = DocxTemplate.get(config, template).generate(config, new TestVariableProvider(data));
+            size += content.length;
+        }
+        long templateTime = System.currentTimeMillis() - start;
+        System.out.println("DocxTemplate: " + documents * 1000L / Math.max(templateTime, 1) + " documents/s, " + size / documents + " bytes");
+    }
+
+    private static byte[] createTemplate(int paragraphs) throws Exception {
+        XWPFDocument document = new XWPFDocument();
+        for (int i = 0; i < paragraphs; i++) {
+            XWPFParagraph paragraph = document.createParagraph();
+            XWPFRun run = paragraph.createRun();
+            run.setText("Contract ${number} from ${date}, customer ");
+            run = paragraph.createRun();
+            run.setBold(true);
+            run.setText("${customer}");
+            paragraph.createRun().setText(", paragraph " + i + " without changes in structure.");
+        }
+        XWPFTable table = document.createTable(10, 3);
+        for (int i = 0; i < 10; i++) {
+            table.getRow(i).getCell(0).setText(String.valueOf(i));
+            table.getRow(i).getCell(1).setText("${customer}");
+        }
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.write(baos);
+        return baos.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.runa.wfe.office.doc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+
+import org.apache.poi.xwpf.usermodel.XWPFDocument;
+import org.apache.poi.xwpf.usermodel.XWPFParagraph;
+import org.apache.poi.xwpf.usermodel.XWPFTable;
+import org.apache.poi.xwpf.usermodel.XWPFTableCell;
+import org.apache.poi.xwpf.usermodel.XWPFTableRow;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.commons.ClassLoaderUtil;
+import ru.runa.wfe.user.Actor;
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.file.FileVariable;
+import ru.runa.wfe.var.format.ActorFormat;
+import ru.runa.wfe.var.format.DateFormat;
+import ru.runa.wfe.var.format.ListFormat;
+import ru.runa.wfe.var.format.StringFormat;
+import ru.runa.wfe.var.format.TimeFormat;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+
+public class DocxTemplateTest extends Assert {
+
+    @Test
+    public void testSameAsFileChanger() throws IOException {
+        Date date = new Date();
+        Map<String, Object> data = Maps.newHashMap();
+        data.put("contractNumber", "2 & 3");
+        data.put("currentDate", createVariable("currentDate", DateFormat.class.getName(), date));
+        data.put("currentTime", createVariable("currentTime", TimeFormat.class.getName(), date));
+        data.put("actor", createVariable("actor", ActorFormat.class.getName(), new Actor("Ivanov", "Pervomayskaya str 30a")));
+        byte[] template = createTemplate("Contract ${", "contract", "Number} from ${currentDate} ${currentTime}", "${actor}",
+                "${undefined}");
+        DocxConfig config = new DocxConfig();
+        DocxTemplate compiledTemplate = DocxTemplate.get(config, template);
+        assertNotNull(compiledTemplate);
+        assertSame(DocxTemplate.get(config, template), compiledTemplate);
+        byte[] content = compiledTemplate.generate(config, new TestVariableProvider(data));
+        assertNotNull(content);
+        XWPFDocument expected = new DocxFileChanger(config, new TestVariableProvider(data), new ByteArrayInputStream(template)).changeAll();
+        String text = getText(new XWPFDocument(new ByteArrayInputStream(content)));
+        assertEquals(text, getText(expected));
+        assertTrue(text.contains("Contract 2 & 3 from"));
+        assertTrue(text.contains("Ivanov"));
+    }
+
+    @Test
+    public void testStructureChangesAreNotGenerated() throws IOException {
+        Map<String, Object> data = Maps.newHashMap();
+        data.put("image1",
+                new FileVariable("image1.jpg", ByteStreams.toByteArray(ClassLoaderUtil.getAsStreamNotNull("image1.jpg", getClass())), null));
+        data.put("multiline", "line1\nline2");
+        data.put(
+                "stringList",
+                createVariable("stringList", ListFormat.class.getName() + "(" + StringFormat.class.getName() + ")",
+                        Lists.newArrayList("Ivanov", "Petrov", "Sidorov")));
+        DocxConfig config = new DocxConfig();
+        byte[] template = createTemplate("${image1}");
+        assertNull(DocxTemplate.get(config, template).generate(config, new TestVariableProvider(data)));
+        template = createTemplate("${multiline}");
+        assertNull(DocxTemplate.get(config, template).generate(config, new TestVariableProvider(data)));
+        template = createTemplate("${items:stringList as item}", "${item}", "${/items}");
+        assertNull(DocxTemplate.get(config, template).generate(config, new TestVariableProvider(data)));
+        data.remove("stringList");
+        assertNotNull(DocxTemplate.get(config, template).generate(config, new TestVariableProvider(data)));
+    }
+
+    /**
+     * @param runs
+     *            texts of runs, run with placeholder at start begins new paragraph
+     */
+    private byte[] createTemplate(String firstRun, String... runs) throws IOException {
+        XWPFDocument document = new XWPFDocument();
+        XWPFParagraph paragraph = document.createParagraph();
+        paragraph.createRun().setText(firstRun);
+        for (String run : runs) {
+            if (run.startsWith("${")) {
+                paragraph = document.createParagraph();
+            }
+            paragraph.createRun().setText(run);
+        }
+        XWPFTable table = document.createTable(1, 2);
+        table.getRow(0).getCell(0).setText("cell ${currentDate}");
+        table.getRow(0).getCell(1).setText("cell");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        document.write(baos);
+        return baos.toByteArray();
+    }
+
+    private String getText(XWPFDocument document) {
+        StringBuilder text = new StringBuilder();
+        for (XWPFParagraph paragraph : document.getParagraphs()) {
+            text.append(paragraph.getText()).append("\n");
+        }
+        for (XWPFTable table : document.getTables()) {
+            for (XWPFTableRow row : table.getRows()) {
+                for (XWPFTableCell cell : row.getTableCells()) {
+                    for (XWPFParagraph paragraph : cell.getParagraphs()) {
+                        text.append(paragraph.getText()).append("\n");
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    private WfVariable createVariable(String name, String format, Object value) {
+        VariableDefinition definition = new VariableDefinition(name, null);
+        definition.setFormat(format);
+        return new WfVariable(definition, value);
+    }
+}
@@ -0,0 +1,194 @@
+package ru.runa.wfe.office.excel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import ru.runa.wfe.var.format.DateTimeFormat;
+import ru.runa.wfe.var.format.ListFormat;
+import ru.runa.wfe.var.format.LongFormat;
+import ru.runa.wfe.var.format.StringFormat;
+import ru.runa.wfe.var.format.VariableFormat;
+
+import com.google.common.collect.Lists;
+
+public class ExcelStreamingTest extends Assert {
+    private static final int LARGE_ROWS_COUNT = 500000;
+    private static final String MAX_HEAP = "-Xmx128m";
+
+    @Test
+    public void testReadSameAsWorkbook() throws Exception {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet("data");
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("code");
+        header.createCell(1).setCellValue("name");
+        for (int i = 1; i <= 10; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i);
+            row.createCell(1).setCellValue("name" + i);
+        }
+        sheet.createRow(12).createCell(0).setCellValue(100);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        workbook.write(baos);
+        byte[] content = baos.toByteArray();
+
+        List<ExcelStorable<?, ?>> streamed = createStorables();
+        new ExcelDataStore().load(new ByteArrayInputStream(content), streamed);
+        List<ExcelStorable<?, ?>> loaded = createStorables();
+        XSSFWorkbook loadedWorkbook = new XSSFWorkbook(new ByteArrayInputStream(content));
+        for (ExcelStorable<?, ?> storable : loaded) {
+            storable.load(loadedWorkbook);
+        }
+        for (int i = 0; i < streamed.size(); i++) {
+            assertEquals(streamed.get(i).getData(), loaded.get(i).getData());
+        }
+        assertEquals(((List<?>) streamed.get(0).getData()).size(), 10);
+        assertEquals(((List<?>) streamed.get(1).getData()), Lists.newArrayList("code", "name"));
+        assertEquals(streamed.get(2).getData(), "name3");
+        assertEquals(streamed.get(3).getData(), null);
+    }
+
+    @Test
+    public void testStreamingSave() throws Exception {
+        XSSFWorkbook template = new XSSFWorkbook();
+        template.createSheet("data").createRow(0).createCell(0).setCellValue("header");
+        ListColumnExcelStorable storable = createColumnStorable("data", 1, 2, new LongFormat());
+        storable.setData(Lists.newArrayList(1L, 2L, 3L));
+        List<ExcelStorable<?, ?>> storables = Lists.<ExcelStorable<?, ?>> newArrayList(storable);
+        ExcelDataStore dataStore = new ExcelDataStore();
+        assertTrue(dataStore.isStreamingSaveSupported(template, storables));
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        dataStore.saveWorkbook(template, storables, baos);
+
+        ListColumnExcelStorable loaded = createColumnStorable("data", 1, 2, new LongFormat());
+        dataStore.load(new ByteArrayInputStream(baos.toByteArray()), Lists.<ExcelStorable<?, ?>> newArrayList(loaded));
+        assertEquals(loaded.getData(), Lists.newArrayList(1L, 2L, 3L));
+
+        ListColumnExcelStorable overlapping = createColumnStorable("data", 1, 1, new LongFormat());
+        overlapping.setData(Lists.newArrayList(1L));
+        assertFalse(dataStore.isStreamingSaveSupported(template, Lists.<ExcelStorable<?, ?>> newArrayList(overlapping)));
+    }
+
+    @Test
+    public void testLargeFileInFixedHeap() throws Exception {
+        File file = File.createTempFile("large", ".xlsx");
+        try {
+            String javaExecutable = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            ProcessBuilder processBuilder = new ProcessBuilder(javaExecutable, MAX_HEAP, "-cp", System.getProperty("java.class.path"),
+                    ExcelStreamingTest.class.getName(), file.getAbsolutePath());
+            processBuilder.redirectErrorStream(true);
+            Process process = processBuilder.start();
+            InputStream is = process.getInputStream();
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            assertEquals(process.waitFor(), 0, output.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Writes and reads back {@link #LARGE_ROWS_COUNT} rows, run in separate JVM with {@link #MAX_HEAP}.
+     */
+    public static void main(String[] args) throws Exception {
+        File file = new File(args[0]);
+        List<Long> data = Lists.newArrayListWithCapacity(LARGE_ROWS_COUNT);
+        for (long i = 0; i < LARGE_ROWS_COUNT; i++) {
+            data.add(i);
+        }
+        ListColumnExcelStorable storable = createColumnStorable(null, 1, 1, new LongFormat());
+        storable.setData(data);
+        ExcelDataStore dataStore = new ExcelDataStore();
+        XSSFWorkbook template = (XSSFWorkbook) dataStore.loadWorkbook(null, true);
+        FileOutputStream os = new FileOutputStream(file);
+        dataStore.saveWorkbook(template, Lists.<ExcelStorable<?, ?>> newArrayList(storable), os);
+        data = null;
+        storable.setData(null);
+
+        ListColumnExcelStorable loaded = createColumnStorable(null, 1, 1, new LongFormat());
+        InputStream is = new FileInputStream(file);
+        try {
+            dataStore.load(is, Lists.<ExcelStorable<?, ?>> newArrayList(loaded));
+        } finally {
+            is.close();
+        }
+        List<?> loadedData = loaded.getData();
+        if (loadedData.size() != LARGE_ROWS_COUNT || !Long.valueOf(LARGE_ROWS_COUNT - 1).equals(loadedData.get(LARGE_ROWS_COUNT - 1))) {
+            System.err.println("Unexpected data read: " + loadedData.size() + " rows");
+            System.exit(1);
+        }
+    }
+
+    private static List<ExcelStorable<?, ?>> createStorables() {
+        List<ExcelStorable<?, ?>> storables = Lists.newArrayList();
+        storables.add(createColumnStorable("data", 1, 2, new LongFormat()));
+        Element rowElement = createElement("data");
+        rowElement.addAttribute("row", "1");
+        RowConstraints rowConstraints = new RowConstraints();
+        rowConstraints.configure(rowElement);
+        ListRowExcelStorable rowStorable = new ListRowExcelStorable();
+        rowStorable.setConstraints(rowConstraints);
+        rowStorable.setFormat(createListFormat(new StringFormat()));
+        storables.add(rowStorable);
+        storables.add(createCellStorable(4, 2, new StringFormat()));
+        storables.add(createCellStorable(20, 1, new DateTimeFormat()));
+        return storables;
+    }
+
+    private static CellExcelStorable createCellStorable(int row, int column, VariableFormat format) {
+        Element element = createElement("data");
+        element.addAttribute("row", String.valueOf(row));
+        element.addAttribute("column", String.valueOf(column));
+        CellConstraints constraints = new CellConstraints();
+        constraints.configure(element);
+        CellExcelStorable storable = new CellExcelStorable();
+        storable.setConstraints(constraints);
+        storable.setFormat(format);
+        return storable;
+    }
+
+    private static ListColumnExcelStorable createColumnStorable(String sheetName, int column, int rowStart, VariableFormat componentFormat) {
+        Element element = createElement(sheetName);
+        element.addAttribute("column", String.valueOf(column));
+        element.addAttribute("rowStart", String.valueOf(rowStart));
+        ColumnConstraints constraints = new ColumnConstraints();
+        constraints.configure(element);
+        ListColumnExcelStorable storable = new ListColumnExcelStorable();
+        storable.setConstraints(constraints);
+        storable.setFormat(createListFormat(componentFormat));
+        return storable;
+    }
+
+    private static Element createElement(String sheetName) {
+        Element element = DocumentHelper.createElement("binding");
+        if (sheetName != null) {
+            element.addAttribute("sheetName", sheetName);
+        } else {
+            element.addAttribute("sheet", "1");
+        }
+        return element;
+    }
+
+    private static ListFormat createListFormat(VariableFormat componentFormat) {
+        ListFormat format = new ListFormat();
+        format.setComponentClassNames(new String[] { componentFormat.getClass().getName() });
+        return format;
+    }
+}
@@ -0,0 +1,107 @@
+package ru.runa.wfe.office.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+
+import ru.runa.wfe.extension.handler.ParamsDef;
+import ru.runa.wfe.office.doc.TestVariableProvider;
+import ru.runa.wfe.office.excel.AttributeConstraints;
+import ru.runa.wfe.var.ParamBasedVariableProvider;
+import ru.runa.wfe.var.UserType;
+import ru.runa.wfe.var.UserTypeMap;
+import ru.runa.wfe.var.VariableDefinition;
+import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.format.ListFormat;
+import ru.runa.wfe.var.format.LongFormat;
+import ru.runa.wfe.var.format.StringFormat;
+import ru.runa.wfe.var.format.UserTypeFormat;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Measures store operations on large file. Not a unit test, run manually: <code>StoreServiceBenchmark [rows] [iterations]</code>.
+ */
+public class StoreServiceBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        File file = File.createTempFile("store", ".xlsx");
+        file.deleteOnExit();
+        createFile(file, rows);
+
+        UserType userType = new UserType("Record");
+        userType.addAttribute(createDefinition("code", StringFormat.class.getName()));
+        userType.addAttribute(createDefinition("amount", LongFormat.class.getName()));
+        WfVariable listVariable = new WfVariable(createDefinition("records", ListFormat.class.getName()), null);
+
+        ParamsDef paramsDef = ParamsDef.parse("<config><output><param name=\"result\" variable=\"records\" /></output></config>");
+        ParamBasedVariableProvider variableProvider = new ParamBasedVariableProvider(new TestVariableProvider(Maps.<String, Object> newHashMap()),
+                paramsDef);
+        StoreService storeService = new StoreServiceImpl(variableProvider);
+
+        Element element = DocumentHelper.createElement("binding");
+        element.addAttribute("sheet", "1");
+        element.addAttribute("column", "1");
+        AttributeConstraints constraints = new AttributeConstraints();
+        constraints.configure(element);
+        Properties properties = new Properties();
+        properties.put(StoreService.PROP_CONSTRAINTS, constraints);
+        properties.put(StoreService.PROP_PATH, file.getAbsolutePath());
+        properties.put(StoreService.PROP_FORMAT, new UserTypeFormat(userType));
+
+        long start = System.currentTimeMillis();
+        storeService.findByFilter(properties, listVariable, null);
+        System.out.println("Initial load of " + rows + " rows: " + (System.currentTimeMillis() - start) + " ms");
+
+        start = System.currentTimeMillis();
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            String condition = "[code] == 'code" + (i * 997 % rows) + "'";
+            found += ((List<?>) storeService.findByFilter(properties, listVariable, condition).getValue()).size();
+        }
+        System.out.println("Find by code: " + (System.currentTimeMillis() - start) / iterations + " ms per query, found " + found);
+
+        UserTypeMap record = new UserTypeMap(userType);
+        record.put("code", "changed");
+        record.put("amount", 1L);
+        WfVariable recordVariable = new WfVariable(createDefinition("record", StringFormat.class.getName()), record);
+        start = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            storeService.update(properties, recordVariable, "[code] == 'code" + i + "'");
+        }
+        System.out.println("Update by code: " + (System.currentTimeMillis() - start) / iterations + " ms per update");
+    }
+
+    private static VariableDefinition createDefinition(String name, String format) {
+        VariableDefinition definition = new VariableDefinition(name, null);
+        definition.setFormat(format);
+        return definition;
+    }
+
+    private static void createFile(File file, int rows) throws Exception {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(1000);
+        Sheet sheet = workbook.createSheet();
+        for (int i = 0; i < rows; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue("code" + i);
+            row.createCell(1).setCellValue(i);
+        }
+        OutputStream os = new FileOutputStream(file);
+        try {
+            workbook.write(os);
+        } finally {
+            os.close();
+        }
+        workbook.dispose();
+    }
+}
@@ -34,6 +34,7 @@ import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.validation.ValidationException;
 import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummaries;
 import ru.runa.wfe.var.file.FileVariable;
 
 /**
@@ -179,6 +180,41 @@ public interface ExecutionService {
      */
     public List<WfVariable> getVariables(User user, Long processId) throws ProcessDoesNotExistException;
 
+    /**
+     * Gets page of process variables metadata in the same order as
+     * {@link #getVariables(User, Long)} together with total variables count.
+     * Values are not loaded, use {@link #getVariables(User, Long, List)} for
+     * them.
+     *
+     * @param user
+     *            authorized user
+     * @param processId
+     *            process id
+     * @param firstResult
+     *            index of first variable
+     * @param maxResults
+     *            page size
+     * @return not <code>null</code>
+     * @throws ProcessDoesNotExistException
+     */
+    public WfVariableSummaries getVariableSummaries(User user, Long processId, int firstResult, int maxResults)
+            throws ProcessDoesNotExistException;
+
+    /**
+     * Gets variables by names from process at once.
+     *
+     * @param user
+     *            authorized user
+     * @param processId
+     *            process id
+     * @param variableNames
+     *            variable names
+     * @return variables in order of names, <code>null</code> for not defined
+     *         ones
+     * @throws ProcessDoesNotExistException
+     */
+    public List<WfVariable> getVariables(User user, Long processId, List<String> variableNames) throws ProcessDoesNotExistException;
+
     /**
      * Gets variable by name from process.
      *
@@ -23,6 +23,7 @@ import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.security.WeakPasswordException;
 import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorSearchResult;
 import ru.runa.wfe.user.ExecutorAlreadyExistsException;
 import ru.runa.wfe.user.ExecutorDoesNotExistException;
 import ru.runa.wfe.user.Group;
@@ -63,6 +64,22 @@ public interface ExecutorService {
      */
     public int getExecutorsCount(User user, BatchPresentation batchPresentation);
 
+    /**
+     * Finds actors by name or full name prefix or groups by name prefix. System executors and temporary groups are not returned.
+     * 
+     * @param user
+     * @param actors
+     *            <code>true</code> to find actors, <code>false</code> to find groups
+     * @param prefix
+     *            case insensitive name prefix, all executors are matched for empty prefix
+     * @param pageNumber
+     *            page number starting from 1
+     * @param pageSize
+     * @return page of executors sorted by name and total count of found executors (can be not exact, see
+     *         {@link ExecutorSearchResult#isTotalCountExact()})
+     */
+    public ExecutorSearchResult findExecutorsByNamePrefix(User user, boolean actors, String prefix, int pageNumber, int pageSize);
+
     /**
      * Gets actor by code.
      * 
@@ -17,9 +17,11 @@
  */
 package ru.runa.wfe.service;
 
+import java.util.Date;
 import java.util.List;
 
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
 import ru.runa.wfe.security.AuthorizationException;
 import ru.runa.wfe.security.SystemPermission;
 import ru.runa.wfe.user.User;
@@ -87,4 +89,43 @@ public interface SystemService {
      * Remove all properties from database
      */
     public void clearSettings();
+
+    /**
+     * Get service methods calls statistics. Available for administrators only.
+     * 
+     * @param user
+     * @return methods statistics ordered by total time descending
+     * @throws AuthorizationException
+     * @since 4.3.0
+     */
+    public List<MethodMetrics> getServiceMetrics(User user) throws AuthorizationException;
+
+    /**
+     * Get time of service methods statistics collection start. Available for administrators only.
+     * 
+     * @param user
+     * @return server start or last reset time
+     * @throws AuthorizationException
+     * @since 4.3.0
+     */
+    public Date getServiceMetricsStartDate(User user) throws AuthorizationException;
+
+    /**
+     * Get service methods statistics including histogram buckets in CSV form. Available for administrators only.
+     * 
+     * @param user
+     * @return CSV data
+     * @throws AuthorizationException
+     * @since 4.3.0
+     */
+    public String dumpServiceMetrics(User user) throws AuthorizationException;
+
+    /**
+     * Clears collected service methods statistics. Available for administrators only.
+     * 
+     * @param user
+     * @throws AuthorizationException
+     * @since 4.3.0
+     */
+    public void resetServiceMetrics(User user) throws AuthorizationException;
 }
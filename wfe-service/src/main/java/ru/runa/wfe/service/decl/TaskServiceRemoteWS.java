@@ -4,6 +4,8 @@ import java.util.List;
 
 import javax.ejb.Remote;
 
+import ru.runa.wfe.service.jaxb.TaskCompletion;
+import ru.runa.wfe.service.jaxb.TaskCompletionResult;
 import ru.runa.wfe.service.jaxb.Variable;
 import ru.runa.wfe.user.User;
 
@@ -12,4 +14,14 @@ public interface TaskServiceRemoteWS {
 
     public void completeTaskWS(User user, Long taskId, List<Variable> variables, Long swimlaneActorId);
 
+    /**
+     * Completes tasks in transactional chunks. Failed chunk is rolled back and its tasks are completed one by one, so failure of one task does
+     * not affect others.
+     *
+     * @param chunkSize
+     *            tasks count per transaction, <code>null</code> for default from api.properties
+     * @return result for each task in request order
+     */
+    public List<TaskCompletionResult> completeTasksWS(User user, List<TaskCompletion> tasks, Integer chunkSize);
+
 }
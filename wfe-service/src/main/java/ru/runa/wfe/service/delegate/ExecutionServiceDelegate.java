@@ -32,6 +32,7 @@ import ru.runa.wfe.service.ExecutionService;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummaries;
 import ru.runa.wfe.var.file.FileVariable;
 
 /**
@@ -128,6 +129,24 @@ public class ExecutionServiceDelegate extends EJB3Delegate implements ExecutionS
         }
     }
 
+    @Override
+    public WfVariableSummaries getVariableSummaries(User user, Long processId, int firstResult, int maxResults) {
+        try {
+            return getExecutionService().getVariableSummaries(user, processId, firstResult, maxResults);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public List<WfVariable> getVariables(User user, Long processId, List<String> variableNames) {
+        try {
+            return getExecutionService().getVariables(user, processId, variableNames);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public WfVariable getVariable(User user, Long processId, String variableName) {
         try {
@@ -23,6 +23,7 @@ import ru.runa.wfe.presentation.BatchPresentation;
 import ru.runa.wfe.service.ExecutorService;
 import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorSearchResult;
 import ru.runa.wfe.user.Group;
 import ru.runa.wfe.user.User;
 
@@ -84,6 +85,15 @@ public class ExecutorServiceDelegate extends EJB3Delegate implements ExecutorSer
         }
     }
 
+    @Override
+    public ExecutorSearchResult findExecutorsByNamePrefix(User user, boolean actors, String prefix, int pageNumber, int pageSize) {
+        try {
+            return getExecutorService().findExecutorsByNamePrefix(user, actors, prefix, pageNumber, pageSize);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
     @Override
     public Actor getActorCaseInsensitive(String login) {
         try {
@@ -17,9 +17,11 @@
  */
 package ru.runa.wfe.service.delegate;
 
+import java.util.Date;
 import java.util.List;
 
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
 import ru.runa.wfe.service.SystemService;
 import ru.runa.wfe.user.User;
 
@@ -103,4 +105,40 @@ public class SystemServiceDelegate extends EJB3Delegate implements SystemService
         }
 	}
 
+    @Override
+    public List<MethodMetrics> getServiceMetrics(User user) {
+        try {
+            return getSystemService().getServiceMetrics(user);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public Date getServiceMetricsStartDate(User user) {
+        try {
+            return getSystemService().getServiceMetricsStartDate(user);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public String dumpServiceMetrics(User user) {
+        try {
+            return getSystemService().dumpServiceMetrics(user);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
+    @Override
+    public void resetServiceMetrics(User user) {
+        try {
+            getSystemService().resetServiceMetrics(user);
+        } catch (Exception e) {
+            throw handleException(e);
+        }
+    }
+
 }
@@ -18,6 +18,8 @@
 package ru.runa.wfe.service.impl;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 
 import javax.ejb.ActivationConfigProperty;
 import javax.ejb.MessageDriven;
@@ -34,12 +36,14 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import ru.runa.wfe.commons.SystemProperties;
+import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.commons.email.EmailConfig;
 import ru.runa.wfe.commons.email.EmailUtils;
 import ru.runa.wfe.service.interceptors.EjbExceptionSupport;
 import ru.runa.wfe.service.interceptors.PerformanceObserver;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 
 /**
  * Non-blocking and transactional email sending.
@@ -55,33 +59,45 @@ public class EmailSenderBean implements MessageListener {
     private static Log log = LogFactory.getLog(EmailSenderBean.class);
 
     @Override
+    @SuppressWarnings("unchecked")
     public void onMessage(Message jmsMessage) {
         ObjectMessage message = (ObjectMessage) jmsMessage;
-        EmailConfig config;
+        List<EmailConfig> configs;
         try {
-            config = (EmailConfig) message.getObject();
+            Object object = message.getObject();
+            if (object instanceof EmailConfig) {
+                // requests sent before batching
+                configs = Lists.newArrayList((EmailConfig) object);
+            } else {
+                configs = (List<EmailConfig>) object;
+            }
         } catch (JMSException e) {
             throw Throwables.propagate(e);
         }
-        try {
-            EmailUtils.sendMessage(config);
-            return;
-        } catch (IOException e) {
-            log.warn(config);
-            log.error("unable to send email: " + e);
-        } catch (MessagingException e) {
+        List<EmailConfig> retryConfigs = Lists.newArrayList();
+        for (Map.Entry<EmailConfig, Exception> entry : EmailUtils.sendMessages(configs).entrySet()) {
+            EmailConfig config = entry.getKey();
+            Exception e = entry.getValue();
             log.warn(config);
-            log.error("unable to send email: " + e);
-        } catch (Exception e) {
-            log.warn(config);
-            log.error("unable to send email", e);
-            if (!config.isThrowErrorOnFailure()) {
-                return;
+            if (e instanceof IOException || e instanceof MessagingException) {
+                log.error("unable to send email: " + e);
+            } else {
+                log.error("unable to send email", e);
+                if (!config.isThrowErrorOnFailure()) {
+                    continue;
+                }
             }
+            retryConfigs.add(config);
+        }
+        if (retryConfigs.isEmpty() || !SystemProperties.isEmailGuaranteedDeliveryEnabled()) {
+            return;
         }
-        if (SystemProperties.isEmailGuaranteedDeliveryEnabled()) {
-            throw new MessagePostponedException("email guaranteed delivery requested");
+        if (retryConfigs.size() < configs.size()) {
+            // delivered emails are not sent again
+            Utils.sendEmailRequests(retryConfigs);
+            return;
         }
+        throw new MessagePostponedException("email guaranteed delivery requested");
     }
 
 }
@@ -61,6 +61,7 @@ import ru.runa.wfe.service.utils.FileVariablesUtil;
 import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummaries;
 import ru.runa.wfe.var.file.FileVariable;
 import ru.runa.wfe.var.file.IFileVariable;
 import ru.runa.wfe.var.logic.VariableLogic;
@@ -150,6 +151,28 @@ public class ExecutionServiceBean implements ExecutionServiceLocal, ExecutionSer
         return list;
     }
 
+    @WebMethod(exclude = true)
+    @Override
+    public WfVariableSummaries getVariableSummaries(User user, Long processId, int firstResult, int maxResults) {
+        Preconditions.checkArgument(user != null);
+        Preconditions.checkArgument(processId != null);
+        Preconditions.checkArgument(firstResult >= 0 && maxResults >= 0);
+        return variableLogic.getVariableSummaries(user, processId, firstResult, maxResults);
+    }
+
+    @WebMethod(exclude = true)
+    @Override
+    public List<WfVariable> getVariables(User user, Long processId, List<String> variableNames) {
+        Preconditions.checkArgument(user != null);
+        Preconditions.checkArgument(processId != null);
+        Preconditions.checkArgument(variableNames != null);
+        List<WfVariable> list = variableLogic.getVariables(user, processId, variableNames);
+        for (WfVariable variable : list) {
+            FileVariablesUtil.proxyFileVariables(user, processId, variable);
+        }
+        return list;
+    }
+
     @Override
     @WebResult(name = "result")
     public WfVariable getVariable(@WebParam(name = "user") User user, @WebParam(name = "processId") Long processId,
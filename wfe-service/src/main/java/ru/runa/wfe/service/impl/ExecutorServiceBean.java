@@ -40,6 +40,7 @@ import ru.runa.wfe.service.interceptors.EjbTransactionSupport;
 import ru.runa.wfe.service.interceptors.PerformanceObserver;
 import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorSearchResult;
 import ru.runa.wfe.user.Group;
 import ru.runa.wfe.user.User;
 import ru.runa.wfe.user.logic.ExecutorLogic;
@@ -88,6 +89,16 @@ public class ExecutorServiceBean implements ExecutorServiceLocal, ExecutorServic
         return executorLogic.getExecutorsCount(user, batchPresentation);
     }
 
+    @Override
+    @WebResult(name = "result")
+    public ExecutorSearchResult findExecutorsByNamePrefix(@WebParam(name = "user") User user, @WebParam(name = "actors") boolean actors,
+            @WebParam(name = "prefix") String prefix, @WebParam(name = "pageNumber") int pageNumber, @WebParam(name = "pageSize") int pageSize) {
+        Preconditions.checkArgument(user != null);
+        Preconditions.checkArgument(pageNumber > 0);
+        Preconditions.checkArgument(pageSize > 0);
+        return executorLogic.findExecutorsByNamePrefix(user, actors, prefix, pageNumber, pageSize);
+    }
+
     @Override
     @WebResult(name = "result")
     public Actor getActorCaseInsensitive(@WebParam(name = "login") String login) {
@@ -17,12 +17,14 @@
  */
 package ru.runa.wfe.service.impl;
 
+import java.util.Date;
 import java.util.List;
 
 import javax.ejb.Stateless;
 import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
 import javax.interceptor.Interceptors;
+import javax.jws.WebMethod;
 import javax.jws.WebParam;
 import javax.jws.WebResult;
 import javax.jws.WebService;
@@ -33,6 +35,7 @@ import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
 import ru.runa.wfe.audit.logic.AuditLogic;
 import ru.runa.wfe.commons.dao.Localization;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
 import ru.runa.wfe.security.ASystem;
 import ru.runa.wfe.service.decl.SystemServiceLocal;
 import ru.runa.wfe.service.decl.SystemServiceRemote;
@@ -103,4 +106,32 @@ public class SystemServiceBean implements SystemServiceLocal, SystemServiceRemot
 	public void clearSettings() {
 		auditLogic.clearSettings();
 	}
+
+    @WebMethod(exclude = true)
+    @Override
+    public List<MethodMetrics> getServiceMetrics(User user) {
+        Preconditions.checkArgument(user != null);
+        return auditLogic.getServiceMetrics(user);
+    }
+
+    @WebMethod(exclude = true)
+    @Override
+    public Date getServiceMetricsStartDate(User user) {
+        Preconditions.checkArgument(user != null);
+        return auditLogic.getServiceMetricsStartDate(user);
+    }
+
+    @WebMethod(exclude = true)
+    @Override
+    public String dumpServiceMetrics(User user) {
+        Preconditions.checkArgument(user != null);
+        return auditLogic.dumpServiceMetrics(user);
+    }
+
+    @WebMethod(exclude = true)
+    @Override
+    public void resetServiceMetrics(User user) {
+        Preconditions.checkArgument(user != null);
+        auditLogic.resetServiceMetrics(user);
+    }
 }
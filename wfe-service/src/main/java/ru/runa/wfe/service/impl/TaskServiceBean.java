@@ -3,6 +3,8 @@ package ru.runa.wfe.service.impl;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Resource;
+import javax.ejb.SessionContext;
 import javax.ejb.Stateless;
 import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
@@ -13,9 +15,15 @@ import javax.jws.WebResult;
 import javax.jws.WebService;
 import javax.jws.soap.SOAPBinding;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.StaleObjectStateException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.ejb.interceptor.SpringBeanAutowiringInterceptor;
 
+import ru.runa.wfe.commons.TransactionListeners;
+import ru.runa.wfe.commons.TransactionalExecutor;
 import ru.runa.wfe.execution.logic.ExecutionLogic;
 import ru.runa.wfe.lang.ProcessDefinition;
 import ru.runa.wfe.presentation.BatchPresentation;
@@ -26,8 +34,12 @@ import ru.runa.wfe.service.decl.TaskServiceRemoteWS;
 import ru.runa.wfe.service.interceptors.EjbExceptionSupport;
 import ru.runa.wfe.service.interceptors.EjbTransactionSupport;
 import ru.runa.wfe.service.interceptors.PerformanceObserver;
+import ru.runa.wfe.service.interceptors.SelfManagedTransactions;
+import ru.runa.wfe.service.jaxb.TaskCompletion;
+import ru.runa.wfe.service.jaxb.TaskCompletionResult;
 import ru.runa.wfe.service.jaxb.Variable;
 import ru.runa.wfe.service.jaxb.VariableConverter;
+import ru.runa.wfe.service.utils.ApiProperties;
 import ru.runa.wfe.service.utils.FileVariablesUtil;
 import ru.runa.wfe.task.dto.WfTask;
 import ru.runa.wfe.task.logic.TaskLogic;
@@ -35,6 +47,8 @@ import ru.runa.wfe.user.Executor;
 import ru.runa.wfe.user.User;
 
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
 
 @Stateless(name = "TaskServiceBean")
 @TransactionManagement(TransactionManagementType.BEAN)
@@ -42,10 +56,13 @@ import com.google.common.base.Preconditions;
 @WebService(name = "TaskAPI", serviceName = "TaskWebService")
 @SOAPBinding
 public class TaskServiceBean implements TaskServiceLocal, TaskServiceRemote, TaskServiceRemoteWS {
+    private static final Log log = LogFactory.getLog(TaskServiceBean.class);
     @Autowired
     private TaskLogic taskLogic;
     @Autowired
     private ExecutionLogic executionLogic;
+    @Resource
+    private SessionContext context;
 
     @Override
     @WebResult(name = "result")
@@ -133,6 +150,101 @@ public class TaskServiceBean implements TaskServiceLocal, TaskServiceRemote, Tas
         completeTask(user, taskId, VariableConverter.unmarshal(processDefinition, variables), swimlaneActorId);
     }
 
+    /**
+     * Transactions are demarcated per chunk, so long batch is not limited by transaction timeout and committed chunks are not affected by
+     * later failures.
+     */
+    @Override
+    @WebResult(name = "result")
+    @SelfManagedTransactions
+    public List<TaskCompletionResult> completeTasksWS(@WebParam(name = "user") final User user,
+            @WebParam(name = "tasks") List<TaskCompletion> tasks, @WebParam(name = "chunkSize") Integer chunkSize) {
+        Preconditions.checkArgument(user != null);
+        Preconditions.checkArgument(tasks != null);
+        if (chunkSize == null || chunkSize <= 0) {
+            chunkSize = ApiProperties.getTasksCompletionChunkSize();
+        }
+        List<TaskCompletionResult> results = Lists.newArrayListWithCapacity(tasks.size());
+        for (List<TaskCompletion> chunk : Lists.partition(tasks, chunkSize)) {
+            try {
+                completeTasksInTransaction(user, chunk);
+                for (TaskCompletion task : chunk) {
+                    results.add(new TaskCompletionResult(task.taskId, null));
+                }
+            } catch (Exception e) {
+                if (chunk.size() == 1) {
+                    results.add(new TaskCompletionResult(chunk.get(0).taskId, getErrorMessage(chunk.get(0), e)));
+                    continue;
+                }
+                log.warn("Chunk of " + chunk.size() + " tasks is rolled back, completing tasks one by one: " + e);
+                for (TaskCompletion task : chunk) {
+                    try {
+                        completeTasksInTransaction(user, Lists.newArrayList(task));
+                        results.add(new TaskCompletionResult(task.taskId, null));
+                    } catch (Exception taskException) {
+                        results.add(new TaskCompletionResult(task.taskId, getErrorMessage(task, taskException)));
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Completes tasks in own transaction with retry on optimistic lock failure like {@link EjbTransactionSupport} does. Transaction listeners are
+     * notified after commit and discarded on rollback.
+     */
+    private void completeTasksInTransaction(final User user, final List<TaskCompletion> tasks) {
+        for (int retriesCount = ApiProperties.getRetriesCount();; retriesCount--) {
+            boolean committed = false;
+            try {
+                new TransactionalExecutor(context.getUserTransaction()) {
+
+                    @Override
+                    protected void doExecuteInTransaction() {
+                        for (TaskCompletion task : tasks) {
+                            Preconditions.checkArgument(task != null && task.taskId != null, "taskId");
+                            completeTaskWS(user, task.taskId, task.variables, task.swimlaneActorId);
+                        }
+                    }
+                }.executeInTransaction(true);
+                committed = true;
+                return;
+            } catch (RuntimeException e) {
+                if (retriesCount <= 0 || !isOptimisticLockFailure(e)) {
+                    throw e;
+                }
+                log.warn("Optimistic lock failure on completion of " + tasks.size() + " tasks, retrying: " + e);
+                try {
+                    Thread.sleep(ApiProperties.getRetryTimeoutMilliseconds());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            } finally {
+                if (committed) {
+                    TransactionListeners.onTransactionComplete();
+                } else {
+                    TransactionListeners.reset();
+                }
+            }
+        }
+    }
+
+    private static boolean isOptimisticLockFailure(Throwable th) {
+        for (Throwable cause : Throwables.getCausalChain(th)) {
+            if (cause instanceof StaleObjectStateException || cause instanceof OptimisticLockingFailureException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String getErrorMessage(TaskCompletion task, Exception e) {
+        log.warn("Unable to complete task " + task.taskId, e);
+        return "Unable to complete task, see server log for details";
+    }
+
     @WebMethod(exclude = true)
     @Override
     public void delegateTask(User user, Long taskId, Executor currentOwner, boolean keepCurrentOwners, List<? extends Executor> newOwners) {
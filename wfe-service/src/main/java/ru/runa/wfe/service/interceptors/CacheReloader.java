@@ -1,21 +1,34 @@
 package ru.runa.wfe.service.interceptors;
 
+import java.util.Set;
+
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.InvocationContext;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import ru.runa.wfe.commons.cache.CachingLogic;
 
+/**
+ * Records changes made by bulk operation instead of notifying caches about each of them and resets after call only caches affected by changed
+ * objects.
+ */
 public class CacheReloader {
+    private static final Log log = LogFactory.getLog(CacheReloader.class);
 
     @AroundInvoke
     public Object process(InvocationContext ic) throws Exception {
         try {
-            CachingLogic.setEnabled(false);
+            CachingLogic.startChangesRecording();
             Object result = ic.proceed();
             return result;
         } finally {
-            CachingLogic.setEnabled(true);
-            CachingLogic.resetAllCaches();
+            Set<Class<?>> changedClasses = CachingLogic.stopChangesRecording();
+            if (!changedClasses.isEmpty()) {
+                log.debug("Resetting caches after " + ic.getMethod().getName() + " changed " + changedClasses);
+                CachingLogic.resetCaches(changedClasses);
+            }
         }
     }
 
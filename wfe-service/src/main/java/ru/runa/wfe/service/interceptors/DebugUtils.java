@@ -1,16 +1,42 @@
 package ru.runa.wfe.service.interceptors;
 
+import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.interceptor.InvocationContext;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 public class DebugUtils {
+    private static final ConcurrentMap<Method, String> methodSignatures = Maps.newConcurrentMap();
+
+    public static String getMethodName(InvocationContext ic) {
+        return ic.getMethod().getDeclaringClass().getSimpleName() + "." + ic.getMethod().getName();
+    }
+
+    /**
+     * @return method name with parameter types, distinguishes overloaded methods, i.e.
+     *         <code>TaskServiceBean.completeTask(User, Long, Map, Long)</code>
+     */
+    public static String getMethodSignature(InvocationContext ic) {
+        Method method = ic.getMethod();
+        String signature = methodSignatures.get(method);
+        if (signature == null) {
+            List<String> parameterTypes = Lists.newArrayList();
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                parameterTypes.add(parameterType.getSimpleName());
+            }
+            signature = getMethodName(ic) + "(" + Joiner.on(", ").join(parameterTypes) + ")";
+            methodSignatures.putIfAbsent(method, signature);
+        }
+        return signature;
+    }
 
     public static String getDebugString(InvocationContext ic, boolean includeArguments) {
-        String s = ic.getMethod().getDeclaringClass().getSimpleName() + "." + ic.getMethod().getName();
+        String s = getMethodName(ic);
         if (includeArguments) {
             s += "(" + Joiner.on(", ").join(getDebugArguments(ic.getParameters())) + ")";
         }
@@ -11,7 +11,6 @@ import org.apache.commons.logging.LogFactory;
 import org.hibernate.StaleObjectStateException;
 import org.springframework.dao.OptimisticLockingFailureException;
 
-import ru.runa.wfe.commons.ITransactionListener;
 import ru.runa.wfe.commons.TransactionListeners;
 import ru.runa.wfe.commons.Utils;
 import ru.runa.wfe.security.auth.SubjectPrincipalsHelper;
@@ -41,18 +40,14 @@ public class EjbTransactionSupport {
                 SubjectPrincipalsHelper.validateUser(user);
                 UserHolder.set(user);
             }
+            if (ic.getMethod().isAnnotationPresent(SelfManagedTransactions.class)) {
+                return ic.proceed();
+            }
             UserTransaction transaction = ejbContext.getUserTransaction();
             return invokeWithRetry(ic, transaction, ApiProperties.getRetriesCount());
         } finally {
             UserHolder.reset();
-            for (ITransactionListener listener : TransactionListeners.get()) {
-                try {
-                    listener.onTransactionComplete();
-                } catch (Throwable th) {
-                    log.error(th);
-                }
-            }
-            TransactionListeners.reset();
+            TransactionListeners.onTransactionComplete();
         }
     }
 
@@ -6,14 +6,25 @@ import javax.interceptor.InvocationContext;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import ru.runa.wfe.commons.metrics.ServiceMetrics;
+
 public class PerformanceSimpleObserver {
     private static final Log log = LogFactory.getLog("apicall");
 
     @AroundInvoke
     public Object process(InvocationContext ic) throws Exception {
-        long startTime = System.currentTimeMillis();
-        Object result = ic.proceed();
-        long jobTime = System.currentTimeMillis() - startTime;
+        long startTime = System.nanoTime();
+        Object result;
+        long nanos;
+        boolean failed = true;
+        try {
+            result = ic.proceed();
+            failed = false;
+        } finally {
+            nanos = System.nanoTime() - startTime;
+            ServiceMetrics.record(DebugUtils.getMethodSignature(ic), nanos, failed);
+        }
+        long jobTime = nanos / 1000000;
         if (jobTime > 1000) {
             log.info(jobTime + " ms: " + DebugUtils.getDebugString(ic, false));
         } else if (log.isDebugEnabled()) {
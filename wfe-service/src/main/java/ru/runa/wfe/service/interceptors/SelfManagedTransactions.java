@@ -0,0 +1,17 @@
+package ru.runa.wfe.service.interceptors;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks service method which demarcates transactions itself through bean {@link javax.transaction.UserTransaction}.
+ * {@link EjbTransactionSupport} invokes such method without enclosing transaction.
+ *
+ * @since 4.3.0
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface SelfManagedTransactions {
+}
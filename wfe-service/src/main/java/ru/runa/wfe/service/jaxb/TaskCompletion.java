@@ -0,0 +1,21 @@
+package ru.runa.wfe.service.jaxb;
+
+import java.util.List;
+
+import com.google.common.base.Objects;
+
+/**
+ * Task completion request for batch completion.
+ *
+ * @since 4.3.0
+ */
+public class TaskCompletion {
+    public Long taskId;
+    public List<Variable> variables;
+    public Long swimlaneActorId;
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(getClass()).add("taskId", taskId).add("swimlaneActorId", swimlaneActorId).toString();
+    }
+}
@@ -0,0 +1,28 @@
+package ru.runa.wfe.service.jaxb;
+
+import com.google.common.base.Objects;
+
+/**
+ * Task completion result in batch completion; <code>error</code> is filled for failed task.
+ *
+ * @since 4.3.0
+ */
+public class TaskCompletionResult {
+    public Long taskId;
+    public boolean completed;
+    public String error;
+
+    public TaskCompletionResult() {
+    }
+
+    public TaskCompletionResult(Long taskId, String error) {
+        this.taskId = taskId;
+        this.completed = error == null;
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return Objects.toStringHelper(getClass()).add("taskId", taskId).add("completed", completed).add("error", error).toString();
+    }
+}
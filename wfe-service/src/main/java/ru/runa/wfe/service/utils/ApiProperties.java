@@ -17,4 +17,8 @@ public class ApiProperties {
         return RESOURCES.getBooleanProperty("service.invocation.suppress.external.exceptions", false);
     }
 
+    public static int getTasksCompletionChunkSize() {
+        return RESOURCES.getIntegerProperty("service.tasks.completion.chunk.size", 50);
+    }
+
 }
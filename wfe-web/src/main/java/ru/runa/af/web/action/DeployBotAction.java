@@ -44,8 +44,9 @@ public class DeployBotAction extends ActionBase {
                     }
                 }
                 for (String key : successKeys) {
-                    if (uploadedBotFiles.containsKey(key)) {
-                        uploadedBotFiles.remove(key);
+                    UploadedFile uploadedFile = uploadedBotFiles.remove(key);
+                    if (uploadedFile != null) {
+                        uploadedFile.deleteContent();
                     }
                 }
             } else {
@@ -0,0 +1,43 @@
+package ru.runa.af.web.action;
+
+import java.io.OutputStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.struts.action.ActionForm;
+import org.apache.struts.action.ActionForward;
+import org.apache.struts.action.ActionMapping;
+
+import ru.runa.common.web.HTMLUtils;
+import ru.runa.common.web.action.ActionBase;
+import ru.runa.wfe.service.delegate.Delegates;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Downloads service methods statistics in CSV form.
+ *
+ * @struts:action path="/dumpServiceMetrics" scope="request" unknown="false" validate="false"
+ */
+public class DumpServiceMetricsAction extends ActionBase {
+    public static final String ACTION_PATH = "/dumpServiceMetrics";
+
+    @Override
+    public ActionForward execute(ActionMapping mapping, ActionForm form, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            byte[] dump = Delegates.getSystemService().dumpServiceMetrics(getLoggedUser(request)).getBytes(Charsets.UTF_8);
+            String fileName = "service-metrics-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader("Content-disposition", "attachment; filename=\"" + HTMLUtils.encodeFileName(request, fileName) + "\"");
+            OutputStream os = response.getOutputStream();
+            os.write(dump);
+            os.flush();
+        } catch (Exception e) {
+            addError(request, e);
+        }
+        return null;
+    }
+}
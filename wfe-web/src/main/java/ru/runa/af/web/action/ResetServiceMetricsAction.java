@@ -0,0 +1,32 @@
+package ru.runa.af.web.action;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.struts.action.ActionForm;
+import org.apache.struts.action.ActionForward;
+import org.apache.struts.action.ActionMapping;
+
+import ru.runa.common.web.Resources;
+import ru.runa.common.web.action.ActionBase;
+import ru.runa.wfe.service.delegate.Delegates;
+
+/**
+ * Clears collected service methods statistics.
+ *
+ * @struts:action path="/resetServiceMetrics" validate="false"
+ * @struts.action-forward name="success" path="/service_metrics.do" redirect = "true"
+ */
+public class ResetServiceMetricsAction extends ActionBase {
+    public static final String ACTION_PATH = "/resetServiceMetrics";
+
+    @Override
+    public ActionForward execute(ActionMapping mapping, ActionForm form, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            Delegates.getSystemService().resetServiceMetrics(getLoggedUser(request));
+        } catch (Exception e) {
+            addError(request, e);
+        }
+        return mapping.findForward(Resources.FORWARD_SUCCESS);
+    }
+}
@@ -0,0 +1,121 @@
+package ru.runa.af.web.tag;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.ecs.html.A;
+import org.apache.ecs.html.TD;
+import org.apache.ecs.html.TH;
+import org.apache.ecs.html.TR;
+import org.apache.ecs.html.Table;
+import org.tldgen.annotations.BodyContent;
+
+import ru.runa.af.web.action.DumpServiceMetricsAction;
+import ru.runa.af.web.action.ResetServiceMetricsAction;
+import ru.runa.common.web.Commons;
+import ru.runa.common.web.MessagesOther;
+import ru.runa.common.web.Resources;
+import ru.runa.common.web.html.HeaderBuilder;
+import ru.runa.common.web.html.TRRowBuilder;
+import ru.runa.common.web.html.TableBuilder;
+import ru.runa.common.web.tag.TitledFormTag;
+import ru.runa.wfe.commons.CalendarUtil;
+import ru.runa.wfe.commons.metrics.MethodMetrics;
+import ru.runa.wfe.commons.web.PortletUrlType;
+import ru.runa.wfe.service.SystemService;
+import ru.runa.wfe.service.delegate.Delegates;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Service methods calls statistics (slowest by total time first).
+ *
+ * @since 4.3.0
+ */
+@org.tldgen.annotations.Tag(bodyContent = BodyContent.JSP, name = "viewServiceMetrics")
+public class ViewServiceMetricsTag extends TitledFormTag {
+    private static final long serialVersionUID = 1L;
+    private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+    @Override
+    protected String getTitle() {
+        return MessagesOther.TITLE_SERVICE_METRICS.message(pageContext);
+    }
+
+    @Override
+    protected void fillFormElement(TD tdFormElement) {
+        SystemService systemService = Delegates.getSystemService();
+        List<MethodMetrics> methodMetrics = systemService.getServiceMetrics(getUser());
+        Date startDate = systemService.getServiceMetricsStartDate(getUser());
+        Table infoTable = new Table();
+        TR infoRow = new TR();
+        String since = CalendarUtil.format(startDate, CalendarUtil.DATE_WITH_HOUR_MINUTES_SECONDS_FORMAT);
+        infoRow.addElement(new TD(MessagesOther.LABEL_SERVICE_METRICS_SINCE.message(pageContext) + " " + since));
+        String dumpUrl = Commons.getActionUrl(DumpServiceMetricsAction.ACTION_PATH, pageContext, PortletUrlType.Render);
+        A dumpLink = new A(dumpUrl, MessagesOther.LABEL_SERVICE_METRICS_DUMP.message(pageContext));
+        dumpLink.setClass(Resources.CLASS_LINK);
+        infoRow.addElement(new TD(dumpLink).setAlign("right"));
+        infoTable.addElement(infoRow);
+        infoTable.setWidth("100%");
+        tdFormElement.addElement(infoTable);
+
+        List<TR> rows = Lists.newArrayList();
+        for (MethodMetrics metrics : methodMetrics) {
+            TR tr = new TR();
+            tr.addElement(new TD(metrics.getName()).setClass(Resources.CLASS_LIST_TABLE_TD));
+            tr.addElement(createNumberTD(String.valueOf(metrics.getCallsCount())));
+            tr.addElement(createNumberTD(String.valueOf(metrics.getErrorsCount())));
+            tr.addElement(createNumberTD(format(metrics.getThroughput(), 2)));
+            tr.addElement(createNumberTD(format(metrics.getTotalTime(), 0)));
+            tr.addElement(createNumberTD(format(metrics.getMeanTime(), 1)));
+            for (double percentile : PERCENTILES) {
+                tr.addElement(createNumberTD(format(metrics.getPercentileTime(percentile), 1)));
+            }
+            tr.addElement(createNumberTD(format(metrics.getMaxTime(), 1)));
+            rows.add(tr);
+        }
+        tdFormElement.addElement(new TableBuilder().build(new MetricsHeaderBuilder(), new TRRowBuilder(rows)));
+    }
+
+    private TD createNumberTD(String value) {
+        TD td = new TD(value);
+        td.setClass(Resources.CLASS_LIST_TABLE_TD);
+        td.setAlign("right");
+        return td;
+    }
+
+    private static String format(double value, int fractionDigits) {
+        return String.format(Locale.ENGLISH, "%." + fractionDigits + "f", value);
+    }
+
+    @Override
+    protected String getFormButtonName() {
+        return MessagesOther.BUTTON_RESET_SERVICE_METRICS.message(pageContext);
+    }
+
+    @Override
+    public String getAction() {
+        return ResetServiceMetricsAction.ACTION_PATH;
+    }
+
+    private class MetricsHeaderBuilder implements HeaderBuilder {
+
+        @Override
+        public TR build() {
+            TR tr = new TR();
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_METHOD.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_CALLS.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_ERRORS.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_THROUGHPUT.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_TOTAL.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_MEAN.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            for (double percentile : PERCENTILES) {
+                String title = (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile)) + "%";
+                tr.addElement(new TH(title).setClass(Resources.CLASS_LIST_TABLE_TH));
+            }
+            tr.addElement(new TH(MessagesOther.LABEL_SERVICE_METRICS_MAX.message(pageContext)).setClass(Resources.CLASS_LIST_TABLE_TH));
+            return tr;
+        }
+    }
+}
@@ -164,6 +164,17 @@ public class WebResources {
         return RESOURCES.getBooleanProperty("process.variables.displayJavaType", true);
     }
 
+    public static int getProcessVariablesPageSize() {
+        return RESOURCES.getIntegerProperty("process.variables.page.size", 100);
+    }
+
+    /**
+     * @return maximal string value length or elements count of variable displayed without explicit request
+     */
+    public static int getProcessVariablesValueLimit() {
+        return RESOURCES.getIntegerProperty("process.variables.value.limit", 250);
+    }
+
     public static boolean isBulkDeploymentElements() {
         return RESOURCES.getBooleanProperty("process.definition.ajax.bulk.deployment.enabled", true);
     }
@@ -188,4 +199,34 @@ public class WebResources {
         return RESOURCES.getBooleanProperty("process.swimlane.assignment.enabled", false);
     }
 
+    public static int getReportBuildThreadsCount() {
+        return RESOURCES.getIntegerProperty("report.build.threads", 2);
+    }
+
+    public static int getReportBuildQueueSize() {
+        return RESOURCES.getIntegerProperty("report.build.queue.size", 10);
+    }
+
+    public static int getReportBuildTimeoutSeconds() {
+        return RESOURCES.getIntegerProperty("report.build.timeout.seconds", 600);
+    }
+
+    /**
+     * @return pages of filled report kept in memory, others are swapped to temporary file; 0 disables swapping
+     */
+    public static int getReportVirtualizerMaxPages() {
+        return RESOURCES.getIntegerProperty("report.virtualizer.maxPages", 100);
+    }
+
+    public static int getReportCompiledCacheSize() {
+        return RESOURCES.getIntegerProperty("report.compiled.cache.size", 50);
+    }
+
+    /**
+     * @return time to reuse built reports for same parameters, reused report does not show data changed after it was built; 0 disables reusing
+     */
+    public static int getReportResultCacheTtlSeconds() {
+        return RESOURCES.getIntegerProperty("report.result.cache.ttl.seconds", 300);
+    }
+
 }
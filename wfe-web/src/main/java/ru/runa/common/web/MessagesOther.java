@@ -43,4 +43,16 @@ public class MessagesOther {
     public static final StrutsMessage LABEL_EXPORT = new StrutsMessage("label.export");
 
     public static final StrutsMessage TITLE_EXPORTED_USER_TASK_LIST = new StrutsMessage("title.export.user_task_list");
+
+    public static final StrutsMessage TITLE_SERVICE_METRICS = new StrutsMessage("title.service_metrics");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_SINCE = new StrutsMessage("label.service_metrics_since");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_DUMP = new StrutsMessage("label.service_metrics_dump");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_METHOD = new StrutsMessage("label.service_metrics_method");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_CALLS = new StrutsMessage("label.service_metrics_calls");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_ERRORS = new StrutsMessage("label.service_metrics_errors");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_THROUGHPUT = new StrutsMessage("label.service_metrics_throughput");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_TOTAL = new StrutsMessage("label.service_metrics_total");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_MEAN = new StrutsMessage("label.service_metrics_mean");
+    public static final StrutsMessage LABEL_SERVICE_METRICS_MAX = new StrutsMessage("label.service_metrics_max");
+    public static final StrutsMessage BUTTON_RESET_SERVICE_METRICS = new StrutsMessage("button.reset_service_metrics");
 }
@@ -14,6 +14,8 @@ import org.apache.struts.action.ActionMapping;
 
 import ru.runa.common.web.HTMLUtils;
 import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.var.file.FileVariable;
+import ru.runa.wfe.var.file.FileVariableUtils;
 import ru.runa.wfe.var.file.IFileVariable;
 
 public class GetSessionFileAction extends Action {
@@ -24,20 +26,19 @@ public class GetSessionFileAction extends Action {
         String fileName = request.getParameter("fileName");
         try {
             Object object = request.getSession().getAttribute(fileName);
-            byte[] data;
+            IFileVariable fileVariable;
             if (object instanceof IFileVariable) {
-                IFileVariable fileVariable = (IFileVariable) object;
+                fileVariable = (IFileVariable) object;
                 response.setContentType(fileVariable.getContentType());
-                data = fileVariable.getData();
             } else if (object instanceof byte[]) {
-                data = (byte[]) object;
+                fileVariable = new FileVariable(fileName, (byte[]) object, null);
             } else {
                 throw new InternalApplicationException("Unexpected session object: " + object);
             }
             String encodedFileName = HTMLUtils.encodeFileName(request, fileName);
             response.setHeader("Content-disposition", "attachment; filename=\"" + encodedFileName + "\"");
             OutputStream os = response.getOutputStream();
-            os.write(data);
+            FileVariableUtils.transferTo(fileVariable, 0, FileVariableUtils.getSize(fileVariable), os);
             os.flush();
             request.getSession().removeAttribute(fileName);
         } catch (Exception e) {
@@ -47,6 +47,7 @@ public class TabHeaderForwardAction extends ForwardAction {
             while (it.hasNext()) {
                 UploadedFile file = it.next();
                 if (file.isFlagFor1095()) {
+                    file.deleteContent();
                     it.remove();
                 }
             }
@@ -0,0 +1,308 @@
+/*
+ * This file is part of the RUNA WFE project.
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation; version 2.1
+ * of the License.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.report.web;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRLoader;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import ru.runa.common.WebResources;
+import ru.runa.common.web.HTMLUtils;
+import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.commons.ApplicationContextFactory;
+import ru.runa.wfe.report.ReportFormatterImpl;
+import ru.runa.wfe.report.dto.ReportDto;
+import ru.runa.wfe.report.impl.ReportGenerationType;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.io.Files;
+
+/**
+ * Builds reports in bounded worker pool. Compiled reports are cached by report version, filled reports are swapped to temporary files when they
+ * are large, exported reports are kept in temporary files and reused for same parameters during configured time.
+ * <p>
+ * Reused report does not reflect data changed after it was built, so result cache time must be kept short (or set to 0) for reports on often
+ * changed data. Redeployed report gets new version (checksum of compiled report) and is never served from result built by previous version.
+ *
+ * @since 4.3.0
+ */
+public class ReportBuilder {
+    private static final Log log = LogFactory.getLog(ReportBuilder.class);
+    private static final ReportBuilder INSTANCE = new ReportBuilder();
+
+    private final Cache<String, JasperReport> compiledReports;
+    private final Cache<String, BuiltReport> builtReports;
+    private final ThreadPoolExecutor executor;
+
+    public static ReportBuilder getInstance() {
+        return INSTANCE;
+    }
+
+    private ReportBuilder() {
+        compiledReports = CacheBuilder.newBuilder().maximumSize(WebResources.getReportCompiledCacheSize()).build();
+        builtReports = CacheBuilder.newBuilder().expireAfterWrite(Math.max(WebResources.getReportResultCacheTtlSeconds(), 1), TimeUnit.SECONDS)
+                .removalListener(new RemovalListener<String, BuiltReport>() {
+
+                    @Override
+                    public void onRemoval(RemovalNotification<String, BuiltReport> notification) {
+                        // file is deleted when last reader finishes
+                        notification.getValue().discard();
+                    }
+                }).build();
+        int threadsCount = WebResources.getReportBuildThreadsCount();
+        executor = new ThreadPoolExecutor(threadsCount, threadsCount, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(
+                WebResources.getReportBuildQueueSize()), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ReportBuilder-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Builds report (or takes recently built one with same parameters) and writes it to response.
+     *
+     * @param parameters
+     *            parsed report parameters
+     */
+    public void buildReport(ReportDto report, Map<String, Object> parameters, ReportGenerationType generationType, HttpServletRequest request,
+            HttpServletResponse response) throws Exception {
+        String reportVersion = report.getId() + "." + getChecksum(report.getCompiledReport());
+        String resultKey = null;
+        if (generationType.isResultReusable() && WebResources.getReportResultCacheTtlSeconds() > 0) {
+            resultKey = reportVersion + "." + generationType + "." + new TreeMap<String, Object>(parameters);
+        }
+        BuiltReport builtReport = resultKey != null ? acquireBuiltReport(resultKey) : null;
+        boolean cached = builtReport != null;
+        if (builtReport == null) {
+            builtReport = build(reportVersion, report, parameters, generationType, request);
+            builtReport.acquire();
+            if (resultKey != null) {
+                // report built concurrently for same parameters remains in cache
+                cached = builtReports.asMap().putIfAbsent(resultKey, builtReport) == null;
+            }
+        } else {
+            log.debug("Reusing " + builtReport.fileName + " built for " + resultKey);
+        }
+        try {
+            write(builtReport, request, response);
+        } finally {
+            if (!cached) {
+                builtReport.discard();
+            }
+            builtReport.release();
+        }
+    }
+
+    /**
+     * @return cached report acquired for reading or <code>null</code>
+     */
+    private BuiltReport acquireBuiltReport(String resultKey) {
+        BuiltReport builtReport = builtReports.getIfPresent(resultKey);
+        if (builtReport == null || !builtReport.acquire()) {
+            return null;
+        }
+        if (!builtReport.file.exists()) {
+            builtReport.release();
+            builtReports.asMap().remove(resultKey, builtReport);
+            return null;
+        }
+        return builtReport;
+    }
+
+    private BuiltReport build(String reportVersion, ReportDto report, Map<String, Object> parameters, ReportGenerationType generationType,
+            HttpServletRequest request) throws Exception {
+        JasperReport jasperReport = getCompiledReport(reportVersion, report);
+        generationType.setParameters(parameters);
+        parameters.put("DataFormatter", new ReportFormatterImpl());
+        JRSwapFileVirtualizer virtualizer = null;
+        int virtualizerMaxPages = WebResources.getReportVirtualizerMaxPages();
+        if (virtualizerMaxPages > 0) {
+            JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"), 4096, 100);
+            virtualizer = new JRSwapFileVirtualizer(virtualizerMaxPages, swapFile, true);
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+        }
+        try {
+            JasperPrint jasperPrint = fill(jasperReport, parameters);
+            if (virtualizer != null) {
+                virtualizer.setReadOnly(true);
+            }
+            File file = File.createTempFile("report", ".tmp");
+            OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            try {
+                String fileName = generationType.exportReport(report.getName(), request, jasperPrint, outputStream);
+                outputStream.close();
+                return new BuiltReport(fileName, file);
+            } catch (Exception e) {
+                outputStream.close();
+                file.delete();
+                throw e;
+            }
+        } finally {
+            if (virtualizer != null) {
+                virtualizer.cleanup();
+            }
+        }
+    }
+
+    private JasperPrint fill(JasperReport jasperReport, Map<String, Object> parameters) throws Exception {
+        Future<JasperPrint> future;
+        try {
+            future = executor.submit(new FillReportTask(jasperReport, parameters));
+        } catch (RejectedExecutionException e) {
+            throw new InternalApplicationException("Too many reports are being built now, try again later");
+        }
+        try {
+            return future.get(WebResources.getReportBuildTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new InternalApplicationException("Report was not built in " + WebResources.getReportBuildTimeoutSeconds() + " seconds");
+        } catch (ExecutionException e) {
+            Throwables.propagateIfPossible(e.getCause(), Exception.class);
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private JasperReport getCompiledReport(String reportVersion, ReportDto report) throws JRException {
+        JasperReport jasperReport = compiledReports.getIfPresent(reportVersion);
+        if (jasperReport == null) {
+            jasperReport = (JasperReport) JRLoader.loadObject(new ByteArrayInputStream(report.getCompiledReport()));
+            compiledReports.put(reportVersion, jasperReport);
+        }
+        return jasperReport;
+    }
+
+    private void write(BuiltReport builtReport, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/pdf");
+        String encodedFileName = HTMLUtils.encodeFileName(request, builtReport.fileName);
+        response.setHeader("Content-disposition", "attachment; filename=\"" + encodedFileName + "\"");
+        response.setHeader("Content-Length", String.valueOf(builtReport.file.length()));
+        OutputStream os = response.getOutputStream();
+        Files.copy(builtReport.file, os);
+        os.flush();
+    }
+
+    private static String getChecksum(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static class FillReportTask implements Callable<JasperPrint> {
+        private final JasperReport jasperReport;
+        private final Map<String, Object> parameters;
+
+        public FillReportTask(JasperReport jasperReport, Map<String, Object> parameters) {
+            this.jasperReport = jasperReport;
+            this.parameters = parameters;
+        }
+
+        @Override
+        public JasperPrint call() throws Exception {
+            Connection connection = DataSourceUtils.getConnection(ApplicationContextFactory.getDataSource());
+            try {
+                return JasperFillManager.fillReport(jasperReport, parameters, connection);
+            } finally {
+                DataSourceUtils.releaseConnection(connection, ApplicationContextFactory.getDataSource());
+            }
+        }
+    }
+
+    /**
+     * Exported report file. File is deleted after report is discarded and all readers released it.
+     */
+    private static class BuiltReport {
+        private final String fileName;
+        private final File file;
+        private int readersCount;
+        private boolean discarded;
+
+        public BuiltReport(String fileName, File file) {
+            this.fileName = fileName;
+            this.file = file;
+        }
+
+        /**
+         * @return false if report is already discarded and must not be read
+         */
+        public synchronized boolean acquire() {
+            if (discarded) {
+                return false;
+            }
+            readersCount++;
+            return true;
+        }
+
+        public synchronized void release() {
+            readersCount--;
+            deleteIfUnused();
+        }
+
+        public synchronized void discard() {
+            discarded = true;
+            deleteIfUnused();
+        }
+
+        private void deleteIfUnused() {
+            if (discarded && readersCount == 0 && !file.delete() && file.exists()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+}
@@ -77,6 +77,9 @@ public abstract class BaseDeployReportAction extends ActionBase {
             String category = Joiner.on(Utils.CATEGORY_DELIMITER).join(CategoriesSelectUtils.extract(request));
             ReportDto report = new ReportDto(deployForm.getId(), reportName, reportDescription, category, parameters);
             doAction(getLoggedUser(request), report, file);
+            for (UploadedFile uploadedFile : uploadedJasperFiles.values()) {
+                uploadedFile.deleteContent();
+            }
             uploadedJasperFiles.clear();
         } catch (Exception e) {
             addError(request, e);
@@ -1,5 +1,6 @@
 package ru.runa.wf.web;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Hashtable;
@@ -33,7 +34,7 @@ import ru.runa.wfe.user.User;
 import ru.runa.wfe.var.IVariableProvider;
 import ru.runa.wfe.var.UserTypeMap;
 import ru.runa.wfe.var.VariableDefinition;
-import ru.runa.wfe.var.file.FileVariable;
+import ru.runa.wfe.var.file.TemporaryFileVariable;
 import ru.runa.wfe.var.format.BooleanFormat;
 import ru.runa.wfe.var.format.ExecutorFormat;
 import ru.runa.wfe.var.format.FormatCommons;
@@ -364,7 +365,12 @@ public class FormSubmissionUtils {
                     if (contentType == null) {
                         contentType = "application/octet-stream";
                     }
-                    return new FileVariable(formFile.getFileName(), formFile.getFileData(), contentType);
+                    InputStream in = formFile.getInputStream();
+                    try {
+                        return TemporaryFileVariable.create(formFile.getFileName(), contentType, in);
+                    } finally {
+                        in.close();
+                    }
                 }
                 if (SystemProperties.isV3CompatibilityMode() || !WebResources.isAjaxFileInputEnabled()) {
                     return IGNORED_VALUE;
@@ -375,11 +381,11 @@ public class FormSubmissionUtils {
                     // for process update value
                     return uploadedFile.getFileVariable();
                 }
-                if (uploadedFile.getContent() == null) {
+                if (uploadedFile.getContentFileVariable() == null) {
                     // null for display component
                     return IGNORED_VALUE;
                 }
-                return new FileVariable(uploadedFile.getName(), uploadedFile.getContent(), uploadedFile.getMimeType());
+                return uploadedFile.getContentFileVariable();
             } else if (value instanceof String) {
                 String valueToFormat = ((String) value).trim();
                 try {
@@ -414,6 +420,17 @@ public class FormSubmissionUtils {
         return inputsMap;
     }
 
+    /**
+     * Removes uploaded files from session deleting their content.
+     */
+    public static void clearUploadedFiles(HttpServletRequest request) {
+        Map<String, UploadedFile> map = getUploadedFilesMap(request);
+        for (UploadedFile file : map.values()) {
+            file.deleteContent();
+        }
+        map.clear();
+    }
+
     public static Map<String, UploadedFile> getUploadedFilesMap(HttpServletRequest request) {
         Map<String, UploadedFile> map = (Map<String, UploadedFile>) request.getSession().getAttribute(TASK_UPLOADED_FILES);
         if (map == null) {
@@ -82,8 +82,9 @@ public class BulkDeployProcessDefinitionAction extends ActionBase {
                 }
             }
             for (String key : successKeys) {
-                if (uploadedParFiles.containsKey(key)) {
-                    uploadedParFiles.remove(key);
+                UploadedFile uploadedFile = uploadedParFiles.remove(key);
+                if (uploadedFile != null) {
+                    uploadedFile.deleteContent();
                 }
             }
             return getSuccessAction(mapping);
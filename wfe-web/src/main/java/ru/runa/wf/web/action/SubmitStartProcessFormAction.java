@@ -62,7 +62,7 @@ public class SubmitStartProcessFormAction extends BaseProcessFormAction {
         WfDefinition definition = Delegates.getDefinitionService().getProcessDefinition(user, definitionId);
         log.debug(user + " submitted start form for definition " + definition.getName());
         Long processId = Delegates.getExecutionService().startProcess(user, definition.getName(), variables);
-        FormSubmissionUtils.getUploadedFilesMap(request).clear();
+        FormSubmissionUtils.clearUploadedFiles(request);
         return processId;
     }
 
@@ -68,7 +68,7 @@ public class SubmitTaskFormAction extends BaseProcessFormAction {
         String transitionName = form.getSubmitButton();
         variables.put(WfProcess.SELECTED_TRANSITION_KEY, transitionName);
         Delegates.getTaskService().completeTask(user, taskId, variables, form.getActorId());
-        FormSubmissionUtils.getUploadedFilesMap(request).clear();
+        FormSubmissionUtils.clearUploadedFiles(request);
         return processId;
     }
 
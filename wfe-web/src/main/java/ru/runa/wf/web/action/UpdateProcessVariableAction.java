@@ -65,7 +65,7 @@ public class UpdateProcessVariableAction extends ActionBase {
             addError(request, e);
             return Commons.forward(mapping.findForward(Resources.FORWARD_FAILURE), params);
         }
-        FormSubmissionUtils.getUploadedFilesMap(request).clear();
+        FormSubmissionUtils.clearUploadedFiles(request);
         return Commons.forward(mapping.findForward(Resources.FORWARD_SUCCESS), params);
     }
 
@@ -30,6 +30,7 @@ import ru.runa.common.web.HTMLUtils;
 import ru.runa.common.web.action.ActionBase;
 import ru.runa.wf.web.form.VariableForm;
 import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.var.file.FileVariableUtils;
 import ru.runa.wfe.var.file.IFileVariable;
 
 /**
@@ -52,8 +53,22 @@ public class VariableDownloaderAction extends ActionBase {
             // non-ascii filenames (Opera does not support it)
             String encodedFileName = HTMLUtils.encodeFileName(request, fileVariable.getName());
             response.setHeader("Content-Disposition", "attachment; filename=\"" + encodedFileName + "\"");
+            response.setHeader("Accept-Ranges", "bytes");
+            long size = FileVariableUtils.getSize(fileVariable);
+            long[] range = parseRange(request.getHeader("Range"), size);
+            if (range == null) {
+                response.setHeader("Content-Range", "bytes */" + size);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return null;
+            }
+            long length = range[1] - range[0] + 1;
+            if (length != size) {
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + size);
+            }
+            response.setHeader("Content-Length", String.valueOf(length));
             OutputStream os = response.getOutputStream();
-            os.write(fileVariable.getData());
+            FileVariableUtils.transferTo(fileVariable, range[0], length, os);
             os.flush();
         } catch (Exception e) {
             log.error("", e);
@@ -61,6 +76,42 @@ public class VariableDownloaderAction extends ActionBase {
         return null;
     }
 
+    /**
+     * Parses single byte range.
+     *
+     * @return first and last byte positions, whole content for absent or unsupported header, <code>null</code> for unsatisfiable range
+     */
+    static long[] parseRange(String header, long size) {
+        long[] whole = new long[] { 0, size - 1 };
+        if (header == null || !header.startsWith("bytes=") || header.contains(",")) {
+            return whole;
+        }
+        String range = header.substring("bytes=".length()).trim();
+        int dashIndex = range.indexOf('-');
+        if (dashIndex == -1) {
+            return whole;
+        }
+        try {
+            String first = range.substring(0, dashIndex).trim();
+            String last = range.substring(dashIndex + 1).trim();
+            if (first.isEmpty()) {
+                long suffixLength = Long.parseLong(last);
+                if (suffixLength <= 0) {
+                    return null;
+                }
+                return new long[] { Math.max(size - suffixLength, 0), size - 1 };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size || start > end) {
+                return null;
+            }
+            return new long[] { start, end };
+        } catch (NumberFormatException e) {
+            return whole;
+        }
+    }
+
     private IFileVariable getVariable(ActionForm actionForm, HttpServletRequest request) {
         VariableForm form = (VariableForm) actionForm;
         if (form.getLogId() != null) {
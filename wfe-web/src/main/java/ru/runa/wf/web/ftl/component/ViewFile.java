@@ -22,6 +22,7 @@ import java.util.Map;
 
 import ru.runa.wfe.commons.ftl.FormComponent;
 import ru.runa.wfe.commons.web.WebHelper;
+import ru.runa.wfe.var.file.FileVariableUtils;
 import ru.runa.wfe.var.file.IFileVariable;
 
 import com.google.common.base.Charsets;
@@ -48,7 +49,7 @@ public class ViewFile extends FormComponent {
             }
             return content;
         } else if ("contentlength".equals(view)) {
-            return fileVariable.getData().length;
+            return FileVariableUtils.getSize(fileVariable);
         } else if ("contenttype".equals(view)) {
             return fileVariable.getContentType();
         } else if ("raw".equals(view)) {
@@ -699,7 +699,7 @@ public class ViewUtil {
                 file = new UploadedFile(value);
                 if (enabled) {
                     // #766, load file content only for input file component
-                    file.setContent(value.getData());
+                    file.setFileVariableContent(true);
                 }
                 String fileKey = id + FormSubmissionUtils.FILES_MAP_QUALIFIER + variableName;
                 FormSubmissionUtils.getUploadedFilesMap(webHelper.getRequest()).put(fileKey, file);
@@ -0,0 +1,143 @@
+package ru.runa.wf.web.html;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.jsp.PageContext;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.apache.ecs.html.A;
+import org.apache.ecs.html.TD;
+import org.apache.ecs.html.TR;
+
+import ru.runa.common.WebResources;
+import ru.runa.common.web.Commons;
+import ru.runa.common.web.MessagesOther;
+import ru.runa.common.web.Resources;
+import ru.runa.common.web.StrutsWebHelper;
+import ru.runa.common.web.html.RowBuilder;
+import ru.runa.wf.web.MessagesProcesses;
+import ru.runa.wf.web.ftl.component.ViewUtil;
+import ru.runa.wfe.commons.web.PortletUrlType;
+import ru.runa.wfe.service.delegate.Delegates;
+import ru.runa.wfe.user.User;
+import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummary;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Builds rows for page of process variables. Values within {@link WebResources#getProcessVariablesValueLimit()} are loaded for all rows
+ * at once, larger values and files are summarized with link to show full value. Not defined variables are shown by stored string
+ * representation.
+ *
+ * @since 4.3.0
+ */
+public class ProcessVariableSummariesRowBuilder implements RowBuilder {
+    public static final String VARIABLE_NAME_PARAMETER = "variableName";
+    private int index = 0;
+    private final List<WfVariableSummary> summaries;
+    private final PageContext pageContext;
+    private final Long processId;
+    private final String action;
+    private final int valueLimit = WebResources.getProcessVariablesValueLimit();
+    private final Map<String, WfVariable> variables = Maps.newHashMap();
+
+    /**
+     * @param action
+     *            action of page displaying single variable by {@link #VARIABLE_NAME_PARAMETER}
+     */
+    public ProcessVariableSummariesRowBuilder(Long processId, List<WfVariableSummary> summaries, String action, PageContext pageContext) {
+        this.summaries = summaries;
+        this.processId = processId;
+        this.action = action;
+        this.pageContext = pageContext;
+        List<String> variableNames = Lists.newArrayList();
+        for (WfVariableSummary summary : summaries) {
+            if (!summary.getDefinition().isSynthetic() && !isLoadedOnDemand(summary)) {
+                variableNames.add(summary.getDefinition().getName());
+            }
+        }
+        if (!variableNames.isEmpty()) {
+            User user = Commons.getUser(pageContext.getSession());
+            List<WfVariable> list = Delegates.getExecutionService().getVariables(user, processId, variableNames);
+            for (int i = 0; i < variableNames.size(); i++) {
+                variables.put(variableNames.get(i), list.get(i));
+            }
+        }
+    }
+
+    /**
+     * File size is not known from its string representation (file name), so files are loaded on demand regardless of it.
+     */
+    private boolean isLoadedOnDemand(WfVariableSummary summary) {
+        return summary.isFile() || summary.getSize() > valueLimit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return index < summaries.size();
+    }
+
+    @Override
+    public TR buildNext() {
+        WfVariableSummary summary = summaries.get(index);
+        TR tr = new TR();
+        TD nameTd = new TD(summary.getDefinition().getName());
+        if (summary.getDefinition().isSynthetic()) {
+            nameTd.setStyle("color: #aaaaaa;");
+        }
+        tr.addElement(nameTd.setClass(Resources.CLASS_LIST_TABLE_TD));
+        tr.addElement(new TD(summary.getDefinition().getFormatLabel()).setClass(Resources.CLASS_LIST_TABLE_TD));
+        TD valueTd;
+        String className = "";
+        if (summary.getDefinition().isSynthetic()) {
+            // not defined variable can not be loaded separately
+            String value = summary.getStringValue();
+            if (value == null) {
+                valueTd = new TD(MessagesOther.LABEL_UNSET_EMPTY_VALUE.message(pageContext));
+            } else if (summary.getSize() > valueLimit) {
+                valueTd = new TD(StringEscapeUtils.escapeHtml(value.substring(0, valueLimit)) + "...");
+            } else {
+                valueTd = new TD(StringEscapeUtils.escapeHtml(value));
+            }
+        } else if (isLoadedOnDemand(summary)) {
+            valueTd = new TD();
+            if (summary.isContainer()) {
+                valueTd.addElement(summary.getSize() + " " + MessagesProcesses.LABEL_VARIABLE_ELEMENTS.message(pageContext));
+            } else if (summary.getSize() > valueLimit) {
+                valueTd.addElement(StringEscapeUtils.escapeHtml(summary.getStringValue().substring(0, valueLimit)) + "...");
+            } else if (summary.getStringValue() != null) {
+                valueTd.addElement(StringEscapeUtils.escapeHtml(summary.getStringValue()));
+            }
+            Map<String, Object> params = Maps.newHashMap();
+            params.put("id", processId);
+            params.put(VARIABLE_NAME_PARAMETER, summary.getDefinition().getName());
+            String url = Commons.getActionUrl(action, params, pageContext, PortletUrlType.Render);
+            valueTd.addElement(" ").addElement(new A(url, MessagesProcesses.LABEL_VARIABLE_SHOW_VALUE.message(pageContext)));
+        } else {
+            User user = Commons.getUser(pageContext.getSession());
+            WfVariable variable = variables.get(summary.getDefinition().getName());
+            Object value = variable != null ? variable.getValue() : null;
+            if (value == null) {
+                valueTd = new TD(MessagesOther.LABEL_UNSET_EMPTY_VALUE.message(pageContext));
+            } else {
+                className = value.getClass().getName();
+                valueTd = new TD(ViewUtil.getOutput(user, new StrutsWebHelper(pageContext), processId, variable));
+            }
+        }
+        if (WebResources.isDisplayVariablesJavaType()) {
+            tr.addElement(new TD(className).setClass(Resources.CLASS_LIST_TABLE_TD));
+        }
+        tr.addElement(valueTd.setClass(Resources.CLASS_LIST_TABLE_TD));
+        index++;
+        return tr;
+    }
+
+    @Override
+    public List<TR> buildNextArray() {
+        return null;
+    }
+
+}
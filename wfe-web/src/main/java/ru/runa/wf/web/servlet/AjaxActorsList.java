@@ -1,7 +1,5 @@
 package ru.runa.wf.web.servlet;
 
-import java.util.List;
-
 import javax.servlet.http.HttpServletRequest;
 
 import org.json.simple.JSONArray;
@@ -11,18 +9,14 @@ import org.json.simple.parser.JSONParser;
 
 import ru.runa.wfe.InternalApplicationException;
 import ru.runa.wfe.commons.web.JsonAjaxCommand;
-import ru.runa.wfe.presentation.BatchPresentation;
-import ru.runa.wfe.presentation.BatchPresentationFactory;
-import ru.runa.wfe.presentation.filter.StringFilterCriteria;
 import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.user.Actor;
 import ru.runa.wfe.user.Executor;
+import ru.runa.wfe.user.ExecutorSearchResult;
 import ru.runa.wfe.user.Group;
 import ru.runa.wfe.user.TemporaryGroup;
 import ru.runa.wfe.user.User;
 
-import com.google.common.base.Strings;
-
 public class AjaxActorsList extends JsonAjaxCommand {
 
     @SuppressWarnings("unchecked")
@@ -38,14 +32,14 @@ public class AjaxActorsList extends JsonAjaxCommand {
             boolean excludeSelf = (Boolean) options.get("excludeme");
             JSONObject root = new JSONObject();
             JSONArray data = new JSONArray();
-            BatchPresentation batchPresentation = getPresentation(target, page.intValue() + 1, perPage.intValue(), hint);
-            Integer count = Delegates.getExecutorService().getExecutorsCount(user, batchPresentation);
+            ExecutorSearchResult result = Delegates.getExecutorService().findExecutorsByNamePrefix(user, "actor".equals(target), hint,
+                    page.intValue() + 1, perPage.intValue());
+            int count = result.getTotalCount();
             Long totalPages = (count + perPage - 1) / perPage;
             root.put("count", count);
             root.put("totalPages", totalPages);
             root.put("page", page);
-            List<? extends Executor> executors = Delegates.getExecutorService().getExecutors(user, batchPresentation);
-            for (Executor executor : executors) {
+            for (Executor executor : result.getExecutors()) {
                 if (isExcluded(user, executor, excludeSelf)) {
                     continue;
                 }
@@ -62,26 +56,6 @@ public class AjaxActorsList extends JsonAjaxCommand {
         }
     }
 
-    private BatchPresentation getPresentation(String target, Integer page, Integer perPage, String hint) {
-        BatchPresentationFactory factory;
-        int filterIndex;
-        if ("actor".equals(target)) {
-            factory = BatchPresentationFactory.ACTORS;
-            filterIndex = 1;
-        } else {
-            factory = BatchPresentationFactory.GROUPS;
-            filterIndex = 0;
-        }
-        BatchPresentation batchPresentation = factory.createDefault();
-        batchPresentation.setRangeSize(perPage);
-        batchPresentation.setFieldsToSort(new int[] { 1 }, new boolean[] { true });
-        if (!Strings.isNullOrEmpty(hint)) {
-            batchPresentation.getFilteredFields().put(filterIndex, new StringFilterCriteria(hint + StringFilterCriteria.ANY_SYMBOLS, true));
-        }
-        batchPresentation.setPageNumber(page);
-        return batchPresentation;
-    }
-
     @SuppressWarnings("unchecked")
     private JSONObject executorToJson(Executor executor) {
         JSONObject r = new JSONObject();
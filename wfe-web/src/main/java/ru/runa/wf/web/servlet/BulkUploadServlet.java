@@ -19,7 +19,6 @@ import org.json.simple.JSONObject;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.Maps;
-import com.google.common.io.ByteStreams;
 
 public class BulkUploadServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
@@ -42,8 +41,9 @@ public class BulkUploadServlet extends HttpServlet {
         Map<String, UploadedFile> uploadedParFiles = getUploadedFilesMap(request);
         if ("delete".equals(action)) {
             String key = request.getParameter("key");
-            if (uploadedParFiles.containsKey(key)) {
-                uploadedParFiles.remove(key);
+            UploadedFile file = uploadedParFiles.remove(key);
+            if (file != null) {
+                file.deleteContent();
             }
         }
         if ("view".equals(action)) {
@@ -84,7 +84,7 @@ public class BulkUploadServlet extends HttpServlet {
                             name = name.substring(index + 1);
                         }
                         file.setName(name);
-                        file.setContent(ByteStreams.toByteArray(item.getInputStream()));
+                        file.setContent(MultipartRequestHandler.spool(item, name));
                         file.setMimeType(item.getContentType());
 
                         key++;
@@ -14,6 +14,8 @@ import org.json.simple.JSONObject;
 import ru.runa.common.web.HTMLUtils;
 import ru.runa.wf.web.FormSubmissionUtils;
 import ru.runa.wfe.InternalApplicationException;
+import ru.runa.wfe.var.file.FileVariableUtils;
+import ru.runa.wfe.var.file.IFileVariable;
 
 import com.google.common.base.Charsets;
 
@@ -54,7 +56,10 @@ public class FileUploadServlet extends HttpServlet {
             throw new InternalApplicationException("id not found");
         }
         if ("delete".equals(action)) {
-            FormSubmissionUtils.getUploadedFilesMap(request).remove(id + FormSubmissionUtils.FILES_MAP_QUALIFIER + inputId);
+            UploadedFile file = FormSubmissionUtils.getUploadedFilesMap(request).remove(id + FormSubmissionUtils.FILES_MAP_QUALIFIER + inputId);
+            if (file != null) {
+                file.deleteContent();
+            }
         }
         if ("view".equals(action)) {
             Map<String, UploadedFile> map = FormSubmissionUtils.getUploadedFilesMap(request);
@@ -63,14 +68,15 @@ public class FileUploadServlet extends HttpServlet {
                 LogFactory.getLog(getClass()).error("No session file found by '" + inputId + "', all files = " + map);
                 return;
             }
-            if (file.getContent() == null && file.getFileVariable() == null) {
+            IFileVariable content = file.getContentFileVariable() != null ? file.getContentFileVariable() : file.getFileVariable();
+            if (content == null) {
                 LogFactory.getLog(getClass()).error("No file content exists for '" + inputId + "'");
                 return;
             }
             response.setContentType(file.getMimeType());
             String encodedFileName = HTMLUtils.encodeFileName(request, file.getName());
             response.setHeader("Content-disposition", "attachment; filename=\"" + encodedFileName + "\"");
-            response.getOutputStream().write(file.getContent() != null ? file.getContent() : file.getFileVariable().getData());
+            FileVariableUtils.transferTo(content, 0, FileVariableUtils.getSize(content), response.getOutputStream());
             response.getOutputStream().flush();
             response.getOutputStream().close();
         }
@@ -1,5 +1,6 @@
 package ru.runa.wf.web.servlet;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 
@@ -10,7 +11,10 @@ import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 
+import ru.runa.wfe.var.file.TemporaryFileVariable;
+
 import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 
 public class MultipartRequestHandler {
 
@@ -54,7 +58,7 @@ public class MultipartRequestHandler {
                             name = name.substring(index + 1);
                         }
                         file.setName(name);
-                        file.setContent(item.get());
+                        file.setContent(spool(item, name));
                         file.setMimeType(item.getContentType());
                     }
                 }
@@ -65,6 +69,23 @@ public class MultipartRequestHandler {
         return inputId;
     }
 
+    /**
+     * Moves uploaded content to temporary file variable, content exceeding in-memory threshold is not copied.
+     */
+    public static TemporaryFileVariable spool(FileItem item, String name) throws IOException {
+        File file = TemporaryFileVariable.createTemporaryFile();
+        try {
+            item.write(file);
+        } catch (Exception e) {
+            file.delete();
+            Throwables.propagateIfPossible(e, IOException.class);
+            throw new IOException(e);
+        } finally {
+            item.delete();
+        }
+        return new TemporaryFileVariable(name, item.getContentType(), file);
+    }
+
     // private static String getFilename(Part part) {
     // for (String cd : part.getHeader("content-disposition").split(";")) {
     // if (cd.trim().startsWith("filename")) {
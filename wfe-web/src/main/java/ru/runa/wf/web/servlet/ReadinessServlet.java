@@ -0,0 +1,49 @@
+/*
+ * This file is part of the RUNA WFE project.
+ * 
+ * This program is free software; you can redistribute it and/or 
+ * modify it under the terms of the GNU Lesser General Public License 
+ * as published by the Free Software Foundation; version 2.1 
+ * of the License. 
+ * 
+ * This program is distributed in the hope that it will be useful, 
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of 
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+ * GNU Lesser General Public License for more details. 
+ * 
+ * You should have received a copy of the GNU Lesser General Public License 
+ * along with this program; if not, write to the Free Software 
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA.
+ */
+package ru.runa.wf.web.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import ru.runa.wfe.commons.logic.StartupWarmUpLogic;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Reports node readiness for load balancer health checks: 200 after startup warm-up is completed, 500 if system startup failed, 503
+ * otherwise.
+ */
+public class ReadinessServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        StartupWarmUpLogic.State state = StartupWarmUpLogic.getState();
+        if (state == StartupWarmUpLogic.State.FAILED) {
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        } else if (state != StartupWarmUpLogic.State.READY) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        }
+        response.setContentType("text/plain");
+        response.getOutputStream().write(StartupWarmUpLogic.getStatus().getBytes(Charsets.UTF_8));
+        response.getOutputStream().flush();
+    }
+}
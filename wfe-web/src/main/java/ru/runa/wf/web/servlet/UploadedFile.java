@@ -1,6 +1,8 @@
 package ru.runa.wf.web.servlet;
 
 import ru.runa.wfe.var.file.IFileVariable;
+import ru.runa.wfe.var.file.IStreamingFileVariable;
+import ru.runa.wfe.var.file.TemporaryFileVariable;
 
 import com.google.common.base.Objects;
 
@@ -18,8 +20,9 @@ public class UploadedFile {
     private String name;
     private String size;
     private String mimeType;
-    private byte[] content;
+    private TemporaryFileVariable content;
     private IFileVariable fileVariable;
+    private boolean fileVariableContent;
 
     /**
      * Bug fix #1095(http://sourceforge.net/p/runawfe/bugs/1095/)
@@ -56,16 +59,54 @@ public class UploadedFile {
         this.mimeType = fileType;
     }
 
+    /**
+     * @return content loaded in memory, use {@link #getContentFileVariable()} for streaming access
+     */
     public byte[] getContent() {
-        return content;
+        IFileVariable contentFileVariable = getContentFileVariable();
+        return contentFileVariable != null ? contentFileVariable.getData() : null;
+    }
+
+    /**
+     * @return uploaded content spooled to disk or file variable if its content is submitted, can be <code>null</code>
+     */
+    public IFileVariable getContentFileVariable() {
+        if (content != null) {
+            return content;
+        }
+        return fileVariableContent ? fileVariable : null;
     }
 
-    public void setContent(byte[] content) {
+    public void setContent(TemporaryFileVariable content) {
         this.content = content;
-        if (content.length > 1024 * 1024) {
-            this.size = content.length / (1024 * 1024) + " Mb";
+        setSize(content.getSize());
+    }
+
+    /**
+     * Marks that content of existing file variable is submitted.
+     */
+    public void setFileVariableContent(boolean fileVariableContent) {
+        this.fileVariableContent = fileVariableContent;
+        if (fileVariableContent && fileVariable instanceof IStreamingFileVariable) {
+            setSize(((IStreamingFileVariable) fileVariable).getSize());
+        }
+    }
+
+    private void setSize(long length) {
+        if (length > 1024 * 1024) {
+            this.size = length / (1024 * 1024) + " Mb";
         } else {
-            this.size = content.length / 1024 + " Kb";
+            this.size = length / 1024 + " Kb";
+        }
+    }
+
+    /**
+     * Deletes uploaded content, called when file leaves session.
+     */
+    public void deleteContent() {
+        if (content != null) {
+            content.delete();
+            content = null;
         }
     }
 
@@ -29,11 +29,15 @@ import org.tldgen.annotations.BodyContent;
 
 import ru.runa.common.WebResources;
 import ru.runa.common.web.Commons;
+import ru.runa.common.web.MessagesBatch;
+import ru.runa.common.web.Resources;
 import ru.runa.common.web.html.HeaderBuilder;
 import ru.runa.common.web.html.RowBuilder;
 import ru.runa.common.web.html.StringsHeaderBuilder;
 import ru.runa.common.web.html.TableBuilder;
 import ru.runa.wf.web.MessagesProcesses;
+import ru.runa.wf.web.action.ShowGraphModeHelper;
+import ru.runa.wf.web.html.ProcessVariableSummariesRowBuilder;
 import ru.runa.wf.web.html.ProcessVariablesRowBuilder;
 import ru.runa.wfe.commons.SystemProperties;
 import ru.runa.wfe.commons.web.PortletUrlType;
@@ -41,7 +45,9 @@ import ru.runa.wfe.execution.ProcessPermission;
 import ru.runa.wfe.security.Permission;
 import ru.runa.wfe.service.delegate.Delegates;
 import ru.runa.wfe.var.dto.WfVariable;
+import ru.runa.wfe.var.dto.WfVariableSummaries;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
@@ -49,6 +55,7 @@ import com.google.common.collect.Maps;
 public class ProcessVariableMonitorTag extends ProcessBaseFormTag {
 
     private static final long serialVersionUID = 161759402000861245L;
+    private static final String PAGE_PARAMETER = "variablesPage";
 
     private Long identifiableId;
 
@@ -84,7 +91,6 @@ public class ProcessVariableMonitorTag extends ProcessBaseFormTag {
             A a = new A(updateVariableUrl, MessagesProcesses.LINK_UPDATE_VARIABLE.message(pageContext));
             updateVariableTR.addElement(new TD(a).addAttribute("align", "right"));
         }
-        List<WfVariable> variables = Delegates.getExecutionService().getVariables(getUser(), getIdentifiableId());
         List<String> headerNames = Lists.newArrayList();
         headerNames.add(MessagesProcesses.LABEL_VARIABLE_NAME.message(pageContext));
         headerNames.add(MessagesProcesses.LABEL_VARIABLE_TYPE.message(pageContext));
@@ -94,8 +100,66 @@ public class ProcessVariableMonitorTag extends ProcessBaseFormTag {
         headerNames.add(MessagesProcesses.LABEL_VARIABLE_VALUE.message(pageContext));
         HeaderBuilder headerBuilder = new StringsHeaderBuilder(headerNames);
 
-        RowBuilder rowBuilder = new ProcessVariablesRowBuilder(getIdentifiableId(), variables, pageContext);
+        String variableName = pageContext.getRequest().getParameter(ProcessVariableSummariesRowBuilder.VARIABLE_NAME_PARAMETER);
+        if (!Strings.isNullOrEmpty(variableName)) {
+            WfVariable variable = Delegates.getExecutionService().getVariable(getUser(), getIdentifiableId(), variableName);
+            List<WfVariable> variables = Lists.newArrayList();
+            if (variable != null) {
+                variables.add(variable);
+            }
+            RowBuilder rowBuilder = new ProcessVariablesRowBuilder(getIdentifiableId(), variables, pageContext);
+            tdFormElement.addElement(new TableBuilder().build(headerBuilder, rowBuilder));
+            Map<String, Object> params = Maps.newHashMap();
+            params.put("id", identifiableId);
+            String url = Commons.getActionUrl(ShowGraphModeHelper.getManageProcessAction(), params, pageContext, PortletUrlType.Render);
+            tdFormElement.addElement(new A(url, MessagesProcesses.LABEL_VARIABLE_ALL.message(pageContext)));
+            return;
+        }
+        int pageSize = WebResources.getProcessVariablesPageSize();
+        int page = getPageNumber();
+        WfVariableSummaries summaries = Delegates.getExecutionService().getVariableSummaries(getUser(), getIdentifiableId(), page * pageSize,
+                pageSize);
+        int count = summaries.getTotalCount();
+        if (page > 0 && page * pageSize >= count) {
+            // variables were removed since page link was built
+            page = 0;
+            summaries = Delegates.getExecutionService().getVariableSummaries(getUser(), getIdentifiableId(), 0, pageSize);
+            count = summaries.getTotalCount();
+        }
+        RowBuilder rowBuilder = new ProcessVariableSummariesRowBuilder(getIdentifiableId(), summaries.getSummaries(),
+                ShowGraphModeHelper.getManageProcessAction(), pageContext);
         tdFormElement.addElement(new TableBuilder().build(headerBuilder, rowBuilder));
+        if (count > pageSize) {
+            TD pagingTD = new TD();
+            pagingTD.addElement(MessagesBatch.PAGING_TOTAL.message(pageContext) + " " + count + " ");
+            if (page > 0) {
+                pagingTD.addElement(createPageLink(page - 1, MessagesBatch.PAGING_PREV_PAGE.message(pageContext))).addElement(" ");
+            }
+            pagingTD.addElement(String.valueOf(page + 1));
+            if ((page + 1) * pageSize < count) {
+                pagingTD.addElement(" ").addElement(createPageLink(page + 1, MessagesBatch.PAGING_NEXT_PAGE.message(pageContext)));
+            }
+            Table pagingTable = new Table();
+            pagingTable.setClass(Resources.CLASS_PAGING_TABLE);
+            pagingTable.addElement(new TR(pagingTD));
+            tdFormElement.addElement(pagingTable);
+        }
+    }
+
+    private int getPageNumber() {
+        String page = pageContext.getRequest().getParameter(PAGE_PARAMETER);
+        if (page != null && page.matches("\\d{1,9}")) {
+            return Integer.parseInt(page);
+        }
+        return 0;
+    }
+
+    private A createPageLink(int page, String text) {
+        Map<String, Object> params = Maps.newHashMap();
+        params.put("id", identifiableId);
+        params.put(PAGE_PARAMETER, page);
+        String url = Commons.getActionUrl(ShowGraphModeHelper.getManageProcessAction(), params, pageContext, PortletUrlType.Render);
+        return new A(url, text);
     }
 
     @Override
@@ -134,6 +134,11 @@
 						<a href="/wfe/monitoring" class="link" target="javamelody">JavaMelody</a>
 					</td>
 				</tr>
+				<tr>
+					<td>
+						<a href="<html:rewrite page="/service_metrics.do" />" class="link"><bean:message key="title.service_metrics" /></a>
+					</td>
+				</tr>
 			</table>
 		</td>
 	</tr>